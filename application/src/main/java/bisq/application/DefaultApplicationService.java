@@ -182,6 +182,8 @@ public class DefaultApplicationService extends ServiceProvider {
     public CompletableFuture<Boolean> initialize() {
         return CompletableFuture.completedFuture(true)
                 .thenCompose(result -> setStateAfter(securityService.initialize(), State.SECURITY_SERVICE_INITIALIZED))
+                // The network data stores are read in the background. They must be read before we receive network data.
+                .thenCompose(result -> persistenceService.getAllPersistedRead())
                 .thenCompose(result -> setStateAfter(networkService.bootstrapToNetwork(), State.NETWORK_BOOTSTRAPPED))
                 .thenCompose(result -> setStateAfter(identityService.initialize(), State.IDENTITY_SERVICE_INITIALIZED))
                 .thenCompose(result -> setStateAfter(daoBridgeService.initialize(), State.DAO_BRIDGE_SERVICE_INITIALIZED))
@@ -74,15 +74,20 @@ public class NetworkApplicationService extends ServiceProvider {
      * We do in parallel as far as possible. If there are dependencies we chain those as sequence.
      */
     public CompletableFuture<Boolean> initialize() {
-        List<CompletableFuture<Boolean>> allFutures = new ArrayList<>();
         // Assuming identityRepository depends on keyPairRepository being initialized... 
-        allFutures.add(securityService.initialize());
-        allFutures.add(networkService.bootstrapToNetwork());
-        // Once all have successfully completed our initialize is complete as well
-        return CompletableFutureUtils.allOf(allFutures)
-                .thenApply(success -> success.stream().allMatch(e -> e))
-                .orTimeout(10, TimeUnit.SECONDS)
-                .thenCompose(CompletableFuture::completedFuture);
+        CompletableFuture<Boolean> securityServiceInitialized = securityService.initialize();
+        // The network data stores are read in the background. They must be read before we receive network data.
+        // Reading large stores can take longer than the timeout of the initialization, so we wait for them before.
+        return persistenceService.getAllPersistedRead()
+                .thenCompose(allPersistedRead -> {
+                    List<CompletableFuture<Boolean>> allFutures = new ArrayList<>();
+                    allFutures.add(securityServiceInitialized);
+                    allFutures.add(networkService.bootstrapToNetwork());
+                    // Once all have successfully completed our initialize is complete as well
+                    return CompletableFutureUtils.allOf(allFutures)
+                            .thenApply(success -> success.stream().allMatch(e -> e))
+                            .orTimeout(10, TimeUnit.SECONDS);
+                });
     }
 
     @Override
@@ -19,7 +19,7 @@ package bisq.common.data;
 
 import bisq.common.encoding.Hex;
 import bisq.common.proto.Proto;
-import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import lombok.Getter;
 
 import java.util.Arrays;
@@ -40,9 +40,12 @@ public class ByteArray implements Proto {
     }
 
     public bisq.common.protobuf.ByteArray toProto() {
-        return bisq.common.protobuf.ByteArray.newBuilder().setBytes(ByteString.copyFrom(bytes)).build();
+        // The bytes are not modified after construction, so we can wrap them without copying.
+        return bisq.common.protobuf.ByteArray.newBuilder().setBytes(UnsafeByteOperations.unsafeWrap(bytes)).build();
     }
 
+    // We copy the bytes instead of keeping the ByteString. If the proto was parsed with aliasing the ByteString is a
+    // view on the whole received frame, which would be kept in memory as long as we keep that instance.
     public static ByteArray fromProto(bisq.common.protobuf.ByteArray proto) {
         return new ByteArray(proto.getBytes().toByteArray());
     }
@@ -0,0 +1,360 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.data;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map which shares its structure with the maps derived from it by plus and minus. It is a hash trie
+ * with 32 children per node, so a change copies only the nodes on the path to the changed entry (about 4 nodes for
+ * 100k entries). This allows taking a snapshot of a map which is changed concurrently in O(1) by keeping a reference
+ * to the current version.
+ */
+public final class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+    // The slots of a node are either null, a Leaf, a Collision or a child node (Object[])
+    private record Leaf<K, V>(int hash, K key, V value) {
+    }
+
+    // Leaves with the same hash
+    private record Collision<K, V>(int hash, Leaf<K, V>[] leaves) {
+    }
+
+    @Nullable
+    private final Object[] root;
+    private final int size;
+
+    private PersistentHashMap(@Nullable Object[] root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        //noinspection unchecked
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(Object key) {
+        return findLeaf(key) != null;
+    }
+
+    @Nullable
+    public V get(Object key) {
+        Leaf<K, V> leaf = findLeaf(key);
+        return leaf != null ? leaf.value() : null;
+    }
+
+    /**
+     * @return A map with the entry added or replaced. This map is not changed.
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        int[] sizeChange = new int[1];
+        Object[] newRoot = put(root, 0, new Leaf<>(hash(key), key, value), sizeChange);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + sizeChange[0]);
+    }
+
+    /**
+     * @return A map without the entry. This map is not changed.
+     */
+    public PersistentHashMap<K, V> minus(Object key) {
+        Object[] newRoot = remove(root, 0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> consumer) {
+        forEach(root, consumer);
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private static int hash(Object key) {
+        int hash = Objects.hashCode(key);
+        return hash ^ (hash >>> 16);
+    }
+
+    @Nullable
+    private Leaf<K, V> findLeaf(Object key) {
+        int hash = hash(key);
+        Object[] node = root;
+        int shift = 0;
+        while (node != null) {
+            Object slot = node[(hash >>> shift) & MASK];
+            if (slot instanceof Object[] child) {
+                node = child;
+                shift += BITS;
+            } else if (slot instanceof Leaf<?, ?> leaf) {
+                //noinspection unchecked
+                return leaf.hash() == hash && Objects.equals(leaf.key(), key) ? (Leaf<K, V>) leaf : null;
+            } else if (slot instanceof Collision<?, ?> collision) {
+                if (collision.hash() != hash) {
+                    return null;
+                }
+                for (Leaf<?, ?> leaf : collision.leaves()) {
+                    if (Objects.equals(leaf.key(), key)) {
+                        //noinspection unchecked
+                        return (Leaf<K, V>) leaf;
+                    }
+                }
+                return null;
+            } else {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static <K, V> Object[] put(@Nullable Object[] node, int shift, Leaf<K, V> leaf, int[] sizeChange) {
+        int index = (leaf.hash() >>> shift) & MASK;
+        Object slot = node != null ? node[index] : null;
+        Object newSlot;
+        if (slot == null) {
+            newSlot = leaf;
+            sizeChange[0] = 1;
+        } else if (slot instanceof Object[] child) {
+            Object[] newChild = put(child, shift + BITS, leaf, sizeChange);
+            if (newChild == child) {
+                return node;
+            }
+            newSlot = newChild;
+        } else if (slot instanceof Leaf<?, ?> existing) {
+            if (existing.hash() == leaf.hash()) {
+                if (Objects.equals(existing.key(), leaf.key())) {
+                    if (existing.value() == leaf.value()) {
+                        return node;
+                    }
+                    newSlot = leaf;
+                } else {
+                    //noinspection unchecked
+                    newSlot = new Collision<>(leaf.hash(), new Leaf[]{existing, leaf});
+                    sizeChange[0] = 1;
+                }
+            } else {
+                // Different hashes differ at latest at the last level, so the leaves get split into a child node
+                Object[] child = put(null, shift + BITS, existing, new int[1]);
+                newSlot = put(child, shift + BITS, leaf, sizeChange);
+            }
+        } else {
+            Collision<?, ?> collision = (Collision<?, ?>) slot;
+            if (collision.hash() == leaf.hash()) {
+                newSlot = putIntoCollision(collision, leaf, sizeChange);
+            } else {
+                Object[] child = new Object[WIDTH];
+                child[(collision.hash() >>> (shift + BITS)) & MASK] = collision;
+                newSlot = put(child, shift + BITS, leaf, sizeChange);
+            }
+        }
+        Object[] newNode = node != null ? node.clone() : new Object[WIDTH];
+        newNode[index] = newSlot;
+        return newNode;
+    }
+
+    private static <K, V> Collision<K, V> putIntoCollision(Collision<?, ?> collision, Leaf<K, V> leaf, int[] sizeChange) {
+        //noinspection unchecked
+        Leaf<K, V>[] leaves = (Leaf<K, V>[]) collision.leaves();
+        for (int i = 0; i < leaves.length; i++) {
+            if (Objects.equals(leaves[i].key(), leaf.key())) {
+                Leaf<K, V>[] newLeaves = leaves.clone();
+                newLeaves[i] = leaf;
+                return new Collision<>(leaf.hash(), newLeaves);
+            }
+        }
+        Leaf<K, V>[] newLeaves = Arrays.copyOf(leaves, leaves.length + 1);
+        newLeaves[leaves.length] = leaf;
+        sizeChange[0] = 1;
+        return new Collision<>(leaf.hash(), newLeaves);
+    }
+
+    /**
+     * @return The same node if the key was not found, or null if the node got empty.
+     */
+    @Nullable
+    private static Object[] remove(@Nullable Object[] node, int shift, int hash, Object key) {
+        if (node == null) {
+            return null;
+        }
+        int index = (hash >>> shift) & MASK;
+        Object slot = node[index];
+        Object newSlot;
+        if (slot instanceof Object[] child) {
+            Object[] newChild = remove(child, shift + BITS, hash, key);
+            if (newChild == child) {
+                return node;
+            }
+            newSlot = newChild;
+        } else if (slot instanceof Leaf<?, ?> leaf) {
+            if (leaf.hash() != hash || !Objects.equals(leaf.key(), key)) {
+                return node;
+            }
+            newSlot = null;
+        } else if (slot instanceof Collision<?, ?> collision) {
+            if (collision.hash() != hash) {
+                return node;
+            }
+            Leaf<?, ?>[] leaves = collision.leaves();
+            int position = -1;
+            for (int i = 0; i < leaves.length; i++) {
+                if (Objects.equals(leaves[i].key(), key)) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position < 0) {
+                return node;
+            }
+            if (leaves.length == 2) {
+                newSlot = leaves[1 - position];
+            } else {
+                Leaf<?, ?>[] newLeaves = new Leaf[leaves.length - 1];
+                System.arraycopy(leaves, 0, newLeaves, 0, position);
+                System.arraycopy(leaves, position + 1, newLeaves, position, leaves.length - position - 1);
+                //noinspection unchecked,rawtypes
+                newSlot = new Collision(hash, newLeaves);
+            }
+        } else {
+            return node;
+        }
+
+        Object[] newNode = node.clone();
+        newNode[index] = newSlot;
+        if (newSlot == null) {
+            for (Object remaining : newNode) {
+                if (remaining != null) {
+                    return newNode;
+                }
+            }
+            return null;
+        }
+        return newNode;
+    }
+
+    private static <K, V> void forEach(@Nullable Object[] node, BiConsumer<? super K, ? super V> consumer) {
+        if (node == null) {
+            return;
+        }
+        for (Object slot : node) {
+            if (slot instanceof Object[] child) {
+                forEach(child, consumer);
+            } else if (slot instanceof Leaf<?, ?> leaf) {
+                //noinspection unchecked
+                consumer.accept((K) leaf.key(), (V) leaf.value());
+            } else if (slot instanceof Collision<?, ?> collision) {
+                for (Leaf<?, ?> leaf : collision.leaves()) {
+                    //noinspection unchecked
+                    consumer.accept((K) leaf.key(), (V) leaf.value());
+                }
+            }
+        }
+    }
+
+    private static class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        // Position in each node from the root to the current node
+        private final Deque<Object[]> nodes = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Leaf<?, ?>[] collisionLeaves;
+        private int collisionPosition;
+        @Nullable
+        private Leaf<?, ?> next;
+
+        private EntryIterator(@Nullable Object[] root) {
+            if (root != null) {
+                nodes.push(root);
+                positions.push(0);
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            //noinspection unchecked
+            Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>((K) next.key(), (V) next.value());
+            advance();
+            return entry;
+        }
+
+        private void advance() {
+            if (collisionLeaves != null && collisionPosition < collisionLeaves.length) {
+                next = collisionLeaves[collisionPosition++];
+                return;
+            }
+            collisionLeaves = null;
+            while (!nodes.isEmpty()) {
+                Object[] node = nodes.peek();
+                int position = positions.pop();
+                if (position == WIDTH) {
+                    nodes.pop();
+                    continue;
+                }
+                positions.push(position + 1);
+                Object slot = node[position];
+                if (slot instanceof Object[] child) {
+                    nodes.push(child);
+                    positions.push(0);
+                } else if (slot instanceof Leaf<?, ?> leaf) {
+                    next = leaf;
+                    return;
+                } else if (slot instanceof Collision<?, ?> collision) {
+                    collisionLeaves = collision.leaves();
+                    collisionPosition = 1;
+                    next = collisionLeaves[0];
+                    return;
+                }
+            }
+            next = null;
+        }
+    }
+}
@@ -27,8 +27,41 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 public class ExecutorFactory {
-    public static final ExecutorService WORKER_POOL = newFixedThreadPool("Worker-pool");
+    /**
+     * PLATFORM uses classic OS threads. VIRTUAL uses virtual threads which are cheap to block on IO, so it allows
+     * many more concurrent blocking socket reads. Virtual threads require a Java 21 runtime, selecting VIRTUAL on an
+     * older runtime fails at startup.
+     */
+    public enum ThreadMode {
+        PLATFORM,
+        VIRTUAL;
+
+        public static final String SYSTEM_PROPERTY = "bisq.threadMode";
+
+        private static ThreadMode fromSystemProperty() {
+            String value = System.getProperty(SYSTEM_PROPERTY, PLATFORM.name());
+            ThreadMode threadMode;
+            try {
+                threadMode = ThreadMode.valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid value for {}: {}. We use platform threads.", SYSTEM_PROPERTY, value);
+                return PLATFORM;
+            }
+            if (threadMode == VIRTUAL && !isVirtualThreadSupported()) {
+                // We do not fall back silently, as the node would not be able to hold the number of connections
+                // it got configured for.
+                throw new IllegalStateException(SYSTEM_PROPERTY + "=" + value + " requires Java 21 or newer. " +
+                        "Java runtime version: " + System.getProperty("java.version"));
+            }
+            return threadMode;
+        }
+    }
+
     public static final AtomicInteger COUNTER = new AtomicInteger(0);
+    // Thread mode for the IO bound pools. Set by system property, as the pools are static and get created before we
+    // have read the application config.
+    public static final ThreadMode THREAD_MODE = ThreadMode.fromSystemProperty();
+    public static final ExecutorService WORKER_POOL = newFixedThreadPool("Worker-pool");
 
     public static void shutdownAndAwaitTermination(ExecutorService executor) {
         shutdownAndAwaitTermination(executor, 100);
@@ -51,6 +84,14 @@ public class ExecutorFactory {
         return Executors.newSingleThreadExecutor(threadFactory);
     }
 
+    public static ExecutorService newSingleThreadExecutor(String name, ThreadMode threadMode) {
+        if (threadMode == ThreadMode.VIRTUAL) {
+            // Keeps the FIFO semantics of a single thread executor
+            return Executors.newSingleThreadExecutor(newVirtualThreadFactory(name + "-" + COUNTER.incrementAndGet()));
+        }
+        return newSingleThreadExecutor(name);
+    }
+
     public static ScheduledExecutorService newSingleThreadScheduledExecutor(String name) {
         ThreadFactory threadFactory = new ThreadFactoryBuilder()
                 .setNameFormat(name + "-" + COUNTER.incrementAndGet())
@@ -74,6 +115,17 @@ public class ExecutorFactory {
         return executorService;
     }
 
+    /**
+     * With VIRTUAL thread mode each task gets a new virtual thread, thus there is no pool size limit. Otherwise, same
+     * as newCachedThreadPool(name).
+     */
+    public static ExecutorService newCachedThreadPool(String name, ThreadMode threadMode) {
+        if (threadMode == ThreadMode.VIRTUAL) {
+            return newVirtualThreadPerTaskExecutor(name);
+        }
+        return newCachedThreadPool(name);
+    }
+
     /**
      * Used when queuing is desired.
      */
@@ -109,4 +161,36 @@ public class ExecutorFactory {
         return new ThreadPoolExecutor(corePoolSize, maximumPoolSize, keepAliveTimeInSec,
                 TimeUnit.MILLISECONDS, workQueue, threadFactory);
     }
+
+    public static boolean isVirtualThreadSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // We use reflection as we still compile for Java versions without virtual threads.
+    // Virtual threads are always daemon threads.
+    private static ThreadFactory newVirtualThreadFactory(String name) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class).invoke(builder, name);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not supported", e);
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+        ThreadFactory threadFactory = newVirtualThreadFactory(name);
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not supported", e);
+        }
+    }
 }
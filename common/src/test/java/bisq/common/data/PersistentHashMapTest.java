@@ -0,0 +1,109 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PersistentHashMapTest {
+    // Key with a configurable hash code for testing hash collisions
+    private record Key(int hash, int id) {
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    public void testPlusAndMinus() {
+        PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+        PersistentHashMap<String, Integer> map = empty.plus("a", 1).plus("b", 2);
+        assertEquals(2, map.size());
+        assertEquals(1, map.get("a"));
+        assertTrue(empty.isEmpty());
+
+        PersistentHashMap<String, Integer> replaced = map.plus("a", 3);
+        assertEquals(2, replaced.size());
+        assertEquals(3, replaced.get("a"));
+        assertEquals(1, map.get("a"));
+
+        PersistentHashMap<String, Integer> removed = replaced.minus("a");
+        assertEquals(1, removed.size());
+        assertNull(removed.get("a"));
+        assertFalse(removed.containsKey("a"));
+        assertTrue(replaced.containsKey("a"));
+        assertTrue(removed.minus("b").isEmpty());
+    }
+
+    @Test
+    public void testVersionsMatchHashMap() {
+        Random random = new Random(1);
+        Map<Object, Integer> expected = new HashMap<>();
+        PersistentHashMap<Object, Integer> map = PersistentHashMap.empty();
+        List<Map<Object, Integer>> expectedVersions = new ArrayList<>();
+        List<PersistentHashMap<Object, Integer>> versions = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            // A third of the keys collide
+            Object key = random.nextInt(3) == 0 ?
+                    new Key(random.nextInt(50), random.nextInt(5)) :
+                    random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                int value = random.nextInt();
+                expected.put(key, value);
+                map = map.plus(key, value);
+            }
+            assertEquals(expected.size(), map.size());
+            if (i % 2000 == 0) {
+                expectedVersions.add(new HashMap<>(expected));
+                versions.add(map);
+            }
+        }
+        expectedVersions.add(expected);
+        versions.add(map);
+
+        // Earlier versions are not affected by later changes
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(expectedVersions.get(i), toHashMap(versions.get(i)));
+        }
+    }
+
+    private static Map<Object, Integer> toHashMap(PersistentHashMap<Object, Integer> map) {
+        Map<Object, Integer> result = new HashMap<>();
+        for (Map.Entry<Object, Integer> entry : map) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        Map<Object, Integer> fromForEach = new HashMap<>();
+        map.forEach(fromForEach::put);
+        assertEquals(result, fromForEach);
+        assertEquals(map.size(), result.size());
+        return result;
+    }
+}
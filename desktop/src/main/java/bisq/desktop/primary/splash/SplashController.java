@@ -21,6 +21,8 @@ import bisq.application.DefaultApplicationService;
 import bisq.desktop.common.threading.UIThread;
 import bisq.desktop.common.view.Controller;
 import bisq.i18n.Res;
+import bisq.persistence.PersistenceClient;
+import bisq.persistence.StartupTimeline;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -41,6 +43,22 @@ public class SplashController implements Controller {
                         Res.get("defaultApplicationService.state." + state.name())));
             }
         });
+
+        // The network data stores are still read in the background when the splash screen is shown
+        applicationService.getPersistenceService().getStartupTimeline().addListener(new StartupTimeline.Listener() {
+            @Override
+            public void onStoreRead(StartupTimeline.StoreRead storeRead) {
+                UIThread.run(() -> model.getPersistenceStatus().setValue(
+                        Res.get("splash.persistence.storeRead", storeRead.fileName(), storeRead.parseTime() + storeRead.applyTime())));
+            }
+
+            @Override
+            public void onPriorityCompleted(PersistenceClient.Priority priority, long elapsed) {
+                if (priority == PersistenceClient.Priority.LOW) {
+                    UIThread.run(() -> model.getPersistenceStatus().setValue(Res.get("splash.persistence.allRead")));
+                }
+            }
+        });
     }
 
     @Override
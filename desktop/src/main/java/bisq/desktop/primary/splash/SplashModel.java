@@ -26,5 +26,6 @@ import lombok.Getter;
 public class SplashModel implements Model {
 
     private final StringProperty status = new SimpleStringProperty();
+    private final StringProperty persistenceStatus = new SimpleStringProperty();
 
 }
\ No newline at end of file
@@ -38,10 +38,14 @@ public class SplashView extends View<VBox, SplashModel, SplashController> {
         Label statusLabel = new Label();
         statusLabel.textProperty().bind(model.getStatus());
 
+        Label persistenceStatusLabel = new Label();
+        persistenceStatusLabel.textProperty().bind(model.getPersistenceStatus());
+
         root.getChildren().addAll(
                 logo,
                 Spacer.height(50),
-                statusLabel
+                statusLabel,
+                persistenceStatusLabel
         );
     }
 
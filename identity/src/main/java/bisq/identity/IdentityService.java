@@ -69,6 +69,11 @@ public class IdentityService implements PersistenceClient<IdentityStore> {
         minPoolSize = config.minPoolSize;
     }
 
+    @Override
+    public Priority getReadPriority() {
+        return Priority.HIGH;
+    }
+
     public CompletableFuture<Boolean> initialize() {
         log.info("initialize");
         initializeActiveIdentities();
@@ -27,11 +27,15 @@ import bisq.network.p2p.ServiceNode;
 import bisq.network.p2p.ServiceNodesByTransport;
 import bisq.network.p2p.message.NetworkMessage;
 import bisq.network.p2p.node.Address;
+import bisq.network.p2p.node.InboundLimiter;
 import bisq.network.p2p.node.Node;
+import bisq.network.p2p.node.OrderedDispatcher;
+import bisq.network.p2p.node.nio.NioEngine;
 import bisq.network.p2p.node.transport.Transport;
 import bisq.network.p2p.services.confidential.ConfidentialMessageService;
 import bisq.network.p2p.services.confidential.MessageListener;
 import bisq.network.p2p.services.data.DataService;
+import bisq.network.p2p.services.data.InventoryScheduler;
 import bisq.network.p2p.services.data.storage.DistributedData;
 import bisq.network.p2p.services.data.storage.StorageService;
 import bisq.network.p2p.services.data.storage.append.AppendOnlyData;
@@ -74,8 +78,19 @@ import static java.util.concurrent.CompletableFuture.supplyAsync;
  */
 @Slf4j
 public class NetworkService implements PersistenceClient<NetworkIdStore> {
-    public static final ExecutorService NETWORK_IO_POOL = ExecutorFactory.newCachedThreadPool("NetworkService.network-IO-pool");
-    public static final ExecutorService DISPATCHER = ExecutorFactory.newSingleThreadExecutor("NetworkService.dispatcher");
+    // With ExecutorFactory.ThreadMode.VIRTUAL the blocking socket IO is done on virtual threads, so the number of
+    // connections is not limited by the max. pool size.
+    public static final ExecutorService NETWORK_IO_POOL = ExecutorFactory.newCachedThreadPool("NetworkService.network-IO-pool",
+            ExecutorFactory.THREAD_MODE);
+    public static final ExecutorService DISPATCHER = ExecutorFactory.newSingleThreadExecutor("NetworkService.dispatcher",
+            ExecutorFactory.THREAD_MODE);
+    // Decodes received messages and handles the events of a connection. Events of one connection are processed in
+    // order, but different connections are processed in parallel.
+    public static final OrderedDispatcher CONNECTION_DISPATCHER = new OrderedDispatcher("NetworkService.connection-dispatcher",
+            Runtime.getRuntime().availableProcessors());
+    // Each Node listener gets notified on its own serial executor running on that pool
+    public static final ExecutorService NODE_LISTENER_POOL = ExecutorFactory.newCachedThreadPool("NetworkService.node-listener-pool",
+            ExecutorFactory.THREAD_MODE);
     private final Map<Transport.Type, Integer> defaultNodePortByTransportType;
 
     public static class InitializeServerResult extends HashMap<Transport.Type, CompletableFuture<Boolean>> {
@@ -101,7 +116,9 @@ public class NetworkService implements PersistenceClient<NetworkIdStore> {
                                 Map<Transport.Type, PeerGroupService.Config> peerGroupServiceConfigByTransport,
                                 Map<Transport.Type, Integer> defaultNodePortByTransportType,
                                 Map<Transport.Type, Set<Address>> seedAddressesByTransport,
-                                Optional<String> socks5ProxyAddress) {
+                                Optional<String> socks5ProxyAddress,
+                                InboundLimiter.Config inboundLimiterConfig,
+                                InventoryScheduler.Config inventorySchedulerConfig) {
     }
 
     @Getter
@@ -127,11 +144,12 @@ public class NetworkService implements PersistenceClient<NetworkIdStore> {
         httpService = new HttpService();
 
         boolean supportsDataService = config.serviceNodeConfig().services().contains(ServiceNode.Service.DATA);
-        dataService = supportsDataService ? Optional.of(new DataService(new StorageService(persistenceService))) : Optional.empty();
+        dataService = supportsDataService ? Optional.of(new DataService(new StorageService(persistenceService), config.inventorySchedulerConfig())) : Optional.empty();
 
         socks5ProxyAddress = config.socks5ProxyAddress;
         supportedTransportTypes = config.supportedTransportTypes();
         serviceNodesByTransport = new ServiceNodesByTransport(config.transportConfig(),
+                config.inboundLimiterConfig(),
                 supportedTransportTypes,
                 config.serviceNodeConfig(),
                 config.peerGroupServiceConfigByTransport,
@@ -147,7 +165,8 @@ public class NetworkService implements PersistenceClient<NetworkIdStore> {
 
     public CompletableFuture<Void> shutdown() {
         return CompletableFutureUtils.allOf(serviceNodesByTransport.shutdown(), httpService.shutdown())
-                .thenCompose(list -> dataService.map(DataService::shutdown).orElse(completedFuture(null)));
+                .thenCompose(list -> dataService.map(DataService::shutdown).orElse(completedFuture(null)))
+                .whenComplete((nil, throwable) -> NioEngine.shutdownInstance());
     }
 
 
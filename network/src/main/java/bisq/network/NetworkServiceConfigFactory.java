@@ -20,7 +20,9 @@ package bisq.network;
 import bisq.common.util.ConfigUtil;
 import bisq.network.p2p.ServiceNode;
 import bisq.network.p2p.node.Address;
+import bisq.network.p2p.node.InboundLimiter;
 import bisq.network.p2p.node.transport.Transport;
+import bisq.network.p2p.services.data.InventoryScheduler;
 import bisq.network.p2p.services.peergroup.PeerGroup;
 import bisq.network.p2p.services.peergroup.PeerGroupService;
 import bisq.network.p2p.services.peergroup.exchange.PeerExchangeStrategy;
@@ -94,7 +96,15 @@ public class NetworkServiceConfigFactory {
                 defaultNodePortByTransportType.put(Transport.Type.CLEAR, portConfig.getInt("clear"));
             }
         }
-        Transport.Config transportConfig = new Transport.Config(baseDir);
+        // Only supported by the clear net transport
+        boolean useNioEngine = typesafeConfig.hasPath("useNioEngine") && typesafeConfig.getBoolean("useNioEngine");
+        Transport.Config transportConfig = new Transport.Config(baseDir, useNioEngine);
+        InboundLimiter.Config inboundLimiterConfig = typesafeConfig.hasPath("inboundLimiterConfig") ?
+                InboundLimiter.Config.from(typesafeConfig.getConfig("inboundLimiterConfig")) :
+                InboundLimiter.Config.DEFAULT;
+        InventoryScheduler.Config inventorySchedulerConfig = typesafeConfig.hasPath("inventorySchedulerConfig") ?
+                InventoryScheduler.Config.from(typesafeConfig.getConfig("inventorySchedulerConfig")) :
+                InventoryScheduler.Config.DEFAULT;
         return new NetworkService.Config(baseDir,
                 transportConfig,
                 supportedTransportTypes,
@@ -102,7 +112,9 @@ public class NetworkServiceConfigFactory {
                 peerGroupServiceConfigByTransport,
                 defaultNodePortByTransportType,
                 seedAddressesByTransport,
-                Optional.empty());
+                Optional.empty(),
+                inboundLimiterConfig,
+                inventorySchedulerConfig);
     }
 
     public static Set<Address> getSeedAddresses(Transport.Type transportType, Config config) {
@@ -24,6 +24,7 @@ import bisq.network.NetworkService;
 import bisq.network.NetworkService.InitializeServerResult;
 import bisq.network.p2p.message.NetworkMessage;
 import bisq.network.p2p.node.Address;
+import bisq.network.p2p.node.InboundLimiter;
 import bisq.network.p2p.node.Node;
 import bisq.network.p2p.node.authorization.UnrestrictedAuthorizationService;
 import bisq.network.p2p.node.transport.Transport;
@@ -58,6 +59,7 @@ public class ServiceNodesByTransport {
     private final Map<Transport.Type, ServiceNode> map = new ConcurrentHashMap<>();
 
     public ServiceNodesByTransport(Transport.Config transportConfig,
+                                   InboundLimiter.Config inboundLimiterConfig,
                                    Set<Transport.Type> supportedTransportTypes,
                                    ServiceNode.Config serviceNodeConfig,
                                    Map<Transport.Type, PeerGroupService.Config> peerGroupServiceConfigByTransport,
@@ -72,7 +74,8 @@ public class ServiceNodesByTransport {
                     supportedTransportTypes,
                     new UnrestrictedAuthorizationService(),
                     transportConfig,
-                    (int) socketTimeout);
+                    (int) socketTimeout,
+                    inboundLimiterConfig);
             Set<Address> seedAddresses = seedAddressesByTransport.get(transportType);
             checkNotNull(seedAddresses, "Seed nodes must be setup for %s", transportType);
             PeerGroupService.Config peerGroupServiceConfig = peerGroupServiceConfigByTransport.get(transportType);
@@ -42,6 +42,14 @@ public interface NetworkMessage extends Proto {
 
     bisq.network.protobuf.NetworkMessage toProto();
 
+    /**
+     * @return False if the message consists mainly of encrypted or otherwise random data, so trying to compress it
+     * would only cost CPU time.
+     */
+    default boolean isCompressible() {
+        return true;
+    }
+
     static NetworkMessage fromProto(bisq.network.protobuf.NetworkMessage proto) {
         switch (proto.getMessageCase()) {
             case CONNECTIONHANDSHAKEREQUEST -> {
@@ -21,10 +21,29 @@ import bisq.common.proto.Proto;
 import bisq.common.util.ProtobufUtils;
 import bisq.network.p2p.node.transport.Transport;
 
+import java.util.EnumSet;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-public record Capability(Address address, Set<Transport.Type> supportedTransportTypes) implements Proto {
+/**
+ * @param features Optional features we support. A feature is only used on a connection if both peers support it.
+ *                 Features unknown to us are ignored.
+ */
+public record Capability(Address address,
+                         Set<Transport.Type> supportedTransportTypes,
+                         Set<Feature> features) implements Proto {
+    public enum Feature {
+        COMPRESSION_DEFLATE_V1,
+        INVENTORY_RECONCILIATION_V1,
+        INVENTORY_BLOOM_FILTER_V1,
+        INVENTORY_PAGING_V1
+    }
+
+    public Capability(Address address, Set<Transport.Type> supportedTransportTypes) {
+        this(address, supportedTransportTypes, EnumSet.allOf(Feature.class));
+    }
+
     public bisq.network.protobuf.Capability toProto() {
         return bisq.network.protobuf.Capability.newBuilder()
                 .setAddress(address.toProto())
@@ -32,6 +51,10 @@ public record Capability(Address address, Set<Transport.Type> supportedTransport
                         .sorted(Enum::compareTo)
                         .map(Enum::name)
                         .collect(Collectors.toList()))
+                .addAllFeatures(features.stream()
+                        .sorted(Enum::compareTo)
+                        .map(Enum::name)
+                        .collect(Collectors.toList()))
                 .build();
     }
 
@@ -39,6 +62,14 @@ public record Capability(Address address, Set<Transport.Type> supportedTransport
         Set<Transport.Type> supportedTransportTypes = proto.getSupportedTransportTypesList().stream()
                 .map(e -> ProtobufUtils.enumFromProto(Transport.Type.class, e))
                 .collect(Collectors.toSet());
-        return new Capability(Address.fromProto(proto.getAddress()), supportedTransportTypes);
+        Set<Feature> features = proto.getFeaturesList().stream()
+                .map(e -> ProtobufUtils.enumFromProto(Feature.class, e))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return new Capability(Address.fromProto(proto.getAddress()), supportedTransportTypes, features);
+    }
+
+    public boolean isFeatureSupported(Capability peersCapability, Feature feature) {
+        return features.contains(feature) && peersCapability.features().contains(feature);
     }
 }
@@ -22,21 +22,28 @@ import bisq.network.NetworkService;
 import bisq.network.p2p.message.NetworkEnvelope;
 import bisq.network.p2p.message.NetworkMessage;
 import bisq.network.p2p.node.authorization.AuthorizationToken;
+import bisq.network.p2p.node.nio.DelimitedFrameCodec;
+import bisq.network.p2p.node.nio.NioChannel;
+import bisq.network.p2p.node.nio.NioEngine;
+import com.google.common.io.CountingInputStream;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
-
-import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.function.Supplier;
 
 /**
  * Represents an inbound or outbound connection to a peer node.
@@ -50,9 +57,16 @@ public abstract class Connection {
 
 
     interface Handler {
-        void handleNetworkMessage(NetworkMessage networkMessage, AuthorizationToken authorizationToken, Connection connection);
+        /**
+         * @return A future which completes once the listeners have processed the message.
+         */
+        CompletableFuture<Void> handleNetworkMessage(NetworkMessage networkMessage,
+                                                     AuthorizationToken authorizationToken,
+                                                     Connection connection);
 
         void handleConnectionClosed(Connection connection, CloseReason closeReason);
+
+        void handleInboundLimitExceeded(Connection connection, InboundLimiter.ShedPolicy shedPolicy);
     }
 
     public interface Listener {
@@ -62,6 +76,8 @@ public abstract class Connection {
     }
 
 
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
     @Getter
     protected final String id = StringUtils.createUid();
     @Getter
@@ -73,108 +89,265 @@ public abstract class Connection {
 
     private final Socket socket;
     private final Handler handler;
+    private final BiConsumer<Connection, Exception> errorHandler;
+    @Getter
+    private final InboundLimiter inboundLimiter;
+    // Frames carry a compression flag if both peers support compression
+    @Getter
+    private final boolean useCompression;
     private final Set<Listener> listeners = new CopyOnWriteArraySet<>();
+    private final Optional<NioEngine> nioEngine;
+    private Optional<NioChannel> nioChannel = Optional.empty();
     private OutputStream outputStream;
-    private InputStream inputStream;
+    private CountingInputStream inputStream;
     @Nullable
     private Future<?> future;
 
     @Getter
     private volatile boolean isStopped;
     private boolean listeningStopped;
-    private final Object writeLock = new Object();
+    // Only used if we do not use the NioEngine. Messages are written by a single writer, so we do not need a lock
+    // around the blocking socket writes (which would pin the carrier thread if we run on virtual threads).
+    private WriteQueue writeQueue;
 
     protected Connection(Socket socket,
+                         Capability myCapability,
                          Capability peersCapability,
                          Load peersLoad,
                          Metrics metrics,
                          Handler handler,
+                         Optional<NioEngine> nioEngine,
+                         InboundLimiter inboundLimiter,
                          BiConsumer<Connection, Exception> errorHandler) {
         this.socket = socket;
         this.peersCapability = peersCapability;
         this.peersLoad = peersLoad;
         this.handler = handler;
         this.metrics = metrics;
+        this.errorHandler = errorHandler;
+        this.inboundLimiter = inboundLimiter;
+        useCompression = myCapability.isFeatureSupported(peersCapability, Capability.Feature.COMPRESSION_DEFLATE_V1);
+
+        // Sockets created by a channel based transport can be served by the NioEngine, otherwise we use a blocking
+        // read loop on a dedicated thread.
+        this.nioEngine = nioEngine.filter(engine -> socket.getChannel() != null);
+        if (this.nioEngine.isPresent()) {
+            return;
+        }
 
         try {
-            outputStream = socket.getOutputStream();
-            inputStream = socket.getInputStream();
+            outputStream = new BufferedOutputStream(socket.getOutputStream(), OUTPUT_BUFFER_SIZE);
+            // Counts the bytes read, so we get the exact size on the wire without re-serializing the received message
+            inputStream = new CountingInputStream(socket.getInputStream());
         } catch (IOException exception) {
             log.error("Could not create objectOutputStream/objectInputStream for socket " + socket, exception);
             errorHandler.accept(this, exception);
             close(CloseReason.EXCEPTION.exception(exception));
             return;
         }
+        writeQueue = new WriteQueue(outputStream,
+                "Connection.write-" + getThreadNameId(),
+                exception -> {
+                    if (!isStopped) {
+                        log.debug("Call shutdown from write queue {} due exception={}", this, exception.toString());
+                        close(CloseReason.EXCEPTION.exception(exception));
+                    }
+                });
+    }
+
+    /**
+     * Starts reading from the socket. Must be called once after construction, as the read handlers call back into
+     * this instance and must not see it partly constructed.
+     */
+    void start() {
+        if (isStopped) {
+            return;
+        }
+        if (nioEngine.isPresent()) {
+            nioChannel = Optional.of(nioEngine.get().register(socket.getChannel(), new NioChannel.Handler() {
+                @Override
+                public void onFrame(ByteBuffer frame) {
+                    if (isInputStreamActive()) {
+                        // The message type is not known before parsing, so we apply the rate limit of all frames
+                        // before we spend a queue slot, the copy and the parsing on it.
+                        if (!isWithinFrameRateLimit()) {
+                            return;
+                        }
+                        int numBytes = DelimitedFrameCodec.getDelimitedSize(frame.remaining());
+                        if (!inboundLimiter.tryEnqueue(numBytes)) {
+                            onInboundQueueFull();
+                            return;
+                        }
+                        // We decode on the dispatcher lane of that connection to not block the event loop with
+                        // parsing. The frame is a view on the pooled read buffer and only valid during that call, so
+                        // we copy it once into an array we own. Parsing with aliasing avoids further copies.
+                        byte[] bytes = new byte[frame.remaining()];
+                        frame.get(bytes);
+                        NetworkService.CONNECTION_DISPATCHER.execute(id, () -> {
+                            CompletableFuture<Void> processed = CompletableFuture.completedFuture(null);
+                            try {
+                                if (isInputStreamActive()) {
+                                    var proto = parseFrame(bytes, numBytes);
+                                    NetworkEnvelope networkEnvelope = toNetworkEnvelope(proto, numBytes);
+                                    if (isWithinRateLimit(networkEnvelope)) {
+                                        processed = dispatch(networkEnvelope);
+                                    }
+                                }
+                            } catch (Exception exception) {
+                                handleReadException(exception);
+                            } finally {
+                                processed.whenComplete((nil, throwable) -> inboundLimiter.onDequeued(numBytes));
+                            }
+                        });
+                    }
+                }
+
+                @Override
+                public void onClosed(Exception exception) {
+                    handleReadException(exception);
+                }
+            }));
+            return;
+        }
 
         future = NetworkService.NETWORK_IO_POOL.submit(() -> {
             Thread.currentThread().setName("Connection.read-" + getThreadNameId());
             try {
                 while (isInputStreamActive()) {
-                    var proto = bisq.network.protobuf.NetworkEnvelope.parseDelimitedFrom(inputStream);
+                    long numBytesBefore = inputStream.getCount();
+                    // We read the frame into one array and parse with aliasing, so bytes fields do not get copied
+                    // again by the parser.
+                    byte[] frame = DelimitedFrameCodec.readFrame(inputStream, NioEngine.MAX_FRAME_SIZE);
+                    long numBytes = inputStream.getCount() - numBytesBefore;
+                    var proto = parseFrame(frame, numBytes);
                     // parsing might need some time wo we check again if connection is still active
                     if (isInputStreamActive()) {
-                        checkNotNull(proto, "Proto from NetworkEnvelope.parseDelimitedFrom(inputStream) must not be null");
-                        NetworkEnvelope networkEnvelope = NetworkEnvelope.fromProto(proto);
-                        if (networkEnvelope.getVersion() != NetworkEnvelope.VERSION) {
-                            throw new ConnectionException("Invalid network version. " +
-                                    networkEnvelope.getClass().getSimpleName());
-                        }
-                        NetworkMessage networkMessage = networkEnvelope.getNetworkMessage();
-                        log.debug("Received message: {} at: {}",
-                                StringUtils.truncate(networkMessage.toString(), 200), this);
-                        metrics.onReceived(networkEnvelope);
-                        NetworkService.DISPATCHER.submit(() -> handler.handleNetworkMessage(networkMessage,
-                                networkEnvelope.getAuthorizationToken(),
-                                this));
+                        onReceived(proto, numBytes);
                     }
                 }
             } catch (Exception exception) {
-                //todo StreamCorruptedException from i2p at shutdown. prob it send some text data at shut down
-                if (isInputStreamActive()) {
-                    log.debug("Call shutdown from startListen read handler {} due exception={}", this, exception.toString());
-                    close(CloseReason.EXCEPTION.exception(exception));
-                    // EOFException expected if connection got closed
-                    if (!(exception instanceof EOFException)) {
-                        errorHandler.accept(this, exception);
-                    }
-                }
+                handleReadException(exception);
             }
         });
     }
 
     Connection send(NetworkMessage networkMessage, AuthorizationToken authorizationToken) {
+        // ConnectionException is a CompletionException, so join rethrows it unwrapped.
+        return sendAsync(networkMessage, authorizationToken).join();
+    }
+
+    /**
+     * Adds the message to the outbound queue of the connection.
+     *
+     * @return A future which completes once the message has been written to the socket. If the outbound queue is full
+     * it completes exceptionally with a WriteQueueFullException and the connection stays open. On other failures the
+     * connection gets closed and the future completes exceptionally with a ConnectionException.
+     */
+    CompletableFuture<Connection> sendAsync(NetworkMessage networkMessage, AuthorizationToken authorizationToken) {
         if (isStopped) {
             log.warn("Message not sent as connection has been shut down already. Message={}, Connection={}",
                     StringUtils.truncate(networkMessage.toString(), 200), this);
-            throw new ConnectionClosedException(this);
+            return CompletableFuture.failedFuture(new ConnectionClosedException(this));
         }
-        try {
-            NetworkEnvelope networkEnvelope = new NetworkEnvelope(NetworkEnvelope.VERSION, authorizationToken, networkMessage);
-            synchronized (writeLock) {
-                bisq.network.protobuf.NetworkEnvelope proto = networkEnvelope.toProto();
-                if (!isStopped && proto == null) {
-                    throw new NullPointerException("Proto from networkEnvelope.toProto() must not be null");
+        NetworkEnvelope networkEnvelope = new NetworkEnvelope(NetworkEnvelope.VERSION, authorizationToken, networkMessage);
+        bisq.network.protobuf.NetworkEnvelope proto = networkEnvelope.toProto();
+        if (proto == null) {
+            return CompletableFuture.failedFuture(new ConnectionException("Proto from networkEnvelope.toProto() must not be null"));
+        }
+
+        if (useCompression) {
+            FrameCompression.Frame frame = FrameCompression.encode(proto, networkMessage.isCompressible());
+            return handleWriteResult(write(frame.buffer()), networkMessage, frame.numBytes(), frame);
+        }
+
+        // We serialize the proto only once. The serialized size is memoized by protobuf, so getting the size on the
+        // wire does not require another serialization.
+        int numBytes = DelimitedFrameCodec.getDelimitedSize(proto);
+        CompletableFuture<Void> writeFuture = nioChannel.isPresent() ?
+                write(DelimitedFrameCodec.encode(proto)) :
+                writeQueue.enqueue(proto, this);
+        return handleWriteResult(writeFuture, networkMessage, numBytes, null);
+    }
+
+    /**
+     * Sends a message which got already encoded for multiple peers. The encoded bytes are shared and not copied.
+     * Same failure semantics as {@link #sendAsync(NetworkMessage, AuthorizationToken)}.
+     */
+    CompletableFuture<Connection> sendAsync(EncodedMessage encodedMessage) {
+        if (isStopped) {
+            log.warn("Message not sent as connection has been shut down already. Message={}, Connection={}",
+                    StringUtils.truncate(encodedMessage.getNetworkMessage().toString(), 200), this);
+            return CompletableFuture.failedFuture(new ConnectionClosedException(this));
+        }
+        if (useCompression) {
+            FrameCompression.Frame frame = encodedMessage.getCompressionFrame();
+            return handleWriteResult(writeShared(frame::getBuffer, frame::writeTo),
+                    encodedMessage.getNetworkMessage(),
+                    frame.numBytes(),
+                    frame);
+        }
+        return handleWriteResult(writeShared(encodedMessage::getByteBuffer, encodedMessage::writeTo),
+                encodedMessage.getNetworkMessage(),
+                encodedMessage.getNumBytes(),
+                null);
+    }
+
+    // The NioEngine consumes the buffer, so it gets its own read-only view on the shared content. The blocking write
+    // queue writes the shared array directly.
+    private CompletableFuture<Void> writeShared(Supplier<ByteBuffer> readOnlyBuffer, WriteQueue.Payload payload) {
+        if (nioChannel.isPresent()) {
+            return write(readOnlyBuffer.get());
+        }
+        return writeQueue.enqueue(payload, this);
+    }
+
+    private CompletableFuture<Void> write(ByteBuffer frame) {
+        if (nioChannel.isPresent()) {
+            if (nioChannel.get().getNumPendingWrites() >= WriteQueue.MAX_QUEUE_SIZE) {
+                return CompletableFuture.failedFuture(new WriteQueueFullException(this));
+            }
+            return nioChannel.get().write(frame);
+        } else {
+            return writeQueue.enqueue(frame, this);
+        }
+    }
+
+    private CompletableFuture<Connection> handleWriteResult(CompletableFuture<Void> writeFuture,
+                                                            NetworkMessage networkMessage,
+                                                            int numBytes,
+                                                            @Nullable FrameCompression.Frame frame) {
+        return writeFuture.handle((nil, throwable) -> {
+            if (throwable == null) {
+                metrics.onSent(numBytes);
+                if (frame != null && frame.isCompressed()) {
+                    metrics.onSentCompressed(frame.uncompressedSize(), numBytes);
                 }
-                proto.writeDelimitedTo(outputStream);
-                outputStream.flush();
+                log.debug("Sent {} from {}",
+                        StringUtils.truncate(networkMessage.toString(), 300), this);
+                return this;
+            }
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ?
+                    throwable.getCause() :
+                    throwable;
+            if (cause instanceof ConnectionException connectionException) {
+                throw connectionException;
             }
-            metrics.onSent(networkEnvelope);
-            log.debug("Sent {} from {}",
-                    StringUtils.truncate(networkMessage.toString(), 300), this);
-            return this;
-        } catch (IOException exception) {
             if (!isStopped) {
-                log.debug("Call shutdown from send {} due exception={}", this, exception.toString());
-                close(CloseReason.EXCEPTION.exception(exception));
+                log.debug("Call shutdown from send {} due exception={}", this, cause.toString());
+                close(CloseReason.EXCEPTION.exception(cause));
             }
-            // We wrap any exception (also expected EOFException in case of connection close), to inform the caller 
+            // We wrap any exception (also expected EOFException in case of connection close), to inform the caller
             // that the "send proto" intent failed.
-            throw new ConnectionException(exception);
-        }
+            throw new ConnectionException(cause);
+        });
     }
 
     void stopListening() {
         listeningStopped = true;
+        if (nioChannel.isPresent()) {
+            // We must not close the channel as we still want to send the CloseConnectionMessage.
+            return;
+        }
         try {
             if (inputStream != null) {
                 inputStream.close();
@@ -194,6 +367,10 @@ public abstract class Connection {
         if (future != null) {
             future.cancel(true);
         }
+        nioChannel.ifPresent(NioChannel::close);
+        if (writeQueue != null) {
+            writeQueue.shutdown(this);
+        }
         if (!socket.isClosed()) {
             try {
                 socket.close();
@@ -201,7 +378,7 @@ public abstract class Connection {
                 log.error("Error at socket.close", e);
             }
         }
-        NetworkService.DISPATCHER.submit(() -> {
+        NetworkService.CONNECTION_DISPATCHER.execute(id, () -> {
             handler.handleConnectionClosed(this, closeReason);
             listeners.forEach(listener -> listener.onConnectionClosed(closeReason));
             listeners.clear();
@@ -249,6 +426,98 @@ public abstract class Connection {
                 ", keyId=" + getId() + "]'";
     }
 
+    private void onReceived(bisq.network.protobuf.NetworkEnvelope proto, long numBytes) {
+        if (!isWithinFrameRateLimit()) {
+            return;
+        }
+        NetworkEnvelope networkEnvelope = toNetworkEnvelope(proto, numBytes);
+        if (!isWithinRateLimit(networkEnvelope)) {
+            return;
+        }
+        if (!inboundLimiter.tryEnqueue(numBytes)) {
+            onInboundQueueFull();
+            return;
+        }
+        NetworkService.CONNECTION_DISPATCHER.execute(id, () -> {
+            CompletableFuture<Void> processed = CompletableFuture.completedFuture(null);
+            try {
+                processed = dispatch(networkEnvelope);
+            } finally {
+                processed.whenComplete((nil, throwable) -> inboundLimiter.onDequeued(numBytes));
+            }
+        });
+    }
+
+    private bisq.network.protobuf.NetworkEnvelope parseFrame(byte[] frame, long numBytes) throws IOException {
+        if (!useCompression) {
+            return bisq.network.protobuf.NetworkEnvelope.parseFrom(DelimitedFrameCodec.newAliasingInputStream(frame));
+        }
+        var proto = bisq.network.protobuf.NetworkEnvelope.parseFrom(FrameCompression.decode(frame, NioEngine.MAX_FRAME_SIZE));
+        if (FrameCompression.isCompressed(frame)) {
+            metrics.onReceivedCompressed(proto.getSerializedSize(), numBytes);
+        }
+        return proto;
+    }
+
+    private boolean isWithinRateLimit(NetworkEnvelope networkEnvelope) {
+        String messageType = networkEnvelope.getNetworkMessage().getClass().getSimpleName();
+        if (inboundLimiter.tryAcquire(messageType)) {
+            return true;
+        }
+        log.debug("Rate limit for {} exceeded. We shed the message. Connection={}", messageType, this);
+        metrics.onShedRateLimited(messageType);
+        handler.handleInboundLimitExceeded(this, inboundLimiter.getConfig().shedPolicy());
+        return false;
+    }
+
+    private boolean isWithinFrameRateLimit() {
+        if (inboundLimiter.tryAcquireFrame()) {
+            return true;
+        }
+        log.debug("Frame rate limit exceeded. We shed the message. Connection={}", this);
+        metrics.onShedFrameRateLimited();
+        handler.handleInboundLimitExceeded(this, inboundLimiter.getConfig().shedPolicy());
+        return false;
+    }
+
+    private void onInboundQueueFull() {
+        log.debug("Inbound queue is full. We shed the message. Connection={}", this);
+        metrics.onShedQueueFull();
+        handler.handleInboundLimitExceeded(this, inboundLimiter.getConfig().shedPolicy());
+    }
+
+    private NetworkEnvelope toNetworkEnvelope(bisq.network.protobuf.NetworkEnvelope proto, long numBytes) {
+        NetworkEnvelope networkEnvelope = NetworkEnvelope.fromProto(proto);
+        if (networkEnvelope.getVersion() != NetworkEnvelope.VERSION) {
+            throw new ConnectionException("Invalid network version. " +
+                    networkEnvelope.getClass().getSimpleName());
+        }
+        log.debug("Received message: {} at: {}",
+                StringUtils.truncate(networkEnvelope.getNetworkMessage().toString(), 200), this);
+        metrics.onReceived(numBytes);
+        return networkEnvelope;
+    }
+
+    // Called on the dispatcher lane of that connection. The inbound queue slot of the message is released when the
+    // returned future completes, so messages queued at the listeners count against the limits of the connection.
+    private CompletableFuture<Void> dispatch(NetworkEnvelope networkEnvelope) {
+        return handler.handleNetworkMessage(networkEnvelope.getNetworkMessage(),
+                networkEnvelope.getAuthorizationToken(),
+                this);
+    }
+
+    private void handleReadException(Exception exception) {
+        //todo StreamCorruptedException from i2p at shutdown. prob it send some text data at shut down
+        if (isInputStreamActive()) {
+            log.debug("Call shutdown from startListen read handler {} due exception={}", this, exception.toString());
+            close(CloseReason.EXCEPTION.exception(exception));
+            // EOFException expected if connection got closed
+            if (!(exception instanceof EOFException)) {
+                errorHandler.accept(this, exception);
+            }
+        }
+    }
+
     private String getThreadNameId() {
         return StringUtils.truncate(getPeersCapability().address().toString() + "-" + id.substring(0, 8));
     }
@@ -22,6 +22,7 @@ import bisq.network.p2p.message.NetworkEnvelope;
 import bisq.network.p2p.message.NetworkMessage;
 import bisq.network.p2p.node.authorization.AuthorizationService;
 import bisq.network.p2p.node.authorization.AuthorizationToken;
+import bisq.network.p2p.node.nio.DelimitedFrameCodec;
 import bisq.network.p2p.services.peergroup.BanList;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -125,7 +126,7 @@ public class ConnectionHandshake {
             bisq.network.protobuf.NetworkEnvelope requestProto = requestNetworkEnvelope.toProto();
             requestProto.writeDelimitedTo(outputStream);
             outputStream.flush();
-            metrics.onSent(requestNetworkEnvelope);
+            metrics.onSent(DelimitedFrameCodec.getDelimitedSize(requestProto));
 
             InputStream inputStream = socket.getInputStream();
             var responseProto = bisq.network.protobuf.NetworkEnvelope.parseDelimitedFrom(inputStream);
@@ -145,7 +146,7 @@ public class ConnectionHandshake {
             if (!authorizationService.isAuthorized(responseNetworkEnvelope.getAuthorizationToken())) {
                 throw new ConnectionException("Response authorization failed. response=" + response);
             }
-            metrics.onReceived(responseNetworkEnvelope);
+            metrics.onReceived(DelimitedFrameCodec.getDelimitedSize(responseProto));
             metrics.addRtt(System.currentTimeMillis() - ts);
             log.debug("Servers capability {}, load={}", response.getCapability(), response.getLoad());
             return new Result(response.getCapability(), response.getLoad(), metrics);
@@ -186,7 +187,7 @@ public class ConnectionHandshake {
                 throw new ConnectionException("Request authorization failed. request=" + request);
             }
             log.debug("Clients capability {}, load={}", request.getCapability(), request.getLoad());
-            metrics.onReceived(requestNetworkEnvelope);
+            metrics.onReceived(DelimitedFrameCodec.getDelimitedSize(requestProto));
 
             OutputStream outputStream = socket.getOutputStream();
             AuthorizationToken token = authorizationService.createToken(Response.class);
@@ -195,7 +196,7 @@ public class ConnectionHandshake {
             responseProto.writeDelimitedTo(outputStream);
             outputStream.flush();
 
-            metrics.onSent(responseNetworkEnvelope);
+            metrics.onSent(DelimitedFrameCodec.getDelimitedSize(responseProto));
             metrics.addRtt(System.currentTimeMillis() - ts);
             return new Result(request.getCapability(), request.getLoad(), metrics);
         } catch (Exception e) {
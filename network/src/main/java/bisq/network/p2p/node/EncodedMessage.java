@@ -0,0 +1,96 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import bisq.network.p2p.message.NetworkEnvelope;
+import bisq.network.p2p.message.NetworkMessage;
+import bisq.network.p2p.node.authorization.AuthorizationToken;
+import bisq.network.p2p.node.nio.DelimitedFrameCodec;
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A network message which got serialized (including the length prefix) into a NetworkEnvelope. Used for sending the
+ * same message to multiple peers without serializing it again for each peer. The encoded bytes are never modified,
+ * so the instance can be shared between threads. For peers using compression the message is compressed once on
+ * demand.
+ */
+public final class EncodedMessage {
+    @Getter
+    private final NetworkMessage networkMessage;
+    private final bisq.network.protobuf.NetworkEnvelope proto;
+    private final byte[] bytes;
+    @Nullable
+    private volatile FrameCompression.Frame compressionFrame;
+
+    static EncodedMessage encode(NetworkMessage networkMessage, AuthorizationToken authorizationToken) {
+        NetworkEnvelope networkEnvelope = new NetworkEnvelope(NetworkEnvelope.VERSION, authorizationToken, networkMessage);
+        bisq.network.protobuf.NetworkEnvelope proto = networkEnvelope.toProto();
+        return new EncodedMessage(networkMessage, proto, DelimitedFrameCodec.encode(proto).array());
+    }
+
+    private EncodedMessage(NetworkMessage networkMessage, bisq.network.protobuf.NetworkEnvelope proto, byte[] bytes) {
+        this.networkMessage = networkMessage;
+        this.proto = proto;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return The number of bytes on the wire for connections not using compression.
+     */
+    public int getNumBytes() {
+        return bytes.length;
+    }
+
+    /**
+     * @return A new read-only buffer on the shared bytes with its own position, so each writer can consume it
+     * independently.
+     */
+    ByteBuffer getByteBuffer() {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes the shared bytes directly, without copying them.
+     */
+    void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(bytes);
+    }
+
+    /**
+     * @return The frame for connections using compression. Created at the first call, so the message gets compressed
+     * only once for all peers.
+     */
+    FrameCompression.Frame getCompressionFrame() {
+        FrameCompression.Frame frame = compressionFrame;
+        if (frame == null) {
+            synchronized (this) {
+                frame = compressionFrame;
+                if (frame == null) {
+                    frame = FrameCompression.encode(proto, networkMessage.isCompressible());
+                    compressionFrame = frame;
+                }
+            }
+        }
+        return frame;
+    }
+}
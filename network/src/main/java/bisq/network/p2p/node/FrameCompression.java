@@ -0,0 +1,189 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import bisq.network.p2p.node.nio.DelimitedFrameCodec;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Frame format used on connections where both peers support Capability.Feature.COMPRESSION_DEFLATE_V1.
+ * The frame payload starts with a flag byte telling if the remaining bytes are the serialized NetworkEnvelope or the
+ * deflated serialized NetworkEnvelope. We use a preset dictionary with strings frequently used in our messages,
+ * which improves the compression of small messages. The dictionary must not be changed, otherwise a new feature
+ * version is required.
+ */
+class FrameCompression {
+    /**
+     * @param buffer           The frame including the length prefix. Must not be consumed directly if the frame is
+     *                         sent to multiple peers, use getBuffer instead.
+     * @param numBytes         The size on the wire.
+     * @param uncompressedSize The size of the serialized message.
+     */
+    record Frame(ByteBuffer buffer, int numBytes, int uncompressedSize, boolean isCompressed) {
+        /**
+         * @return A new read-only buffer on the shared content with its own position.
+         */
+        ByteBuffer getBuffer() {
+            return buffer.asReadOnlyBuffer();
+        }
+
+        /**
+         * Writes the shared content directly from its array, without consuming or copying the buffer.
+         */
+        void writeTo(OutputStream outputStream) throws IOException {
+            outputStream.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+        }
+    }
+
+    // Messages smaller than that are not worth the effort
+    static final int MIN_SIZE_FOR_COMPRESSION = 2 * 1024;
+    private static final byte UNCOMPRESSED = 0;
+    private static final byte DEFLATED = 1;
+    private static final byte[] DICTIONARY = ("MetaData" +
+            "AccountAgeWitnessData" +
+            "DaoBridgeData" +
+            "PrivateChatMessage" +
+            "TradeChatMessage" +
+            "PublicChatMessage" +
+            "type.googleapis.com/account." +
+            "type.googleapis.com/oracle." +
+            "type.googleapis.com/social.ChatMessage" +
+            "type.googleapis.com/offer.Offer" +
+            "Offer" +
+            ".onion").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Serializes the message into a length delimited frame with compression flag. The message is compressed if it is
+     * large enough and compression reduces its size.
+     */
+    static Frame encode(MessageLite message, boolean isCompressible) {
+        int size = message.getSerializedSize();
+        if (isCompressible && size >= MIN_SIZE_FOR_COMPRESSION) {
+            byte[] deflated = deflate(message.toByteArray());
+            if (deflated.length < size) {
+                ByteBuffer buffer = toFrame(DEFLATED, deflated.length, output -> output.writeRawBytes(deflated));
+                return new Frame(buffer, buffer.remaining(), size, true);
+            }
+        }
+        ByteBuffer buffer = toFrame(UNCOMPRESSED, size, message::writeTo);
+        return new Frame(buffer, buffer.remaining(), size, false);
+    }
+
+    /**
+     * @param frame        The frame payload (without length prefix).
+     * @param maxFrameSize Max. size of the inflated message, to protect us from decompression bombs.
+     * @return An aliasing input stream on the serialized NetworkEnvelope.
+     */
+    static CodedInputStream decode(byte[] frame, int maxFrameSize) throws IOException {
+        if (frame.length == 0) {
+            throw new IOException("Missing compression flag");
+        }
+        if (frame[0] == UNCOMPRESSED) {
+            CodedInputStream codedInputStream = CodedInputStream.newInstance(frame, 1, frame.length - 1);
+            codedInputStream.enableAliasing(true);
+            return codedInputStream;
+        } else if (frame[0] == DEFLATED) {
+            return DelimitedFrameCodec.newAliasingInputStream(inflate(frame, maxFrameSize));
+        } else {
+            throw new IOException("Unknown compression flag " + frame[0]);
+        }
+    }
+
+    static boolean isCompressed(byte[] frame) {
+        return frame.length > 0 && frame[0] == DEFLATED;
+    }
+
+    private interface PayloadWriter {
+        void writeTo(CodedOutputStream outputStream) throws IOException;
+    }
+
+    private static ByteBuffer toFrame(byte flag, int payloadSize, PayloadWriter payloadWriter) {
+        int frameSize = payloadSize + 1;
+        byte[] bytes = new byte[DelimitedFrameCodec.getDelimitedSize(frameSize)];
+        CodedOutputStream outputStream = CodedOutputStream.newInstance(bytes);
+        try {
+            outputStream.writeUInt32NoTag(frameSize);
+            outputStream.writeRawByte(flag);
+            payloadWriter.writeTo(outputStream);
+            outputStream.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // Writing to a byte array does not throw IOExceptions
+            throw new IllegalStateException(e);
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(input.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, length);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] frame, int maxSize) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(frame, 1, frame.length - 1);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.min(frame.length * 2, maxSize));
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARY);
+                        continue;
+                    }
+                    if (inflater.needsInput()) {
+                        throw new IOException("Truncated compressed frame");
+                    }
+                }
+                if (outputStream.size() + length > maxSize) {
+                    throw new IOException("Inflated frame exceeds max. frame size " + maxSize);
+                }
+                outputStream.write(buffer, 0, length);
+            }
+            return outputStream.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed frame", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -17,12 +17,14 @@
 
 package bisq.network.p2p.node;
 
+import bisq.network.p2p.node.nio.NioEngine;
 import bisq.network.p2p.node.transport.Transport;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.net.Socket;
+import java.util.Optional;
 import java.util.function.BiConsumer;
 
 @Slf4j
@@ -35,12 +37,15 @@ public class InboundConnection extends Connection {
 
     InboundConnection(Socket socket,
                       Transport.ServerSocketResult serverSocketResult,
+                      Capability myCapability,
                       Capability peersCapability,
                       Load peersLoad,
                       Metrics metrics,
                       Handler handler,
+                      Optional<NioEngine> nioEngine,
+                      InboundLimiter inboundLimiter,
                       BiConsumer<Connection, Exception> errorHandler) {
-        super(socket, peersCapability, peersLoad, metrics, handler, errorHandler);
+        super(socket, myCapability, peersCapability, peersLoad, metrics, handler, nioEngine, inboundLimiter, errorHandler);
         this.serverSocketResult = serverSocketResult;
         log.debug("Create inboundConnection from server: {}", serverSocketResult);
     }
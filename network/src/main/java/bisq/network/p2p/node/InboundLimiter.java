@@ -0,0 +1,198 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import com.typesafe.config.ConfigValue;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the inbound messages of a connection. The number and the size of received messages which are not yet
+ * processed by the listeners are bounded and each message type has its own token bucket rate limit. Messages exceeding the limits get shed according to the
+ * ShedPolicy.
+ * The message type is only known after parsing. To not spend a queue slot and the parsing on a flooding peer, all
+ * received frames of the connection are limited by the frameRateLimit before they get queued.
+ */
+public class InboundLimiter {
+    public enum ShedPolicy {
+        // Drop the message but keep the connection
+        DROP,
+        // Drop the message and close the connection
+        CLOSE,
+        // Drop the message, close the connection and ban the peer if its address is verified
+        BAN
+    }
+
+    /**
+     * @param messagesPerSecond Rate at which tokens get refilled.
+     * @param burst             Max. number of tokens, thus the max. number of messages we accept at once.
+     */
+    public record RateLimit(double messagesPerSecond, int burst) {
+        public static RateLimit from(com.typesafe.config.Config typesafeConfig) {
+            return new RateLimit(typesafeConfig.getDouble("messagesPerSecond"), typesafeConfig.getInt("burst"));
+        }
+    }
+
+    /**
+     * @param rateLimitByMessageType Rate limits by the simple class name of the NetworkMessage. Message types not
+     *                               contained use the defaultRateLimit.
+     * @param frameRateLimit         Rate limit of all received frames, applied before the message type is known.
+     * @param maxQueuedBytes         Max. size on the wire of the queued messages. A single larger message is accepted
+     *                               if no other message is queued.
+     */
+    public record Config(int maxQueueSize,
+                         ShedPolicy shedPolicy,
+                         RateLimit defaultRateLimit,
+                         Map<String, RateLimit> rateLimitByMessageType,
+                         RateLimit frameRateLimit,
+                         long maxQueuedBytes) {
+        public static final RateLimit DEFAULT_FRAME_RATE_LIMIT = new RateLimit(400, 2000);
+        public static final long DEFAULT_MAX_QUEUED_BYTES = 64 * 1024 * 1024;
+        public static final Config DEFAULT = new Config(1000,
+                ShedPolicy.DROP,
+                new RateLimit(200, 1000),
+                Map.of("InventoryRequest", new RateLimit(5, 20)));
+
+        public Config(int maxQueueSize,
+                      ShedPolicy shedPolicy,
+                      RateLimit defaultRateLimit,
+                      Map<String, RateLimit> rateLimitByMessageType) {
+            this(maxQueueSize, shedPolicy, defaultRateLimit, rateLimitByMessageType, DEFAULT_FRAME_RATE_LIMIT);
+        }
+
+        public Config(int maxQueueSize,
+                      ShedPolicy shedPolicy,
+                      RateLimit defaultRateLimit,
+                      Map<String, RateLimit> rateLimitByMessageType,
+                      RateLimit frameRateLimit) {
+            this(maxQueueSize, shedPolicy, defaultRateLimit, rateLimitByMessageType, frameRateLimit,
+                    DEFAULT_MAX_QUEUED_BYTES);
+        }
+
+        public static Config from(com.typesafe.config.Config typesafeConfig) {
+            Map<String, RateLimit> rateLimitByMessageType = new HashMap<>();
+            if (typesafeConfig.hasPath("rateLimitByMessageType")) {
+                com.typesafe.config.Config config = typesafeConfig.getConfig("rateLimitByMessageType");
+                for (Map.Entry<String, ConfigValue> entry : config.root().entrySet()) {
+                    rateLimitByMessageType.put(entry.getKey(), RateLimit.from(config.getConfig(entry.getKey())));
+                }
+            }
+            RateLimit frameRateLimit = typesafeConfig.hasPath("frameRateLimit") ?
+                    RateLimit.from(typesafeConfig.getConfig("frameRateLimit")) :
+                    DEFAULT_FRAME_RATE_LIMIT;
+            long maxQueuedBytes = typesafeConfig.hasPath("maxQueuedBytes") ?
+                    typesafeConfig.getBytes("maxQueuedBytes") :
+                    DEFAULT_MAX_QUEUED_BYTES;
+            return new Config(typesafeConfig.getInt("maxQueueSize"),
+                    typesafeConfig.getEnum(ShedPolicy.class, "shedPolicy"),
+                    RateLimit.from(typesafeConfig.getConfig("defaultRateLimit")),
+                    rateLimitByMessageType,
+                    frameRateLimit,
+                    maxQueuedBytes);
+        }
+    }
+
+    private static class TokenBucket {
+        private final double tokensPerMs;
+        private final int capacity;
+        private double tokens;
+        private long lastRefill = System.currentTimeMillis();
+
+        private TokenBucket(RateLimit rateLimit) {
+            tokensPerMs = rateLimit.messagesPerSecond() / 1000;
+            capacity = rateLimit.burst();
+            tokens = capacity;
+        }
+
+        private synchronized boolean tryConsume() {
+            long now = System.currentTimeMillis();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerMs);
+            lastRefill = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+
+    @Getter
+    private final Config config;
+    private final Map<String, TokenBucket> tokenBucketByMessageType = new ConcurrentHashMap<>();
+    private final TokenBucket frameTokenBucket;
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    public InboundLimiter(Config config) {
+        this.config = config;
+        frameTokenBucket = new TokenBucket(config.frameRateLimit());
+    }
+
+    /**
+     * @return False if the rate limit for all received frames is exceeded.
+     */
+    boolean tryAcquireFrame() {
+        return frameTokenBucket.tryConsume();
+    }
+
+    /**
+     * @param numBytes Size of the message on the wire.
+     * @return False if the max. number or the max. size of queued messages is reached. Otherwise, the message is
+     * counted as queued until onDequeued is called after the listeners have processed it.
+     */
+    boolean tryEnqueue(long numBytes) {
+        if (queueSize.incrementAndGet() > config.maxQueueSize()) {
+            queueSize.decrementAndGet();
+            return false;
+        }
+        long bytes = queuedBytes.addAndGet(numBytes);
+        if (bytes > config.maxQueuedBytes() && bytes != numBytes) {
+            queuedBytes.addAndGet(-numBytes);
+            queueSize.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    void onDequeued(long numBytes) {
+        queuedBytes.addAndGet(-numBytes);
+        queueSize.decrementAndGet();
+    }
+
+    int getQueueSize() {
+        return queueSize.get();
+    }
+
+    long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    /**
+     * @return False if the rate limit for that message type is exceeded.
+     */
+    boolean tryAcquire(String messageType) {
+        return tokenBucketByMessageType.computeIfAbsent(messageType,
+                        type -> new TokenBucket(config.rateLimitByMessageType().getOrDefault(type, config.defaultRateLimit())))
+                .tryConsume();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram with fixed buckets for latencies in milliseconds. The last bucket collects all values above the
+ * largest bound.
+ */
+public class LatencyHistogram {
+    private static final long[] BUCKET_BOUNDS_MS = {10, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+    private final AtomicLong numValues = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void add(long latencyMs) {
+        int index = Arrays.binarySearch(BUCKET_BOUNDS_MS, latencyMs);
+        // binarySearch returns (-(insertion point) - 1) if the value is not a bound
+        counts.incrementAndGet(index >= 0 ? index : -index - 1);
+        numValues.incrementAndGet();
+        sum.addAndGet(latencyMs);
+        max.accumulateAndGet(latencyMs, Math::max);
+    }
+
+    public long getNumValues() {
+        return numValues.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getAverage() {
+        long num = numValues.get();
+        return num == 0 ? 0 : sum.get() / (double) num;
+    }
+
+    /**
+     * @param percentile Value between 0 and 1.
+     * @return The upper bound of the bucket containing the percentile. For the last bucket the max. value is returned.
+     */
+    public long getPercentile(double percentile) {
+        long num = numValues.get();
+        if (num == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(num * percentile));
+        long accumulated = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            accumulated += counts.get(i);
+            if (accumulated >= target) {
+                return BUCKET_BOUNDS_MS[i];
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("LatencyHistogram{");
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            sb.append("<=").append(BUCKET_BOUNDS_MS[i]).append("ms: ").append(counts.get(i)).append(", ");
+        }
+        sb.append(">").append(BUCKET_BOUNDS_MS[BUCKET_BOUNDS_MS.length - 1]).append("ms: ")
+                .append(counts.get(BUCKET_BOUNDS_MS.length))
+                .append(", avg=").append(Math.round(getAverage()))
+                .append(", max=").append(getMax())
+                .append("}");
+        return sb.toString();
+    }
+}
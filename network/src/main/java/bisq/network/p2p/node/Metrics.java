@@ -17,12 +17,13 @@
 
 package bisq.network.p2p.node;
 
-import bisq.network.p2p.message.NetworkEnvelope;
 import lombok.Getter;
 import lombok.ToString;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -36,6 +37,17 @@ public class Metrics {
     private final AtomicLong numMessagesSent = new AtomicLong();
     private final AtomicLong numMessagesReceived = new AtomicLong();
     private final List<Long> rrtList = new CopyOnWriteArrayList<>();
+    // Time from starting a broadcast until the message was written to this peer
+    private final LatencyHistogram broadcastLatency = new LatencyHistogram();
+    // Size on wire and uncompressed size of compressed messages
+    private final AtomicLong compressedBytesSent = new AtomicLong();
+    private final AtomicLong uncompressedBytesSent = new AtomicLong();
+    private final AtomicLong compressedBytesReceived = new AtomicLong();
+    private final AtomicLong uncompressedBytesReceived = new AtomicLong();
+    // Inbound messages shed by the InboundLimiter
+    private final AtomicLong numShedQueueFull = new AtomicLong();
+    private final AtomicLong numShedFrameRateLimited = new AtomicLong();
+    private final Map<String, AtomicLong> numShedRateLimitedByMessageType = new ConcurrentHashMap<>();
 
     public Metrics() {
         created = new Date().getTime();
@@ -49,18 +61,56 @@ public class Metrics {
         return System.currentTimeMillis() - created;
     }
 
-    public void onSent(NetworkEnvelope networkEnvelope) {
+    /**
+     * @param numBytes Number of bytes written to the wire, including the varint length prefix.
+     */
+    public void onSent(long numBytes) {
         lastUpdate.set(System.currentTimeMillis());
-        sentBytes.addAndGet(networkEnvelope.toProto().getSerializedSize());
+        sentBytes.addAndGet(numBytes);
         numMessagesSent.incrementAndGet();
     }
 
-    public void onReceived(NetworkEnvelope networkEnvelope) {
+    /**
+     * @param numBytes Number of bytes read from the wire, including the varint length prefix.
+     */
+    public void onReceived(long numBytes) {
         lastUpdate.set(System.currentTimeMillis());
-        receivedBytes.addAndGet(networkEnvelope.toProto().getSerializedSize());
+        receivedBytes.addAndGet(numBytes);
         numMessagesReceived.incrementAndGet();
     }
 
+    public void onSentCompressed(long uncompressedSize, long compressedSize) {
+        uncompressedBytesSent.addAndGet(uncompressedSize);
+        compressedBytesSent.addAndGet(compressedSize);
+    }
+
+    public void onReceivedCompressed(long uncompressedSize, long compressedSize) {
+        uncompressedBytesReceived.addAndGet(uncompressedSize);
+        compressedBytesReceived.addAndGet(compressedSize);
+    }
+
+    public void onShedQueueFull() {
+        numShedQueueFull.incrementAndGet();
+    }
+
+    public void onShedFrameRateLimited() {
+        numShedFrameRateLimited.incrementAndGet();
+    }
+
+    public void onShedRateLimited(String messageType) {
+        numShedRateLimitedByMessageType.computeIfAbsent(messageType, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    public long getNumShed() {
+        return numShedQueueFull.get() +
+                numShedFrameRateLimited.get() +
+                numShedRateLimitedByMessageType.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public void addBroadcastLatency(long latencyMs) {
+        broadcastLatency.add(latencyMs);
+    }
+
     public void addRtt(long value) {
         this.rrtList.add(value);
     }
@@ -30,6 +30,7 @@ import bisq.network.p2p.node.transport.I2PTransport;
 import bisq.network.p2p.node.transport.TorTransport;
 import bisq.network.p2p.node.transport.Transport;
 import bisq.network.p2p.services.peergroup.BanList;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.runjva.sourceforge.jsocks.protocol.Socks5Proxy;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -45,11 +46,11 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
-import static bisq.network.NetworkService.DISPATCHER;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.concurrent.CompletableFuture.runAsync;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -64,6 +65,8 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  * - Performs authorization protocol at sending and receiving messages
  * - Notifies ConnectionListeners when a new connection has been created or closed.
  * - Notifies MessageListeners when a new proto has been received.
+ * Each listener gets notified on its own serial lane, so it gets the events of all connections in order and never
+ * concurrently, while a slow listener does not delay the other listeners.
  */
 @Slf4j
 public class Node implements Connection.Handler {
@@ -92,7 +95,20 @@ public class Node implements Connection.Handler {
                                 Set<Transport.Type> supportedTransportTypes,
                                 AuthorizationService authorizationService,
                                 Transport.Config transportConfig,
-                                int socketTimeout) {
+                                int socketTimeout,
+                                InboundLimiter.Config inboundLimiterConfig) {
+        public Config(Transport.Type transportType,
+                      Set<Transport.Type> supportedTransportTypes,
+                      AuthorizationService authorizationService,
+                      Transport.Config transportConfig,
+                      int socketTimeout) {
+            this(transportType,
+                    supportedTransportTypes,
+                    authorizationService,
+                    transportConfig,
+                    socketTimeout,
+                    InboundLimiter.Config.DEFAULT);
+        }
     }
 
     private final BanList banList;
@@ -107,7 +123,8 @@ public class Node implements Connection.Handler {
     private final Map<Address, InboundConnection> inboundConnectionsByAddress = new ConcurrentHashMap<>();
     @Getter
     private final Transport.Type transportType;
-    private final Set<Listener> listeners = new CopyOnWriteArraySet<>();
+    // Serial executor of each listener, running on the shared NetworkService.NODE_LISTENER_POOL
+    private final Map<Listener, Executor> listeners = new ConcurrentHashMap<>();
     private final Map<String, ConnectionHandshake> connectionHandshakes = new ConcurrentHashMap<>();
     private Optional<Server> server = Optional.empty();
     private Optional<Capability> myCapability = Optional.empty();
@@ -194,13 +211,17 @@ public class Node implements Connection.Handler {
 
             InboundConnection connection = new InboundConnection(socket,
                     serverSocketResult,
+                    myCapability,
                     result.capability(),
                     result.load(),
                     result.metrics(),
                     this,
+                    transport.getNioEngine(),
+                    new InboundLimiter(config.inboundLimiterConfig()),
                     this::handleException);
+            connection.start();
             inboundConnectionsByAddress.put(connection.getPeerAddress(), connection);
-            DISPATCHER.submit(() -> listeners.forEach(listener -> listener.onConnection(connection)));
+            notifyListeners(listener -> listener.onConnection(connection));
         } catch (Throwable throwable) {
             connectionHandshake.shutdown();
             connectionHandshakes.remove(connectionHandshake.getId());
@@ -230,6 +251,9 @@ public class Node implements Connection.Handler {
         try {
             AuthorizationToken token = authorizationService.createToken(networkMessage.getClass());
             return connection.send(networkMessage, token);
+        } catch (WriteQueueFullException writeQueueFullException) {
+            // Peer is slow but the connection is still fine
+            throw writeQueueFullException;
         } catch (Throwable throwable) {
             if (connection.isRunning()) {
                 handleException(connection, throwable);
@@ -239,6 +263,64 @@ public class Node implements Connection.Handler {
         }
     }
 
+    /**
+     * Does not block until the message is written. The returned future completes once the message has been written
+     * to the socket. If the outbound queue of the connection is full the future fails with a WriteQueueFullException
+     * but the connection is not closed.
+     */
+    public CompletableFuture<Connection> sendAsync(NetworkMessage networkMessage, Connection connection) {
+        if (connection.isStopped()) {
+            return CompletableFuture.failedFuture(new ConnectionClosedException(connection));
+        }
+        try {
+            AuthorizationToken token = authorizationService.createToken(networkMessage.getClass());
+            return handleSendResult(connection.sendAsync(networkMessage, token), connection);
+        } catch (Throwable throwable) {
+            if (connection.isRunning()) {
+                handleException(connection, throwable);
+                closeConnection(connection, CloseReason.EXCEPTION.exception(throwable));
+            }
+            return CompletableFuture.failedFuture(new ConnectionClosedException(connection));
+        }
+    }
+
+    /**
+     * Sends a message which got encoded by {@link #encode(NetworkMessage)}. Same semantics as
+     * {@link #sendAsync(NetworkMessage, Connection)}.
+     */
+    public CompletableFuture<Connection> sendAsync(EncodedMessage encodedMessage, Connection connection) {
+        if (connection.isStopped()) {
+            return CompletableFuture.failedFuture(new ConnectionClosedException(connection));
+        }
+        return handleSendResult(connection.sendAsync(encodedMessage), connection);
+    }
+
+    /**
+     * Serializes the message once so that it can be sent to multiple peers.
+     *
+     * @return The encoded message or empty if the authorizationService does not allow to use the same token for
+     * multiple peers. In that case the message has to be sent with {@link #sendAsync(NetworkMessage, Connection)}.
+     */
+    public Optional<EncodedMessage> encode(NetworkMessage networkMessage) {
+        if (!authorizationService.isTokenReusable()) {
+            return Optional.empty();
+        }
+        AuthorizationToken token = authorizationService.createToken(networkMessage.getClass());
+        return Optional.of(EncodedMessage.encode(networkMessage, token));
+    }
+
+    private CompletableFuture<Connection> handleSendResult(CompletableFuture<Connection> sendFuture,
+                                                           Connection connection) {
+        return sendFuture.whenComplete((result, throwable) -> {
+            if (throwable != null &&
+                    !(throwable instanceof WriteQueueFullException) &&
+                    connection.isRunning()) {
+                handleException(connection, throwable);
+                closeConnection(connection, CloseReason.EXCEPTION.exception(throwable));
+            }
+        });
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////////////
     // Connection
@@ -330,13 +412,17 @@ public class Node implements Connection.Handler {
 
             OutboundConnection connection = new OutboundConnection(socket,
                     address,
+                    myCapability,
                     result.capability(),
                     result.load(),
                     result.metrics(),
                     this,
+                    transport.getNioEngine(),
+                    new InboundLimiter(config.inboundLimiterConfig()),
                     this::handleException);
+            connection.start();
             outboundConnectionsByAddress.put(address, connection);
-            DISPATCHER.submit(() -> listeners.forEach(listener -> listener.onConnection(connection)));
+            notifyListeners(listener -> listener.onConnection(connection));
             return connection;
         } catch (Throwable throwable) {
             connectionHandshake.shutdown();
@@ -361,9 +447,11 @@ public class Node implements Connection.Handler {
     ///////////////////////////////////////////////////////////////////////////////////////////////////
 
     @Override
-    public void handleNetworkMessage(NetworkMessage networkMessage, AuthorizationToken authorizationToken, Connection connection) {
+    public CompletableFuture<Void> handleNetworkMessage(NetworkMessage networkMessage,
+                                                        AuthorizationToken authorizationToken,
+                                                        Connection connection) {
         if (isStopped) {
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         if (authorizationService.isAuthorized(networkMessage, authorizationToken)) {
             if (networkMessage instanceof CloseConnectionMessage closeConnectionMessage) {
@@ -371,14 +459,37 @@ public class Node implements Connection.Handler {
                         connection.getPeerAddress(), closeConnectionMessage.getCloseReason());
                 closeConnection(connection, CloseReason.CLOSE_MSG_RECEIVED.details(closeConnectionMessage.getCloseReason().name()));
             } else {
-                // We got called from Connection on the dispatcher thread, so no mapping needed here.
+                // We got called from Connection on the dispatcher lane of that connection. The listeners of the
+                // connection only get the events of that connection, so we notify them on that lane. Our listeners
+                // get the events of all connections, so we notify them on their own lanes.
                 connection.notifyListeners(networkMessage);
-                listeners.forEach(listener -> listener.onMessage(networkMessage, connection, nodeId));
+                return notifyListeners(listener -> listener.onMessage(networkMessage, connection, nodeId));
             }
         } else {
             //todo handle
             log.warn("Message authorization failed. authorizedMessage={}", StringUtils.truncate(networkMessage.toString()));
         }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void handleInboundLimitExceeded(Connection connection, InboundLimiter.ShedPolicy shedPolicy) {
+        if (connection.isStopped()) {
+            return;
+        }
+        switch (shedPolicy) {
+            case DROP -> {
+            }
+            case CLOSE -> closeConnectionGracefullyAsync(connection, CloseReason.TOO_MANY_MESSAGES);
+            case BAN -> {
+                // The address of inbound connections is not verified, so we must not ban it as the peer could use
+                // the address of another node.
+                if (connection.isPeerAddressVerified()) {
+                    banList.add(connection.getPeerAddress(), BanList.Reason.TOO_MANY_MESSAGES);
+                }
+                closeConnection(connection, CloseReason.TOO_MANY_MESSAGES);
+            }
+        }
     }
 
     @Override
@@ -400,7 +511,7 @@ public class Node implements Connection.Handler {
             }
         }
         if (wasRemoved) {
-            listeners.forEach(listener -> listener.onDisconnect(connection, closeReason));
+            notifyListeners(listener -> listener.onDisconnect(connection, closeReason));
         }
     }
 
@@ -460,7 +571,8 @@ public class Node implements Connection.Handler {
     }
 
     public void addListener(Listener listener) {
-        listeners.add(listener);
+        listeners.computeIfAbsent(listener,
+                key -> MoreExecutors.newSequentialExecutor(NetworkService.NODE_LISTENER_POOL));
     }
 
     public void removeListener(Listener listener) {
@@ -528,6 +640,17 @@ public class Node implements Connection.Handler {
         checkArgument(newState.ordinal() > state.get().ordinal(),
                 "New state %s must have a higher ordinal as the current state %s", newState, state.get());
         state.set(newState);
-        listeners.forEach(listener -> listener.onStateChange(newState));
+        listeners.keySet().forEach(listener -> listener.onStateChange(newState));
+    }
+
+    private CompletableFuture<Void> notifyListeners(Consumer<Listener> consumer) {
+        CompletableFuture<?>[] futures = listeners.entrySet().stream()
+                .map(entry -> runAsync(() -> consumer.accept(entry.getKey()), entry.getValue())
+                        .exceptionally(throwable -> {
+                            log.error("Node listener {} failed", entry.getKey(), throwable);
+                            return null;
+                        }))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures);
     }
 }
@@ -0,0 +1,99 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import bisq.common.threading.ExecutorFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Dispatches tasks to a fixed number of serial lanes. Tasks with the same key (e.g. the connection id) are always
+ * executed on the same lane in the order they got submitted, while tasks of different keys are processed in parallel.
+ * Thus, a slow listener only delays the messages of the peers sharing its lane and not those of all peers.
+ */
+@Slf4j
+public class OrderedDispatcher {
+    @Getter
+    public static class Lane {
+        private final int index;
+        private final ExecutorService executor;
+        private final AtomicInteger queueDepth = new AtomicInteger();
+        private final AtomicLong numExecuted = new AtomicLong();
+        // Time between submitting a task and start of its execution
+        private final LatencyHistogram lag = new LatencyHistogram();
+
+        private Lane(String name, int index) {
+            this.index = index;
+            executor = ExecutorFactory.newSingleThreadExecutor(name + "-" + index, ExecutorFactory.THREAD_MODE);
+        }
+
+        private void execute(Runnable task) {
+            long ts = System.currentTimeMillis();
+            queueDepth.incrementAndGet();
+            executor.execute(() -> {
+                queueDepth.decrementAndGet();
+                lag.add(System.currentTimeMillis() - ts);
+                try {
+                    task.run();
+                } catch (Throwable throwable) {
+                    // We must not let the exception escape as the lane would lose its thread
+                    log.error("Task at dispatcher lane {} failed", index, throwable);
+                } finally {
+                    numExecuted.incrementAndGet();
+                }
+            });
+        }
+
+        @Override
+        public String toString() {
+            return "Lane{index=" + index +
+                    ", queueDepth=" + queueDepth.get() +
+                    ", numExecuted=" + numExecuted.get() +
+                    ", lag=" + lag +
+                    "}";
+        }
+    }
+
+    @Getter
+    private final List<Lane> lanes;
+
+    public OrderedDispatcher(String name, int numLanes) {
+        lanes = IntStream.range(0, Math.max(1, numLanes))
+                .mapToObj(index -> new Lane(name, index))
+                .collect(Collectors.toList());
+    }
+
+    public void execute(Object key, Runnable task) {
+        getLane(key).execute(task);
+    }
+
+    public Lane getLane(Object key) {
+        return lanes.get(Math.floorMod(key.hashCode(), lanes.size()));
+    }
+
+    public int getQueueDepth() {
+        return lanes.stream().mapToInt(lane -> lane.getQueueDepth().get()).sum();
+    }
+}
@@ -17,10 +17,12 @@
 
 package bisq.network.p2p.node;
 
+import bisq.network.p2p.node.nio.NioEngine;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.net.Socket;
+import java.util.Optional;
 import java.util.function.BiConsumer;
 
 @Slf4j
@@ -31,12 +33,15 @@ public class OutboundConnection extends Connection {
 
     OutboundConnection(Socket socket,
                        Address address,
+                       Capability myCapability,
                        Capability peersCapability,
                        Load peersLoad,
                        Metrics metrics,
                        Handler handler,
+                       Optional<NioEngine> nioEngine,
+                       InboundLimiter inboundLimiter,
                        BiConsumer<Connection, Exception> errorHandler) {
-        super(socket, peersCapability, peersLoad, metrics, handler, errorHandler);
+        super(socket, myCapability, peersCapability, peersLoad, metrics, handler, nioEngine, inboundLimiter, errorHandler);
 
         this.address = address;
         log.debug("Create outboundConnection to {}", address);
@@ -0,0 +1,157 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import bisq.network.NetworkService;
+import com.google.protobuf.MessageLite;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Bounded outbound queue of a connection using blocking streams. Messages are written by a single writer task which
+ * writes all queued messages into the buffered output stream and flushes once per batch. Thus, bursts of messages
+ * result in fewer syscalls (and fewer Tor cells) and the sending threads do not wait for slow peers.
+ */
+@Slf4j
+class WriteQueue {
+    static final int MAX_QUEUE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 100;
+
+    interface Payload {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    private record PendingWrite(Payload payload, CompletableFuture<Void> future) {
+    }
+
+    private final OutputStream outputStream;
+    private final String writerThreadName;
+    private final Consumer<IOException> errorHandler;
+    private final BlockingQueue<PendingWrite> queue = new ArrayBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final AtomicBoolean isWriterRunning = new AtomicBoolean();
+    private volatile boolean isStopped;
+
+    /**
+     * @param outputStream Expected to be buffered, so that the messages of a batch are written in few socket writes.
+     */
+    WriteQueue(OutputStream outputStream, String writerThreadName, Consumer<IOException> errorHandler) {
+        this.outputStream = outputStream;
+        this.writerThreadName = writerThreadName;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * @return A future which completes when the message has been flushed to the socket. If the queue is full it
+     * completes exceptionally with a WriteQueueFullException.
+     */
+    CompletableFuture<Void> enqueue(MessageLite message, Connection connection) {
+        return enqueue(message::writeDelimitedTo, connection);
+    }
+
+    /**
+     * Enqueues an already encoded frame, which must be a heap buffer owned by the caller.
+     */
+    CompletableFuture<Void> enqueue(ByteBuffer frame, Connection connection) {
+        return enqueue(outputStream -> outputStream.write(frame.array(),
+                        frame.arrayOffset() + frame.position(),
+                        frame.remaining()),
+                connection);
+    }
+
+    /**
+     * Enqueues a payload writing already encoded content. Used for content shared with other connections, which is
+     * written from its array without consuming or copying it.
+     */
+    CompletableFuture<Void> enqueue(Payload payload, Connection connection) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (isStopped) {
+            future.completeExceptionally(new ConnectionClosedException(connection));
+        } else if (!queue.offer(new PendingWrite(payload, future))) {
+            future.completeExceptionally(new WriteQueueFullException(connection));
+        } else if (isStopped) {
+            // We got shut down while adding the message
+            failAll(new ConnectionClosedException(connection));
+        } else {
+            maybeStartWriter();
+        }
+        return future;
+    }
+
+    void shutdown(Connection connection) {
+        isStopped = true;
+        failAll(new ConnectionClosedException(connection));
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    private void maybeStartWriter() {
+        if (isWriterRunning.compareAndSet(false, true)) {
+            NetworkService.NETWORK_IO_POOL.submit(this::write);
+        }
+    }
+
+    private void write() {
+        Thread.currentThread().setName(writerThreadName);
+        List<PendingWrite> batch = new ArrayList<>();
+        while (true) {
+            queue.drainTo(batch, MAX_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                isWriterRunning.set(false);
+                // Another thread might have added a message after we drained the queue but before we reset the flag.
+                if (queue.isEmpty() || !isWriterRunning.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            try {
+                for (PendingWrite pendingWrite : batch) {
+                    pendingWrite.payload().writeTo(outputStream);
+                }
+                outputStream.flush();
+                batch.forEach(pendingWrite -> pendingWrite.future().complete(null));
+                batch.clear();
+            } catch (IOException exception) {
+                isStopped = true;
+                batch.forEach(pendingWrite -> pendingWrite.future().completeExceptionally(exception));
+                failAll(exception);
+                errorHandler.accept(exception);
+                // We leave isWriterRunning set as we do not accept new messages anymore
+                return;
+            }
+        }
+    }
+
+    private void failAll(Throwable throwable) {
+        List<PendingWrite> pendingWrites = new ArrayList<>();
+        queue.drainTo(pendingWrites);
+        pendingWrites.forEach(pendingWrite -> pendingWrite.future().completeExceptionally(throwable));
+    }
+}
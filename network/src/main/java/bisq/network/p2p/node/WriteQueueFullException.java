@@ -0,0 +1,34 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import lombok.Getter;
+
+/**
+ * Thrown if the outbound queue of a connection is full. The connection is still usable, the peer is just not able to
+ * consume our messages as fast as we produce them.
+ */
+public class WriteQueueFullException extends ConnectionException {
+    @Getter
+    private final Connection connection;
+
+    public WriteQueueFullException(Connection connection) {
+        super("Write queue is full. Connection=" + connection);
+        this.connection = connection;
+    }
+}
@@ -31,5 +31,14 @@ public interface AuthorizationService {
 
     AuthorizationToken createToken(Class<? extends NetworkMessage> message);
 
+    /**
+     * @return True if a token created for a message can be used for sending the same message to multiple peers.
+     * This allows to serialize broadcast messages only once. Token types bound to a specific peer (e.g. proof of work
+     * including the receivers address) must return false.
+     */
+    default boolean isTokenReusable() {
+        return false;
+    }
+
     void shutdown();
 }
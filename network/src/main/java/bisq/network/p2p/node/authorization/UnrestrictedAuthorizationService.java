@@ -47,6 +47,11 @@ public class UnrestrictedAuthorizationService implements AuthorizationService {
         return new AuthorizationToken();
     }
 
+    @Override
+    public boolean isTokenReusable() {
+        return true;
+    }
+
     @Override
     public void shutdown() {
     }
@@ -0,0 +1,119 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node.nio;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct read buffers. Reading from a socket into a direct buffer avoids the copy through the temporary
+ * direct buffer the JDK uses for heap buffers. As direct buffers are expensive to allocate we reuse them.
+ * Buffer capacities are rounded up to powers of two, so buffers can be reused for frames of similar size.
+ * The direct memory of the acquired buffers is capped. Beyond that we fall back to heap buffers, which are not pooled.
+ */
+class BufferPool {
+    static final int MIN_BUFFER_SIZE = 64 * 1024;
+
+    private final long maxPooledBytes;
+    private final long maxAcquiredBytes;
+    private final Map<Integer, Queue<ByteBuffer>> buffersByCapacity = new ConcurrentHashMap<>();
+    private final AtomicLong pooledBytes = new AtomicLong();
+    // Direct memory of the buffers currently in use
+    private final AtomicLong acquiredBytes = new AtomicLong();
+    @Getter
+    private final AtomicLong numAllocated = new AtomicLong();
+    @Getter
+    private final AtomicLong numReused = new AtomicLong();
+    @Getter
+    private final AtomicLong numHeapAllocated = new AtomicLong();
+
+    BufferPool(long maxPooledBytes, long maxAcquiredBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        this.maxAcquiredBytes = maxAcquiredBytes;
+    }
+
+    /**
+     * @return A cleared buffer with at least the given capacity.
+     */
+    ByteBuffer acquire(int minCapacity) {
+        int capacity = getCapacity(minCapacity);
+        ByteBuffer buffer = buffersByCapacity.computeIfAbsent(capacity, key -> new ConcurrentLinkedQueue<>()).poll();
+        if (buffer != null) {
+            pooledBytes.addAndGet(-capacity);
+            acquiredBytes.addAndGet(capacity);
+            numReused.incrementAndGet();
+            return buffer;
+        }
+        if (acquiredBytes.addAndGet(capacity) > maxAcquiredBytes) {
+            acquiredBytes.addAndGet(-capacity);
+            numHeapAllocated.incrementAndGet();
+            return ByteBuffer.allocate(capacity);
+        }
+        numAllocated.incrementAndGet();
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Returns the buffer to the pool. The caller must not use the buffer or any slice of it afterwards.
+     * If the pool is full the buffer is left to the garbage collector.
+     */
+    void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (!buffer.isDirect() || capacity != getCapacity(capacity)) {
+            // Heap buffer or not allocated by us
+            return;
+        }
+        acquiredBytes.addAndGet(-capacity);
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        buffer.clear();
+        buffersByCapacity.computeIfAbsent(capacity, key -> new ConcurrentLinkedQueue<>()).offer(buffer);
+    }
+
+    /**
+     * Drops all pooled buffers, so their memory can be reclaimed by the garbage collector.
+     */
+    void clear() {
+        buffersByCapacity.clear();
+        pooledBytes.set(0);
+    }
+
+    long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    long getAcquiredBytes() {
+        return acquiredBytes.get();
+    }
+
+    private static int getCapacity(int minCapacity) {
+        if (minCapacity <= MIN_BUFFER_SIZE) {
+            return MIN_BUFFER_SIZE;
+        }
+        int highestOneBit = Integer.highestOneBit(minCapacity);
+        return highestOneBit == minCapacity ? minCapacity : highestOneBit << 1;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node.nio;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Encodes and decodes varint length-prefixed frames as used by protobuf's writeDelimitedTo/parseDelimitedFrom.
+ * The wire format is identical to the blocking stream based implementation, so peers using the NIO engine and peers
+ * using blocking sockets can talk to each other.
+ */
+public class DelimitedFrameCodec {
+    // Max. varint32 size
+    private static final int MAX_PREFIX_SIZE = 5;
+    // The frame size is sent by the peer, so we do not allocate more than that before the bytes have arrived
+    private static final int INITIAL_FRAME_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @return The number of bytes the message occupies on the wire, including the varint length prefix. The
+     * serialized size is memoized by protobuf, so calling that before writing the message does not cause extra work.
+     */
+    public static int getDelimitedSize(MessageLite message) {
+        return getDelimitedSize(message.getSerializedSize());
+    }
+
+    public static int getDelimitedSize(int payloadSize) {
+        return CodedOutputStream.computeUInt32SizeNoTag(payloadSize) + payloadSize;
+    }
+
+    /**
+     * Reads a complete frame from a blocking stream into a new array, which is owned by the caller. The array grows
+     * with the received bytes, so a peer announcing a large frame without sending it does not make us allocate it.
+     *
+     * @throws EOFException If the stream reached its end.
+     */
+    public static byte[] readFrame(InputStream inputStream, int maxFrameSize) throws IOException {
+        int firstByte = inputStream.read();
+        if (firstByte == -1) {
+            throw new EOFException("Stream reached end of stream");
+        }
+        int size = CodedInputStream.readRawVarint32(firstByte, inputStream);
+        if (size < 0 || size > maxFrameSize) {
+            throw new IOException("Frame size " + size + " exceeds max. frame size " + maxFrameSize);
+        }
+        byte[] frame = new byte[Math.min(size, INITIAL_FRAME_BUFFER_SIZE)];
+        int numRead = 0;
+        while (numRead < size) {
+            if (numRead == frame.length) {
+                frame = Arrays.copyOf(frame, (int) Math.min(size, 2L * frame.length));
+            }
+            int length = inputStream.read(frame, numRead, frame.length - numRead);
+            if (length < 0) {
+                throw new EOFException("Stream reached end of stream while reading frame");
+            }
+            numRead += length;
+        }
+        return frame;
+    }
+
+    /**
+     * Creates a CodedInputStream with aliasing enabled, so that parsed bytes fields are views on the frame instead of
+     * copies. The frame must not be modified afterwards.
+     */
+    public static CodedInputStream newAliasingInputStream(byte[] frame) {
+        CodedInputStream codedInputStream = CodedInputStream.newInstance(frame);
+        codedInputStream.enableAliasing(true);
+        return codedInputStream;
+    }
+
+    public static ByteBuffer encode(MessageLite message) {
+        int size = message.getSerializedSize();
+        byte[] bytes = new byte[getDelimitedSize(size)];
+        CodedOutputStream outputStream = CodedOutputStream.newInstance(bytes);
+        try {
+            outputStream.writeUInt32NoTag(size);
+            message.writeTo(outputStream);
+            outputStream.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // Writing to a byte array does not throw IOExceptions
+            throw new IllegalStateException(e);
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private final int maxFrameSize;
+    // Length of the frame we are waiting for, or -1 if we have not read the prefix yet
+    private int pendingFrameSize = -1;
+
+    public DelimitedFrameCodec(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Tries to read a complete frame from the buffer (in read mode). If a complete frame is available the buffers
+     * position is advanced past the frame and a slice covering the frame payload is returned. The slice shares the
+     * content with the buffer, so it must be consumed before the buffer gets compacted.
+     * If no complete frame is available the buffers position is left at the start of the incomplete frame.
+     */
+    public Optional<ByteBuffer> decode(ByteBuffer buffer) throws IOException {
+        if (pendingFrameSize < 0) {
+            int start = buffer.position();
+            int size = readRawVarint32(buffer);
+            if (size < 0) {
+                buffer.position(start);
+                return Optional.empty();
+            }
+            if (size > maxFrameSize) {
+                throw new IOException("Frame size " + size + " exceeds max. frame size " + maxFrameSize);
+            }
+            pendingFrameSize = size;
+        }
+
+        if (buffer.remaining() < pendingFrameSize) {
+            return Optional.empty();
+        }
+
+        ByteBuffer frame = buffer.slice();
+        frame.limit(pendingFrameSize);
+        buffer.position(buffer.position() + pendingFrameSize);
+        pendingFrameSize = -1;
+        return Optional.of(frame);
+    }
+
+    /**
+     * @return The capacity the read buffer needs to hold the frame we are currently waiting for. The frame size is
+     * announced by the peer, so the read buffer should only grow towards it as the bytes arrive.
+     */
+    public int getRequiredCapacity() {
+        return pendingFrameSize < 0 ? MAX_PREFIX_SIZE : pendingFrameSize;
+    }
+
+    // Returns -1 if not enough bytes are available to read the varint.
+    private static int readRawVarint32(ByteBuffer buffer) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            byte b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (result < 0) {
+                    throw new IOException("Negative frame size");
+                }
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint frame prefix");
+    }
+}
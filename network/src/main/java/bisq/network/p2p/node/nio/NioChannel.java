@@ -0,0 +1,251 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node.nio;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking channel registered at a NioEventLoop. Reading and writing happens only on the event loop thread.
+ * Received frames are delivered to the handler on the event loop thread, so the handler must not block.
+ */
+@Slf4j
+public class NioChannel {
+    public interface Handler {
+        /**
+         * Called on the event loop thread. The frame buffer is only valid for the duration of the call.
+         */
+        void onFrame(ByteBuffer frame) throws IOException;
+
+        void onClosed(Exception exception);
+    }
+
+    private static final int MAX_GATHERING_WRITE_SIZE = 100;
+
+    private record PendingWrite(ByteBuffer buffer, CompletableFuture<Void> future) {
+    }
+
+    private final SocketChannel socketChannel;
+    private final NioEventLoop eventLoop;
+    private final Handler handler;
+    private final DelimitedFrameCodec codec;
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numPendingWrites = new AtomicInteger();
+    private final AtomicBoolean isClosed = new AtomicBoolean();
+    @Getter
+    private final NioEventLoop.Stats stats;
+    private final BufferPool bufferPool;
+    // Only accessed on the event loop thread. Borrowed from the pool for a read and only kept while it holds the
+    // bytes of an incomplete frame, so idle channels do not hold a buffer.
+    @Nullable
+    private ByteBuffer readBuffer;
+    @Nullable
+    private SelectionKey selectionKey;
+
+    NioChannel(SocketChannel socketChannel, NioEventLoop eventLoop, Handler handler, int maxFrameSize) {
+        this.socketChannel = socketChannel;
+        this.eventLoop = eventLoop;
+        this.handler = handler;
+        this.stats = eventLoop.getStats();
+        bufferPool = eventLoop.getBufferPool();
+        codec = new DelimitedFrameCodec(maxFrameSize);
+    }
+
+    /**
+     * Queues the buffer for writing. Can be called from any thread. The buffer must not be modified afterwards.
+     *
+     * @return A future which completes once the buffer has been completely written to the socket.
+     */
+    public CompletableFuture<Void> write(ByteBuffer buffer) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (isClosed.get()) {
+            future.completeExceptionally(new ClosedChannelException());
+            return future;
+        }
+        numPendingWrites.incrementAndGet();
+        pendingWrites.add(new PendingWrite(buffer, future));
+        if (isClosed.get()) {
+            // We got closed while adding the buffer
+            failPendingWrites();
+        } else {
+            eventLoop.execute(this::flush);
+        }
+        return future;
+    }
+
+    public int getNumPendingWrites() {
+        return numPendingWrites.get();
+    }
+
+    public void close() {
+        if (isClosed.compareAndSet(false, true)) {
+            try {
+                socketChannel.close();
+            } catch (IOException ignore) {
+            }
+            failPendingWrites();
+            // The read buffer must only be released on the event loop thread, as we might be reading into it
+            eventLoop.execute(this::releaseReadBuffer);
+        }
+    }
+
+    public boolean isClosed() {
+        return isClosed.get();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+    // Called on event loop thread
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+
+    void register(Selector selector) throws IOException {
+        if (isClosed.get()) {
+            return;
+        }
+        socketChannel.configureBlocking(false);
+        selectionKey = socketChannel.register(selector, SelectionKey.OP_READ, this);
+        // Writes might have been queued before we got registered
+        flush();
+    }
+
+    void onReadable() throws IOException {
+        if (isClosed.get()) {
+            return;
+        }
+        if (readBuffer == null) {
+            // The required capacity is announced by the peer, so we start small and grow as the bytes arrive
+            readBuffer = bufferPool.acquire(Math.min(codec.getRequiredCapacity(), BufferPool.MIN_BUFFER_SIZE));
+        }
+        int numRead = socketChannel.read(readBuffer);
+        if (numRead < 0) {
+            throw new EOFException("Channel reached end of stream");
+        }
+        stats.getReceivedBytes().addAndGet(numRead);
+
+        readBuffer.flip();
+        Optional<ByteBuffer> frame;
+        while (!isClosed.get() && (frame = codec.decode(readBuffer)).isPresent()) {
+            handler.onFrame(frame.get());
+        }
+        if (isClosed.get()) {
+            // Handler closed the channel
+            releaseReadBuffer();
+            return;
+        }
+        readBuffer.compact();
+        if (readBuffer.position() == 0) {
+            // No incomplete frame left. The codec keeps the size of a frame of which we only got the prefix.
+            releaseReadBuffer();
+            return;
+        }
+
+        // We only grow a full buffer and at most double it, so we hold at most twice the bytes the peer has sent
+        int requiredCapacity = codec.getRequiredCapacity();
+        if (!readBuffer.hasRemaining() && requiredCapacity > readBuffer.capacity()) {
+            int newCapacity = (int) Math.min(requiredCapacity, 2L * readBuffer.capacity());
+            ByteBuffer newReadBuffer = bufferPool.acquire(newCapacity);
+            readBuffer.flip();
+            newReadBuffer.put(readBuffer);
+            bufferPool.release(readBuffer);
+            readBuffer = newReadBuffer;
+        }
+    }
+
+    void onWritable() throws IOException {
+        flush();
+    }
+
+    void onException(Exception exception) {
+        boolean wasOpen = !isClosed.get();
+        close();
+        if (wasOpen) {
+            handler.onClosed(exception);
+        }
+    }
+
+    // Writes all pending buffers with gathering writes, so that bursts of small messages result in few syscalls.
+    private void flush() {
+        if (selectionKey == null || !selectionKey.isValid()) {
+            return;
+        }
+        try {
+            List<PendingWrite> batch = new ArrayList<>();
+            while (!pendingWrites.isEmpty()) {
+                batch.clear();
+                Iterator<PendingWrite> iterator = pendingWrites.iterator();
+                while (iterator.hasNext() && batch.size() < MAX_GATHERING_WRITE_SIZE) {
+                    batch.add(iterator.next());
+                }
+                ByteBuffer[] buffers = batch.stream().map(PendingWrite::buffer).toArray(ByteBuffer[]::new);
+                stats.getSentBytes().addAndGet(socketChannel.write(buffers));
+
+                for (PendingWrite pendingWrite : batch) {
+                    if (pendingWrite.buffer().hasRemaining()) {
+                        // Socket send buffer is full, we continue when the channel becomes writable again
+                        selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    pendingWrites.poll();
+                    numPendingWrites.decrementAndGet();
+                    pendingWrite.future().complete(null);
+                }
+            }
+            selectionKey.interestOps(SelectionKey.OP_READ);
+        } catch (IOException exception) {
+            onException(exception);
+        }
+    }
+
+    private void releaseReadBuffer() {
+        if (readBuffer != null) {
+            bufferPool.release(readBuffer);
+            readBuffer = null;
+        }
+    }
+
+    private void failPendingWrites() {
+        PendingWrite pendingWrite;
+        while ((pendingWrite = pendingWrites.poll()) != null) {
+            numPendingWrites.decrementAndGet();
+            pendingWrite.future().completeExceptionally(new ClosedChannelException());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NioChannel{" + socketChannel + "}";
+    }
+}
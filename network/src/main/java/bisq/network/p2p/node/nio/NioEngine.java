@@ -0,0 +1,110 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node.nio;
+
+import bisq.common.util.OsUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking transport engine based on a small number of selector event loops. Replaces the thread-per-connection
+ * blocking read loop of Connection. The connection handshake is still done in blocking mode, after that the
+ * channel gets switched to non-blocking mode and registered at one of the event loops.
+ * <p>
+ * There is one shared instance as all nodes of the app use the same event loops.
+ */
+@Slf4j
+public class NioEngine {
+    public static final int MAX_FRAME_SIZE = 50 * 1024 * 1024;
+    private static final long MAX_POOLED_BYTES = 64 * 1024 * 1024;
+    private static final long MAX_ACQUIRED_READ_BUFFER_BYTES = 256 * 1024 * 1024;
+
+    private static NioEngine INSTANCE;
+
+    public static synchronized NioEngine getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new NioEngine(Math.max(1, OsUtils.availableProcessors() / 2));
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Stops the event loops of the shared instance if it got created. Registered channels get closed.
+     */
+    public static synchronized void shutdownInstance() {
+        if (INSTANCE != null) {
+            INSTANCE.shutdown();
+            INSTANCE = null;
+        }
+    }
+
+    private final NioEventLoop[] eventLoops;
+    private final AtomicInteger index = new AtomicInteger();
+    private final BufferPool bufferPool = new BufferPool(MAX_POOLED_BYTES, MAX_ACQUIRED_READ_BUFFER_BYTES);
+
+    private NioEngine(int numEventLoops) {
+        log.info("Create NioEngine with {} event loops", numEventLoops);
+        eventLoops = new NioEventLoop[numEventLoops];
+        try {
+            for (int i = 0; i < numEventLoops; i++) {
+                eventLoops[i] = new NioEventLoop("NioEngine.eventLoop-" + i, bufferPool);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Registers the channel at the next event loop. The channel must not be used in blocking mode afterwards.
+     */
+    public NioChannel register(SocketChannel socketChannel, NioChannel.Handler handler) {
+        int i = Math.floorMod(index.getAndIncrement(), eventLoops.length);
+        return eventLoops[i].register(socketChannel, handler, MAX_FRAME_SIZE);
+    }
+
+    private void shutdown() {
+        log.info("Shutdown NioEngine");
+        Arrays.stream(eventLoops).forEach(NioEventLoop::shutdown);
+        bufferPool.clear();
+    }
+
+    public int getNumChannels() {
+        return Arrays.stream(eventLoops).mapToInt(NioEventLoop::getNumChannels).sum();
+    }
+
+    public long getSentBytes() {
+        return Arrays.stream(eventLoops).mapToLong(e -> e.getStats().getSentBytes().get()).sum();
+    }
+
+    public long getNumAllocatedReadBuffers() {
+        return bufferPool.getNumAllocated().get();
+    }
+
+    public long getNumReusedReadBuffers() {
+        return bufferPool.getNumReused().get();
+    }
+
+    public long getReceivedBytes() {
+        return Arrays.stream(eventLoops).mapToLong(e -> e.getStats().getReceivedBytes().get()).sum();
+    }
+}
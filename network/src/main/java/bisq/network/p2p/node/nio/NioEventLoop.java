@@ -0,0 +1,140 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node.nio;
+
+import bisq.common.threading.ExecutorFactory;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single threaded selector loop. Handles reads and writes of all channels registered at it.
+ */
+@Slf4j
+class NioEventLoop {
+    @Getter
+    @ToString
+    static class Stats {
+        private final AtomicLong sentBytes = new AtomicLong();
+        private final AtomicLong receivedBytes = new AtomicLong();
+    }
+
+    private final Selector selector;
+    private final ExecutorService executor;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    @Getter
+    private final Stats stats = new Stats();
+    @Getter
+    private final BufferPool bufferPool;
+    private volatile boolean isStopped;
+
+    NioEventLoop(String name, BufferPool bufferPool) throws IOException {
+        this.bufferPool = bufferPool;
+        selector = Selector.open();
+        executor = ExecutorFactory.newSingleThreadExecutor(name);
+        executor.submit(this::run);
+    }
+
+    NioChannel register(SocketChannel socketChannel, NioChannel.Handler handler, int maxFrameSize) {
+        NioChannel nioChannel = new NioChannel(socketChannel, this, handler, maxFrameSize);
+        execute(() -> {
+            try {
+                nioChannel.register(selector);
+            } catch (IOException exception) {
+                nioChannel.onException(exception);
+            }
+        });
+        return nioChannel;
+    }
+
+    /**
+     * Runs the task on the event loop thread.
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    void shutdown() {
+        isStopped = true;
+        selector.wakeup();
+        ExecutorFactory.shutdownAndAwaitTermination(executor);
+    }
+
+    int getNumChannels() {
+        return selector.isOpen() ? selector.keys().size() : 0;
+    }
+
+    private void run() {
+        while (!isStopped && !Thread.currentThread().isInterrupted()) {
+            try {
+                selector.select();
+                runTasks();
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    handleKey(key);
+                }
+            } catch (Throwable throwable) {
+                log.error("Unexpected exception in NIO event loop", throwable);
+            }
+        }
+        selector.keys().forEach(key -> ((NioChannel) key.attachment()).close());
+        // Closing the channels queues the release of their read buffers
+        runTasks();
+        try {
+            selector.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        NioChannel nioChannel = (NioChannel) key.attachment();
+        try {
+            if (key.isValid() && key.isReadable()) {
+                nioChannel.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                nioChannel.onWritable();
+            }
+        } catch (CancelledKeyException ignore) {
+            // Channel got closed from another thread
+        } catch (Exception exception) {
+            nioChannel.onException(exception);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package bisq.network.p2p.node.transport;
 
 import bisq.network.p2p.node.Address;
+import bisq.network.p2p.node.nio.NioEngine;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
@@ -24,7 +28,10 @@ public class ClearNetTransport implements Transport {
         return INSTANCE;
     }
 
+    private final Optional<NioEngine> nioEngine;
+
     public ClearNetTransport(Config config) {
+        nioEngine = config.useNioEngine() ? Optional.of(NioEngine.getInstance()) : Optional.empty();
     }
 
     @Override
@@ -42,7 +49,14 @@ public class ClearNetTransport implements Transport {
     public ServerSocketResult getServerSocket(int port, String nodeId) {
         log.info("Create serverSocket at port {}", port);
         try {
-            ServerSocket serverSocket = new ServerSocket(port);
+            ServerSocket serverSocket;
+            if (nioEngine.isPresent()) {
+                // Sockets accepted from a channel backed server socket have a SocketChannel we can register
+                // at the NioEngine.
+                serverSocket = ServerSocketChannel.open().bind(new InetSocketAddress(port)).socket();
+            } else {
+                serverSocket = new ServerSocket(port);
+            }
             Address address = Address.localHost(port);
             log.debug("ServerSocket created at port {}", port);
             return new ServerSocketResult(nodeId, serverSocket, address);
@@ -55,7 +69,16 @@ public class ClearNetTransport implements Transport {
     @Override
     public Socket getSocket(Address address) throws IOException {
         log.debug("Create new Socket to {}", address);
-        return new Socket(address.getHost(), address.getPort());
+        if (nioEngine.isPresent()) {
+            return SocketChannel.open(new InetSocketAddress(address.getHost(), address.getPort())).socket();
+        } else {
+            return new Socket(address.getHost(), address.getPort());
+        }
+    }
+
+    @Override
+    public Optional<NioEngine> getNioEngine() {
+        return nioEngine;
     }
 
     @Override
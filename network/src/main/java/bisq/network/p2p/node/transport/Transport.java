@@ -18,6 +18,7 @@
 package bisq.network.p2p.node.transport;
 
 import bisq.network.p2p.node.Address;
+import bisq.network.p2p.node.nio.NioEngine;
 import com.runjva.sourceforge.jsocks.protocol.Socks5Proxy;
 
 import java.io.IOException;
@@ -48,7 +49,14 @@ public interface Transport {
         }
     }
 
-    record Config(String baseDir) {
+    /**
+     * @param useNioEngine If true and supported by the transport, connections are served by the non-blocking
+     *                     NioEngine instead of a blocking read thread per connection.
+     */
+    record Config(String baseDir, boolean useNioEngine) {
+        public Config(String baseDir) {
+            this(baseDir, false);
+        }
     }
 
     record ServerSocketResult(String nodeId, ServerSocket serverSocket, Address address) {
@@ -66,5 +74,9 @@ public interface Transport {
 
     Optional<Address> getServerAddress(String serverId);
 
+    default Optional<NioEngine> getNioEngine() {
+        return Optional.empty();
+    }
+
     CompletableFuture<Void> shutdown();
 }
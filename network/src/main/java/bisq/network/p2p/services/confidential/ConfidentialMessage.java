@@ -48,6 +48,12 @@ public class ConfidentialMessage implements NetworkMessage, DistributedData {
         ).build();
     }
 
+    // The cypherText does not compress
+    @Override
+    public boolean isCompressible() {
+        return false;
+    }
+
     public static ConfidentialMessage fromProto(bisq.network.protobuf.ConfidentialMessage proto) {
         return new ConfidentialMessage(ConfidentialData.fromProto(proto.getConfidentialData()),
                 proto.getReceiverKeyId());
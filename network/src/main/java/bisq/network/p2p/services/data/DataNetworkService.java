@@ -26,6 +26,7 @@ import bisq.network.p2p.services.data.broadcast.BroadcastResult;
 import bisq.network.p2p.services.data.broadcast.Broadcaster;
 import bisq.network.p2p.services.data.filter.DataFilter;
 import bisq.network.p2p.services.data.inventory.Inventory;
+import bisq.network.p2p.services.data.inventory.InventoryRequest;
 import bisq.network.p2p.services.data.inventory.InventoryService;
 import bisq.network.p2p.services.peergroup.PeerGroup;
 import bisq.network.p2p.services.peergroup.PeerGroupService;
@@ -36,6 +37,8 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.function.Function;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
 
 /**
  * Responsible for broadcast and inventory service. One instance per transport type.
@@ -61,7 +64,7 @@ public class DataNetworkService implements PeerGroupService.Listener, Node.Liste
 
     public DataNetworkService(Node node,
                               PeerGroupService peerGroupService,
-                              Function<DataFilter, Inventory> inventoryProvider) {
+                              BiFunction<InventoryRequest, Integer, Inventory> inventoryProvider) {
         this.node = node;
         peerGroup = peerGroupService.getPeerGroup();
         this.peerGroupService = peerGroupService;
@@ -121,8 +124,19 @@ public class DataNetworkService implements PeerGroupService.Listener, Node.Liste
         return broadcaster.reBroadcast(broadcastMessage);
     }
 
-    List<CompletableFuture<Inventory>> requestInventory(DataFilter dataFilter) {
-        return inventoryService.request(dataFilter);
+    List<CompletableFuture<Void>> requestInventory(DataFilter dataFilter,
+                                                   Function<Inventory, CompletableFuture<Void>> pageHandler) {
+        return inventoryService.request(dataFilter, pageHandler);
+    }
+
+    CompletableFuture<Void> requestInventory(DataFilter dataFilter,
+                                             Connection connection,
+                                             Function<Inventory, CompletableFuture<Void>> pageHandler) {
+        return inventoryService.request(dataFilter, connection, pageHandler);
+    }
+
+    Stream<Connection> getAllConnections() {
+        return peerGroup.getAllConnections();
     }
 
     void addListener(DataNetworkService.Listener listener) {
@@ -33,6 +33,13 @@ public interface DataRequest extends BroadcastMessage {
 
     boolean isExpired();
 
+    /**
+     * @return The hash of the stored data, which is the key of the entry in the storage maps. Add requests compute it
+     * at the first use and keep it, so it is not serialized and hashed again at each use. The kept hash is transient,
+     * as it is derived from the data.
+     */
+    byte[] getHash();
+
     static DataRequest fromProto(bisq.network.protobuf.DataRequest proto) {
         switch (proto.getMessageCase()) {
             case ADDAUTHENTICATEDDATAREQUEST -> {
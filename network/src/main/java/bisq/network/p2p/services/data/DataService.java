@@ -18,12 +18,14 @@
 package bisq.network.p2p.services.data;
 
 import bisq.common.timer.Scheduler;
+import bisq.network.NetworkService;
 import bisq.network.p2p.message.NetworkMessage;
 import bisq.network.p2p.node.Connection;
 import bisq.network.p2p.node.Node;
 import bisq.network.p2p.node.transport.Transport;
 import bisq.network.p2p.services.data.broadcast.BroadcastResult;
 import bisq.network.p2p.services.data.filter.DataFilter;
+import bisq.network.p2p.services.data.inventory.Inventory;
 import bisq.network.p2p.services.data.storage.Result;
 import bisq.network.p2p.services.data.storage.StorageService;
 import bisq.network.p2p.services.data.storage.append.AddAppendOnlyDataRequest;
@@ -44,6 +46,7 @@ import java.security.PublicKey;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
@@ -87,17 +90,29 @@ public class DataService implements DataNetworkService.Listener {
 
     @Getter
     private final StorageService storageService;
+    private final InventoryScheduler.Config inventorySchedulerConfig;
+    private final Map<Transport.Type, InventoryScheduler> inventorySchedulerByTransportType = new ConcurrentHashMap<>();
     private final Set<DataService.Listener> listeners = new CopyOnWriteArraySet<>();
     private final Map<Transport.Type, DataNetworkService> dataNetworkServiceByTransportType = new ConcurrentHashMap<>();
 
     public DataService(StorageService storageService) {
+        this(storageService, InventoryScheduler.Config.DEFAULT);
+    }
+
+    public DataService(StorageService storageService, InventoryScheduler.Config inventorySchedulerConfig) {
         this.storageService = storageService;
+        this.inventorySchedulerConfig = inventorySchedulerConfig;
     }
 
     // todo a bit of a hack that way...
     public DataNetworkService getDataServicePerTransport(Transport.Type transportType, Node defaultNode, PeerGroupService peerGroupService) {
-        DataNetworkService dataNetworkService = new DataNetworkService(defaultNode, peerGroupService, storageService::getInventoryOfAllStores);
+        DataNetworkService dataNetworkService = new DataNetworkService(defaultNode, peerGroupService,
+                (request, maxPageSize) -> storageService.getInventoryOfAllStores(request.dataFilter(),
+                        request.continuationToken(),
+                        maxPageSize));
         dataNetworkServiceByTransportType.put(transportType, dataNetworkService);
+        inventorySchedulerByTransportType.put(transportType,
+                new InventoryScheduler(inventorySchedulerConfig, storageService, dataNetworkService));
         dataNetworkService.addListener(this);
         return dataNetworkService;
     }
@@ -281,17 +296,11 @@ public class DataService implements DataNetworkService.Listener {
     }
 
     public void requestInventory(DataFilter dataFilter, DataNetworkService dataNetworkService) {
-        dataNetworkService.requestInventory(dataFilter).forEach(future -> {
-            future.whenComplete(((inventory, throwable) -> {
-                inventory.entries().forEach(dataRequest -> {
-                    if (dataRequest instanceof AddDataRequest addDataRequest) {
-                        processAddDataRequest(addDataRequest, false);
-                    } else if (dataRequest instanceof RemoveDataRequest removeDataRequest) {
-                        processRemoveDataRequest(removeDataRequest, false);
-                    }
-                });
-            }));
-        });
+        dataNetworkService.requestInventory(dataFilter, this::applyInventoryPage);
+    }
+
+    public Optional<InventoryScheduler> findInventoryScheduler(Transport.Type transportType) {
+        return Optional.ofNullable(inventorySchedulerByTransportType.get(transportType));
     }
 
 
@@ -348,7 +357,33 @@ public class DataService implements DataNetworkService.Listener {
                 });
     }
 
+    // Pages are applied as they arrive. The signatures of a page are verified in parallel on the verification pool,
+    // so that the thread delivering the page is not blocked and applying the requests only holds the storage locks for
+    // the sequence number checks. The requests are applied off the verification pool, and the next page gets
+    // requested once this page is applied.
+    private CompletableFuture<Void> applyInventoryPage(Inventory inventory) {
+        return StorageService.verifySignaturesAsync(inventory.entries())
+                .thenAcceptAsync(invalidSignatures -> {
+                    if (!invalidSignatures.isEmpty()) {
+                        log.warn("Inventory contains {} requests with invalid signatures. We ignore those.",
+                                invalidSignatures.size());
+                    }
+                    inventory.entries().stream()
+                            .filter(dataRequest -> !invalidSignatures.contains(dataRequest))
+                            .forEach(dataRequest -> {
+                                if (dataRequest instanceof AddDataRequest addDataRequest) {
+                                    processAddDataRequest(addDataRequest, false);
+                                } else if (dataRequest instanceof RemoveDataRequest removeDataRequest) {
+                                    processRemoveDataRequest(removeDataRequest, false);
+                                }
+                            });
+                }, NetworkService.NETWORK_IO_POOL);
+    }
+
     private void doRequestInventory(DataNetworkService dataNetworkService) {
-        requestInventory(new DataFilter(new HashSet<>(storageService.getFilterEntries(StorageService.StoreType.ALL))), dataNetworkService);
+        inventorySchedulerByTransportType.values().stream()
+                .filter(inventoryScheduler -> inventoryScheduler.getDataNetworkService() == dataNetworkService)
+                .findAny()
+                .ifPresent(inventoryScheduler -> inventoryScheduler.start(this::applyInventoryPage));
     }
 }
\ No newline at end of file
@@ -0,0 +1,266 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data;
+
+import bisq.network.p2p.node.Connection;
+import bisq.network.p2p.services.data.filter.DataFilter;
+import bisq.network.p2p.services.data.inventory.Inventory;
+import bisq.network.p2p.services.data.storage.StorageService;
+import com.google.common.annotations.VisibleForTesting;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Requests the inventory by priority classes of stores, so that the data the user needs first (e.g. mailbox
+ * messages and offers) is not delayed by large stores like the append-only data. Each class is requested from a
+ * different subset of our peers in parallel. If we have fewer peers than classes a peer serves several classes one
+ * after another in the order of their priority.
+ * Classes marked with requestFromAllPeers are requested from each peer. We use that for the mailbox messages, as a
+ * message for us might have reached only a few peers.
+ * We measure the time from the start of the first request until the first data and the completion of each class.
+ */
+@Slf4j
+public class InventoryScheduler {
+    private static final int MAX_PEERS = 400;
+    private static final String OTHER = "other";
+
+    /**
+     * @param storeNames          Store file names (e.g. Offer) or store type names (e.g. MailboxDataStore). If empty
+     *                            the class covers all stores not covered by the other classes.
+     * @param requestFromAllPeers If true the class is requested from each peer instead of a subset of the peers.
+     */
+    public record PriorityClass(String name, Set<String> storeNames, boolean requestFromAllPeers) {
+        public PriorityClass(String name, Set<String> storeNames) {
+            this(name, storeNames, false);
+        }
+
+        public static PriorityClass from(com.typesafe.config.Config typesafeConfig) {
+            return new PriorityClass(typesafeConfig.getString("name"),
+                    new HashSet<>(typesafeConfig.getStringList("storeNames")),
+                    typesafeConfig.hasPath("requestFromAllPeers") && typesafeConfig.getBoolean("requestFromAllPeers"));
+        }
+    }
+
+    /**
+     * @param priorityClasses Ordered by priority. If no class with empty storeNames is contained, one is added as the
+     *                        last class.
+     */
+    public record Config(List<PriorityClass> priorityClasses) {
+        public static final Config DEFAULT = new Config(List.of(
+                new PriorityClass("mailbox", Set.of(StorageService.StoreType.MAILBOX_DATA_STORE.getStoreName()), true),
+                new PriorityClass("offer", Set.of("Offer")),
+                new PriorityClass("chat", Set.of("PublicChatMessage", "TradeChatMessage")),
+                new PriorityClass("appendOnly", Set.of(StorageService.StoreType.APPEND_ONLY_DATA_STORE.getStoreName())),
+                new PriorityClass(OTHER, Set.of())));
+
+        public static Config from(com.typesafe.config.Config typesafeConfig) {
+            return new Config(typesafeConfig.getConfigList("priorityClasses").stream()
+                    .map(PriorityClass::from)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Getter
+    private final Config config;
+    private final StorageService storageService;
+    @Getter
+    private final DataNetworkService dataNetworkService;
+    private final List<PriorityClass> priorityClasses;
+    private final Set<String> prioritizedStoreNames;
+    private final AtomicBoolean isRunning = new AtomicBoolean();
+    private final Map<String, Long> timeToFirstDataByClass = new ConcurrentHashMap<>();
+    private final Map<String, Long> timeToCompleteByClass = new ConcurrentHashMap<>();
+    private volatile long startTime;
+
+    public InventoryScheduler(Config config, StorageService storageService, DataNetworkService dataNetworkService) {
+        this.config = config;
+        this.storageService = storageService;
+        this.dataNetworkService = dataNetworkService;
+
+        priorityClasses = new ArrayList<>(config.priorityClasses());
+        if (priorityClasses.stream().noneMatch(priorityClass -> priorityClass.storeNames().isEmpty())) {
+            priorityClasses.add(new PriorityClass(OTHER, Set.of()));
+        }
+        prioritizedStoreNames = priorityClasses.stream()
+                .flatMap(priorityClass -> priorityClass.storeNames().stream())
+                .collect(Collectors.toSet());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Requests the inventory of all priority classes from our current peers. If a previous run has not completed
+     * yet we do nothing.
+     *
+     * @return A future which completes after all classes are completed.
+     */
+    public CompletableFuture<Void> start(Function<Inventory, CompletableFuture<Void>> pageHandler) {
+        if (!isRunning.compareAndSet(false, true)) {
+            log.info("Inventory request is still running");
+            return CompletableFuture.completedFuture(null);
+        }
+        if (startTime == 0) {
+            startTime = System.currentTimeMillis();
+        }
+
+        List<Connection> connections = dataNetworkService.getAllConnections()
+                .limit(MAX_PEERS)
+                .collect(Collectors.toList());
+        Map<Connection, List<PriorityClass>> classesByConnection = assignPriorityClasses(priorityClasses, connections);
+        Map<PriorityClass, List<CompletableFuture<Void>>> futuresByClass = new LinkedHashMap<>();
+        classesByConnection.forEach((connection, classes) -> {
+            // A peer serving several classes gets them one after another, so the class with the highest priority
+            // is not slowed down by the others.
+            CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+            for (PriorityClass priorityClass : classes) {
+                CompletableFuture<Void> future = previous.thenCompose(__ ->
+                        request(priorityClass, connection, pageHandler));
+                futuresByClass.computeIfAbsent(priorityClass, key -> new ArrayList<>()).add(future);
+                previous = future;
+            }
+        });
+
+        List<CompletableFuture<Void>> classFutures = futuresByClass.entrySet().stream()
+                .map(entry -> CompletableFuture.allOf(entry.getValue().toArray(new CompletableFuture[0]))
+                        .thenRun(() -> onClassCompleted(entry.getKey())))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(classFutures.toArray(new CompletableFuture[0]))
+                .whenComplete((__, throwable) -> {
+                    isRunning.set(false);
+                    log.info("Inventory request completed. Time to first offer: {} ms. Time to mailbox: {} ms. " +
+                                    "Time to first data by class: {}. Time to complete by class: {}",
+                            getTimeToFirstOffer().orElse(-1L),
+                            getTimeToMailbox().orElse(-1L),
+                            timeToFirstDataByClass,
+                            timeToCompleteByClass);
+                });
+    }
+
+    /**
+     * @return Milliseconds from the start of the inventory request until we received the first offers.
+     */
+    public Optional<Long> getTimeToFirstOffer() {
+        return findPriorityClass("Offer").map(PriorityClass::name).map(timeToFirstDataByClass::get);
+    }
+
+    /**
+     * @return Milliseconds from the start of the inventory request until all peers delivered their mailbox messages.
+     */
+    public Optional<Long> getTimeToMailbox() {
+        return findPriorityClass(StorageService.StoreType.MAILBOX_DATA_STORE.getStoreName())
+                .map(PriorityClass::name)
+                .map(timeToCompleteByClass::get);
+    }
+
+    public Map<String, Long> getTimeToFirstDataByClass() {
+        return Map.copyOf(timeToFirstDataByClass);
+    }
+
+    public Map<String, Long> getTimeToCompleteByClass() {
+        return Map.copyOf(timeToCompleteByClass);
+    }
+
+    /**
+     * Distributes the classes over the peers. With at least as many peers as classes each peer gets one class and
+     * each class gets a disjoint subset of the peers. Otherwise, each peer gets several classes. Classes to be
+     * requested from all peers are added to each peer. The classes of a peer are ordered by their priority.
+     */
+    @VisibleForTesting
+    static <T> Map<T, List<PriorityClass>> assignPriorityClasses(List<PriorityClass> priorityClasses, List<T> peers) {
+        Map<T, List<PriorityClass>> classesByPeer = new LinkedHashMap<>();
+        if (peers.isEmpty()) {
+            return classesByPeer;
+        }
+        List<PriorityClass> distributedClasses = priorityClasses.stream()
+                .filter(priorityClass -> !priorityClass.requestFromAllPeers())
+                .collect(Collectors.toList());
+        if (!distributedClasses.isEmpty()) {
+            int numAssignments = Math.max(peers.size(), distributedClasses.size());
+            for (int i = 0; i < numAssignments; i++) {
+                classesByPeer.computeIfAbsent(peers.get(i % peers.size()), key -> new ArrayList<>())
+                        .add(distributedClasses.get(i % distributedClasses.size()));
+            }
+        }
+        List<PriorityClass> classesForAllPeers = priorityClasses.stream()
+                .filter(PriorityClass::requestFromAllPeers)
+                .collect(Collectors.toList());
+        if (!classesForAllPeers.isEmpty()) {
+            peers.forEach(peer -> {
+                List<PriorityClass> classes = classesByPeer.computeIfAbsent(peer, key -> new ArrayList<>());
+                classes.addAll(classesForAllPeers);
+                classes.sort(Comparator.comparingInt(priorityClasses::indexOf));
+            });
+        }
+        return classesByPeer;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+
+    // We create the filter at request time, so it contains the data we received from higher priority classes.
+    private CompletableFuture<Void> request(PriorityClass priorityClass,
+                                            Connection connection,
+                                            Function<Inventory, CompletableFuture<Void>> pageHandler) {
+        DataFilter dataFilter = priorityClass.storeNames().isEmpty() ?
+                storageService.getDataFilter(Set.of(), prioritizedStoreNames) :
+                storageService.getDataFilter(priorityClass.storeNames(), Set.of());
+        return dataNetworkService.requestInventory(dataFilter, connection, page -> {
+                    if (!page.entries().isEmpty()) {
+                        timeToFirstDataByClass.putIfAbsent(priorityClass.name(), System.currentTimeMillis() - startTime);
+                    }
+                    return pageHandler.apply(page);
+                })
+                .exceptionally(throwable -> {
+                    log.warn("Inventory request for {} to {} failed: {}",
+                            priorityClass.name(), connection.getPeerAddress(), throwable.getMessage());
+                    return null;
+                });
+    }
+
+    private void onClassCompleted(PriorityClass priorityClass) {
+        timeToCompleteByClass.putIfAbsent(priorityClass.name(), System.currentTimeMillis() - startTime);
+    }
+
+    private Optional<PriorityClass> findPriorityClass(String storeName) {
+        return priorityClasses.stream()
+                .filter(priorityClass -> priorityClass.storeNames().contains(storeName))
+                .findFirst()
+                .or(() -> priorityClasses.stream()
+                        .filter(priorityClass -> priorityClass.storeNames().isEmpty())
+                        .findFirst());
+    }
+}
@@ -17,5 +17,9 @@
 
 package bisq.network.p2p.services.data.broadcast;
 
-public record BroadcastResult(int numSuccess, int numFaults, long duration) {
+/**
+ * @param numStragglers Number of peers which did not complete within their deadline or were still pending when the
+ *                      quorum was reached.
+ */
+public record BroadcastResult(int numSuccess, int numFaults, int numStragglers, long duration) {
 }
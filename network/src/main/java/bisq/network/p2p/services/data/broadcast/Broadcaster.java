@@ -21,20 +21,27 @@ import bisq.common.util.CollectionUtil;
 import bisq.network.NetworkService;
 import bisq.network.p2p.node.Address;
 import bisq.network.p2p.node.Connection;
+import bisq.network.p2p.node.EncodedMessage;
 import bisq.network.p2p.node.Node;
 import bisq.network.p2p.services.peergroup.PeerGroup;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class Broadcaster {
     private static final long BROADCAST_TIMEOUT = 90;
+    // Deadline for the send to a single peer
+    private static final long PEER_TIMEOUT = 20;
+    // Share of peers which need to have received the message before we report the broadcast as completed
+    private static final double QUORUM_FACTOR = 0.5;
     private static final long RE_BROADCAST_DELAY_MS = 100;
 
     private final Node node;
@@ -54,34 +61,74 @@ public class Broadcaster {
         return broadcast(broadcastMessage, 1);
     }
 
+    /**
+     * Sends the message to all selected peers in parallel. Each peer has its own deadline, so a stalled peer does not
+     * delay the others. The result completes once the quorum of successful sends is reached or all peers have
+     * completed or timed out. Peers which have not completed at that moment are reported as stragglers.
+     */
     public CompletableFuture<BroadcastResult> broadcast(BroadcastMessage broadcastMessage, double distributionFactor) {
         long ts = System.currentTimeMillis();
         CompletableFuture<BroadcastResult> future = new CompletableFuture<BroadcastResult>()
                 .orTimeout(BROADCAST_TIMEOUT, TimeUnit.SECONDS);
-        AtomicInteger numSuccess = new AtomicInteger(0);
-        AtomicInteger numFaults = new AtomicInteger(0);
-        long numConnections = peerGroup.getAllConnections().count();
-        long numBroadcasts = Math.min(numConnections, Math.round(numConnections * distributionFactor));
+        List<Connection> allConnections = peerGroup.getAllConnections().collect(Collectors.toList());
+        int numConnections = allConnections.size();
+        int numBroadcasts = (int) Math.min(numConnections, Math.round(numConnections * distributionFactor));
         log.debug("Broadcast {} to {} out of {} peers. distributionFactor={}",
                 broadcastMessage.getClass().getSimpleName(), numBroadcasts, numConnections, distributionFactor);
-        List<Connection> allConnections = peerGroup.getAllConnections().collect(Collectors.toList());
+        if (numBroadcasts == 0) {
+            future.complete(new BroadcastResult(0, 0, 0, 0));
+            return future;
+        }
+
+        int quorum = Math.max(1, (int) Math.ceil(numBroadcasts * QUORUM_FACTOR));
+        AtomicInteger numSuccess = new AtomicInteger(0);
+        AtomicInteger numFaults = new AtomicInteger(0);
+        AtomicInteger numTimeouts = new AtomicInteger(0);
         Collections.shuffle(allConnections);
+        // We do not wait for the send to complete, so a slow peer does not delay the sending to the other peers.
         NetworkService.NETWORK_IO_POOL.submit(() -> {
+            // If the authorization token can be shared we serialize the message only once and write the same bytes
+            // to all peers.
+            Optional<EncodedMessage> encodedMessage = node.encode(broadcastMessage);
             allConnections.stream()
                     .limit(numBroadcasts)
                     .forEach(connection -> {
                         log.debug("Node {} broadcast to {}", node, connection.getPeerAddress());
-                        try {
-                            node.send(broadcastMessage, connection);
-                            numSuccess.incrementAndGet();
-                        } catch (Throwable throwable) {
-                            numFaults.incrementAndGet();
-                        }
-                        if (numSuccess.get() + numFaults.get() == numBroadcasts) {
-                            future.complete(new BroadcastResult(numSuccess.get(),
-                                    numFaults.get(),
-                                    System.currentTimeMillis() - ts));
-                        }
+                        long sendTs = System.currentTimeMillis();
+                        // Without a shared encoding each peer needs its own serialization, which we do in parallel.
+                        CompletableFuture<Connection> sendFuture = encodedMessage
+                                .map(encoded -> node.sendAsync(encoded, connection))
+                                .orElseGet(() -> CompletableFuture.supplyAsync(() -> node.sendAsync(broadcastMessage, connection),
+                                                NetworkService.NETWORK_IO_POOL)
+                                        .thenCompose(sent -> sent));
+
+                        // We record the latency also if the peer exceeded the deadline, so we see how slow it really is.
+                        sendFuture.thenRun(() -> connection.getMetrics().addBroadcastLatency(System.currentTimeMillis() - sendTs));
+
+                        sendFuture.copy()
+                                .orTimeout(PEER_TIMEOUT, TimeUnit.SECONDS)
+                                .whenComplete((result, throwable) -> {
+                                    if (throwable == null) {
+                                        numSuccess.incrementAndGet();
+                                    } else if (throwable instanceof TimeoutException) {
+                                        numTimeouts.incrementAndGet();
+                                        log.info("Broadcast of {} to {} did not complete within {} sec.",
+                                                broadcastMessage.getClass().getSimpleName(),
+                                                connection.getPeerAddress(),
+                                                PEER_TIMEOUT);
+                                    } else {
+                                        numFaults.incrementAndGet();
+                                    }
+                                    int success = numSuccess.get();
+                                    int faults = numFaults.get();
+                                    if (success >= quorum || success + faults + numTimeouts.get() == numBroadcasts) {
+                                        // Stragglers are the peers which timed out or are still pending
+                                        future.complete(new BroadcastResult(success,
+                                                faults,
+                                                numBroadcasts - success - faults,
+                                                System.currentTimeMillis() - ts));
+                                    }
+                                });
                     });
         });
         return future;
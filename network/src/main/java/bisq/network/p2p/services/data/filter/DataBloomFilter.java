@@ -0,0 +1,117 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.filter;
+
+import bisq.common.proto.Proto;
+import com.google.common.primitives.Longs;
+
+import java.util.Collection;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bloom filter over the keys of FilterEntries. With the default false positive rate of 1% it needs about 10 bits per
+ * entry instead of about 26 bytes for a serialized FilterEntry. A false positive means the peer does not send an
+ * entry we are missing. To detect those the peer reports the short keys of all entries which matched the filter
+ * (see Inventory.bloomFilterMatches), and we request the ones we do not have in a follow-up round.
+ */
+public final class DataBloomFilter implements Proto {
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_NUM_BITS = Long.SIZE;
+    // 4 MB
+    private static final int MAX_NUM_BITS = 32 * 1024 * 1024;
+    private static final int MAX_NUM_HASHES = 16;
+
+    private final long[] bits;
+    private final int numHashes;
+
+    public static DataBloomFilter create(Collection<FilterEntry> filterEntries, double falsePositiveRate) {
+        checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1, "Invalid falsePositiveRate " + falsePositiveRate);
+        int numEntries = Math.max(1, filterEntries.size());
+        double optimalNumBits = -numEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        int numBits = (int) Math.max(MIN_NUM_BITS, Math.min(MAX_NUM_BITS, optimalNumBits));
+        int numHashes = (int) Math.max(1, Math.min(MAX_NUM_HASHES, Math.round((double) numBits / numEntries * Math.log(2))));
+        DataBloomFilter bloomFilter = new DataBloomFilter(new long[(numBits + Long.SIZE - 1) / Long.SIZE], numHashes);
+        filterEntries.forEach(bloomFilter::put);
+        return bloomFilter;
+    }
+
+    private DataBloomFilter(long[] bits, int numHashes) {
+        this.bits = bits;
+        this.numHashes = numHashes;
+    }
+
+    public bisq.network.protobuf.DataBloomFilter toProto() {
+        return bisq.network.protobuf.DataBloomFilter.newBuilder()
+                .addAllBits(Longs.asList(bits))
+                .setNumHashes(numHashes)
+                .build();
+    }
+
+    public static DataBloomFilter fromProto(bisq.network.protobuf.DataBloomFilter proto) {
+        int numWords = proto.getBitsCount();
+        checkArgument(numWords > 0 && numWords <= MAX_NUM_BITS / Long.SIZE, "Invalid size " + numWords);
+        checkArgument(proto.getNumHashes() > 0 && proto.getNumHashes() <= MAX_NUM_HASHES,
+                "Invalid numHashes " + proto.getNumHashes());
+        return new DataBloomFilter(Longs.toArray(proto.getBitsList()), proto.getNumHashes());
+    }
+
+    public boolean mightContain(FilterEntry filterEntry) {
+        long key = InventorySketch.toKey(filterEntry);
+        long numBits = getNumBits();
+        for (int i = 0; i < numHashes; i++) {
+            long index = getBitIndex(key, i, numBits);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Short key used for reporting matches and requesting the entries missed by false positives. A collision with a
+     * key of one of our entries (about 1 : 400000 at 10000 entries) means we miss that entry until the next request.
+     */
+    public static int toShortKey(FilterEntry filterEntry) {
+        return (int) InventorySketch.toKey(filterEntry);
+    }
+
+    public long getNumBits() {
+        return (long) bits.length * Long.SIZE;
+    }
+
+    @Override
+    public String toString() {
+        return "DataBloomFilter{numBits=" + getNumBits() + ", numHashes=" + numHashes + "}";
+    }
+
+    private void put(FilterEntry filterEntry) {
+        long key = InventorySketch.toKey(filterEntry);
+        long numBits = getNumBits();
+        for (int i = 0; i < numHashes; i++) {
+            long index = getBitIndex(key, i, numBits);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    // Double hashing. The key is already well mixed, so we derive the second hash by rotating it.
+    private static long getBitIndex(long key, int hashIndex, long numBits) {
+        long hash2 = Long.rotateLeft(key, 32) | 1;
+        return Long.remainderUnsigned(key + hashIndex * hash2, numBits);
+    }
+}
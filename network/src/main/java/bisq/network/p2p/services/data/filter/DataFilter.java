@@ -20,21 +20,96 @@ package bisq.network.p2p.services.data.filter;
 
 import bisq.common.proto.Proto;
 
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-public record DataFilter(Set<FilterEntry> filterEntries) implements Proto {
+/**
+ * Describes the entries we have already, so that the peer sends only the ones we are missing. Only one of the
+ * representations is used in a request:
+ *
+ * @param filterEntries      The full list of our entries.
+ * @param sketch             If present the peer reconciles its inventory with the sketch and sends only the entries
+ *                           we are missing. If the difference is too large to be decoded the peer responds with an
+ *                           inventory flagged as reconciliationFailed, and we repeat the request with another
+ *                           representation.
+ * @param bloomFilter        If present the peer sends the entries not matching the bloom filter and reports the short
+ *                           keys of the matching ones, so we can detect false positives.
+ * @param requestedKeys      Short keys of entries we request explicitly in the follow-up round of a bloom filter
+ *                           request.
+ * @param storeNames         The stores we request. Matches the store file name (e.g. Offer) or the store type name
+ *                           (e.g. MailboxDataStore). If empty all stores are requested.
+ * @param excludedStoreNames The stores we do not request, with the same matching as storeNames.
+ */
+public record DataFilter(Set<FilterEntry> filterEntries,
+                         Optional<InventorySketch> sketch,
+                         Optional<DataBloomFilter> bloomFilter,
+                         Set<Integer> requestedKeys,
+                         Set<String> storeNames,
+                         Set<String> excludedStoreNames) implements Proto {
+    public DataFilter(Set<FilterEntry> filterEntries) {
+        this(filterEntries, Set.of(), Set.of());
+    }
+
+    public DataFilter(Set<FilterEntry> filterEntries, Set<String> storeNames, Set<String> excludedStoreNames) {
+        this(filterEntries, Optional.empty(), Optional.empty(), Set.of(), storeNames, excludedStoreNames);
+    }
+
+    /**
+     * @return A filter for the same stores using a sketch of our filterEntries.
+     */
+    public DataFilter toSketchFilter() {
+        return new DataFilter(Set.of(),
+                Optional.of(InventorySketch.create(filterEntries, InventorySketch.getNumCells(filterEntries.size()))),
+                Optional.empty(),
+                Set.of(),
+                storeNames,
+                excludedStoreNames);
+    }
+
+    /**
+     * @return A filter for the same stores using a bloom filter of our filterEntries.
+     */
+    public DataFilter toBloomFilter() {
+        return new DataFilter(Set.of(),
+                Optional.empty(),
+                Optional.of(DataBloomFilter.create(filterEntries, DataBloomFilter.DEFAULT_FALSE_POSITIVE_RATE)),
+                Set.of(),
+                storeNames,
+                excludedStoreNames);
+    }
+
+    public DataFilter toRequestedKeysFilter(Set<Integer> requestedKeys) {
+        return new DataFilter(Set.of(), Optional.empty(), Optional.empty(), requestedKeys, storeNames, excludedStoreNames);
+    }
+
+    public boolean isStoreIncluded(String storeFileName, String storeTypeName) {
+        return (storeNames.isEmpty() || storeNames.contains(storeFileName) || storeNames.contains(storeTypeName)) &&
+                !excludedStoreNames.contains(storeFileName) &&
+                !excludedStoreNames.contains(storeTypeName);
+    }
+
     public bisq.network.protobuf.DataFilter toProto() {
-        return bisq.network.protobuf.DataFilter.newBuilder()
+        bisq.network.protobuf.DataFilter.Builder builder = bisq.network.protobuf.DataFilter.newBuilder()
                 .addAllFilterEntries(filterEntries.stream()
                         .map(FilterEntry::toProto)
                         .collect(Collectors.toList()))
-                .build();
+                .addAllRequestedKeys(requestedKeys)
+                .addAllStoreNames(storeNames)
+                .addAllExcludedStoreNames(excludedStoreNames);
+        sketch.ifPresent(e -> builder.setSketch(e.toProto()));
+        bloomFilter.ifPresent(e -> builder.setBloomFilter(e.toProto()));
+        return builder.build();
     }
 
     public static DataFilter fromProto(bisq.network.protobuf.DataFilter proto) {
         return new DataFilter(proto.getFilterEntriesList().stream()
                 .map(FilterEntry::fromProto)
-                .collect(Collectors.toSet()));
+                .collect(Collectors.toSet()),
+                proto.hasSketch() ? Optional.of(InventorySketch.fromProto(proto.getSketch())) : Optional.empty(),
+                proto.hasBloomFilter() ? Optional.of(DataBloomFilter.fromProto(proto.getBloomFilter())) : Optional.empty(),
+                Set.copyOf(proto.getRequestedKeysList()),
+                Set.copyOf(proto.getStoreNamesList()),
+                Set.copyOf(proto.getExcludedStoreNamesList()));
     }
-}
\ No newline at end of file
+}
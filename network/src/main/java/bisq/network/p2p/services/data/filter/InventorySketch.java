@@ -0,0 +1,230 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.filter;
+
+import bisq.common.proto.Proto;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Invertible Bloom lookup table over the keys of FilterEntries. Subtracting the sketch of the peer from our sketch
+ * leaves only the entries of the symmetric difference, which can be recovered if the difference is small enough
+ * compared to the number of cells (about numCells / 1.5 entries). The size of the sketch depends only on the number of
+ * cells, not on the number of entries, so it is much smaller than the list of FilterEntries if both peers have most
+ * of the data already.
+ */
+public final class InventorySketch implements Proto {
+    private static final int NUM_HASHES = 3;
+    public static final int MIN_NUM_CELLS = 64 * NUM_HASHES;
+    public static final int MAX_NUM_CELLS = 100_000 * NUM_HASHES;
+    private static final long CHECK_SUM_SEED = 0x5bd1e9955bd1e995L;
+
+    /**
+     * Keys of the entries only contained in one of the two sketches.
+     */
+    public record Difference(Set<Long> onlyInThis, Set<Long> onlyInOther) {
+    }
+
+    private final int numEntries;
+    private final int[] counts;
+    private final long[] keySums;
+    private final long[] checkSums;
+
+    /**
+     * @param numCells Gets rounded up to a multiple of the number of hash functions.
+     */
+    public static InventorySketch create(Collection<FilterEntry> filterEntries, int numCells) {
+        InventorySketch sketch = new InventorySketch(filterEntries.size(), toValidNumCells(numCells));
+        filterEntries.forEach(filterEntry -> sketch.add(toKey(filterEntry)));
+        return sketch;
+    }
+
+    /**
+     * @return The number of cells we use for a set of that size. Larger sets are expected to have larger differences.
+     */
+    public static int getNumCells(int numEntries) {
+        return toValidNumCells(numEntries / 10);
+    }
+
+    /**
+     * The key is derived from the hash and the sequence number, so an entry with a higher sequence number is a
+     * different element of the set.
+     */
+    public static long toKey(FilterEntry filterEntry) {
+        byte[] hash = filterEntry.hash();
+        long key = hash.length >= Long.BYTES ?
+                Longs.fromByteArray(hash) :
+                Arrays.hashCode(hash);
+        return mix(key ^ mix(filterEntry.sequenceNumber()));
+    }
+
+    private InventorySketch(int numEntries, int numCells) {
+        this(numEntries, new int[numCells], new long[numCells], new long[numCells]);
+    }
+
+    private InventorySketch(int numEntries, int[] counts, long[] keySums, long[] checkSums) {
+        this.numEntries = numEntries;
+        this.counts = counts;
+        this.keySums = keySums;
+        this.checkSums = checkSums;
+    }
+
+    public bisq.network.protobuf.InventorySketch toProto() {
+        return bisq.network.protobuf.InventorySketch.newBuilder()
+                .setNumEntries(numEntries)
+                .addAllCounts(Ints.asList(counts))
+                .addAllKeySums(Longs.asList(keySums))
+                .addAllCheckSums(Longs.asList(checkSums))
+                .build();
+    }
+
+    public static InventorySketch fromProto(bisq.network.protobuf.InventorySketch proto) {
+        int numCells = proto.getCountsCount();
+        checkArgument(numCells >= MIN_NUM_CELLS && numCells <= MAX_NUM_CELLS && numCells % NUM_HASHES == 0,
+                "Invalid number of cells " + numCells);
+        checkArgument(proto.getKeySumsCount() == numCells && proto.getCheckSumsCount() == numCells,
+                "Inconsistent number of cells");
+        return new InventorySketch(proto.getNumEntries(),
+                Ints.toArray(proto.getCountsList()),
+                Longs.toArray(proto.getKeySumsList()),
+                Longs.toArray(proto.getCheckSumsList()));
+    }
+
+    public int getNumEntries() {
+        return numEntries;
+    }
+
+    public int getNumCells() {
+        return counts.length;
+    }
+
+    /**
+     * Decodes the difference between this sketch and the sketch of the peer. Both sketches must use the same number
+     * of cells.
+     *
+     * @return The difference or empty if the difference is too large to be decoded.
+     */
+    public Optional<Difference> decode(InventorySketch other) {
+        int numCells = getNumCells();
+        if (other.getNumCells() != numCells ||
+                Math.abs(numEntries - other.numEntries) > getMaxDecodableDifference()) {
+            return Optional.empty();
+        }
+
+        InventorySketch diff = new InventorySketch(0, numCells);
+        for (int i = 0; i < numCells; i++) {
+            diff.counts[i] = counts[i] - other.counts[i];
+            diff.keySums[i] = keySums[i] ^ other.keySums[i];
+            diff.checkSums[i] = checkSums[i] ^ other.checkSums[i];
+        }
+
+        Set<Long> onlyInThis = new HashSet<>();
+        Set<Long> onlyInOther = new HashSet<>();
+        ArrayDeque<Integer> pureCells = new ArrayDeque<>();
+        for (int i = 0; i < numCells; i++) {
+            if (diff.isPure(i)) {
+                pureCells.add(i);
+            }
+        }
+        while (!pureCells.isEmpty()) {
+            int index = pureCells.poll();
+            if (!diff.isPure(index)) {
+                // Got already peeled by another cell
+                continue;
+            }
+            long key = diff.keySums[index];
+            int count = diff.counts[index];
+            if (count == 1) {
+                onlyInThis.add(key);
+            } else {
+                onlyInOther.add(key);
+            }
+            int subTableSize = numCells / NUM_HASHES;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int cellIndex = getCellIndex(key, i, subTableSize);
+                diff.counts[cellIndex] -= count;
+                diff.keySums[cellIndex] ^= key;
+                diff.checkSums[cellIndex] ^= checkSum(key);
+                if (diff.isPure(cellIndex)) {
+                    pureCells.add(cellIndex);
+                }
+            }
+        }
+
+        for (int i = 0; i < numCells; i++) {
+            if (diff.counts[i] != 0 || diff.keySums[i] != 0 || diff.checkSums[i] != 0) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new Difference(onlyInThis, onlyInOther));
+    }
+
+    @Override
+    public String toString() {
+        return "InventorySketch{numEntries=" + numEntries + ", numCells=" + getNumCells() + "}";
+    }
+
+    private int getMaxDecodableDifference() {
+        return getNumCells() * 2 / 3;
+    }
+
+    private void add(long key) {
+        int subTableSize = getNumCells() / NUM_HASHES;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            int cellIndex = getCellIndex(key, i, subTableSize);
+            counts[cellIndex]++;
+            keySums[cellIndex] ^= key;
+            checkSums[cellIndex] ^= checkSum(key);
+        }
+    }
+
+    private boolean isPure(int index) {
+        int count = counts[index];
+        return (count == 1 || count == -1) && checkSums[index] == checkSum(keySums[index]);
+    }
+
+    // Each hash function maps into its own sub-table, so the cells of a key are always distinct
+    private static int getCellIndex(long key, int hashIndex, int subTableSize) {
+        return hashIndex * subTableSize + (int) Long.remainderUnsigned(mix(key + hashIndex), subTableSize);
+    }
+
+    private static long checkSum(long key) {
+        return mix(key ^ CHECK_SUM_SEED);
+    }
+
+    private static int toValidNumCells(int numCells) {
+        int bounded = Math.max(MIN_NUM_CELLS, Math.min(MAX_NUM_CELLS, numCells));
+        return (bounded + NUM_HASHES - 1) / NUM_HASHES * NUM_HASHES;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.inventory;
+
+import bisq.common.proto.Proto;
+
+/**
+ * Position after the last entry of an inventory page. Entries are ordered by created date (newest first) and key, so
+ * the responder can compute the next page without keeping state. Entries added after the first page are not
+ * contained in later pages if they are newer than the token, but we receive those by broadcast.
+ */
+public record ContinuationToken(long created, long key) implements Proto {
+    public bisq.network.protobuf.ContinuationToken toProto() {
+        return bisq.network.protobuf.ContinuationToken.newBuilder()
+                .setCreated(created)
+                .setKey(key)
+                .build();
+    }
+
+    public static ContinuationToken fromProto(bisq.network.protobuf.ContinuationToken proto) {
+        return new ContinuationToken(proto.getCreated(), proto.getKey());
+    }
+}
@@ -22,16 +22,43 @@ import bisq.network.p2p.services.data.DataRequest;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * @param reconciliationFailed Set if the request used an InventorySketch which could not be decoded. The requester
+ *                             falls back to a request with the full list of FilterEntries.
+ * @param bloomFilterMatches   Short keys of the entries not sent because they matched the DataBloomFilter of the
+ *                             request. Used by the requester for detecting false positives. Only set in the first page.
+ * @param continuationToken    Present if the inventory exceeded the page size. The requester gets the next page by
+ *                             repeating the request with that token.
+ */
 @Slf4j
-public record Inventory(Set<? extends DataRequest> entries, int numDropped) implements Proto {
+public record Inventory(Set<? extends DataRequest> entries,
+                        int numDropped,
+                        boolean reconciliationFailed,
+                        Set<Integer> bloomFilterMatches,
+                        Optional<ContinuationToken> continuationToken) implements Proto {
+    // Max. size of the entries of one page. Large entries are sent anyway, one per page.
+    public static final int MAX_PAGE_SIZE = 1024 * 1024;
+
+    public Inventory(Set<? extends DataRequest> entries, int numDropped) {
+        this(entries, numDropped, false, Set.of(), Optional.empty());
+    }
+
+    public static Inventory reconciliationFailed() {
+        return new Inventory(Set.of(), 0, true, Set.of(), Optional.empty());
+    }
+
     public bisq.network.protobuf.Inventory toProto() {
-        return bisq.network.protobuf.Inventory.newBuilder()
+        bisq.network.protobuf.Inventory.Builder builder = bisq.network.protobuf.Inventory.newBuilder()
                 .addAllEntries(entries.stream().map(e -> e.toProto().getDataRequest()).collect(Collectors.toList()))
                 .setNumDropped(numDropped)
-                .build();
+                .setReconciliationFailed(reconciliationFailed)
+                .addAllBloomFilterMatches(bloomFilterMatches);
+        continuationToken.ifPresent(e -> builder.setContinuationToken(e.toProto()));
+        return builder.build();
     }
 
     public static Inventory fromProto(bisq.network.protobuf.Inventory proto) {
@@ -39,6 +66,12 @@ public record Inventory(Set<? extends DataRequest> entries, int numDropped) impl
         Set<DataRequest> entries = entriesList.stream()
                 .map(DataRequest::fromProto)
                 .collect(Collectors.toSet());
-        return new Inventory(entries, proto.getNumDropped());
+        return new Inventory(entries,
+                proto.getNumDropped(),
+                proto.getReconciliationFailed(),
+                Set.copyOf(proto.getBloomFilterMatchesList()),
+                proto.hasContinuationToken() ?
+                        Optional.of(ContinuationToken.fromProto(proto.getContinuationToken())) :
+                        Optional.empty());
     }
 }
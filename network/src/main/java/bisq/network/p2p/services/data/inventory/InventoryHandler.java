@@ -31,6 +31,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -54,11 +55,11 @@ class InventoryHandler implements Connection.Listener {
         connection.addListener(this);
     }
 
-    CompletableFuture<Inventory> request(DataFilter dataFilter) {
+    CompletableFuture<Inventory> request(DataFilter dataFilter, Optional<ContinuationToken> continuationToken) {
         log.debug("Node {} send GetInventoryRequest to {} with dataFilter {} and nonce {}. Connection={}",
                 node, connection.getPeerAddress(), dataFilter, nonce, connection.getId());
         ts = System.currentTimeMillis();
-        supplyAsync(() -> node.send(new InventoryRequest(dataFilter, nonce), connection), NetworkService.NETWORK_IO_POOL)
+        supplyAsync(() -> node.send(new InventoryRequest(dataFilter, nonce, continuationToken), connection), NetworkService.NETWORK_IO_POOL)
                 .whenComplete((c, throwable) -> {
                     if (throwable != null) {
                         future.completeExceptionally(throwable);
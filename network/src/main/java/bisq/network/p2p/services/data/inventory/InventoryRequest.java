@@ -20,17 +20,32 @@ package bisq.network.p2p.services.data.inventory;
 import bisq.network.p2p.services.data.broadcast.BroadcastMessage;
 import bisq.network.p2p.services.data.filter.DataFilter;
 
-public record InventoryRequest(DataFilter dataFilter, int nonce) implements BroadcastMessage {
+import java.util.Optional;
+
+/**
+ * @param continuationToken Present if we request a further page of the inventory.
+ */
+public record InventoryRequest(DataFilter dataFilter,
+                               int nonce,
+                               Optional<ContinuationToken> continuationToken) implements BroadcastMessage {
+    public InventoryRequest(DataFilter dataFilter, int nonce) {
+        this(dataFilter, nonce, Optional.empty());
+    }
+
     @Override
     public bisq.network.protobuf.NetworkMessage toProto() {
-        return getNetworkMessageBuilder().setInventoryRequest(
-                        bisq.network.protobuf.InventoryRequest.newBuilder()
-                                .setDataFilter(dataFilter.toProto())
-                                .setNonce(nonce))
-                .build();
+        bisq.network.protobuf.InventoryRequest.Builder builder = bisq.network.protobuf.InventoryRequest.newBuilder()
+                .setDataFilter(dataFilter.toProto())
+                .setNonce(nonce);
+        continuationToken.ifPresent(e -> builder.setContinuationToken(e.toProto()));
+        return getNetworkMessageBuilder().setInventoryRequest(builder).build();
     }
 
     public static InventoryRequest fromProto(bisq.network.protobuf.InventoryRequest proto) {
-        return new InventoryRequest(DataFilter.fromProto(proto.getDataFilter()), proto.getNonce());
+        return new InventoryRequest(DataFilter.fromProto(proto.getDataFilter()),
+                proto.getNonce(),
+                proto.hasContinuationToken() ?
+                        Optional.of(ContinuationToken.fromProto(proto.getContinuationToken())) :
+                        Optional.empty());
     }
 }
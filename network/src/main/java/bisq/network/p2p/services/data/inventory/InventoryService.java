@@ -19,32 +19,44 @@ package bisq.network.p2p.services.data.inventory;
 
 import bisq.network.NetworkService;
 import bisq.network.p2p.message.NetworkMessage;
+import bisq.network.p2p.node.Capability;
 import bisq.network.p2p.node.CloseReason;
 import bisq.network.p2p.node.Connection;
 import bisq.network.p2p.node.Node;
+import bisq.network.p2p.services.data.filter.DataBloomFilter;
 import bisq.network.p2p.services.data.filter.DataFilter;
 import bisq.network.p2p.services.peergroup.PeerGroup;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class InventoryService implements Node.Listener {
     private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    private static final int MIN_ENTRIES_FOR_SKETCH = 1000;
+    private static final int MIN_ENTRIES_FOR_BLOOM_FILTER = 100;
+    // Protects us from peers sending continuation tokens endlessly
+    private static final int MAX_PAGES = 1000;
 
 
     private final Node node;
     private final PeerGroup peerGroup;
     private final Map<String, InventoryHandler> requestHandlerMap = new ConcurrentHashMap<>();
-    private final Function<DataFilter, Inventory> inventoryProvider;
+    // Provides the inventory for the request and the max. page size
+    private final BiFunction<InventoryRequest, Integer, Inventory> inventoryProvider;
 
-    public InventoryService(Node node, PeerGroup peerGroup, Function<DataFilter, Inventory> inventoryProvider) {
+    public InventoryService(Node node,
+                            PeerGroup peerGroup,
+                            BiFunction<InventoryRequest, Integer, Inventory> inventoryProvider) {
         this.node = node;
         this.peerGroup = peerGroup;
         this.inventoryProvider = inventoryProvider;
@@ -54,22 +66,163 @@ public class InventoryService implements Node.Listener {
     public void initialize() {
     }
 
-    public List<CompletableFuture<Inventory>> request(DataFilter dataFilter) {
+    /**
+     * Requests the inventory from our peers. Depending on the features supported by the peer we send an
+     * InventorySketch, a DataBloomFilter or the full list of FilterEntries. If the peer cannot decode the sketch we
+     * repeat the request with the bloom filter or the full list.
+     * Large inventories are delivered in pages. Each page is passed to the pageHandler when it arrives, so the
+     * data can be applied before the whole inventory is received. The next page gets requested after the future
+     * returned by the pageHandler has completed.
+     *
+     * @return A future per peer which completes after the last page got received.
+     */
+    public List<CompletableFuture<Void>> request(DataFilter dataFilter,
+                                                 Function<Inventory, CompletableFuture<Void>> pageHandler) {
         int maxRequests = 400;
+        Optional<DataFilter> sketchFilter = toSketchFilter(dataFilter);
+        Optional<DataFilter> bloomFilter = toBloomFilter(dataFilter);
+        Set<Integer> myShortKeys = toShortKeys(dataFilter, bloomFilter);
         return peerGroup.getAllConnections()
                 .filter(connection -> !requestHandlerMap.containsKey(connection.getId()))
                 .limit(maxRequests)
-                .map(connection -> {
-                    String key = connection.getId();
-                    InventoryHandler handler = new InventoryHandler(node, connection);
-                    requestHandlerMap.put(key, handler);
-                    return handler.request(dataFilter)
-                            .orTimeout(TIMEOUT, TimeUnit.SECONDS)
-                            .whenComplete((__, throwable) -> requestHandlerMap.remove(key));
-                })
+                .map(connection -> request(dataFilter, sketchFilter, bloomFilter, myShortKeys, connection, pageHandler))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Requests the inventory from the given peer only. See request(DataFilter, Function).
+     *
+     * @return A future which completes after the last page got received. Fails if there is a pending request to that
+     * peer.
+     */
+    public CompletableFuture<Void> request(DataFilter dataFilter,
+                                           Connection connection,
+                                           Function<Inventory, CompletableFuture<Void>> pageHandler) {
+        if (requestHandlerMap.containsKey(connection.getId())) {
+            return CompletableFuture.failedFuture(new IllegalStateException("There is a pending inventory request to " +
+                    connection.getPeerAddress()));
+        }
+        Optional<DataFilter> bloomFilter = toBloomFilter(dataFilter);
+        return request(dataFilter,
+                toSketchFilter(dataFilter),
+                bloomFilter,
+                toShortKeys(dataFilter, bloomFilter),
+                connection,
+                pageHandler);
+    }
+
+    private CompletableFuture<Void> request(DataFilter dataFilter,
+                                            Optional<DataFilter> sketchFilter,
+                                            Optional<DataFilter> bloomFilter,
+                                            Set<Integer> myShortKeys,
+                                            Connection connection,
+                                            Function<Inventory, CompletableFuture<Void>> pageHandler) {
+        Set<Capability.Feature> features = connection.getPeersCapability().features();
+        boolean useBloomFilter = bloomFilter.isPresent() &&
+                features.contains(Capability.Feature.INVENTORY_BLOOM_FILTER_V1);
+        if (sketchFilter.isPresent() && features.contains(Capability.Feature.INVENTORY_RECONCILIATION_V1)) {
+            return requestAllPages(sketchFilter.get(), connection, pageHandler)
+                    .thenCompose(firstPage -> {
+                        if (firstPage.reconciliationFailed()) {
+                            log.info("Reconciliation with {} failed. We request the inventory with the {}.",
+                                    connection.getPeerAddress(), useBloomFilter ? "bloom filter" : "full filter");
+                            return useBloomFilter ?
+                                    requestWithBloomFilter(bloomFilter.get(), myShortKeys, connection, pageHandler) :
+                                    requestAllPages(dataFilter, connection, pageHandler).<Void>thenApply(__ -> null);
+                        }
+                        return CompletableFuture.<Void>completedFuture(null);
+                    });
+        }
+        if (useBloomFilter) {
+            return requestWithBloomFilter(bloomFilter.get(), myShortKeys, connection, pageHandler);
+        }
+        return requestAllPages(dataFilter, connection, pageHandler).thenApply(__ -> null);
+    }
+
+    // Small filters are cheaper than the min. sketch size
+    private static Optional<DataFilter> toSketchFilter(DataFilter dataFilter) {
+        return dataFilter.filterEntries().size() >= MIN_ENTRIES_FOR_SKETCH ?
+                Optional.of(dataFilter.toSketchFilter()) :
+                Optional.empty();
+    }
+
+    private static Optional<DataFilter> toBloomFilter(DataFilter dataFilter) {
+        return dataFilter.filterEntries().size() >= MIN_ENTRIES_FOR_BLOOM_FILTER ?
+                Optional.of(dataFilter.toBloomFilter()) :
+                Optional.empty();
+    }
+
+    private static Set<Integer> toShortKeys(DataFilter dataFilter, Optional<DataFilter> bloomFilter) {
+        return bloomFilter.isPresent() ?
+                dataFilter.filterEntries().stream().map(DataBloomFilter::toShortKey).collect(Collectors.toSet()) :
+                Set.of();
+    }
+
+    // Entries matching our bloom filter which we do not have are false positives. We request them in a follow-up round.
+    private CompletableFuture<Void> requestWithBloomFilter(DataFilter bloomFilter,
+                                                           Set<Integer> myShortKeys,
+                                                           Connection connection,
+                                                           Function<Inventory, CompletableFuture<Void>> pageHandler) {
+        return requestAllPages(bloomFilter, connection, pageHandler)
+                .thenCompose(firstPage -> {
+                    Set<Integer> falsePositives = firstPage.bloomFilterMatches().stream()
+                            .filter(key -> !myShortKeys.contains(key))
+                            .collect(Collectors.toSet());
+                    if (falsePositives.isEmpty()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    log.info("{} entries from {} got missed by false positives of our bloom filter. We request them.",
+                            falsePositives.size(), connection.getPeerAddress());
+                    return requestAllPages(bloomFilter.toRequestedKeysFilter(falsePositives), connection, pageHandler)
+                            .thenApply(__ -> null);
+                });
+    }
+
+    /**
+     * @return The first page, which carries the reconciliationFailed flag and the bloomFilterMatches. Completes after
+     * all pages got received. A page with the reconciliationFailed flag is not passed to the pageHandler.
+     */
+    private CompletableFuture<Inventory> requestAllPages(DataFilter dataFilter,
+                                                         Connection connection,
+                                                         Function<Inventory, CompletableFuture<Void>> pageHandler) {
+        return requestPage(dataFilter, Optional.empty(), connection)
+                .thenCompose(firstPage -> {
+                    if (firstPage.reconciliationFailed()) {
+                        return CompletableFuture.completedFuture(firstPage);
+                    }
+                    return onPage(firstPage, 1, dataFilter, connection, pageHandler).thenApply(__ -> firstPage);
+                });
+    }
+
+    private CompletableFuture<Void> onPage(Inventory page,
+                                           int numPages,
+                                           DataFilter dataFilter,
+                                           Connection connection,
+                                           Function<Inventory, CompletableFuture<Void>> pageHandler) {
+        return pageHandler.apply(page).thenCompose(__ -> {
+            if (page.continuationToken().isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (numPages >= MAX_PAGES) {
+                log.warn("We stop requesting inventory pages from {} after {} pages", connection.getPeerAddress(), numPages);
+                return CompletableFuture.completedFuture(null);
+            }
+            return requestPage(dataFilter, page.continuationToken(), connection)
+                    .thenCompose(nextPage -> onPage(nextPage, numPages + 1, dataFilter, connection, pageHandler));
+        });
+    }
+
+    private CompletableFuture<Inventory> requestPage(DataFilter dataFilter,
+                                                     Optional<ContinuationToken> continuationToken,
+                                                     Connection connection) {
+        String key = connection.getId();
+        InventoryHandler handler = new InventoryHandler(node, connection);
+        requestHandlerMap.put(key, handler);
+        return handler.request(dataFilter, continuationToken)
+                .orTimeout(TIMEOUT, TimeUnit.MILLISECONDS)
+                .whenComplete((__, throwable) -> requestHandlerMap.remove(key));
+    }
+
     public void shutdown() {
         requestHandlerMap.values().forEach(InventoryHandler::dispose);
         requestHandlerMap.clear();
@@ -79,7 +232,11 @@ public class InventoryService implements Node.Listener {
     public void onMessage(NetworkMessage networkMessage, Connection connection, String nodeId) {
         if (networkMessage instanceof InventoryRequest request) {
             log.debug("Node {} received GetInventoryRequest with nonce {} from {}", node, request.nonce(), connection.getPeerAddress());
-            Inventory inventory = inventoryProvider.apply(request.dataFilter());
+            // Peers not supporting paging would not request the further pages, so they get the whole inventory at once
+            int maxPageSize = connection.getPeersCapability().features().contains(Capability.Feature.INVENTORY_PAGING_V1) ?
+                    Inventory.MAX_PAGE_SIZE :
+                    Integer.MAX_VALUE;
+            Inventory inventory = inventoryProvider.apply(request, maxPageSize);
             NetworkService.NETWORK_IO_POOL.submit(() -> node.send(new InventoryResponse(inventory, request.nonce()), connection));
             log.debug("Node {} sent GetInventoryResponse with inventory {} and nonce {} to {}. Connection={}",
                     node, inventory, request.nonce(), connection.getPeerAddress(), connection.getId());
@@ -19,27 +19,37 @@ package bisq.network.p2p.services.data.storage;
 
 import bisq.common.data.ByteArray;
 import bisq.common.timer.Scheduler;
+import bisq.common.util.FileUtils;
 import bisq.network.p2p.services.data.DataRequest;
 import bisq.persistence.Persistence;
 import bisq.persistence.PersistenceService;
-import bisq.persistence.RateLimitedPersistenceClient;
+import bisq.persistence.WriteAheadLogPersistenceClient;
+import com.google.protobuf.InvalidProtocolBufferException;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
-public abstract class DataStorageService<T extends DataRequest> extends RateLimitedPersistenceClient<DataStore<T>> {
+public abstract class DataStorageService<T extends DataRequest> extends WriteAheadLogPersistenceClient<DataStore<T>> {
     public static final String SUB_PATH = "db" + File.separator + "network";
     @Getter
     protected final Persistence<DataStore<T>> persistence;
     @Getter
     public final DataStore<T> persistableStore = new DataStore<>();
     @Getter
+    private final InventoryIndex inventoryIndex = new InventoryIndex();
+    @Getter
+    private final String storeName;
+    @Getter
     private final String fileName;
     @Getter
     protected final String subDirectory;
@@ -47,6 +57,7 @@ public abstract class DataStorageService<T extends DataRequest> extends RateLimi
 
     public DataStorageService(PersistenceService persistenceService, String storeName, String fileName) {
         super();
+        this.storeName = storeName;
         this.fileName = fileName;
         subDirectory = SUB_PATH + File.separator + storeName;
         persistence = persistenceService.getOrCreatePersistence(this, subDirectory, fileName, persistableStore);
@@ -54,13 +65,144 @@ public abstract class DataStorageService<T extends DataRequest> extends RateLimi
     }
 
     private void pruneExpired() {
-        Set<Map.Entry<ByteArray, T>> expiredEntries = persistableStore.getMap().entrySet().stream()
-                .filter(entry -> entry.getValue().isExpired())
+        long now = System.currentTimeMillis();
+        LazyDataRequestMap<T> map = persistableStore.getMap();
+        Set<ByteArray> expiredKeys = map.keySet().stream()
+                .filter(key -> {
+                    DataStore.EntryInfo entryInfo = map.getEntryInfo(key);
+                    return entryInfo != null && entryInfo.isExpired(now);
+                })
                 .collect(Collectors.toSet());
-        if (!expiredEntries.isEmpty()) {
-            log.info("We remove {} expired entries from our map", expiredEntries.size());
+        if (!expiredKeys.isEmpty()) {
+            log.info("We remove {} expired entries from our map", expiredKeys.size());
         }
-        expiredEntries.forEach(e -> persistableStore.getMap().remove(e.getKey()));
+        expiredKeys.forEach(this::removeEntry);
+    }
+
+    // The network data are not needed before we bootstrap to the network, so they get read in the background
+    @Override
+    public Priority getReadPriority() {
+        return Priority.LOW;
+    }
+
+    @Override
+    public CompletableFuture<Optional<DataStore<T>>> readPersisted() {
+        return super.readPersisted().thenApply(persisted -> {
+            inventoryIndex.rebuild(persistableStore.getMap());
+            return persisted;
+        });
+    }
+
+    // All changes of the map must be done with those methods to keep the inventoryIndex and the write-ahead log
+    // in sync.
+
+    protected void putEntry(ByteArray key, T value) {
+        synchronized (logLock) {
+            bisq.network.protobuf.DataRequest proto = value.toProto().getDataRequest();
+            persistableStore.getMap().put(key, value);
+            inventoryIndex.put(key, value, proto.getSerializedSize());
+            appendToLog(bisq.network.protobuf.DataStoreLogRecord.newBuilder()
+                    .setKey(key.toProto())
+                    .setValue(proto)
+                    .build()
+                    .toByteArray());
+        }
+    }
+
+    protected void removeEntry(ByteArray key) {
+        synchronized (logLock) {
+            persistableStore.getMap().remove(key);
+            inventoryIndex.remove(key);
+            appendToLog(bisq.network.protobuf.DataStoreLogRecord.newBuilder()
+                    .setKey(key.toProto())
+                    .build()
+                    .toByteArray());
+        }
+    }
+
+    protected void removeEntries(Collection<ByteArray> keys) {
+        synchronized (logLock) {
+            keys.forEach(this::removeEntry);
+        }
+    }
+
+    @Override
+    protected void applyLogRecord(byte[] record) {
+        try {
+            bisq.network.protobuf.DataStoreLogRecord proto = bisq.network.protobuf.DataStoreLogRecord.parseFrom(record);
+            Map<ByteArray, T> map = persistableStore.getMap();
+            if (proto.hasValue()) {
+                //noinspection unchecked
+                map.put(ByteArray.fromProto(proto.getKey()), (T) DataRequest.fromProto(proto.getValue()));
+            } else {
+                map.remove(ByteArray.fromProto(proto.getKey()));
+            }
+        } catch (InvalidProtocolBufferException e) {
+            log.warn("Could not parse record of write-ahead log of {}", fileName, e);
+        }
+    }
+
+    // The snapshot is memory-mapped, so the entries get only decoded when they are accessed. If we do not have a
+    // snapshot yet we read the store persisted by Persistence in earlier versions.
+    @Override
+    protected Optional<DataStore<T>> readSnapshot() {
+        Optional<File> latestGeneration = DataStoreSnapshot.findLatestGeneration(getDirectory(), fileName);
+        if (latestGeneration.isEmpty()) {
+            return super.readSnapshot();
+        }
+        File snapshotFile = latestGeneration.get();
+        try {
+            long ts = System.currentTimeMillis();
+            Optional<DataStoreSnapshot> snapshot = DataStoreSnapshot.read(snapshotFile);
+            if (snapshot.isPresent()) {
+                persistence.getReadMetrics().addRead(snapshotFile.length(), System.currentTimeMillis() - ts);
+                // Generations left over from a previous run are not mapped
+                DataStoreSnapshot.deleteUnusedGenerations(getDirectory(), fileName);
+                return Optional.of(DataStore.fromSnapshot(snapshot.get()));
+            }
+        } catch (IOException e) {
+            log.error("Error at reading snapshot " + snapshotFile, e);
+            try {
+                FileUtils.backupCorruptedFile(persistence.getDirectory(), snapshotFile, snapshotFile.getName(), "corruptedFilesAtRead");
+            } catch (IOException exception) {
+                log.error("Error trying to backup corrupted file " + snapshotFile, exception);
+            }
+        }
+        return super.readSnapshot();
+    }
+
+    @Override
+    protected boolean writeSnapshot(DataStore<T> snapshot) {
+        try {
+            DataStoreSnapshot written = DataStoreSnapshot.write(getDirectory(), fileName, snapshot.getMap());
+            // The snapshot replaces the file written by Persistence in earlier versions
+            FileUtils.deleteFile(new File(persistence.getStoragePath()));
+            replaceSlots(written);
+            return true;
+        } catch (IOException e) {
+            log.error("Error at writing snapshot of " + fileName, e);
+            return false;
+        }
+    }
+
+    @Override
+    protected long getSnapshotSize() {
+        return DataStoreSnapshot.findLatestGeneration(getDirectory(), fileName)
+                .map(File::length)
+                .orElseGet(super::getSnapshotSize);
+    }
+
+    // Entries which were not decoded since startup still reference the snapshot we have read at startup. We let them
+    // reference the written snapshot, so that the file of the previous one can be deleted.
+    private void replaceSlots(DataStoreSnapshot snapshot) {
+        synchronized (logLock) {
+            LazyDataRequestMap<T> map = persistableStore.getMap();
+            map.replaceSlots(snapshot.getSlotByHash()).forEach(key -> inventoryIndex.update(key, map));
+        }
+    }
+
+    private File getDirectory() {
+        return new File(persistence.getDirectory());
     }
 
   /*  public Inventory getInventory(DataFilter dataFilter) {
@@ -21,6 +21,13 @@ import bisq.common.data.ByteArray;
 import bisq.common.proto.ProtoResolver;
 import bisq.common.proto.UnresolvableProtobufMessageException;
 import bisq.network.p2p.services.data.DataRequest;
+import bisq.network.p2p.services.data.RemoveDataRequest;
+import bisq.network.p2p.services.data.storage.append.AddAppendOnlyDataRequest;
+import bisq.network.p2p.services.data.storage.auth.AddAuthenticatedDataRequest;
+import bisq.network.p2p.services.data.storage.auth.AuthenticatedDataRequest;
+import bisq.network.p2p.services.data.storage.auth.RemoveAuthenticatedDataRequest;
+import bisq.network.p2p.services.data.storage.mailbox.AddMailboxRequest;
+import bisq.network.p2p.services.data.storage.mailbox.RemoveMailboxRequest;
 import bisq.persistence.PersistableStore;
 import com.google.protobuf.InvalidProtocolBufferException;
 import lombok.Getter;
@@ -29,22 +36,71 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @ToString
 public class DataStore<T extends DataRequest> implements PersistableStore<DataStore<T>> {
+    /**
+     * The data of an entry we need for indexing and pruning the store without decoding the entry.
+     *
+     * @param sequenceNumber The sequence number used for the FilterEntry.
+     * @param ttl            Long.MAX_VALUE if the entry never expires.
+     */
+    public record EntryInfo(long created, int sequenceNumber, long ttl, boolean isRemoveRequest) {
+        public static EntryInfo from(DataRequest dataRequest) {
+            long created = dataRequest instanceof AuthenticatedDataRequest authenticatedDataRequest ?
+                    authenticatedDataRequest.getCreated() :
+                    0;
+            int sequenceNumber = 0;
+            long ttl = Long.MAX_VALUE;
+            if (dataRequest instanceof AddAuthenticatedDataRequest addAuthenticatedDataRequest) {
+                sequenceNumber = addAuthenticatedDataRequest.getAuthenticatedSequentialData().getSequenceNumber();
+                ttl = addAuthenticatedDataRequest.getMetaData().getTtl();
+            } else if (dataRequest instanceof RemoveAuthenticatedDataRequest removeAuthenticatedDataRequest) {
+                sequenceNumber = removeAuthenticatedDataRequest.getSequenceNumber();
+                ttl = removeAuthenticatedDataRequest.getMetaData().getTtl();
+            } else if (dataRequest instanceof AddMailboxRequest addMailboxRequest) {
+                // Mailbox entries use 0 as sequence number in the FilterEntry
+                ttl = addMailboxRequest.getMetaData().getTtl();
+            } else if (dataRequest instanceof RemoveMailboxRequest removeMailboxRequest) {
+                ttl = removeMailboxRequest.getMetaData().getTtl();
+            } else if (!(dataRequest instanceof AddAppendOnlyDataRequest)) {
+                log.warn("Unexpected DataRequest type {}", dataRequest.getClass().getSimpleName());
+            }
+            return new EntryInfo(created, sequenceNumber, ttl, dataRequest instanceof RemoveDataRequest);
+        }
+
+        public boolean isExpired(long now) {
+            return now - created > ttl;
+        }
+    }
+
+    private static final int MIN_SIZE_FOR_PARALLEL_DECODING = 1000;
+
     @Getter
-    private final Map<ByteArray, T> map = new ConcurrentHashMap<>();
+    private final LazyDataRequestMap<T> map;
 
     public DataStore() {
+        this(new LazyDataRequestMap<>());
     }
 
     public DataStore(Map<ByteArray, T> map) {
+        this();
         this.map.putAll(map);
     }
 
+    private DataStore(LazyDataRequestMap<T> map) {
+        this.map = map;
+    }
+
+    public static <T extends DataRequest> DataStore<T> fromSnapshot(DataStoreSnapshot snapshot) {
+        DataStore<T> dataStore = new DataStore<>();
+        dataStore.map.putSlots(snapshot.getSlotByHash());
+        return dataStore;
+    }
+
     @Override
     public bisq.network.protobuf.DataStore toProto() {
         // Protobuf map do not support bytes as key
@@ -59,9 +115,15 @@ public class DataStore<T extends DataRequest> implements PersistableStore<DataSt
                 .build();
     }
 
+    // Decoding the entries is CPU bound (e.g. decoding the public keys), so large stores get decoded in parallel
+    // chunks.
     public static PersistableStore<?> fromProto(bisq.network.protobuf.DataStore proto) {
-        return new DataStore<>(proto.getMapEntriesList().stream()
-                .collect(Collectors.toMap(e -> new ByteArray(e.getKey().toByteArray()), e -> DataRequest.fromProto(e.getValue()))));
+        List<bisq.network.protobuf.DataStore.MapEntry> mapEntries = proto.getMapEntriesList();
+        Stream<bisq.network.protobuf.DataStore.MapEntry> stream = mapEntries.size() >= MIN_SIZE_FOR_PARALLEL_DECODING ?
+                mapEntries.parallelStream() :
+                mapEntries.stream();
+        return new DataStore<>(stream.collect(Collectors.toConcurrentMap(e -> new ByteArray(e.getKey().toByteArray()),
+                e -> DataRequest.fromProto(e.getValue()))));
     }
 
     @Override
@@ -78,11 +140,12 @@ public class DataStore<T extends DataRequest> implements PersistableStore<DataSt
     @Override
     public void applyPersisted(DataStore<T> persisted) {
         map.clear();
-        map.putAll(persisted.getMap());
+        map.putAllRaw(persisted.getMap());
     }
 
+    // The clone shares the current version of the map, so it costs O(1) and does not decode any entries
     @Override
     public DataStore<T> getClone() {
-        return new DataStore<>(map);
+        return new DataStore<>(map.snapshot());
     }
 }
\ No newline at end of file
@@ -0,0 +1,293 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.storage;
+
+import bisq.common.data.ByteArray;
+import bisq.common.util.FileUtils;
+import bisq.network.p2p.services.data.DataRequest;
+import com.google.protobuf.CodedInputStream;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Snapshot file of a DataStore which is memory-mapped at read. The file starts with an index containing the hash and
+ * the EntryInfo of each entry, followed by the serialized DataRequests. At startup only the index is read, the
+ * DataRequests are decoded from the mapped file when they are accessed the first time.
+ * Entries which were not decoded are copied from the mapped file to the next snapshot without decoding.
+ * Each snapshot is written to a new generation file, as a mapped file cannot be replaced or deleted on Windows. Older
+ * generations get deleted once no Slot references their snapshot anymore.
+ */
+@Slf4j
+public class DataStoreSnapshot {
+    private static final int MAGIC = 0x42534e31;
+    private static final int VERSION = 1;
+    private static final String GENERATION_SEPARATOR = ".snapshot.";
+    private static final Cleaner CLEANER = Cleaner.create();
+    // Number of snapshots mapping the file. Those files must not be deleted.
+    private static final Map<File, Integer> numSnapshotsByFile = new ConcurrentHashMap<>();
+
+    /**
+     * @param offset The position of the serialized DataRequest in the file.
+     */
+    record Slot(DataStoreSnapshot snapshot, DataStore.EntryInfo entryInfo, int offset, int length) {
+        DataRequest decode() {
+            ByteBuffer buffer = snapshot.buffer.duplicate();
+            buffer.position(offset).limit(offset + length);
+            try {
+                return DataRequest.fromProto(bisq.network.protobuf.DataRequest.parseFrom(CodedInputStream.newInstance(buffer)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not decode entry of " + snapshot.file, e);
+            }
+        }
+
+        ByteBuffer getSerialized() {
+            ByteBuffer buffer = snapshot.buffer.duplicate();
+            buffer.position(offset).limit(offset + length);
+            return buffer.slice();
+        }
+    }
+
+    @Getter
+    private final File file;
+    private final MappedByteBuffer buffer;
+    @Getter
+    private final Map<ByteArray, Slot> slotByHash;
+
+    private DataStoreSnapshot(File file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        slotByHash = readIndex();
+        numSnapshotsByFile.merge(file, 1, Integer::sum);
+        // The action must not reference this snapshot, otherwise it would never become unreachable
+        CLEANER.register(this, () -> onUnreferenced(file));
+    }
+
+    /**
+     * Maps the file and reads the index.
+     */
+    public static Optional<DataStoreSnapshot> read(File file) throws IOException {
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            checkArgument(channel.size() <= Integer.MAX_VALUE, "Snapshot exceeds max. size. file=%s", file);
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Optional.of(new DataStoreSnapshot(file, buffer));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException |
+                 java.nio.BufferUnderflowException e) {
+            throw new IOException("Invalid snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Writes the entries to a temp file which is renamed to the next generation file after it got synced to disk.
+     * Entries still backed by a snapshot get copied without decoding. Older generations which are not mapped anymore
+     * get deleted.
+     *
+     * @return The mapped snapshot of the written file.
+     */
+    public static <T extends DataRequest> DataStoreSnapshot write(File directory,
+                                                                  String fileName,
+                                                                  LazyDataRequestMap<T> map) throws IOException {
+        List<ByteArray> hashes = new ArrayList<>();
+        List<DataStore.EntryInfo> entryInfos = new ArrayList<>();
+        List<ByteBuffer> serialized = new ArrayList<>();
+        map.forEachRaw((hash, value) -> {
+            hashes.add(hash);
+            if (value instanceof Slot slot) {
+                entryInfos.add(slot.entryInfo());
+                serialized.add(slot.getSerialized());
+            } else {
+                DataRequest dataRequest = (DataRequest) value;
+                entryInfos.add(DataStore.EntryInfo.from(dataRequest));
+                serialized.add(ByteBuffer.wrap(dataRequest.toProto().getDataRequest().toByteArray()));
+            }
+        });
+
+        int indexSize = 3 * Integer.BYTES;
+        for (ByteArray hash : hashes) {
+            indexSize += getIndexEntrySize(hash);
+        }
+
+        FileUtils.makeDirs(directory);
+        File tempFile = File.createTempFile("temp_" + fileName, null, directory);
+        FileUtils.deleteOnExit(tempFile);
+        try {
+            try (FileOutputStream fileOutputStream = new FileOutputStream(tempFile);
+                 DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream))) {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(VERSION);
+                outputStream.writeInt(hashes.size());
+                long offset = indexSize;
+                for (int i = 0; i < hashes.size(); i++) {
+                    byte[] hash = hashes.get(i).getBytes();
+                    DataStore.EntryInfo entryInfo = entryInfos.get(i);
+                    int length = serialized.get(i).remaining();
+                    checkArgument(offset + length <= Integer.MAX_VALUE, "Snapshot exceeds max. size");
+                    outputStream.writeShort(hash.length);
+                    outputStream.write(hash);
+                    outputStream.writeLong(entryInfo.created());
+                    outputStream.writeInt(entryInfo.sequenceNumber());
+                    outputStream.writeLong(entryInfo.ttl());
+                    outputStream.writeBoolean(entryInfo.isRemoveRequest());
+                    outputStream.writeInt((int) offset);
+                    outputStream.writeInt(length);
+                    offset += length;
+                }
+                for (ByteBuffer buffer : serialized) {
+                    if (buffer.hasArray()) {
+                        outputStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                    } else {
+                        byte[] bytes = new byte[buffer.remaining()];
+                        buffer.get(bytes);
+                        outputStream.write(bytes);
+                    }
+                }
+                outputStream.flush();
+                fileOutputStream.getFD().sync();
+            }
+            DataStoreSnapshot snapshot;
+            synchronized (DataStoreSnapshot.class) {
+                List<Long> generations = findGenerations(directory, fileName);
+                long generation = generations.isEmpty() ? 1 : generations.get(generations.size() - 1) + 1;
+                File file = getGenerationFile(directory, fileName, generation);
+                // The file of a new generation does not exist yet, so we never replace a mapped file
+                if (!FileUtils.renameFile(tempFile, file)) {
+                    throw new IOException("Could not rename " + tempFile + " to " + file);
+                }
+                snapshot = read(file).orElseThrow(() -> new IOException("Missing snapshot " + file));
+            }
+            deleteUnusedGenerations(directory, fileName);
+            return snapshot;
+        } finally {
+            FileUtils.releaseTempFile(tempFile);
+        }
+    }
+
+    /**
+     * @return The file of the latest generation, or empty if no snapshot was written yet.
+     */
+    static synchronized Optional<File> findLatestGeneration(File directory, String fileName) {
+        List<Long> generations = findGenerations(directory, fileName);
+        return generations.isEmpty() ?
+                Optional.empty() :
+                Optional.of(getGenerationFile(directory, fileName, generations.get(generations.size() - 1)));
+    }
+
+    /**
+     * Deletes all generations except the latest one which are not mapped by a snapshot. If a file cannot be deleted
+     * yet (e.g. the mapping was not released yet on Windows) it gets deleted at the next call.
+     */
+    static synchronized void deleteUnusedGenerations(File directory, String fileName) {
+        List<Long> generations = findGenerations(directory, fileName);
+        for (int i = 0; i < generations.size() - 1; i++) {
+            File file = getGenerationFile(directory, fileName, generations.get(i));
+            if (!numSnapshotsByFile.containsKey(file) && !file.delete()) {
+                log.info("Could not delete unused snapshot {}. We retry at the next snapshot.", file);
+            }
+        }
+    }
+
+    /**
+     * @return The file name of the store the given file is a snapshot of, or empty if it is not a snapshot file.
+     */
+    public static Optional<String> findFileNameOfGeneration(String generationFileName) {
+        int index = generationFileName.lastIndexOf(GENERATION_SEPARATOR);
+        if (index <= 0 || !isGenerationNumber(generationFileName.substring(index + GENERATION_SEPARATOR.length()))) {
+            return Optional.empty();
+        }
+        return Optional.of(generationFileName.substring(0, index));
+    }
+
+    private Map<ByteArray, Slot> readIndex() {
+        ByteBuffer index = buffer.duplicate();
+        checkArgument(index.getInt() == MAGIC, "Invalid snapshot file %s", file);
+        int version = index.getInt();
+        checkArgument(version == VERSION, "Unsupported snapshot version %s", version);
+        int numEntries = index.getInt();
+        checkArgument(numEntries >= 0, "Invalid number of entries %s", numEntries);
+        Map<ByteArray, Slot> slotByHash = new HashMap<>(numEntries * 4 / 3 + 1);
+        for (int i = 0; i < numEntries; i++) {
+            byte[] hash = new byte[index.getShort()];
+            index.get(hash);
+            DataStore.EntryInfo entryInfo = new DataStore.EntryInfo(index.getLong(),
+                    index.getInt(),
+                    index.getLong(),
+                    index.get() != 0);
+            int offset = index.getInt();
+            int length = index.getInt();
+            // Compared as long as the sum of corrupted values can overflow
+            checkArgument(offset >= 0 && length >= 0 && (long) offset + length <= buffer.capacity(),
+                    "Invalid entry position in %s", file);
+            slotByHash.put(new ByteArray(hash), new Slot(this, entryInfo, offset, length));
+        }
+        return slotByHash;
+    }
+
+    private static void onUnreferenced(File file) {
+        numSnapshotsByFile.computeIfPresent(file, (key, numSnapshots) -> numSnapshots > 1 ? numSnapshots - 1 : null);
+        File directory = file.getParentFile();
+        findFileNameOfGeneration(file.getName()).ifPresent(fileName -> deleteUnusedGenerations(directory, fileName));
+    }
+
+    private static List<Long> findGenerations(File directory, String fileName) {
+        if (!directory.exists()) {
+            return List.of();
+        }
+        String prefix = fileName + GENERATION_SEPARATOR;
+        return FileUtils.listFiles(directory.getPath()).stream()
+                .filter(name -> name.startsWith(prefix))
+                .map(name -> name.substring(prefix.length()))
+                .filter(DataStoreSnapshot::isGenerationNumber)
+                .map(Long::parseLong)
+                .sorted()
+                .toList();
+    }
+
+    private static boolean isGenerationNumber(String suffix) {
+        return !suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit);
+    }
+
+    private static File getGenerationFile(File directory, String fileName, long generation) {
+        return new File(directory, fileName + GENERATION_SEPARATOR + generation);
+    }
+
+    private static int getIndexEntrySize(ByteArray hash) {
+        return Short.BYTES + hash.getBytes().length + Long.BYTES + Integer.BYTES + Long.BYTES + 1 + Integer.BYTES + Integer.BYTES;
+    }
+}
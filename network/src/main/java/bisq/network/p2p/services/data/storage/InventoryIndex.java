@@ -0,0 +1,135 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.storage;
+
+import bisq.common.data.ByteArray;
+import bisq.network.p2p.services.data.DataRequest;
+import bisq.network.p2p.services.data.filter.FilterEntry;
+import bisq.network.p2p.services.data.filter.InventorySketch;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Index of the FilterEntries of a store, updated together with the map of the store. Inventory requests are answered
+ * from the index without cloning the map and without computing the FilterEntries for each request.
+ * The digest is the XOR of the keys of all entries, so it can be updated incrementally and is independent of the
+ * order. Two stores with the same digest contain the same entries with a very high probability.
+ */
+public class InventoryIndex {
+    /**
+     * @param key                 The key used for sketches and bloom filters. See InventorySketch.toKey.
+     * @param created             The creation date used for ordering inventory pages. 0 for data without creation date.
+     * @param serializedSize      The size of the serialized DataRequest, used for the page size without decoding.
+     * @param dataRequestSupplier Entries read from a DataStoreSnapshot are decoded only if they get sent.
+     */
+    public record Entry(FilterEntry filterEntry,
+                        long key,
+                        long created,
+                        int serializedSize,
+                        Supplier<? extends DataRequest> dataRequestSupplier) {
+        public DataRequest dataRequest() {
+            return dataRequestSupplier.get();
+        }
+    }
+
+    private final Map<ByteArray, Entry> entryByHash = new ConcurrentHashMap<>();
+    private long digest;
+
+    public static FilterEntry toFilterEntry(ByteArray hash, DataRequest dataRequest) {
+        return toFilterEntry(hash, DataStore.EntryInfo.from(dataRequest));
+    }
+
+    private static FilterEntry toFilterEntry(ByteArray hash, DataStore.EntryInfo entryInfo) {
+        return new FilterEntry(hash.getBytes(), entryInfo.sequenceNumber());
+    }
+
+    synchronized void put(ByteArray hash, DataRequest dataRequest) {
+        put(hash, dataRequest, dataRequest.toProto().getDataRequest().getSerializedSize());
+    }
+
+    synchronized void put(ByteArray hash, DataRequest dataRequest, int serializedSize) {
+        put(hash, DataStore.EntryInfo.from(dataRequest), serializedSize, () -> dataRequest);
+    }
+
+    synchronized void put(ByteArray hash,
+                          DataStore.EntryInfo entryInfo,
+                          int serializedSize,
+                          Supplier<? extends DataRequest> dataRequestSupplier) {
+        FilterEntry filterEntry = toFilterEntry(hash, entryInfo);
+        Entry entry = new Entry(filterEntry, InventorySketch.toKey(filterEntry), entryInfo.created(), serializedSize,
+                dataRequestSupplier);
+        Entry previous = entryByHash.put(hash, entry);
+        if (previous != null) {
+            digest ^= previous.key();
+        }
+        digest ^= entry.key();
+    }
+
+    synchronized void remove(ByteArray hash) {
+        Entry previous = entryByHash.remove(hash);
+        if (previous != null) {
+            digest ^= previous.key();
+        }
+    }
+
+    synchronized void rebuild(Map<ByteArray, ? extends DataRequest> map) {
+        entryByHash.clear();
+        digest = 0;
+        map.forEach(this::put);
+    }
+
+    /**
+     * Rebuilds the index from the EntryInfos of the map, without decoding the entries.
+     */
+    synchronized void rebuild(LazyDataRequestMap<? extends DataRequest> map) {
+        entryByHash.clear();
+        digest = 0;
+        map.keySet().forEach(hash -> update(hash, map));
+    }
+
+    /**
+     * Updates the entry from the current value of the map, without decoding it.
+     */
+    synchronized void update(ByteArray hash, LazyDataRequestMap<? extends DataRequest> map) {
+        DataStore.EntryInfo entryInfo = map.getEntryInfo(hash);
+        Supplier<? extends DataRequest> supplier = map.getSupplier(hash);
+        if (entryInfo != null && supplier != null) {
+            put(hash, entryInfo, map.getSerializedSize(hash), supplier);
+        }
+    }
+
+    /**
+     * @return A live view on the entries. Iterating it while the store gets updated is safe, but the updates might
+     * not be visible.
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entryByHash.values());
+    }
+
+    public int size() {
+        return entryByHash.size();
+    }
+
+    public synchronized long getDigest() {
+        return digest;
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.storage;
+
+import bisq.common.data.ByteArray;
+import bisq.common.data.PersistentHashMap;
+import bisq.network.p2p.services.data.DataRequest;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Map of the DataRequests of a DataStore. Entries read from a DataStoreSnapshot are kept as a slot of the mapped file
+ * and decoded at the first access. Methods working on keys only (containsKey, keySet, size) do not decode.
+ * Iterating the values or entries decodes all entries, so it should be avoided on large stores where the EntryInfo
+ * is sufficient.
+ * Different to the Map contract, put and remove return null if the previous entry was not decoded yet, so that we do
+ * not decode entries only for dropping them.
+ * The entries are held in a PersistentHashMap. Changes are synchronized and replace the current version, reads and
+ * iterations work on the version at the time they started. A snapshot shares the current version, so it costs O(1).
+ */
+public class LazyDataRequestMap<T extends DataRequest> extends AbstractMap<ByteArray, T> {
+    // Values are either of type T or DataStoreSnapshot.Slot
+    private volatile PersistentHashMap<ByteArray, Object> map;
+    private final Set<ByteArray> keySet = new KeySet();
+    private final Set<Entry<ByteArray, T>> entrySet = new EntrySet();
+
+    public LazyDataRequestMap() {
+        this(PersistentHashMap.empty());
+    }
+
+    private LazyDataRequestMap(PersistentHashMap<ByteArray, Object> map) {
+        this.map = map;
+    }
+
+    @Override
+    @Nullable
+    public T get(Object key) {
+        return resolve(key, map.get(key));
+    }
+
+    @Override
+    @Nullable
+    public synchronized T put(ByteArray key, T value) {
+        Object previous = map.get(key);
+        map = map.plus(key, value);
+        return getIfDecoded(previous);
+    }
+
+    @Override
+    @Nullable
+    public synchronized T remove(Object key) {
+        Object previous = map.get(key);
+        map = map.minus(key);
+        return getIfDecoded(previous);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        map = PersistentHashMap.empty();
+    }
+
+    @Override
+    public Set<ByteArray> keySet() {
+        return keySet;
+    }
+
+    @Override
+    public Set<Entry<ByteArray, T>> entrySet() {
+        return entrySet;
+    }
+
+    /**
+     * @return A map with the current entries which is not affected by later changes of this map, and vice versa.
+     * Costs O(1) as both maps share the current version.
+     */
+    public LazyDataRequestMap<T> snapshot() {
+        return new LazyDataRequestMap<>(map);
+    }
+
+    /**
+     * @return The EntryInfo without decoding the entry, or null if there is no entry for that key.
+     */
+    @Nullable
+    public DataStore.EntryInfo getEntryInfo(ByteArray key) {
+        Object value = map.get(key);
+        if (value == null) {
+            return null;
+        }
+        return value instanceof DataStoreSnapshot.Slot slot ? slot.entryInfo() : DataStore.EntryInfo.from((DataRequest) value);
+    }
+
+    /**
+     * @return The size of the serialized entry without decoding it, or 0 if there is no entry for that key.
+     */
+    public int getSerializedSize(ByteArray key) {
+        Object value = map.get(key);
+        if (value == null) {
+            return 0;
+        }
+        return value instanceof DataStoreSnapshot.Slot slot ?
+                slot.length() :
+                ((DataRequest) value).toProto().getDataRequest().getSerializedSize();
+    }
+
+    /**
+     * @return A supplier decoding the entry at the first call, or null if there is no entry for that key. The
+     * supplier stays valid if the entry gets removed.
+     */
+    @Nullable
+    public Supplier<T> getSupplier(ByteArray key) {
+        Object value = map.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof DataStoreSnapshot.Slot) {
+            return new Supplier<>() {
+                private volatile T decoded;
+
+                @Override
+                public T get() {
+                    if (decoded == null) {
+                        decoded = resolve(key, value);
+                    }
+                    return decoded;
+                }
+            };
+        }
+        //noinspection unchecked
+        T dataRequest = (T) value;
+        return () -> dataRequest;
+    }
+
+    synchronized void putSlots(Map<ByteArray, DataStoreSnapshot.Slot> slotByHash) {
+        PersistentHashMap<ByteArray, Object> result = map;
+        for (Map.Entry<ByteArray, DataStoreSnapshot.Slot> entry : slotByHash.entrySet()) {
+            result = result.plus(entry.getKey(), entry.getValue());
+        }
+        map = result;
+    }
+
+    /**
+     * Replaces the entries which are not decoded yet by the slots of a newer snapshot containing them, so that the
+     * previous snapshot does not stay mapped.
+     *
+     * @return The keys of the replaced entries.
+     */
+    synchronized Set<ByteArray> replaceSlots(Map<ByteArray, DataStoreSnapshot.Slot> slotByHash) {
+        Set<ByteArray> replaced = new HashSet<>();
+        PersistentHashMap<ByteArray, Object> result = map;
+        for (Entry<ByteArray, Object> entry : map) {
+            DataStoreSnapshot.Slot slot = slotByHash.get(entry.getKey());
+            if (entry.getValue() instanceof DataStoreSnapshot.Slot && slot != null) {
+                result = result.plus(entry.getKey(), slot);
+                replaced.add(entry.getKey());
+            }
+        }
+        map = result;
+        return replaced;
+    }
+
+    /**
+     * Copies the entries without decoding them. If this map is empty it shares the version of the other map.
+     */
+    synchronized void putAllRaw(LazyDataRequestMap<T> other) {
+        PersistentHashMap<ByteArray, Object> otherMap = other.map;
+        if (map.isEmpty()) {
+            map = otherMap;
+            return;
+        }
+        PersistentHashMap<ByteArray, Object> result = map;
+        for (Entry<ByteArray, Object> entry : otherMap) {
+            result = result.plus(entry.getKey(), entry.getValue());
+        }
+        map = result;
+    }
+
+    /**
+     * Passes the values as they are stored, either of type T or DataStoreSnapshot.Slot.
+     */
+    void forEachRaw(BiConsumer<ByteArray, Object> consumer) {
+        map.forEach(consumer);
+    }
+
+    @Nullable
+    private T resolve(Object key, @Nullable Object value) {
+        if (value instanceof DataStoreSnapshot.Slot slot) {
+            //noinspection unchecked
+            T decoded = (T) slot.decode();
+            // Later accesses use the decoded entry. If the entry got replaced in the meantime we keep the new one.
+            synchronized (this) {
+                if (map.get(key) == slot) {
+                    map = map.plus((ByteArray) key, decoded);
+                }
+            }
+            return decoded;
+        }
+        //noinspection unchecked
+        return (T) value;
+    }
+
+    @Nullable
+    private T getIfDecoded(@Nullable Object value) {
+        //noinspection unchecked
+        return value instanceof DataStoreSnapshot.Slot ? null : (T) value;
+    }
+
+    private class KeySet extends AbstractSet<ByteArray> {
+        @Override
+        public Iterator<ByteArray> iterator() {
+            Iterator<Entry<ByteArray, Object>> iterator = map.iterator();
+            return new Iterator<>() {
+                private ByteArray current;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public ByteArray next() {
+                    current = iterator.next().getKey();
+                    return current;
+                }
+
+                @Override
+                public void remove() {
+                    LazyDataRequestMap.this.remove(current);
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<ByteArray, T>> {
+        @Override
+        public Iterator<Entry<ByteArray, T>> iterator() {
+            Iterator<Entry<ByteArray, Object>> iterator = map.iterator();
+            return new Iterator<>() {
+                private ByteArray current;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Entry<ByteArray, T> next() {
+                    Entry<ByteArray, Object> entry = iterator.next();
+                    current = entry.getKey();
+                    return new SimpleImmutableEntry<>(current, resolve(current, entry.getValue()));
+                }
+
+                @Override
+                public void remove() {
+                    LazyDataRequestMap.this.remove(current);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+    }
+}
@@ -18,14 +18,16 @@
 package bisq.network.p2p.services.data.storage;
 
 
-import bisq.common.data.ByteArray;
 import bisq.common.util.FileUtils;
 import bisq.network.NetworkService;
 import bisq.network.p2p.services.data.AddDataRequest;
 import bisq.network.p2p.services.data.DataRequest;
 import bisq.network.p2p.services.data.RemoveDataRequest;
+import bisq.network.p2p.services.data.filter.DataBloomFilter;
 import bisq.network.p2p.services.data.filter.DataFilter;
 import bisq.network.p2p.services.data.filter.FilterEntry;
+import bisq.network.p2p.services.data.filter.InventorySketch;
+import bisq.network.p2p.services.data.inventory.ContinuationToken;
 import bisq.network.p2p.services.data.inventory.Inventory;
 import bisq.network.p2p.services.data.storage.append.AddAppendOnlyDataRequest;
 import bisq.network.p2p.services.data.storage.append.AppendOnlyData;
@@ -39,6 +41,9 @@ import bisq.network.p2p.services.data.storage.mailbox.MailboxData;
 import bisq.network.p2p.services.data.storage.mailbox.MailboxDataStorageService;
 import bisq.network.p2p.services.data.storage.mailbox.RemoveMailboxRequest;
 import bisq.persistence.PersistenceService;
+import bisq.persistence.WriteAheadLog;
+import bisq.security.SignatureVerifier;
+import com.google.common.annotations.VisibleForTesting;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -67,6 +72,11 @@ public class StorageService {
         }
     }
 
+    private static final String TEMP_FILE_PREFIX = "temp_";
+    private static final Comparator<InventoryIndex.Entry> PAGE_ORDER =
+            Comparator.comparingLong(InventoryIndex.Entry::created).reversed()
+                    .thenComparingLong(InventoryIndex.Entry::key);
+
     final Map<String, AuthenticatedDataStorageService> authenticatedDataStores = new ConcurrentHashMap<>();
     final Map<String, MailboxDataStorageService> mailboxStores = new ConcurrentHashMap<>();
     final Map<String, AppendOnlyDataStorageService> appendOnlyDataStores = new ConcurrentHashMap<>();
@@ -82,7 +92,7 @@ public class StorageService {
             String authStoreName = AUTHENTICATED_DATA_STORE.getStoreName();
             String directory = subPath + File.separator + authStoreName;
             if (new File(directory).exists()) {
-                FileUtils.listFilesInDirectory(directory, 1)
+                findStoreFileNames(directory)
                         .forEach(fileName -> {
                             AuthenticatedDataStorageService dataStore = new AuthenticatedDataStorageService(persistenceService, authStoreName, fileName);
                             authenticatedDataStores.put(fileName, dataStore);
@@ -91,7 +101,7 @@ public class StorageService {
             String mailboxStoreName = MAILBOX_DATA_STORE.getStoreName();
             directory = subPath + File.separator + mailboxStoreName;
             if (new File(directory).exists()) {
-                FileUtils.listFilesInDirectory(directory, 1)
+                findStoreFileNames(directory)
                         .forEach(fileName -> {
                             MailboxDataStorageService dataStore = new MailboxDataStorageService(persistenceService, mailboxStoreName, fileName);
                             mailboxStores.put(fileName, dataStore);
@@ -101,7 +111,7 @@ public class StorageService {
             String appendStoreName = APPEND_ONLY_DATA_STORE.getStoreName();
             directory = subPath + File.separator + appendStoreName;
             if (new File(directory).exists()) {
-                FileUtils.listFilesInDirectory(directory, 1)
+                findStoreFileNames(directory)
                         .forEach(fileName -> {
                             AppendOnlyDataStorageService dataStore = new AppendOnlyDataStorageService(persistenceService, appendStoreName, fileName);
                             appendOnlyDataStores.put(fileName, dataStore);
@@ -112,6 +122,17 @@ public class StorageService {
         }
     }
 
+    // Besides the store files the directory contains the snapshots, the segments of the write-ahead log and the
+    // temp files used while writing, which must not be taken as stores. After the first compaction the store file
+    // written by Persistence in earlier versions is deleted, so we derive the store from the snapshot and segments.
+    private static Set<String> findStoreFileNames(String directory) throws IOException {
+        return FileUtils.listFilesInDirectory(directory, 1).stream()
+                .filter(fileName -> !fileName.startsWith(TEMP_FILE_PREFIX))
+                .map(fileName -> WriteAheadLog.findFileNameOfSegment(fileName).orElse(fileName))
+                .map(fileName -> DataStoreSnapshot.findFileNameOfGeneration(fileName).orElse(fileName))
+                .collect(Collectors.toSet());
+    }
+
     public void shutdown() {
         authenticatedDataStores.values().forEach(DataStorageService::shutdown);
         mailboxStores.values().forEach(DataStorageService::shutdown);
@@ -143,6 +164,69 @@ public class StorageService {
     }
 
 
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+    // Verify signatures
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Verifies the signatures of the given requests in parallel on all cores. The requests cache the result, so
+     * applying them afterwards only does the sequence number checks against the map entries.
+     *
+     * @return The requests with an invalid signature.
+     */
+    public static Set<DataRequest> verifySignatures(Collection<? extends DataRequest> dataRequests) {
+        List<DataRequest> signedRequests = findSignedRequests(dataRequests);
+        return findInvalidRequests(signedRequests, SignatureVerifier.verify(toVerificationItems(signedRequests)));
+    }
+
+    /**
+     * Like verifySignatures, but the verification runs on the verification pool without blocking the caller.
+     *
+     * @return A future completing on the verification pool with the requests with an invalid signature.
+     */
+    public static CompletableFuture<Set<DataRequest>> verifySignaturesAsync(Collection<? extends DataRequest> dataRequests) {
+        List<DataRequest> signedRequests = findSignedRequests(dataRequests);
+        return SignatureVerifier.verifyAsync(toVerificationItems(signedRequests))
+                .thenApply(results -> findInvalidRequests(signedRequests, results));
+    }
+
+    private static List<DataRequest> findSignedRequests(Collection<? extends DataRequest> dataRequests) {
+        return dataRequests.stream()
+                .filter(dataRequest -> findSignatureVerificationItem(dataRequest).isPresent())
+                .collect(Collectors.toList());
+    }
+
+    private static List<SignatureVerifier.Item> toVerificationItems(List<DataRequest> signedRequests) {
+        return signedRequests.stream()
+                .map(dataRequest -> findSignatureVerificationItem(dataRequest).orElseThrow())
+                .collect(Collectors.toList());
+    }
+
+    private static Set<DataRequest> findInvalidRequests(List<DataRequest> signedRequests, boolean[] results) {
+        Set<DataRequest> invalid = new HashSet<>();
+        for (int i = 0; i < results.length; i++) {
+            if (!results[i]) {
+                invalid.add(signedRequests.get(i));
+            }
+        }
+        return invalid;
+    }
+
+    private static Optional<SignatureVerifier.Item> findSignatureVerificationItem(DataRequest dataRequest) {
+        if (dataRequest instanceof AddAuthenticatedDataRequest request) {
+            return Optional.of(request.getSignatureVerificationItem());
+        } else if (dataRequest instanceof RemoveAuthenticatedDataRequest request) {
+            return Optional.of(request.getSignatureVerificationItem());
+        } else if (dataRequest instanceof AddMailboxRequest request) {
+            return Optional.of(request.getSignatureVerificationItem());
+        } else if (dataRequest instanceof RemoveMailboxRequest request) {
+            return Optional.of(request.getSignatureVerificationItem());
+        } else {
+            return Optional.empty();
+        }
+    }
+
+
     ///////////////////////////////////////////////////////////////////////////////////////////////////
     // Add data
     ///////////////////////////////////////////////////////////////////////////////////////////////////
@@ -262,21 +346,149 @@ public class StorageService {
     ///////////////////////////////////////////////////////////////////////////////////////////////////
 
     public Inventory getInventoryOfAllStores(DataFilter dataFilter) {
-        return getInventory(dataFilter, getAllStores()
-                .flatMap(store -> store.getPersistableStore().getClone().getMap().entrySet().stream()).collect(Collectors.toSet()));
+        return getInventoryOfAllStores(dataFilter, Optional.empty(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxPageSize Max. size of the entries in the returned page. Integer.MAX_VALUE for peers which do not
+     *                    support paging.
+     */
+    public Inventory getInventoryOfAllStores(DataFilter dataFilter,
+                                             Optional<ContinuationToken> continuationToken,
+                                             int maxPageSize) {
+        return getInventory(dataFilter,
+                getAllStores()
+                        .filter(store -> dataFilter.isStoreIncluded(store.getFileName(), store.getStoreName()))
+                        .map(DataStorageService::getInventoryIndex)
+                        .collect(Collectors.toList()),
+                continuationToken,
+                maxPageSize);
     }
 
     public Inventory getInventoryFromStore(DataFilter dataFilter, DataStorageService<? extends DataRequest> store) {
-        return getInventory(dataFilter, store.getPersistableStore().getClone().getMap().entrySet());
+        return getInventory(dataFilter, List.of(store.getInventoryIndex()), Optional.empty(), Integer.MAX_VALUE);
     }
 
+    // We work on the live indexes of the stores. Entries added while we iterate might be missing in the result, those
+    // are delivered by broadcast anyway.
     private Inventory getInventory(DataFilter dataFilter,
-                                   Set<? extends Map.Entry<ByteArray, ? extends DataRequest>> entrySet) {
-        HashSet<? extends DataRequest> result = entrySet.stream()
-                .filter(mapEntry -> !dataFilter.filterEntries().contains(getFilterEntry(mapEntry)))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toCollection(HashSet::new));
-        return new Inventory(result, entrySet.size() - result.size());
+                                   List<InventoryIndex> indexes,
+                                   Optional<ContinuationToken> continuationToken,
+                                   int maxPageSize) {
+        if (dataFilter.sketch().isPresent()) {
+            return getInventory(dataFilter.sketch().get(), indexes, continuationToken, maxPageSize);
+        }
+        if (dataFilter.bloomFilter().isPresent()) {
+            return getInventory(dataFilter.bloomFilter().get(), indexes, continuationToken, maxPageSize);
+        }
+        if (!dataFilter.requestedKeys().isEmpty()) {
+            List<InventoryIndex.Entry> result = getIndexEntries(indexes)
+                    .filter(entry -> dataFilter.requestedKeys().contains(DataBloomFilter.toShortKey(entry.filterEntry())))
+                    .collect(Collectors.toList());
+            return toInventoryPage(result, 0, Set.of(), continuationToken, maxPageSize);
+        }
+        // FilterEntry contains a byte array and does not implement value equality, so we compare by key
+        Set<Long> filterKeys = dataFilter.filterEntries().stream()
+                .map(InventorySketch::toKey)
+                .collect(Collectors.toSet());
+        List<InventoryIndex.Entry> result = getIndexEntries(indexes)
+                .filter(entry -> !filterKeys.contains(entry.key()))
+                .collect(Collectors.toList());
+        return toInventoryPage(result, getNumEntries(indexes) - result.size(), Set.of(), continuationToken, maxPageSize);
+    }
+
+    private Inventory getInventory(DataBloomFilter bloomFilter,
+                                   List<InventoryIndex> indexes,
+                                   Optional<ContinuationToken> continuationToken,
+                                   int maxPageSize) {
+        List<InventoryIndex.Entry> result = new ArrayList<>();
+        Set<Integer> bloomFilterMatches = new HashSet<>();
+        getIndexEntries(indexes).forEach(entry -> {
+            if (bloomFilter.mightContain(entry.filterEntry())) {
+                bloomFilterMatches.add(DataBloomFilter.toShortKey(entry.filterEntry()));
+            } else {
+                result.add(entry);
+            }
+        });
+        // The peer needs the matches only once
+        return toInventoryPage(result,
+                bloomFilterMatches.size(),
+                continuationToken.isEmpty() ? bloomFilterMatches : Set.of(),
+                continuationToken,
+                maxPageSize);
+    }
+
+    // We send the entries the peer is missing. Entries only the peer has are ignored, we get them at our own
+    // inventory request.
+    private Inventory getInventory(InventorySketch peersSketch,
+                                   List<InventoryIndex> indexes,
+                                   Optional<ContinuationToken> continuationToken,
+                                   int maxPageSize) {
+        Map<Long, InventoryIndex.Entry> entryByKey = new HashMap<>();
+        List<FilterEntry> filterEntries = new ArrayList<>();
+        getIndexEntries(indexes).forEach(entry -> {
+            filterEntries.add(entry.filterEntry());
+            entryByKey.put(entry.key(), entry);
+        });
+        InventorySketch sketch = InventorySketch.create(filterEntries, peersSketch.getNumCells());
+        Optional<InventorySketch.Difference> difference = sketch.decode(peersSketch);
+        if (difference.isEmpty()) {
+            log.info("Could not decode difference to {}. Our inventory has {} entries.", peersSketch, filterEntries.size());
+            return Inventory.reconciliationFailed();
+        }
+        List<InventoryIndex.Entry> result = difference.get().onlyInThis().stream()
+                .map(entryByKey::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return toInventoryPage(result, filterEntries.size() - result.size(), Set.of(), continuationToken, maxPageSize);
+    }
+
+    /**
+     * Orders the entries newest first and returns the entries after the continuationToken up to the maxPageSize.
+     * Only the entries of the page get decoded.
+     */
+    @VisibleForTesting
+    static Inventory toInventoryPage(List<InventoryIndex.Entry> entries,
+                                     int numDropped,
+                                     Set<Integer> bloomFilterMatches,
+                                     Optional<ContinuationToken> continuationToken,
+                                   int maxPageSize) {
+        Stream<InventoryIndex.Entry> stream = entries.stream();
+        if (continuationToken.isPresent()) {
+            ContinuationToken token = continuationToken.get();
+            stream = stream.filter(entry -> entry.created() < token.created() ||
+                    (entry.created() == token.created() && entry.key() > token.key()));
+        }
+        // We need only the newest entries fitting into the page, so we take them from a heap instead of sorting all
+        PriorityQueue<InventoryIndex.Entry> queue = new PriorityQueue<>(PAGE_ORDER);
+        stream.forEach(queue::add);
+
+        HashSet<DataRequest> page = new HashSet<>();
+        long pageSize = 0;
+        InventoryIndex.Entry last = null;
+        InventoryIndex.Entry entry;
+        while ((entry = queue.poll()) != null) {
+            int size = entry.serializedSize();
+            if (!page.isEmpty() && pageSize + size > maxPageSize) {
+                return new Inventory(page,
+                        numDropped,
+                        false,
+                        bloomFilterMatches,
+                        Optional.of(new ContinuationToken(last.created(), last.key())));
+            }
+            page.add(entry.dataRequest());
+            pageSize += size;
+            last = entry;
+        }
+        return new Inventory(page, numDropped, false, bloomFilterMatches, Optional.empty());
+    }
+
+    private static Stream<InventoryIndex.Entry> getIndexEntries(List<InventoryIndex> indexes) {
+        return indexes.stream().flatMap(index -> index.getEntries().stream());
+    }
+
+    private static int getNumEntries(List<InventoryIndex> indexes) {
+        return indexes.stream().mapToInt(InventoryIndex::size).sum();
     }
 
 
@@ -292,27 +504,30 @@ public class StorageService {
         return getFilterEntries(getStoreByStoreName(storeName));
     }
 
-    private Set<FilterEntry> getFilterEntries(Stream<DataStorageService<? extends DataRequest>> stores) {
-        return stores.flatMap(store -> store.getPersistableStore().getClone().getMap().entrySet().stream())
-                .map(this::getFilterEntry)
-                .collect(Collectors.toSet());
+    /**
+     * @return A filter with our entries of the selected stores. See DataFilter.isStoreIncluded.
+     */
+    public DataFilter getDataFilter(Set<String> storeNames, Set<String> excludedStoreNames) {
+        DataFilter dataFilter = new DataFilter(Set.of(), storeNames, excludedStoreNames);
+        Set<FilterEntry> filterEntries = getFilterEntries(getAllStores()
+                .filter(store -> dataFilter.isStoreIncluded(store.getFileName(), store.getStoreName())));
+        return new DataFilter(filterEntries, storeNames, excludedStoreNames);
     }
 
-    private FilterEntry getFilterEntry(Map.Entry<ByteArray, ? extends DataRequest> mapEntry) {
-        DataRequest dataRequest = mapEntry.getValue();
-        int sequenceNumber = 0;
-        byte[] hash = mapEntry.getKey().getBytes();
-        if (dataRequest instanceof AddAppendOnlyDataRequest) {
-            // AddAppendOnlyDataRequest does not use a seq nr.
-            return new FilterEntry(hash, 0);
-        } else if (dataRequest instanceof AddAuthenticatedDataRequest addAuthenticatedDataRequest) {
-            // AddMailboxRequest extends AddAuthenticatedDataRequest so its covered here as well
-            sequenceNumber = addAuthenticatedDataRequest.getAuthenticatedSequentialData().getSequenceNumber();
-        } else if (dataRequest instanceof RemoveAuthenticatedDataRequest removeAuthenticatedDataRequest) {
-            // RemoveMailboxRequest extends RemoveAuthenticatedDataRequest so its covered here as well
-            sequenceNumber = removeAuthenticatedDataRequest.getSequenceNumber();
-        }
-        return new FilterEntry(hash, sequenceNumber);
+    /**
+     * @return The digest of the entries by store file name. See InventoryIndex.
+     */
+    public Map<String, Long> getDigests(StoreType storeType) {
+        return getStoresByStoreType(storeType)
+                .collect(Collectors.toMap(DataStorageService::getFileName,
+                        store -> store.getInventoryIndex().getDigest(),
+                        (a, b) -> a ^ b));
+    }
+
+    private Set<FilterEntry> getFilterEntries(Stream<DataStorageService<? extends DataRequest>> stores) {
+        return stores.flatMap(store -> store.getInventoryIndex().getEntries().stream())
+                .map(InventoryIndex.Entry::filterEntry)
+                .collect(Collectors.toSet());
     }
 
 
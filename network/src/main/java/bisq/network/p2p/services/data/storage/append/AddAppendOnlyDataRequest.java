@@ -19,17 +19,23 @@ package bisq.network.p2p.services.data.storage.append;
 
 import bisq.network.p2p.services.data.AddDataRequest;
 import bisq.network.p2p.services.data.storage.DistributedData;
+import bisq.security.DigestUtil;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 @Slf4j
 @Getter
 @ToString
 @EqualsAndHashCode
 public class AddAppendOnlyDataRequest implements AddDataRequest {
     private final AppendOnlyData appendOnlyData;
+    @ToString.Exclude
+    @Nullable
+    private transient volatile byte[] hash;
 
     public AddAppendOnlyDataRequest(AppendOnlyData appendOnlyData) {
         this.appendOnlyData = appendOnlyData;
@@ -50,6 +56,14 @@ public class AddAppendOnlyDataRequest implements AddDataRequest {
         return new AddAppendOnlyDataRequest((AppendOnlyData) DistributedData.fromAny(proto.getAppendOnlyData()));
     }
 
+    @Override
+    public byte[] getHash() {
+        if (hash == null) {
+            hash = DigestUtil.hash(appendOnlyData.toProto());
+        }
+        return hash;
+    }
+
     @Override
     public boolean isExpired() {
         // AppendOnlyData never expires
@@ -21,7 +21,6 @@ import bisq.common.data.ByteArray;
 import bisq.network.p2p.services.data.storage.DataStorageService;
 import bisq.network.p2p.services.data.storage.Result;
 import bisq.persistence.PersistenceService;
-import bisq.security.DigestUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Map;
@@ -47,26 +46,20 @@ public class AppendOnlyDataStorageService extends DataStorageService<AddAppendOn
         super(persistenceService, storeName, fileName);
     }
 
-    @Override
-    protected long getMaxWriteRateInMs() {
-        return 1000;
-    }
-
     public Result add(AddAppendOnlyDataRequest addAppendOnlyDataRequest) {
         AppendOnlyData appendOnlyData = addAppendOnlyDataRequest.getAppendOnlyData();
+        ByteArray byteArray = new ByteArray(addAppendOnlyDataRequest.getHash());
         Map<ByteArray, AddAppendOnlyDataRequest> map = persistableStore.getMap();
         synchronized (mapAccessLock) {
             if (map.size() > MAX_MAP_SIZE) {
                 return new Result(false).maxMapSizeReached();
             }
 
-            byte[] hash = DigestUtil.hash(appendOnlyData.serialize());
-            ByteArray byteArray = new ByteArray(hash);
             if (map.containsKey(byteArray)) {
                 return new Result(false).payloadAlreadyStored();
             }
 
-            map.put(byteArray, addAppendOnlyDataRequest);
+            putEntry(byteArray, addAppendOnlyDataRequest);
         }
         persist();
         listeners.forEach(listener -> listener.onAppended(appendOnlyData));
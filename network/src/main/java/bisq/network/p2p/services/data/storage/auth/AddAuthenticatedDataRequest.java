@@ -23,6 +23,7 @@ import bisq.network.p2p.services.data.storage.MetaData;
 import bisq.security.DigestUtil;
 import bisq.security.KeyGeneration;
 import bisq.security.SignatureUtil;
+import bisq.security.SignatureVerifier;
 import com.google.protobuf.ByteString;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -70,6 +71,12 @@ public class AddAuthenticatedDataRequest implements AuthenticatedDataRequest, Ad
     protected final byte[] ownerPublicKeyBytes; // 294 bytes
     @Nullable
     transient protected PublicKey ownerPublicKey;
+    @Nullable
+    private transient volatile SignatureVerifier.Item signatureVerificationItem;
+    @Nullable
+    private transient volatile byte[] hash;
+    @Nullable
+    private transient volatile byte[] ownerPublicKeyHash;
 
     public AddAuthenticatedDataRequest(AuthenticatedSequentialData authenticatedSequentialData, byte[] signature, PublicKey ownerPublicKey) {
         this(authenticatedSequentialData,
@@ -115,22 +122,34 @@ public class AddAuthenticatedDataRequest implements AuthenticatedDataRequest, Ad
     }
 
     public boolean isSignatureInvalid() {
-        try {
-            return !SignatureUtil.verify(authenticatedSequentialData.serialize(), signature, getOwnerPublicKey());
-        } catch (Exception e) {
-            log.warn(e.toString(), e);
-            return true;
+        return !getSignatureVerificationItem().isValid();
+    }
+
+    public SignatureVerifier.Item getSignatureVerificationItem() {
+        if (signatureVerificationItem == null) {
+            signatureVerificationItem = new SignatureVerifier.Item(authenticatedSequentialData.serialize(),
+                    signature,
+                    ownerPublicKeyBytes,
+                    ownerPublicKey);
         }
+        return signatureVerificationItem;
     }
 
     public boolean isPublicKeyInvalid() {
         try {
-            return !Arrays.equals(authenticatedSequentialData.getPubKeyHash(), DigestUtil.hash(ownerPublicKeyBytes));
+            return !Arrays.equals(authenticatedSequentialData.getPubKeyHash(), getOwnerPublicKeyHash());
         } catch (Exception e) {
             return true;
         }
     }
 
+    private byte[] getOwnerPublicKeyHash() {
+        if (ownerPublicKeyHash == null) {
+            ownerPublicKeyHash = DigestUtil.hash(ownerPublicKeyBytes);
+        }
+        return ownerPublicKeyHash;
+    }
+
     public PublicKey getOwnerPublicKey() {
         return Optional.ofNullable(ownerPublicKey).orElseGet(() -> {
             try {
@@ -160,6 +179,14 @@ public class AddAuthenticatedDataRequest implements AuthenticatedDataRequest, Ad
         return authenticatedSequentialData.getAuthenticatedData().getMetaData();
     }
 
+    @Override
+    public byte[] getHash() {
+        if (hash == null) {
+            hash = DigestUtil.hash(authenticatedSequentialData.getAuthenticatedData().toProto());
+        }
+        return hash;
+    }
+
     @Override
     public boolean isExpired() {
         return authenticatedSequentialData.isExpired();
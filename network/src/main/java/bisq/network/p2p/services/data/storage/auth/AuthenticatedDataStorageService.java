@@ -20,13 +20,16 @@ package bisq.network.p2p.services.data.storage.auth;
 import bisq.common.data.ByteArray;
 import bisq.network.p2p.services.data.storage.DataStorageService;
 import bisq.network.p2p.services.data.storage.DataStore;
+import bisq.network.p2p.services.data.storage.LazyDataRequestMap;
 import bisq.network.p2p.services.data.storage.Result;
 import bisq.persistence.PersistenceService;
-import bisq.security.DigestUtil;
 import com.google.common.annotations.VisibleForTesting;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.TimeUnit;
@@ -39,12 +42,6 @@ public class AuthenticatedDataStorageService extends DataStorageService<Authenti
     // Maybe we need to customize that per data type or derive it from metaData
     private static final long PRUNE_MAX_AGE = TimeUnit.DAYS.toMillis(365);
     private static final int MAX_MAP_SIZE = 10000;
- /*
-    // Max size of serialized NetworkData or MailboxMessage. Used to limit response map.
-    // Depends on data types max. expected size.
-    // Does not contain metadata like signatures and keys as well not the overhead from encryption.
-    // So this number has to be fine-tuned with real data later...
-    private static final int MAX_INVENTORY_MAP_SIZE = 1_000_000;*/
 
     public interface Listener {
         void onAdded(AuthenticatedData authenticatedData);
@@ -67,53 +64,51 @@ public class AuthenticatedDataStorageService extends DataStorageService<Authenti
         maybePruneMap(persisted.getMap());
     }
 
-    @Override
-    protected long getMaxWriteRateInMs() {
-        return 1000;
-    }
-
+    /**
+     * Expiry, data validity, public key and signature get verified before we take the lock, so that the verification
+     * of requests received concurrently is not serialized. The lock only covers the compare-and-set of the entry
+     * against the sequence number of the map entry.
+     */
     public Result add(AddAuthenticatedDataRequest request) {
         AuthenticatedSequentialData authenticatedSequentialData = request.getAuthenticatedSequentialData();
         AuthenticatedData authenticatedData = authenticatedSequentialData.getAuthenticatedData();
-        byte[] hash = DigestUtil.hash(authenticatedData.serialize());
-        ByteArray byteArray = new ByteArray(hash);
-        AuthenticatedDataRequest requestFromMap;
+        ByteArray byteArray = new ByteArray(request.getHash());
         Map<ByteArray, AuthenticatedDataRequest> map = persistableStore.getMap();
-        synchronized (mapAccessLock) {
-            if (map.size() > MAX_MAP_SIZE) {
-                return new Result(false).maxMapSizeReached();
-            }
-            requestFromMap = map.get(byteArray);
-            if (request.equals(requestFromMap)) {
-                //log.warn("request.equals(requestFromMap). request={}", request);
-                return new Result(false).requestAlreadyReceived();
-            }
 
-            if (requestFromMap != null && authenticatedSequentialData.isSequenceNrInvalid(requestFromMap.getSequenceNumber())) {
-                //log.warn("SequenceNrInvalid. request={}", request);
-                return new Result(false).sequenceNrInvalid();
-            }
+        // Reading the map does not require the lock. We reject requests we would reject inside the lock anyway
+        // before spending the verification costs.
+        Optional<Result> mapCheckResult = checkAgainstMap(request, map.get(byteArray), map.size());
+        if (mapCheckResult.isPresent()) {
+            return mapCheckResult.get();
+        }
 
-            if (authenticatedSequentialData.isExpired()) {
-                log.warn("Data is expired at add. request={}", request);
-                return new Result(false).expired();
-            }
+        if (authenticatedSequentialData.isExpired()) {
+            log.warn("Data is expired at add. request={}", request);
+            return new Result(false).expired();
+        }
 
-            if (authenticatedData.isDataInvalid()) {
-                log.warn("Data is invalid at add. request={}", request);
-                return new Result(false).dataInvalid();
-            }
+        if (authenticatedData.isDataInvalid()) {
+            log.warn("Data is invalid at add. request={}", request);
+            return new Result(false).dataInvalid();
+        }
 
-            if (request.isPublicKeyInvalid()) {
-                log.warn("PublicKey is invalid at add. request={}", request);
-                return new Result(false).publicKeyHashInvalid();
-            }
+        if (request.isPublicKeyInvalid()) {
+            log.warn("PublicKey is invalid at add. request={}", request);
+            return new Result(false).publicKeyHashInvalid();
+        }
 
-            if (request.isSignatureInvalid()) {
-                log.warn("Signature is invalid at add. request={}", request);
-                return new Result(false).signatureInvalid();
+        if (request.isSignatureInvalid()) {
+            log.warn("Signature is invalid at add. request={}", request);
+            return new Result(false).signatureInvalid();
+        }
+
+        synchronized (mapAccessLock) {
+            // The map might have changed since our check
+            mapCheckResult = checkAgainstMap(request, map.get(byteArray), map.size());
+            if (mapCheckResult.isPresent()) {
+                return mapCheckResult.get();
             }
-            map.put(byteArray, request);
+            putEntry(byteArray, request);
         }
 
         persist();
@@ -128,17 +123,34 @@ public class AuthenticatedDataStorageService extends DataStorageService<Authenti
         return new Result(true);
     }
 
+    /**
+     * Only the removal of an entry uses the signature, so it gets verified only if the map has an entry which passes
+     * the checks of the remove request. It gets verified before we take the lock and the result is kept at the
+     * request, so it is not verified again inside the lock.
+     */
     public Result remove(RemoveAuthenticatedDataRequest request) {
         ByteArray byteArray = new ByteArray(request.getHash());
-        AuthenticatedData authenticatedDataFromMap;
         Map<ByteArray, AuthenticatedDataRequest> map = persistableStore.getMap();
+
+        // Reading the map does not require the lock. We reject requests we would reject inside the lock anyway
+        // before spending the verification costs.
+        if (map.get(byteArray) instanceof AddAuthenticatedDataRequest addRequestFromMap) {
+            Optional<Result> entryCheckResult = checkAgainstEntry(request, addRequestFromMap);
+            if (entryCheckResult.isPresent()) {
+                return entryCheckResult.get();
+            }
+            // Verifies the signature, the result is used by the check inside the lock
+            request.isSignatureInvalid();
+        }
+
+        AuthenticatedData authenticatedDataFromMap;
         synchronized (mapAccessLock) {
             AuthenticatedDataRequest requestFromMap = map.get(byteArray);
             if (requestFromMap == null) {
                 log.debug("No entry at remove. hash={}", byteArray);
                 // We don't have any entry, but it might be that we would receive later an add request, so we need to keep
                 // track of the sequence number
-                map.put(byteArray, request);
+                putEntry(byteArray, request);
                 persist();
                 return new Result(false).noEntry();
             }
@@ -148,7 +160,7 @@ public class AuthenticatedDataStorageService extends DataStorageService<Authenti
                 // We have had the entry already removed.
                 if (!request.isSequenceNrInvalid(requestFromMap.getSequenceNumber())) {
                     // We update the map with the new request with the fresh sequence number.
-                    map.put(byteArray, request);
+                    putEntry(byteArray, request);
                     persist();
                 }
                 return new Result(false).alreadyRemoved();
@@ -158,17 +170,10 @@ public class AuthenticatedDataStorageService extends DataStorageService<Authenti
             checkArgument(requestFromMap instanceof AddAuthenticatedDataRequest,
                     "requestFromMap expected be type of AddProtectedDataRequest");
             AddAuthenticatedDataRequest addRequestFromMap = (AddAuthenticatedDataRequest) requestFromMap;
-            // We have an entry, lets validate if we can remove it
-            AuthenticatedSequentialData dataFromMap = addRequestFromMap.getAuthenticatedSequentialData();
-            authenticatedDataFromMap = dataFromMap.getAuthenticatedData();
-            if (request.isSequenceNrInvalid(dataFromMap.getSequenceNumber())) {
-                log.warn("SequenceNr has not increased at remove. request={}", request);
-                return new Result(false).sequenceNrInvalid();
-            }
-
-            if (request.isPublicKeyHashInvalid(dataFromMap)) {
-                log.warn("PublicKey hash is invalid at remove. request={}", request);
-                return new Result(false).publicKeyHashInvalid();
+            // The map might have changed since our check
+            Optional<Result> entryCheckResult = checkAgainstEntry(request, addRequestFromMap);
+            if (entryCheckResult.isPresent()) {
+                return entryCheckResult.get();
             }
 
             if (request.isSignatureInvalid()) {
@@ -176,57 +181,52 @@ public class AuthenticatedDataStorageService extends DataStorageService<Authenti
                 return new Result(false).signatureInvalid();
             }
 
-            map.put(byteArray, request);
+            authenticatedDataFromMap = addRequestFromMap.getAuthenticatedSequentialData().getAuthenticatedData();
+            putEntry(byteArray, request);
         }
         persist();
         listeners.forEach(listener -> listener.onRemoved(authenticatedDataFromMap));
         return new Result(true).removedData(authenticatedDataFromMap);
     }
 
+    /**
+     * The signature gets verified only if the map has an entry which passes the checks of the refresh request. It
+     * gets verified before we take the lock, as it does not depend on the map entry.
+     */
     public Result refresh(RefreshAuthenticatedDataRequest request) {
         ByteArray byteArray = new ByteArray(request.getHash());
-        AddAuthenticatedDataRequest updatedRequest;
         Map<ByteArray, AuthenticatedDataRequest> map = persistableStore.getMap();
-        synchronized (mapAccessLock) {
-            AuthenticatedDataRequest requestFromMap = map.get(byteArray);
-
-            if (requestFromMap == null) {
-                return new Result(false).noEntry();
-            }
 
-            if (requestFromMap instanceof RemoveAuthenticatedDataRequest) {
-                return new Result(false).alreadyRemoved();
-            }
-
-            // At that point we know requestFromMap is an AddProtectedDataRequest
-            checkArgument(requestFromMap instanceof AddAuthenticatedDataRequest,
-                    "requestFromMap expected be type of AddAuthenticatedDataRequest");
-            AddAuthenticatedDataRequest addRequestFromMap = (AddAuthenticatedDataRequest) requestFromMap;
-            // We have an entry, lets validate if we can remove it
-            AuthenticatedSequentialData dataFromMap = addRequestFromMap.getAuthenticatedSequentialData();
-            if (request.isSequenceNrInvalid(dataFromMap.getSequenceNumber())) {
-                log.warn("SequenceNr is invalid at refresh. request={}", request);
-                // Sequence number has not increased
-                return new Result(false).sequenceNrInvalid();
-            }
+        // Reading the map does not require the lock. We reject requests we would reject inside the lock anyway
+        // before spending the verification costs.
+        Optional<Result> mapCheckResult = checkAgainstMap(request, map.get(byteArray));
+        if (mapCheckResult.isPresent()) {
+            return mapCheckResult.get();
+        }
+        boolean signatureInvalid = request.isSignatureInvalid();
 
-            if (request.isPublicKeyInvalid(dataFromMap)) {
-                log.warn("PublicKey is invalid at refresh. request={}", request);
-                // Hash of pubKey of data does not match provided one
-                return new Result(false).publicKeyHashInvalid();
+        AddAuthenticatedDataRequest updatedRequest;
+        synchronized (mapAccessLock) {
+            AuthenticatedDataRequest requestFromMap = map.get(byteArray);
+            // The map might have changed since our check
+            mapCheckResult = checkAgainstMap(request, requestFromMap);
+            if (mapCheckResult.isPresent()) {
+                return mapCheckResult.get();
             }
 
-            if (request.isSignatureInvalid()) {
+            if (signatureInvalid) {
                 log.warn("Signature is invalid at refresh. request={}", request);
                 return new Result(false).signatureInvalid();
             }
 
+            AddAuthenticatedDataRequest addRequestFromMap = (AddAuthenticatedDataRequest) requestFromMap;
+            AuthenticatedSequentialData dataFromMap = addRequestFromMap.getAuthenticatedSequentialData();
             AuthenticatedSequentialData updatedData = AuthenticatedSequentialData.from(dataFromMap, request.getSequenceNumber());
             updatedRequest = new AddAuthenticatedDataRequest(updatedData,
                     addRequestFromMap.getSignature(),
                     addRequestFromMap.getOwnerPublicKey());
 
-            map.put(byteArray, updatedRequest);
+            putEntry(byteArray, updatedRequest);
         }
         persist();
         listeners.forEach(listener -> listener.onRefreshed(updatedRequest.getAuthenticatedSequentialData().authenticatedData));
@@ -263,23 +263,87 @@ public class AuthenticatedDataStorageService extends DataStorageService<Authenti
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////////////
 
-    private void maybePruneMap(Map<ByteArray, AuthenticatedDataRequest> persisted) {
+    private Optional<Result> checkAgainstMap(AddAuthenticatedDataRequest request,
+                                             @Nullable AuthenticatedDataRequest requestFromMap,
+                                             int mapSize) {
+        if (mapSize > MAX_MAP_SIZE) {
+            return Optional.of(new Result(false).maxMapSizeReached());
+        }
+        if (request.equals(requestFromMap)) {
+            //log.warn("request.equals(requestFromMap). request={}", request);
+            return Optional.of(new Result(false).requestAlreadyReceived());
+        }
+        if (requestFromMap != null &&
+                request.getAuthenticatedSequentialData().isSequenceNrInvalid(requestFromMap.getSequenceNumber())) {
+            //log.warn("SequenceNrInvalid. request={}", request);
+            return Optional.of(new Result(false).sequenceNrInvalid());
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Result> checkAgainstEntry(RemoveAuthenticatedDataRequest request,
+                                               AddAuthenticatedDataRequest addRequestFromMap) {
+        // We have an entry, lets validate if we can remove it
+        AuthenticatedSequentialData dataFromMap = addRequestFromMap.getAuthenticatedSequentialData();
+        if (request.isSequenceNrInvalid(dataFromMap.getSequenceNumber())) {
+            log.warn("SequenceNr has not increased at remove. request={}", request);
+            return Optional.of(new Result(false).sequenceNrInvalid());
+        }
+        if (request.isPublicKeyHashInvalid(dataFromMap)) {
+            log.warn("PublicKey hash is invalid at remove. request={}", request);
+            return Optional.of(new Result(false).publicKeyHashInvalid());
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Result> checkAgainstMap(RefreshAuthenticatedDataRequest request,
+                                             @Nullable AuthenticatedDataRequest requestFromMap) {
+        if (requestFromMap == null) {
+            return Optional.of(new Result(false).noEntry());
+        }
+        if (requestFromMap instanceof RemoveAuthenticatedDataRequest) {
+            return Optional.of(new Result(false).alreadyRemoved());
+        }
+
+        // At that point we know requestFromMap is an AddProtectedDataRequest
+        checkArgument(requestFromMap instanceof AddAuthenticatedDataRequest,
+                "requestFromMap expected be type of AddAuthenticatedDataRequest");
+        // We have an entry, lets validate if we can refresh it
+        AuthenticatedSequentialData dataFromMap = ((AddAuthenticatedDataRequest) requestFromMap).getAuthenticatedSequentialData();
+        if (request.isSequenceNrInvalid(dataFromMap.getSequenceNumber())) {
+            log.warn("SequenceNr is invalid at refresh. request={}", request);
+            // Sequence number has not increased
+            return Optional.of(new Result(false).sequenceNrInvalid());
+        }
+        if (request.isPublicKeyInvalid(dataFromMap)) {
+            log.warn("PublicKey is invalid at refresh. request={}", request);
+            // Hash of pubKey of data does not match provided one
+            return Optional.of(new Result(false).publicKeyHashInvalid());
+        }
+        return Optional.empty();
+    }
+
+    private void maybePruneMap(LazyDataRequestMap<AuthenticatedDataRequest> persisted) {
         long now = System.currentTimeMillis();
-        // Remove entries older than MAX_AGE
-        // Remove expired data in case value is of type AddProtectedDataRequest
+        // Remove entries older than PRUNE_MAX_AGE
+        // Remove expired data in case it is not a remove request
         // Sort by created date
         // Limit to MAX_MAP_SIZE
-        Map<ByteArray, AuthenticatedDataRequest> pruned = persisted.entrySet().stream()
-                .filter(entry -> now - entry.getValue().getCreated() < PRUNE_MAX_AGE)
-                .filter(entry -> entry.getValue() instanceof RemoveAuthenticatedDataRequest ||
-                        !((AddAuthenticatedDataRequest) entry.getValue()).getAuthenticatedSequentialData().isExpired())
-                .sorted((o1, o2) -> Long.compare(o2.getValue().getCreated(), o1.getValue().getCreated()))
+        // We use the EntryInfo, so that the entries do not get decoded
+        Set<ByteArray> retained = persisted.keySet().stream()
+                .map(key -> new AbstractMap.SimpleImmutableEntry<>(key, persisted.getEntryInfo(key)))
+                .filter(entry -> entry.getValue() != null)
+                .filter(entry -> now - entry.getValue().created() < PRUNE_MAX_AGE)
+                .filter(entry -> entry.getValue().isRemoveRequest() || !entry.getValue().isExpired(now))
+                .sorted((o1, o2) -> Long.compare(o2.getValue().created(), o1.getValue().created()))
                 .limit(MAX_MAP_SIZE)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        Map<ByteArray, AuthenticatedDataRequest> map = persistableStore.getMap();
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        Set<ByteArray> pruned = persisted.keySet().stream()
+                .filter(key -> !retained.contains(key))
+                .collect(Collectors.toSet());
         synchronized (mapAccessLock) {
-            map.clear();
-            map.putAll(pruned);
+            removeEntries(pruned);
         }
     }
 }
@@ -25,10 +25,13 @@ import bisq.security.DigestUtil;
 import bisq.security.KeyGeneration;
 import bisq.security.SignatureUtil;
 import com.google.protobuf.ByteString;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.PublicKey;
@@ -58,6 +61,9 @@ public class RefreshAuthenticatedDataRequest implements DataRequest {
     transient protected final PublicKey ownerPublicKey;
     protected final int sequenceNumber;
     protected final byte[] signature;         // 47 bytes
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private transient volatile byte[] ownerPublicKeyHash;
 
     public RefreshAuthenticatedDataRequest(MetaData metaData,
                                            byte[] hash,
@@ -126,12 +132,19 @@ public class RefreshAuthenticatedDataRequest implements DataRequest {
 
     public boolean isPublicKeyInvalid(AuthenticatedSequentialData entryFromMap) {
         try {
-            return !Arrays.equals(entryFromMap.getPubKeyHash(), DigestUtil.hash(ownerPublicKeyBytes));
+            return !Arrays.equals(entryFromMap.getPubKeyHash(), getOwnerPublicKeyHash());
         } catch (Exception e) {
             return true;
         }
     }
 
+    private byte[] getOwnerPublicKeyHash() {
+        if (ownerPublicKeyHash == null) {
+            ownerPublicKeyHash = DigestUtil.hash(ownerPublicKeyBytes);
+        }
+        return ownerPublicKeyHash;
+    }
+
     public boolean isSequenceNrInvalid(long seqNumberFromMap) {
         return sequenceNumber <= seqNumberFromMap;
     }
@@ -23,7 +23,9 @@ import bisq.network.p2p.services.data.storage.MetaData;
 import bisq.security.DigestUtil;
 import bisq.security.KeyGeneration;
 import bisq.security.SignatureUtil;
+import bisq.security.SignatureVerifier;
 import com.google.protobuf.ByteString;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -56,6 +58,12 @@ public class RemoveAuthenticatedDataRequest implements AuthenticatedDataRequest,
     protected final byte[] ownerPublicKeyBytes; // 442 bytes
     @Nullable
     transient protected PublicKey ownerPublicKey;
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private transient volatile SignatureVerifier.Item signatureVerificationItem;
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private transient volatile byte[] ownerPublicKeyHash;
     protected final int sequenceNumber;
     protected final byte[] signature;         // 47 bytes
     protected final long created;
@@ -137,24 +145,34 @@ public class RemoveAuthenticatedDataRequest implements AuthenticatedDataRequest,
     }
 
     public boolean isSignatureInvalid() {
-        try {
-            if (ownerPublicKey == null) {
-                ownerPublicKey = KeyGeneration.generatePublic(ownerPublicKeyBytes);
-            }
-            return !SignatureUtil.verify(hash, signature, ownerPublicKey);
-        } catch (Exception e) {
-            return true;
+        return !getSignatureVerificationItem().isValid();
+    }
+
+    public SignatureVerifier.Item getSignatureVerificationItem() {
+        if (signatureVerificationItem == null) {
+            signatureVerificationItem = new SignatureVerifier.Item(hash,
+                    signature,
+                    ownerPublicKeyBytes,
+                    ownerPublicKey);
         }
+        return signatureVerificationItem;
     }
 
     public boolean isPublicKeyHashInvalid(AuthenticatedSequentialData entryFromMap) {
         try {
-            return !Arrays.equals(entryFromMap.getPubKeyHash(), DigestUtil.hash(ownerPublicKeyBytes));
+            return !Arrays.equals(entryFromMap.getPubKeyHash(), getOwnerPublicKeyHash());
         } catch (Exception e) {
             return true;
         }
     }
 
+    private byte[] getOwnerPublicKeyHash() {
+        if (ownerPublicKeyHash == null) {
+            ownerPublicKeyHash = DigestUtil.hash(ownerPublicKeyBytes);
+        }
+        return ownerPublicKeyHash;
+    }
+
     public boolean isSequenceNrInvalid(long seqNumberFromMap) {
         return sequenceNumber <= seqNumberFromMap;
     }
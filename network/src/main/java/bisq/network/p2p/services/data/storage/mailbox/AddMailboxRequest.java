@@ -22,11 +22,14 @@ import bisq.network.p2p.services.data.storage.MetaData;
 import bisq.security.DigestUtil;
 import bisq.security.KeyGeneration;
 import bisq.security.SignatureUtil;
+import bisq.security.SignatureVerifier;
 import com.google.protobuf.ByteString;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
 import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.PublicKey;
@@ -59,6 +62,14 @@ public class AddMailboxRequest implements MailboxRequest, AddDataRequest {
     private final byte[] signature;
     private final byte[] senderPublicKeyBytes;
     private final PublicKey senderPublicKey;
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private transient volatile SignatureVerifier.Item signatureVerificationItem;
+    @Nullable
+    private transient volatile byte[] hash;
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private transient volatile byte[] senderPublicKeyHash;
 
     public AddMailboxRequest(MailboxSequentialData mailboxSequentialData,
                              byte[] signature,
@@ -103,23 +114,35 @@ public class AddMailboxRequest implements MailboxRequest, AddDataRequest {
     }
 
     public boolean isSignatureInvalid() {
-        try {
-            return !SignatureUtil.verify(mailboxSequentialData.serialize(), signature, getOwnerPublicKey());
-        } catch (Exception e) {
-            log.warn(e.toString(), e);
-            return true;
+        return !getSignatureVerificationItem().isValid();
+    }
+
+    public SignatureVerifier.Item getSignatureVerificationItem() {
+        if (signatureVerificationItem == null) {
+            signatureVerificationItem = new SignatureVerifier.Item(mailboxSequentialData.serialize(),
+                    signature,
+                    senderPublicKeyBytes,
+                    senderPublicKey);
         }
+        return signatureVerificationItem;
     }
 
     public boolean isPublicKeyInvalid() {
         try {
             return !Arrays.equals(mailboxSequentialData.getSenderPublicKeyHash(),
-                    DigestUtil.hash(senderPublicKeyBytes));
+                    getSenderPublicKeyHash());
         } catch (Exception e) {
             return true;
         }
     }
 
+    private byte[] getSenderPublicKeyHash() {
+        if (senderPublicKeyHash == null) {
+            senderPublicKeyHash = DigestUtil.hash(senderPublicKeyBytes);
+        }
+        return senderPublicKeyHash;
+    }
+
     public PublicKey getOwnerPublicKey() {
         return Optional.ofNullable(senderPublicKey).orElseGet(() -> {
             try {
@@ -149,6 +172,14 @@ public class AddMailboxRequest implements MailboxRequest, AddDataRequest {
         return mailboxSequentialData.getMailboxData().getMetaData();
     }
 
+    @Override
+    public byte[] getHash() {
+        if (hash == null) {
+            hash = DigestUtil.hash(mailboxSequentialData.getMailboxData().toProto());
+        }
+        return hash;
+    }
+
     @Override
     public boolean isExpired() {
         return mailboxSequentialData.isExpired();
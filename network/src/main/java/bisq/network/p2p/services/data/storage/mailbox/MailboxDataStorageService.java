@@ -20,12 +20,16 @@ package bisq.network.p2p.services.data.storage.mailbox;
 import bisq.common.data.ByteArray;
 import bisq.network.p2p.services.data.storage.DataStorageService;
 import bisq.network.p2p.services.data.storage.DataStore;
+import bisq.network.p2p.services.data.storage.LazyDataRequestMap;
 import bisq.network.p2p.services.data.storage.Result;
 import bisq.persistence.PersistenceService;
 import bisq.security.DigestUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.TimeUnit;
@@ -54,49 +58,49 @@ public class MailboxDataStorageService extends DataStorageService<MailboxRequest
         maybePruneMap(persisted.getMap());
     }
 
-    @Override
-    protected long getMaxWriteRateInMs() {
-        return 1000;
-    }
-
+    /**
+     * Expiry, data validity, public key and signature get verified before we take the lock, so that the verification
+     * of requests received concurrently is not serialized. The lock only covers the compare-and-set of the entry
+     * against the sequence number of the map entry.
+     */
     public Result add(AddMailboxRequest request) {
         MailboxSequentialData mailboxSequentialData = request.getMailboxSequentialData();
         MailboxData mailboxData = mailboxSequentialData.getMailboxData();
-        byte[] hash = DigestUtil.hash(mailboxData.serialize());
-        ByteArray byteArray = new ByteArray(hash);
-        MailboxRequest requestFromMap;
+        ByteArray byteArray = new ByteArray(request.getHash());
         Map<ByteArray, MailboxRequest> map = persistableStore.getMap();
-        synchronized (mapAccessLock) {
-            if (map.size() > MAX_MAP_SIZE) {
-                return new Result(false).maxMapSizeReached();
-            }
-            requestFromMap = map.get(byteArray);
-            int sequenceNumberFromMap = requestFromMap != null ? requestFromMap.getSequenceNumber() : 0;
 
-            if (request.equals(requestFromMap)) {
-                return new Result(false).requestAlreadyReceived();
-            }
+        // Reading the map does not require the lock. We reject requests we would reject inside the lock anyway
+        // before spending the verification costs.
+        Optional<Result> mapCheckResult = checkAgainstMap(request, map.get(byteArray), map.size());
+        if (mapCheckResult.isPresent()) {
+            return mapCheckResult.get();
+        }
 
-            if (requestFromMap != null && mailboxSequentialData.isSequenceNrInvalid(sequenceNumberFromMap)) {
-                return new Result(false).sequenceNrInvalid();
-            }
+        if (mailboxSequentialData.isExpired()) {
+            return new Result(false).expired();
+        }
 
-            if (mailboxSequentialData.isExpired()) {
-                return new Result(false).expired();
-            }
+        if (mailboxData.isDataInvalid()) {
+            return new Result(false).dataInvalid();
+        }
 
-            if (mailboxData.isDataInvalid()) {
-                return new Result(false).dataInvalid();
-            }
+        if (request.isPublicKeyInvalid()) {
+            return new Result(false).publicKeyHashInvalid();
+        }
 
-            if (request.isPublicKeyInvalid()) {
-                return new Result(false).publicKeyHashInvalid();
-            }
+        if (request.isSignatureInvalid()) {
+            return new Result(false).signatureInvalid();
+        }
 
-            if (request.isSignatureInvalid()) {
-                return new Result(false).signatureInvalid();
+        MailboxRequest requestFromMap;
+        synchronized (mapAccessLock) {
+            // The map might have changed since our check
+            requestFromMap = map.get(byteArray);
+            mapCheckResult = checkAgainstMap(request, requestFromMap, map.size());
+            if (mapCheckResult.isPresent()) {
+                return mapCheckResult.get();
             }
-            map.put(byteArray, request);
+            putEntry(byteArray, request);
         }
         persist();
 
@@ -110,16 +114,33 @@ public class MailboxDataStorageService extends DataStorageService<MailboxRequest
         return new Result(true);
     }
 
+    /**
+     * Only the removal of an entry uses the signature, so it gets verified only if the map has an entry which passes
+     * the checks of the remove request. It gets verified before we take the lock and the result is kept at the
+     * request, so it is not verified again inside the lock.
+     */
     public Result remove(RemoveMailboxRequest request) {
         ByteArray byteArray = new ByteArray(request.getHash());
         Map<ByteArray, MailboxRequest> map = persistableStore.getMap();
-        MailboxRequest requestFromMap = map.get(byteArray);
+
+        // Reading the map does not require the lock. We reject requests we would reject inside the lock anyway
+        // before spending the verification costs.
+        if (map.get(byteArray) instanceof AddMailboxRequest addRequestFromMap) {
+            Optional<Result> entryCheckResult = checkAgainstEntry(request, addRequestFromMap);
+            if (entryCheckResult.isPresent()) {
+                return entryCheckResult.get();
+            }
+            // Verifies the signature, the result is used by the check inside the lock
+            request.isSignatureInvalid();
+        }
+
         MailboxSequentialData sequentialSataFromMap;
         synchronized (mapAccessLock) {
+            MailboxRequest requestFromMap = map.get(byteArray);
             if (requestFromMap == null) {
                 // We don't have any entry, but it might be that we would receive later an add request, so we need to keep
                 // track of the sequence number
-                map.put(byteArray, request);
+                putEntry(byteArray, request);
                 persist();
                 return new Result(false).noEntry();
             }
@@ -128,7 +149,7 @@ public class MailboxDataStorageService extends DataStorageService<MailboxRequest
                 // We have had the entry already removed.
                 if (!request.isSequenceNrInvalid(requestFromMap.getSequenceNumber())) {
                     // We update the request, so we have the latest sequence number.
-                    map.put(byteArray, request);
+                    putEntry(byteArray, request);
                     persist();
                 }
                 return new Result(false).alreadyRemoved();
@@ -136,27 +157,22 @@ public class MailboxDataStorageService extends DataStorageService<MailboxRequest
 
             // At that point we know requestFromMap is an AddProtectedDataRequest
             AddMailboxRequest addRequest = (AddMailboxRequest) requestFromMap;
-            // We have an entry, lets validate if we can remove it
-            sequentialSataFromMap = addRequest.getMailboxSequentialData();
-            if (request.isSequenceNrInvalid(sequentialSataFromMap.getSequenceNumber())) {
-                // Sequence number has not increased
-                return new Result(false).sequenceNrInvalid();
-            }
-
-            if (request.isPublicKeyHashInvalid(sequentialSataFromMap)) {
-                // Hash of pubKey of data does not match provided one
-                return new Result(false).publicKeyHashInvalid();
+            // The map might have changed since our check
+            Optional<Result> entryCheckResult = checkAgainstEntry(request, addRequest);
+            if (entryCheckResult.isPresent()) {
+                return entryCheckResult.get();
             }
 
             if (request.isSignatureInvalid()) {
                 return new Result(false).signatureInvalid();
             }
 
-            map.put(byteArray, request);
-            listeners.forEach(listener -> listener.onRemoved(sequentialSataFromMap.getMailboxData()));
+            sequentialSataFromMap = addRequest.getMailboxSequentialData();
+            putEntry(byteArray, request);
         }
 
         persist();
+        listeners.forEach(listener -> listener.onRemoved(sequentialSataFromMap.getMailboxData()));
         return new Result(true).removedData(sequentialSataFromMap.getMailboxData());
     }
 
@@ -201,23 +217,57 @@ public class MailboxDataStorageService extends DataStorageService<MailboxRequest
         return getSequenceNumber(hash) < Integer.MAX_VALUE;
     }
 
-    private void maybePruneMap(Map<ByteArray, MailboxRequest> persisted) {
+    private Optional<Result> checkAgainstMap(AddMailboxRequest request,
+                                             @Nullable MailboxRequest requestFromMap,
+                                             int mapSize) {
+        if (mapSize > MAX_MAP_SIZE) {
+            return Optional.of(new Result(false).maxMapSizeReached());
+        }
+        if (request.equals(requestFromMap)) {
+            return Optional.of(new Result(false).requestAlreadyReceived());
+        }
+        if (requestFromMap != null &&
+                request.getMailboxSequentialData().isSequenceNrInvalid(requestFromMap.getSequenceNumber())) {
+            return Optional.of(new Result(false).sequenceNrInvalid());
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Result> checkAgainstEntry(RemoveMailboxRequest request, AddMailboxRequest addRequestFromMap) {
+        // We have an entry, lets validate if we can remove it
+        MailboxSequentialData sequentialDataFromMap = addRequestFromMap.getMailboxSequentialData();
+        if (request.isSequenceNrInvalid(sequentialDataFromMap.getSequenceNumber())) {
+            // Sequence number has not increased
+            return Optional.of(new Result(false).sequenceNrInvalid());
+        }
+        if (request.isPublicKeyHashInvalid(sequentialDataFromMap)) {
+            // Hash of pubKey of data does not match provided one
+            return Optional.of(new Result(false).publicKeyHashInvalid());
+        }
+        return Optional.empty();
+    }
+
+    private void maybePruneMap(LazyDataRequestMap<MailboxRequest> persisted) {
         long now = System.currentTimeMillis();
         // Remove entries older than MAX_AGE
-        // Remove expired ProtectedEntry in case value is of type AddProtectedDataRequest
+        // Remove expired data in case it is not a remove request
         // Sort by created date
         // Limit to MAX_MAP_SIZE
-        Map<ByteArray, MailboxRequest> pruned = persisted.entrySet().stream()
-                .filter(entry -> now - entry.getValue().getCreated() < MAX_AGE)
-                .filter(entry -> entry.getValue() instanceof RemoveMailboxRequest ||
-                        !((AddMailboxRequest) entry.getValue()).getMailboxSequentialData().isExpired())
-                .sorted((o1, o2) -> Long.compare(o2.getValue().getCreated(), o1.getValue().getCreated()))
+        // We use the EntryInfo, so that the entries do not get decoded
+        Set<ByteArray> retained = persisted.keySet().stream()
+                .map(key -> new AbstractMap.SimpleImmutableEntry<>(key, persisted.getEntryInfo(key)))
+                .filter(entry -> entry.getValue() != null)
+                .filter(entry -> now - entry.getValue().created() < MAX_AGE)
+                .filter(entry -> entry.getValue().isRemoveRequest() || !entry.getValue().isExpired(now))
+                .sorted((o1, o2) -> Long.compare(o2.getValue().created(), o1.getValue().created()))
                 .limit(MAX_MAP_SIZE)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        Map<ByteArray, MailboxRequest> map = persistableStore.getMap();
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        Set<ByteArray> pruned = persisted.keySet().stream()
+                .filter(key -> !retained.contains(key))
+                .collect(Collectors.toSet());
         synchronized (mapAccessLock) {
-            map.clear();
-            map.putAll(pruned);
+            removeEntries(pruned);
         }
     }
 }
@@ -22,11 +22,14 @@ import bisq.network.p2p.services.data.storage.MetaData;
 import bisq.security.DigestUtil;
 import bisq.security.KeyGeneration;
 import bisq.security.SignatureUtil;
+import bisq.security.SignatureVerifier;
 import com.google.protobuf.ByteString;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
 import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.PublicKey;
@@ -42,6 +45,12 @@ public class RemoveMailboxRequest implements MailboxRequest, RemoveDataRequest {
     private final byte[] signature;
     private final long created;
     private transient PublicKey receiverPublicKey;
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private transient volatile SignatureVerifier.Item signatureVerificationItem;
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private transient volatile byte[] receiverPublicKeyHash;
 
     public static RemoveMailboxRequest from(MailboxData mailboxData, KeyPair receiverKeyPair)
             throws GeneralSecurityException {
@@ -110,21 +119,31 @@ public class RemoveMailboxRequest implements MailboxRequest, RemoveDataRequest {
     public boolean isPublicKeyHashInvalid(MailboxSequentialData mailboxSequentialData) {
         try {
             return !Arrays.equals(mailboxSequentialData.getReceiversPublicKeyHash(),
-                    DigestUtil.hash(receiverPublicKeyBytes));
+                    getReceiverPublicKeyHash());
         } catch (Exception e) {
             return true;
         }
     }
 
+    private byte[] getReceiverPublicKeyHash() {
+        if (receiverPublicKeyHash == null) {
+            receiverPublicKeyHash = DigestUtil.hash(receiverPublicKeyBytes);
+        }
+        return receiverPublicKeyHash;
+    }
+
     public boolean isSignatureInvalid() {
-        try {
-            if (receiverPublicKey == null) {
-                receiverPublicKey = KeyGeneration.generatePublic(receiverPublicKeyBytes);
-            }
-            return !SignatureUtil.verify(hash, signature, receiverPublicKey);
-        } catch (Exception e) {
-            return true;
+        return !getSignatureVerificationItem().isValid();
+    }
+
+    public SignatureVerifier.Item getSignatureVerificationItem() {
+        if (signatureVerificationItem == null) {
+            signatureVerificationItem = new SignatureVerifier.Item(hash,
+                    signature,
+                    receiverPublicKeyBytes,
+                    receiverPublicKey);
         }
+        return signatureVerificationItem;
     }
 
     public boolean isSequenceNrInvalid(long seqNumberFromMap) {
@@ -0,0 +1,69 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p;
+
+import bisq.network.p2p.message.NetworkEnvelope;
+import bisq.network.p2p.node.authorization.AuthorizationToken;
+import bisq.network.p2p.services.data.DataRequest;
+import bisq.network.p2p.services.data.inventory.Inventory;
+import bisq.network.p2p.services.data.inventory.InventoryResponse;
+import bisq.network.p2p.services.data.storage.MetaData;
+import bisq.network.p2p.services.data.storage.append.AddAppendOnlyDataRequest;
+import bisq.network.p2p.services.data.storage.append.AppendOnlyData;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.BytesValue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public record MockAppendOnlyData(byte[] payload) implements AppendOnlyData {
+    /**
+     * @return An InventoryResponse with entries of 1000 random bytes, having about the given size in total.
+     */
+    public static InventoryResponse createInventoryResponse(int size) {
+        int entrySize = 1000;
+        Random random = new Random();
+        Set<DataRequest> entries = new HashSet<>();
+        for (int i = 0; i < size / entrySize; i++) {
+            byte[] payload = new byte[entrySize];
+            random.nextBytes(payload);
+            entries.add(new AddAppendOnlyDataRequest(new MockAppendOnlyData(payload)));
+        }
+        return new InventoryResponse(new Inventory(entries, 0), 1);
+    }
+
+    public static NetworkEnvelope createInventoryEnvelope(int size) {
+        return new NetworkEnvelope(NetworkEnvelope.VERSION, new AuthorizationToken(), createInventoryResponse(size));
+    }
+
+    @Override
+    public BytesValue toProto() {
+        return BytesValue.newBuilder().setValue(ByteString.copyFrom(payload)).build();
+    }
+
+    @Override
+    public MetaData getMetaData() {
+        return new MetaData(10000, "MockAppendOnlyData");
+    }
+
+    @Override
+    public boolean isDataInvalid() {
+        return false;
+    }
+}
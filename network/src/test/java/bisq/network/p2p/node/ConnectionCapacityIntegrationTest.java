@@ -0,0 +1,107 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import bisq.common.threading.ExecutorFactory;
+import bisq.common.util.NetworkUtils;
+import bisq.network.p2p.BaseNetworkTest;
+import bisq.network.p2p.node.transport.Transport;
+import bisq.network.p2p.services.peergroup.BanList;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress test for the number of connections a node can hold. Each client node holds one outbound connection to the
+ * server node, so the server holds numClients inbound connections. Each connection requires a read task on
+ * NetworkService.NETWORK_IO_POOL on both sides.
+ * <p>
+ * Run with -Dbisq.threadMode=PLATFORM and -Dbisq.threadMode=VIRTUAL (requires Java 21) to compare. With platform
+ * threads we hit the max. pool size of the NETWORK_IO_POOL at about 500 connection pairs. With virtual threads all
+ * connections must get created.
+ * Excluded from the test task, it runs with the benchmark task.
+ */
+@Slf4j
+@Tag("benchmark")
+public class ConnectionCapacityIntegrationTest extends BaseNetworkTest {
+    private static final int NUM_CLIENTS = 5000;
+    private static final int MIN_NUM_PLATFORM_THREAD_CONNECTIONS = 400;
+
+    @Test
+    void test_maxConnections() throws InterruptedException {
+        log.info("Thread mode: {}", ExecutorFactory.THREAD_MODE);
+        Node.Config config = getConfig(Transport.Type.CLEAR);
+        BanList banList = new BanList();
+        Node server = new Node(banList, config, "server");
+        int serverPort = NetworkUtils.findFreeSystemPort();
+        server.maybeInitializeServer(serverPort);
+        Address serverAddress = Address.localHost(serverPort);
+
+        NodesById clients = new NodesById(banList, config);
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long ts = System.currentTimeMillis();
+        int numConnections = 0;
+        try {
+            for (int i = 0; i < NUM_CLIENTS; i++) {
+                clients.getConnection("client_" + i, serverAddress);
+                numConnections++;
+                if (numConnections % 500 == 0) {
+                    log.info("Connections: {}, platform threads: {}, peak platform threads: {}, heap: {} MB",
+                            numConnections,
+                            threadMXBean.getThreadCount(),
+                            threadMXBean.getPeakThreadCount(),
+                            (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1024 / 1024);
+                }
+            }
+        } catch (Throwable throwable) {
+            log.warn("Creating connection failed after {} connections", numConnections, throwable);
+        }
+        log.info("Created {} connections in {} ms with thread mode {}. Server connections: {}, peak platform threads: {}",
+                numConnections,
+                System.currentTimeMillis() - ts,
+                ExecutorFactory.THREAD_MODE,
+                server.getNumConnections(),
+                threadMXBean.getPeakThreadCount());
+
+        int minNumConnections = ExecutorFactory.THREAD_MODE == ExecutorFactory.ThreadMode.VIRTUAL ?
+                NUM_CLIENTS :
+                MIN_NUM_PLATFORM_THREAD_CONNECTIONS;
+        assertTrue(numConnections >= minNumConnections,
+                "Created only " + numConnections + " connections, expected at least " + minNumConnections);
+        // The server completes the handshake after the client, so we wait until it holds all connections
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (server.getNumConnections() < numConnections && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        // A failed connection attempt might still have been accepted by the server
+        assertTrue(server.getNumConnections() >= numConnections);
+
+        clients.shutdown().join();
+        server.shutdown().join();
+    }
+
+    @Override
+    protected long getTimeout() {
+        return 600;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import bisq.network.p2p.MockAppendOnlyData;
+import bisq.network.p2p.message.NetworkEnvelope;
+import bisq.network.p2p.node.authorization.AuthorizationToken;
+import bisq.network.p2p.node.nio.DelimitedFrameCodec;
+import bisq.network.p2p.node.nio.NioEngine;
+import bisq.network.p2p.services.data.DataRequest;
+import bisq.network.p2p.services.data.inventory.Inventory;
+import bisq.network.p2p.services.data.inventory.InventoryResponse;
+import bisq.network.p2p.services.data.storage.append.AddAppendOnlyDataRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the round trip of compressed frames and logs the compression ratio and the estimated transfer time of an
+ * inventory on a slow link (as typical for Tor) with and without compression.
+ */
+@Slf4j
+public class FrameCompressionTest {
+    private static final int LINK_BYTES_PER_SEC = 50 * 1024;
+
+    @Test
+    public void testSmallMessageNotCompressed() throws IOException {
+        bisq.network.protobuf.NetworkEnvelope proto = createEnvelope(1, 100).toProto();
+        FrameCompression.Frame frame = FrameCompression.encode(proto, true);
+        assertFalse(frame.isCompressed());
+        assertEquals(proto, decode(frame));
+    }
+
+    @Test
+    public void testNotCompressible() throws IOException {
+        bisq.network.protobuf.NetworkEnvelope proto = createEnvelope(100, 1000).toProto();
+        FrameCompression.Frame frame = FrameCompression.encode(proto, false);
+        assertFalse(frame.isCompressed());
+        assertEquals(proto, decode(frame));
+    }
+
+    @Test
+    public void testCompression() throws IOException {
+        bisq.network.protobuf.NetworkEnvelope proto = createEnvelope(2000, 1000).toProto();
+        int uncompressedSize = DelimitedFrameCodec.getDelimitedSize(proto);
+
+        long ts = System.nanoTime();
+        FrameCompression.Frame frame = FrameCompression.encode(proto, true);
+        long compressTime = (System.nanoTime() - ts) / 1_000_000;
+        assertTrue(frame.isCompressed());
+        assertTrue(frame.numBytes() < uncompressedSize);
+
+        ts = System.nanoTime();
+        assertEquals(proto, decode(frame));
+        long decompressTime = (System.nanoTime() - ts) / 1_000_000;
+
+        long uncompressedTransferTime = uncompressedSize * 1000L / LINK_BYTES_PER_SEC;
+        long compressedTransferTime = frame.numBytes() * 1000L / LINK_BYTES_PER_SEC + compressTime + decompressTime;
+        log.info("Inventory of {} KB compressed to {} KB ({}%). Compression took {} ms, decompression {} ms. " +
+                        "Estimated transfer time at {} KB/s: uncompressed {} ms, compressed {} ms",
+                uncompressedSize / 1024, frame.numBytes() / 1024, frame.numBytes() * 100L / uncompressedSize,
+                compressTime, decompressTime, LINK_BYTES_PER_SEC / 1024,
+                uncompressedTransferTime, compressedTransferTime);
+    }
+
+    @Test
+    public void testDecompressionBomb() throws IOException {
+        bisq.network.protobuf.NetworkEnvelope proto = createEnvelope(2000, 1000).toProto();
+        FrameCompression.Frame frame = FrameCompression.encode(proto, true);
+        byte[] payload = readPayload(frame);
+        assertThrows(IOException.class, () -> FrameCompression.decode(payload, 1024));
+    }
+
+    private static bisq.network.protobuf.NetworkEnvelope decode(FrameCompression.Frame frame) throws IOException {
+        byte[] payload = readPayload(frame);
+        assertEquals(frame.isCompressed(), FrameCompression.isCompressed(payload));
+        return bisq.network.protobuf.NetworkEnvelope.parseFrom(FrameCompression.decode(payload, NioEngine.MAX_FRAME_SIZE));
+    }
+
+    private static byte[] readPayload(FrameCompression.Frame frame) throws IOException {
+        ByteBuffer buffer = frame.getBuffer();
+        // The content is shared between connections
+        assertTrue(buffer.isReadOnly());
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return DelimitedFrameCodec.readFrame(new ByteArrayInputStream(bytes), NioEngine.MAX_FRAME_SIZE);
+    }
+
+    // Text with a structure similar to offers and chat messages. Random bytes as used in other tests do not compress.
+    private static NetworkEnvelope createEnvelope(int numEntries, int entrySize) {
+        Random random = new Random(42);
+        String[] markets = {"BTC/USD", "BTC/EUR", "BTC/GBP", "BTC/CAD"};
+        String[] methods = {"SEPA", "ZELLE", "REVOLUT", "WISE", "F2F"};
+        Set<DataRequest> entries = new HashSet<>();
+        for (int i = 0; i < numEntries; i++) {
+            StringBuilder text = new StringBuilder();
+            while (text.length() < entrySize) {
+                text.append("id=").append(UUID.randomUUID())
+                        .append(";market=").append(markets[random.nextInt(markets.length)])
+                        .append(";paymentMethod=").append(methods[random.nextInt(methods.length)])
+                        .append(";amount=").append(random.nextInt(10_000_000))
+                        .append(";date=").append(1_700_000_000_000L + random.nextInt(100_000_000))
+                        .append(";");
+            }
+            byte[] payload = text.substring(0, entrySize).getBytes(StandardCharsets.UTF_8);
+            entries.add(new AddAppendOnlyDataRequest(new MockAppendOnlyData(payload)));
+        }
+        InventoryResponse inventoryResponse = new InventoryResponse(new Inventory(entries, 0), 1);
+        return new NetworkEnvelope(NetworkEnvelope.VERSION, new AuthorizationToken(), inventoryResponse);
+    }
+}
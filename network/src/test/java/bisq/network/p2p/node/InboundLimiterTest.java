@@ -0,0 +1,100 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InboundLimiterTest {
+    @Test
+    public void testRateLimitPerMessageType() {
+        InboundLimiter.Config config = new InboundLimiter.Config(10,
+                InboundLimiter.ShedPolicy.DROP,
+                new InboundLimiter.RateLimit(0.001, 3),
+                Map.of("InventoryRequest", new InboundLimiter.RateLimit(0.001, 1)));
+        InboundLimiter inboundLimiter = new InboundLimiter(config);
+
+        assertTrue(inboundLimiter.tryAcquire("InventoryRequest"));
+        assertFalse(inboundLimiter.tryAcquire("InventoryRequest"));
+
+        // Other message types have their own bucket with the default limit
+        assertTrue(inboundLimiter.tryAcquire("Ping"));
+        assertTrue(inboundLimiter.tryAcquire("Ping"));
+        assertTrue(inboundLimiter.tryAcquire("Ping"));
+        assertFalse(inboundLimiter.tryAcquire("Ping"));
+    }
+
+    @Test
+    public void testFrameRateLimit() {
+        InboundLimiter.Config config = new InboundLimiter.Config(10,
+                InboundLimiter.ShedPolicy.DROP,
+                new InboundLimiter.RateLimit(100, 100),
+                Map.of(),
+                new InboundLimiter.RateLimit(0.001, 2));
+        InboundLimiter inboundLimiter = new InboundLimiter(config);
+
+        assertTrue(inboundLimiter.tryAcquireFrame());
+        assertTrue(inboundLimiter.tryAcquireFrame());
+        assertFalse(inboundLimiter.tryAcquireFrame());
+        // The message type limits are independent of it
+        assertTrue(inboundLimiter.tryAcquire("Ping"));
+    }
+
+    @Test
+    public void testBoundedQueue() {
+        InboundLimiter.Config config = new InboundLimiter.Config(2,
+                InboundLimiter.ShedPolicy.DROP,
+                new InboundLimiter.RateLimit(100, 100),
+                Map.of());
+        InboundLimiter inboundLimiter = new InboundLimiter(config);
+
+        assertTrue(inboundLimiter.tryEnqueue(100));
+        assertTrue(inboundLimiter.tryEnqueue(100));
+        assertFalse(inboundLimiter.tryEnqueue(100));
+        assertEquals(2, inboundLimiter.getQueueSize());
+
+        inboundLimiter.onDequeued(100);
+        assertTrue(inboundLimiter.tryEnqueue(100));
+    }
+
+    @Test
+    public void testQueuedBytesLimit() {
+        InboundLimiter.Config config = new InboundLimiter.Config(10,
+                InboundLimiter.ShedPolicy.DROP,
+                new InboundLimiter.RateLimit(100, 100),
+                Map.of(),
+                InboundLimiter.Config.DEFAULT_FRAME_RATE_LIMIT,
+                1000);
+        InboundLimiter inboundLimiter = new InboundLimiter(config);
+
+        assertTrue(inboundLimiter.tryEnqueue(600));
+        assertFalse(inboundLimiter.tryEnqueue(600));
+        assertEquals(1, inboundLimiter.getQueueSize());
+        assertEquals(600, inboundLimiter.getQueuedBytes());
+
+        // A message larger than the limit is accepted if nothing else is queued
+        inboundLimiter.onDequeued(600);
+        assertTrue(inboundLimiter.tryEnqueue(5000));
+        assertFalse(inboundLimiter.tryEnqueue(1));
+    }
+}
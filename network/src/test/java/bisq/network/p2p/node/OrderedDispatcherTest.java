@@ -0,0 +1,84 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderedDispatcherTest {
+    @Test
+    public void testOrderPerKey() throws InterruptedException {
+        OrderedDispatcher dispatcher = new OrderedDispatcher("test", 4);
+        int numKeys = 20;
+        int numTasks = 1000;
+        Map<String, List<Integer>> resultsByKey = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(numKeys * numTasks);
+        for (int i = 0; i < numTasks; i++) {
+            int value = i;
+            for (int k = 0; k < numKeys; k++) {
+                String key = "key" + k;
+                dispatcher.execute(key, () -> {
+                    // Tasks of the same key run serially, so we do not need a synchronized list
+                    resultsByKey.computeIfAbsent(key, e -> new ArrayList<>()).add(value);
+                    latch.countDown();
+                });
+            }
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        List<Integer> expected = IntStream.range(0, numTasks).boxed().collect(Collectors.toList());
+        resultsByKey.values().forEach(list -> assertEquals(expected, list));
+        assertEquals(0, dispatcher.getQueueDepth());
+    }
+
+    @Test
+    public void testSlowLaneDoesNotBlockOtherLanes() throws InterruptedException {
+        OrderedDispatcher dispatcher = new OrderedDispatcher("test", 2);
+        // Find two keys mapped to different lanes
+        String slowKey = "slow";
+        String fastKey = IntStream.range(0, 100).mapToObj(i -> "fast" + i)
+                .filter(key -> dispatcher.getLane(key) != dispatcher.getLane(slowKey))
+                .findFirst()
+                .orElseThrow();
+        assertNotSame(dispatcher.getLane(slowKey), dispatcher.getLane(fastKey));
+
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch fastDone = new CountDownLatch(1);
+        dispatcher.execute(slowKey, () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException ignore) {
+            }
+        });
+        dispatcher.execute(fastKey, fastDone::countDown);
+        assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+        blocker.countDown();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import bisq.network.p2p.MockAppendOnlyData;
+import bisq.network.p2p.node.nio.DelimitedFrameCodec;
+import bisq.network.p2p.node.nio.NioEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the allocations of the receive path using parseDelimitedFrom(InputStream) (as we did before) with reading
+ * the frame into one array and parsing it with aliasing.
+ */
+@Slf4j
+public class ReceivePathAllocationTest {
+    @Test
+    public void testAllocations() throws IOException {
+        bisq.network.protobuf.NetworkEnvelope proto = MockAppendOnlyData.createInventoryEnvelope(5 * 1024 * 1024).toProto();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        proto.writeDelimitedTo(outputStream);
+        byte[] wireBytes = outputStream.toByteArray();
+        int iterations = 20;
+
+        // Warm up
+        assertEquals(proto, receiveWithStreamParsing(wireBytes));
+        assertEquals(proto, receiveWithAliasing(wireBytes));
+
+        long before = getAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            receiveWithStreamParsing(wireBytes);
+        }
+        long streamParsing = (getAllocatedBytes() - before) / iterations;
+
+        before = getAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            receiveWithAliasing(wireBytes);
+        }
+        long aliasing = (getAllocatedBytes() - before) / iterations;
+
+        log.info("Allocated bytes per received 5 MB InventoryResponse: with parseDelimitedFrom: {} KB, " +
+                        "with aliasing parser: {} KB",
+                streamParsing / 1024, aliasing / 1024);
+        assertTrue(aliasing < streamParsing);
+    }
+
+    private static bisq.network.protobuf.NetworkEnvelope receiveWithStreamParsing(byte[] wireBytes) throws IOException {
+        return bisq.network.protobuf.NetworkEnvelope.parseDelimitedFrom(new ByteArrayInputStream(wireBytes));
+    }
+
+    private static bisq.network.protobuf.NetworkEnvelope receiveWithAliasing(byte[] wireBytes) throws IOException {
+        byte[] frame = DelimitedFrameCodec.readFrame(new ByteArrayInputStream(wireBytes), NioEngine.MAX_FRAME_SIZE);
+        return bisq.network.protobuf.NetworkEnvelope.parseFrom(DelimitedFrameCodec.newAliasingInputStream(frame));
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node;
+
+import bisq.network.p2p.MockAppendOnlyData;
+import bisq.network.p2p.message.NetworkMessage;
+import bisq.network.p2p.node.authorization.AuthorizationToken;
+import bisq.network.p2p.node.nio.DelimitedFrameCodec;
+import bisq.network.p2p.node.nio.NioEngine;
+import bisq.network.p2p.node.transport.Transport;
+import bisq.network.p2p.services.data.inventory.InventoryResponse;
+import com.google.common.io.CountingInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Sends a 5 MB inventory over a loopback connection and checks that the message gets serialized only once and that
+ * the metrics count the bytes the peer received.
+ */
+public class SendPathTest {
+    private static class CountingMessage implements NetworkMessage {
+        private final InventoryResponse inventoryResponse = MockAppendOnlyData.createInventoryResponse(5 * 1024 * 1024);
+        private final AtomicInteger numToProtoCalls = new AtomicInteger();
+
+        @Override
+        public bisq.network.protobuf.NetworkMessage toProto() {
+            numToProtoCalls.incrementAndGet();
+            return inventoryResponse.toProto();
+        }
+    }
+
+    private static final Connection.Handler HANDLER = new Connection.Handler() {
+        @Override
+        public CompletableFuture<Void> handleNetworkMessage(NetworkMessage networkMessage,
+                                                            AuthorizationToken authorizationToken,
+                                                            Connection connection) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void handleConnectionClosed(Connection connection, CloseReason closeReason) {
+        }
+
+        @Override
+        public void handleInboundLimitExceeded(Connection connection, InboundLimiter.ShedPolicy shedPolicy) {
+        }
+    };
+
+    private ServerSocket serverSocket;
+    private Socket socket;
+    private Socket peersSocket;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        peersSocket = serverSocket.accept();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        socket.close();
+        peersSocket.close();
+        serverSocket.close();
+    }
+
+    @Test
+    public void testSend() throws Exception {
+        assertSerializedOnceAndCounted(EnumSet.noneOf(Capability.Feature.class));
+    }
+
+    @Test
+    public void testSendCompressed() throws Exception {
+        assertSerializedOnceAndCounted(EnumSet.of(Capability.Feature.COMPRESSION_DEFLATE_V1));
+    }
+
+    private void assertSerializedOnceAndCounted(Set<Capability.Feature> features) throws Exception {
+        Address address = Address.localHost(serverSocket.getLocalPort());
+        Capability capability = new Capability(address, Set.of(Transport.Type.CLEAR), features);
+        Metrics metrics = new Metrics();
+        OutboundConnection connection = new OutboundConnection(socket,
+                address,
+                capability,
+                capability,
+                new Load(1),
+                metrics,
+                HANDLER,
+                Optional.empty(),
+                new InboundLimiter(InboundLimiter.Config.DEFAULT),
+                (c, exception) -> {
+                });
+        connection.start();
+
+        CountingMessage message = new CountingMessage();
+        var future = connection.sendAsync(message, new AuthorizationToken());
+        CountingInputStream inputStream = new CountingInputStream(peersSocket.getInputStream());
+        DelimitedFrameCodec.readFrame(inputStream, NioEngine.MAX_FRAME_SIZE);
+        future.get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, message.numToProtoCalls.get());
+        assertEquals(inputStream.getCount(), metrics.getSentBytes().get());
+        assertEquals(1, metrics.getNumMessagesSent().get());
+        connection.close(CloseReason.SHUTDOWN);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package bisq.network.p2p.node.nio;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BufferPoolTest {
+    private static final int SIZE = BufferPool.MIN_BUFFER_SIZE;
+
+    @Test
+    public void testReuse() {
+        BufferPool bufferPool = new BufferPool(4 * SIZE, 4 * SIZE);
+        ByteBuffer buffer = bufferPool.acquire(100);
+        assertTrue(buffer.isDirect());
+        assertEquals(SIZE, buffer.capacity());
+        assertEquals(SIZE, bufferPool.getAcquiredBytes());
+
+        bufferPool.release(buffer);
+        assertEquals(0, bufferPool.getAcquiredBytes());
+        assertEquals(SIZE, bufferPool.getPooledBytes());
+        assertSame(buffer, bufferPool.acquire(SIZE));
+        assertEquals(1, bufferPool.getNumReused().get());
+    }
+
+    @Test
+    public void testFallBackToHeapBuffers() {
+        BufferPool bufferPool = new BufferPool(4 * SIZE, 2 * SIZE);
+        ByteBuffer first = bufferPool.acquire(SIZE);
+        ByteBuffer second = bufferPool.acquire(SIZE);
+        ByteBuffer third = bufferPool.acquire(SIZE);
+        assertTrue(first.isDirect());
+        assertTrue(second.isDirect());
+        assertFalse(third.isDirect());
+        assertEquals(2 * SIZE, bufferPool.getAcquiredBytes());
+        assertEquals(1, bufferPool.getNumHeapAllocated().get());
+
+        // Heap buffers are not pooled
+        bufferPool.release(third);
+        assertEquals(0, bufferPool.getPooledBytes());
+
+        bufferPool.release(first);
+        assertTrue(bufferPool.acquire(SIZE).isDirect());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node.nio;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.BytesValue;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DelimitedFrameCodecTest {
+    @Test
+    public void testEncodeIsCompatibleWithWriteDelimitedTo() throws IOException {
+        BytesValue message = createMessage(1000);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        message.writeDelimitedTo(outputStream);
+        ByteBuffer encoded = DelimitedFrameCodec.encode(message);
+        assertArrayEquals(outputStream.toByteArray(), encoded.array());
+
+        BytesValue parsed = BytesValue.parseDelimitedFrom(new ByteArrayInputStream(encoded.array()));
+        assertEquals(message, parsed);
+    }
+
+    @Test
+    public void testDecodeFragmentedFrames() throws IOException {
+        BytesValue first = createMessage(300);
+        BytesValue second = createMessage(5);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        first.writeDelimitedTo(outputStream);
+        second.writeDelimitedTo(outputStream);
+        byte[] bytes = outputStream.toByteArray();
+
+        DelimitedFrameCodec codec = new DelimitedFrameCodec(1024);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+
+        // Only the first byte of the 2 byte varint prefix
+        buffer.put(bytes, 0, 1).flip();
+        assertTrue(codec.decode(buffer).isEmpty());
+        assertEquals(0, buffer.position());
+        buffer.compact();
+
+        // Prefix and part of the payload
+        buffer.put(bytes, 1, 100).flip();
+        assertTrue(codec.decode(buffer).isEmpty());
+        assertEquals(first.getSerializedSize(), codec.getRequiredCapacity());
+        buffer.compact();
+
+        buffer.put(bytes, 101, bytes.length - 101).flip();
+        Optional<ByteBuffer> frame = codec.decode(buffer);
+        assertTrue(frame.isPresent());
+        assertEquals(first, BytesValue.parseFrom(frame.get()));
+        frame = codec.decode(buffer);
+        assertTrue(frame.isPresent());
+        assertEquals(second, BytesValue.parseFrom(frame.get()));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testMaxFrameSize() {
+        DelimitedFrameCodec codec = new DelimitedFrameCodec(100);
+        ByteBuffer buffer = DelimitedFrameCodec.encode(createMessage(200));
+        assertThrows(IOException.class, () -> codec.decode(buffer));
+    }
+
+    private static BytesValue createMessage(int size) {
+        byte[] bytes = new byte[size];
+        new Random().nextBytes(bytes);
+        return BytesValue.newBuilder().setValue(ByteString.copyFrom(bytes)).build();
+    }
+}
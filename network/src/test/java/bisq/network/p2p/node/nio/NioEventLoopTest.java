@@ -0,0 +1,204 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.node.nio;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.BytesValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the selector read and write path over a loopback connection.
+ */
+public class NioEventLoopTest {
+    private static final int MAX_FRAME_SIZE = 1024 * 1024;
+    private static final long TIMEOUT_MS = 10_000;
+
+    private static class FrameCollector implements NioChannel.Handler {
+        private final BlockingQueue<byte[]> frames = new LinkedBlockingQueue<>();
+        private final CompletableFuture<Exception> closed = new CompletableFuture<>();
+
+        @Override
+        public void onFrame(ByteBuffer frame) {
+            // The frame is only valid during the call
+            byte[] bytes = new byte[frame.remaining()];
+            frame.get(bytes);
+            frames.add(bytes);
+        }
+
+        @Override
+        public void onClosed(Exception exception) {
+            closed.complete(exception);
+        }
+    }
+
+    private BufferPool bufferPool;
+    private NioEventLoop eventLoop;
+    private ServerSocketChannel serverSocketChannel;
+    private SocketChannel client;
+    private FrameCollector handler;
+    private NioChannel nioChannel;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        bufferPool = new BufferPool(4 * BufferPool.MIN_BUFFER_SIZE, 16 * BufferPool.MIN_BUFFER_SIZE);
+        eventLoop = new NioEventLoop("NioEventLoopTest", bufferPool);
+        serverSocketChannel = ServerSocketChannel.open();
+        serverSocketChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = SocketChannel.open(serverSocketChannel.getLocalAddress());
+        handler = new FrameCollector();
+        nioChannel = eventLoop.register(serverSocketChannel.accept(), handler, MAX_FRAME_SIZE);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        nioChannel.close();
+        client.close();
+        serverSocketChannel.close();
+        eventLoop.shutdown();
+    }
+
+    @Test
+    public void testReadFragmentedFrame() throws Exception {
+        BytesValue message = createMessage(1000);
+        byte[] bytes = DelimitedFrameCodec.encode(message).array();
+
+        client.write(ByteBuffer.wrap(bytes, 0, 500));
+        // The channel keeps a read buffer only while it holds an incomplete frame
+        waitUntil(() -> bufferPool.getAcquiredBytes() > 0);
+        assertTrue(handler.frames.isEmpty());
+
+        client.write(ByteBuffer.wrap(bytes, 500, bytes.length - 500));
+        byte[] frame = handler.frames.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(frame);
+        assertEquals(message, BytesValue.parseFrom(frame));
+
+        waitUntil(() -> bufferPool.getAcquiredBytes() == 0);
+        assertEquals(bytes.length, eventLoop.getStats().getReceivedBytes().get());
+    }
+
+    @Test
+    public void testReadFramesLargerThanBuffer() throws Exception {
+        List<BytesValue> messages = List.of(createMessage(10),
+                createMessage(3 * BufferPool.MIN_BUFFER_SIZE),
+                createMessage(10));
+        for (BytesValue message : messages) {
+            ByteBuffer buffer = DelimitedFrameCodec.encode(message);
+            while (buffer.hasRemaining()) {
+                client.write(buffer);
+            }
+        }
+
+        for (BytesValue message : messages) {
+            byte[] frame = handler.frames.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            assertNotNull(frame);
+            assertEquals(message, BytesValue.parseFrom(frame));
+        }
+        waitUntil(() -> bufferPool.getAcquiredBytes() == 0);
+    }
+
+    @Test
+    public void testReadBufferGrowsWithReceivedBytes() throws Exception {
+        // Prefix announcing a frame of MAX_FRAME_SIZE bytes, followed by only a few of them
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        int size = MAX_FRAME_SIZE;
+        while ((size & ~0x7F) != 0) {
+            buffer.put((byte) ((size & 0x7F) | 0x80));
+            size >>>= 7;
+        }
+        buffer.put((byte) size).put(new byte[]{1, 2, 3}).flip();
+        client.write(buffer);
+
+        waitUntil(() -> bufferPool.getAcquiredBytes() > 0);
+        assertEquals(BufferPool.MIN_BUFFER_SIZE, bufferPool.getAcquiredBytes());
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        List<BytesValue> messages = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long numBytes = 0;
+        for (int i = 0; i < 200; i++) {
+            BytesValue message = createMessage(i * 100);
+            ByteBuffer buffer = DelimitedFrameCodec.encode(message);
+            numBytes += buffer.remaining();
+            messages.add(message);
+            futures.add(nioChannel.write(buffer));
+        }
+
+        // Reading concurrently, as the written bytes might exceed the socket buffers
+        InputStream inputStream = client.socket().getInputStream();
+        for (BytesValue message : messages) {
+            byte[] frame = DelimitedFrameCodec.readFrame(inputStream, MAX_FRAME_SIZE);
+            assertEquals(message, BytesValue.parseFrom(frame));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertEquals(0, nioChannel.getNumPendingWrites());
+        assertEquals(numBytes, eventLoop.getStats().getSentBytes().get());
+    }
+
+    @Test
+    public void testCloseAtEndOfStream() throws Exception {
+        client.write(ByteBuffer.wrap(new byte[]{10, 1, 2}));
+        waitUntil(() -> bufferPool.getAcquiredBytes() > 0);
+
+        client.close();
+        Exception exception = handler.closed.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertTrue(exception instanceof EOFException);
+        assertTrue(nioChannel.isClosed());
+        waitUntil(() -> bufferPool.getAcquiredBytes() == 0);
+
+        assertTrue(nioChannel.write(ByteBuffer.wrap(new byte[1])).isCompletedExceptionally());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within " + TIMEOUT_MS + " ms");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static BytesValue createMessage(int size) {
+        byte[] bytes = new byte[size];
+        new Random().nextBytes(bytes);
+        return BytesValue.newBuilder().setValue(ByteString.copyFrom(bytes)).build();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InventorySchedulerTest {
+    private static final InventoryScheduler.PriorityClass MAILBOX = new InventoryScheduler.PriorityClass("mailbox", Set.of("MailboxDataStore"));
+    private static final InventoryScheduler.PriorityClass OFFER = new InventoryScheduler.PriorityClass("offer", Set.of("Offer"));
+    private static final InventoryScheduler.PriorityClass OTHER = new InventoryScheduler.PriorityClass("other", Set.of());
+
+    @Test
+    public void testAssignToDisjointPeers() {
+        Map<String, List<InventoryScheduler.PriorityClass>> classesByPeer = InventoryScheduler.assignPriorityClasses(
+                List.of(MAILBOX, OFFER, OTHER), List.of("a", "b", "c", "d", "e"));
+        assertEquals(List.of(MAILBOX), classesByPeer.get("a"));
+        assertEquals(List.of(OFFER), classesByPeer.get("b"));
+        assertEquals(List.of(OTHER), classesByPeer.get("c"));
+        assertEquals(List.of(MAILBOX), classesByPeer.get("d"));
+        assertEquals(List.of(OFFER), classesByPeer.get("e"));
+    }
+
+    @Test
+    public void testAssignWithFewPeers() {
+        Map<String, List<InventoryScheduler.PriorityClass>> classesByPeer = InventoryScheduler.assignPriorityClasses(
+                List.of(MAILBOX, OFFER, OTHER), List.of("a", "b"));
+        // Each peer serves its classes in the order of their priority
+        assertEquals(List.of(MAILBOX, OTHER), classesByPeer.get("a"));
+        assertEquals(List.of(OFFER), classesByPeer.get("b"));
+
+        assertTrue(InventoryScheduler.assignPriorityClasses(List.of(MAILBOX), List.of()).isEmpty());
+    }
+
+    @Test
+    public void testAssignClassToAllPeers() {
+        InventoryScheduler.PriorityClass mailbox = new InventoryScheduler.PriorityClass("mailbox",
+                Set.of("MailboxDataStore"), true);
+        Map<String, List<InventoryScheduler.PriorityClass>> classesByPeer = InventoryScheduler.assignPriorityClasses(
+                List.of(mailbox, OFFER, OTHER), List.of("a", "b", "c"));
+        assertEquals(List.of(mailbox, OFFER), classesByPeer.get("a"));
+        assertEquals(List.of(mailbox, OTHER), classesByPeer.get("b"));
+        assertEquals(List.of(mailbox, OFFER), classesByPeer.get("c"));
+
+        classesByPeer = InventoryScheduler.assignPriorityClasses(List.of(mailbox), List.of("a", "b"));
+        assertEquals(List.of(mailbox), classesByPeer.get("a"));
+        assertEquals(List.of(mailbox), classesByPeer.get("b"));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+public class DataBloomFilterTest {
+    private final Random random = new Random(42);
+
+    @Test
+    public void testFalsePositiveRate() {
+        Set<FilterEntry> entries = createFilterEntries(10_000);
+        DataBloomFilter bloomFilter = DataBloomFilter.fromProto(
+                DataBloomFilter.create(entries, DataBloomFilter.DEFAULT_FALSE_POSITIVE_RATE).toProto());
+
+        // No false negatives
+        entries.forEach(filterEntry -> assertTrue(bloomFilter.mightContain(filterEntry)));
+
+        int numFalsePositives = (int) createFilterEntries(10_000).stream()
+                .filter(bloomFilter::mightContain)
+                .count();
+        assertTrue(numFalsePositives < 200, "numFalsePositives=" + numFalsePositives);
+
+        int fullFilterSize = new DataFilter(entries).toProto().getSerializedSize();
+        int bloomFilterSize = new DataFilter(entries).toBloomFilter().toProto().getSerializedSize();
+        log.info("Filter size for {} entries: with FilterEntries {} KB, with bloom filter {} KB ({}). " +
+                        "False positives: {} of 10000",
+                entries.size(), fullFilterSize / 1024, bloomFilterSize / 1024, bloomFilter, numFalsePositives);
+    }
+
+    private Set<FilterEntry> createFilterEntries(int numEntries) {
+        Set<FilterEntry> filterEntries = new HashSet<>();
+        for (int i = 0; i < numEntries; i++) {
+            byte[] hash = new byte[20];
+            random.nextBytes(hash);
+            filterEntries.add(new FilterEntry(hash, random.nextInt(10)));
+        }
+        return filterEntries;
+    }
+}
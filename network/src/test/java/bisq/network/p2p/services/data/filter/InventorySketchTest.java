@@ -0,0 +1,106 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+public class InventorySketchTest {
+    private final Random random = new Random(42);
+
+    @Test
+    public void testDecodeDifference() {
+        Set<FilterEntry> common = createFilterEntries(5000);
+        Set<FilterEntry> onlyInA = createFilterEntries(40);
+        Set<FilterEntry> onlyInB = createFilterEntries(30);
+        // Same hash with a higher sequence number is a different entry
+        FilterEntry updated = common.iterator().next();
+        onlyInB.add(new FilterEntry(updated.hash(), updated.sequenceNumber() + 1));
+
+        Set<FilterEntry> entriesA = new HashSet<>(common);
+        entriesA.addAll(onlyInA);
+        Set<FilterEntry> entriesB = new HashSet<>(common);
+        entriesB.addAll(onlyInB);
+
+        InventorySketch sketchA = InventorySketch.create(entriesA, 300);
+        InventorySketch sketchB = InventorySketch.fromProto(InventorySketch.create(entriesB, 300).toProto());
+        Optional<InventorySketch.Difference> difference = sketchA.decode(sketchB);
+
+        assertTrue(difference.isPresent());
+        assertEquals(toKeys(onlyInA), difference.get().onlyInThis());
+        assertEquals(toKeys(onlyInB), difference.get().onlyInOther());
+    }
+
+    @Test
+    public void testDifferenceTooLarge() {
+        Set<FilterEntry> entriesA = createFilterEntries(1000);
+        Set<FilterEntry> entriesB = createFilterEntries(1000);
+        InventorySketch sketchA = InventorySketch.create(entriesA, InventorySketch.MIN_NUM_CELLS);
+        InventorySketch sketchB = InventorySketch.create(entriesB, InventorySketch.MIN_NUM_CELLS);
+        assertTrue(sketchA.decode(sketchB).isEmpty());
+
+        // Fails fast if the number of entries differs too much
+        InventorySketch empty = InventorySketch.create(Set.of(), InventorySketch.MIN_NUM_CELLS);
+        assertTrue(sketchA.decode(empty).isEmpty());
+    }
+
+    @Test
+    public void testBandwidth() {
+        for (int numEntries : List.of(1_000, 10_000, 100_000)) {
+            Set<FilterEntry> entries = createFilterEntries(numEntries);
+            int fullFilterSize = new DataFilter(entries).toProto().getSerializedSize();
+            DataFilter sketchFilter = new DataFilter(entries).toSketchFilter();
+            int sketchFilterSize = sketchFilter.toProto().getSerializedSize();
+
+            // Peer has 1% other entries
+            Set<FilterEntry> peersEntries = entries.stream().skip(numEntries / 100).collect(Collectors.toSet());
+            peersEntries.addAll(createFilterEntries(numEntries / 100));
+            InventorySketch peersSketch = InventorySketch.create(peersEntries, sketchFilter.sketch().get().getNumCells());
+            assertTrue(peersSketch.decode(sketchFilter.sketch().get()).isPresent());
+
+            log.info("Filter size for {} entries: with FilterEntries {} KB, with sketch {} KB ({} cells)",
+                    numEntries, fullFilterSize / 1024, sketchFilterSize / 1024, sketchFilter.sketch().get().getNumCells());
+            assertTrue(sketchFilterSize < fullFilterSize);
+        }
+    }
+
+    private Set<FilterEntry> createFilterEntries(int numEntries) {
+        Set<FilterEntry> filterEntries = new HashSet<>();
+        for (int i = 0; i < numEntries; i++) {
+            byte[] hash = new byte[20];
+            random.nextBytes(hash);
+            filterEntries.add(new FilterEntry(hash, random.nextInt(10)));
+        }
+        return filterEntries;
+    }
+
+    private static Set<Long> toKeys(Set<FilterEntry> filterEntries) {
+        return filterEntries.stream().map(InventorySketch::toKey).collect(Collectors.toSet());
+    }
+}
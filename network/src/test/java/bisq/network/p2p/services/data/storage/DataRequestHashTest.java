@@ -0,0 +1,150 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.storage;
+
+import bisq.common.util.FileUtils;
+import bisq.network.p2p.MockAppendOnlyData;
+import bisq.network.p2p.services.data.storage.append.AddAppendOnlyDataRequest;
+import bisq.network.p2p.services.data.storage.append.AppendOnlyDataStorageService;
+import bisq.persistence.PersistenceService;
+import bisq.security.DigestUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the cost of serializing and hashing the payload at each use (as the stores did before) with the hash kept
+ * at the request, when an inventory gets merged repeatedly, e.g. from several peers.
+ */
+@Slf4j
+public class DataRequestHashTest {
+    private static final int NUM_REQUESTS = 10_000;
+    private static final int PAYLOAD_SIZE = 1000;
+    private static final int NUM_MERGES = 5;
+
+    private final Random random = new Random(42);
+    private File directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = FileUtils.createTempDir().toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testHashIsKept() {
+        AddAppendOnlyDataRequest request = createRequest();
+        byte[] hash = request.getHash();
+        assertArrayEquals(DigestUtil.hash(request.getAppendOnlyData().serialize()), hash);
+        assertSame(hash, request.getHash());
+        // Not part of the equality
+        assertEquals(new AddAppendOnlyDataRequest(request.getAppendOnlyData()), request);
+    }
+
+    @Test
+    public void testMergeOfKnownRequests() {
+        AppendOnlyDataStorageService store = createStore();
+        List<AddAppendOnlyDataRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(createRequest());
+        }
+        requests.forEach(request -> assertTrue(store.add(request).isSuccess()));
+        List<byte[]> hashes = requests.stream().map(AddAppendOnlyDataRequest::getHash).toList();
+
+        for (int merge = 0; merge < NUM_MERGES; merge++) {
+            for (AddAppendOnlyDataRequest request : requests) {
+                assertFalse(store.add(request).isSuccess());
+                // An equal request received from another peer has the same hash
+                assertFalse(store.add(new AddAppendOnlyDataRequest(request.getAppendOnlyData())).isSuccess());
+            }
+        }
+
+        assertEquals(requests.size(), store.getPersistableStore().getMap().size());
+        // The merges reuse the hash computed at the first add
+        for (int i = 0; i < requests.size(); i++) {
+            assertSame(hashes.get(i), requests.get(i).getHash());
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void testInventoryMerge() {
+        AppendOnlyDataStorageService store = createStore();
+        List<AddAppendOnlyDataRequest> requests = new ArrayList<>(NUM_REQUESTS);
+        for (int i = 0; i < NUM_REQUESTS; i++) {
+            requests.add(createRequest());
+        }
+        requests.forEach(store::add);
+
+        // Warm up
+        for (int i = 0; i < 1000; i++) {
+            DigestUtil.hash(requests.get(i).getAppendOnlyData().serialize());
+        }
+
+        long ts = System.nanoTime();
+        for (int merge = 0; merge < NUM_MERGES; merge++) {
+            for (AddAppendOnlyDataRequest request : requests) {
+                DigestUtil.hash(request.getAppendOnlyData().serialize());
+            }
+        }
+        long rehashTime = (System.nanoTime() - ts) / NUM_MERGES;
+
+        ts = System.nanoTime();
+        for (int merge = 0; merge < NUM_MERGES; merge++) {
+            for (AddAppendOnlyDataRequest request : requests) {
+                assertFalse(store.add(request).isSuccess());
+            }
+        }
+        long mergeTime = (System.nanoTime() - ts) / NUM_MERGES;
+
+        log.info("Merge of inventory with {} known requests of {} bytes: serialize and hash per add {} ms, " +
+                        "store add with kept hash {} ms ({} requests/sec)",
+                NUM_REQUESTS, PAYLOAD_SIZE, rehashTime / 1_000_000, mergeTime / 1_000_000,
+                NUM_REQUESTS * 1_000_000_000L / Math.max(1, mergeTime));
+    }
+
+    private AppendOnlyDataStorageService createStore() {
+        return new AppendOnlyDataStorageService(new PersistenceService(directory.getAbsolutePath()),
+                StorageService.StoreType.APPEND_ONLY_DATA_STORE.getStoreName(),
+                "MockAppendOnlyData");
+    }
+
+    private AddAppendOnlyDataRequest createRequest() {
+        byte[] payload = new byte[PAYLOAD_SIZE];
+        random.nextBytes(payload);
+        return new AddAppendOnlyDataRequest(new MockAppendOnlyData(payload));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.storage;
+
+import bisq.common.data.ByteArray;
+import bisq.network.p2p.MockAppendOnlyData;
+import bisq.network.p2p.services.data.storage.append.AddAppendOnlyDataRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the cost of taking the clone for persistence by copying the map (as we did before) with the snapshot of
+ * the structurally shared map.
+ */
+@Slf4j
+public class DataStoreCloneTest {
+    private final Random random = new Random(42);
+
+    @Test
+    @Tag("benchmark")
+    public void testCloneCost() {
+        int iterations = 100;
+        for (int numEntries : List.of(1_000, 10_000, 100_000)) {
+            DataStore<AddAppendOnlyDataRequest> dataStore = new DataStore<>();
+            for (int i = 0; i < numEntries; i++) {
+                dataStore.getMap().put(createKey(), createDataRequest());
+            }
+
+            // Warm up
+            for (int i = 0; i < 10; i++) {
+                new ConcurrentHashMap<>(dataStore.getMap());
+                dataStore.getClone();
+            }
+
+            long ts = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                Map<ByteArray, AddAppendOnlyDataRequest> copy = new ConcurrentHashMap<>(dataStore.getMap());
+                assertEquals(numEntries, copy.size());
+            }
+            long copyTime = (System.nanoTime() - ts) / iterations;
+
+            ts = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                DataStore<AddAppendOnlyDataRequest> clone = dataStore.getClone();
+                assertEquals(numEntries, clone.getMap().size());
+            }
+            long snapshotTime = (System.nanoTime() - ts) / iterations;
+            assertEquals(new HashMap<>(dataStore.getMap()), dataStore.getClone().getMap());
+
+            // A change costs a path copy instead of a map copy at the next persist
+            ts = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                dataStore.getMap().put(createKey(), createDataRequest());
+            }
+            long putTime = (System.nanoTime() - ts) / iterations;
+
+            log.info("Clone of store with {} entries: copying the map {} µs, snapshot {} µs. Put after snapshot {} µs",
+                    numEntries, copyTime / 1000, snapshotTime / 1000, putTime / 1000);
+        }
+    }
+
+    @Test
+    public void testCloneContainsSameEntries() {
+        DataStore<AddAppendOnlyDataRequest> dataStore = new DataStore<>();
+        for (int i = 0; i < 1000; i++) {
+            dataStore.getMap().put(createKey(), createDataRequest());
+        }
+        Map<ByteArray, AddAppendOnlyDataRequest> copy = new HashMap<>(dataStore.getMap());
+
+        DataStore<AddAppendOnlyDataRequest> clone = dataStore.getClone();
+        assertEquals(copy, clone.getMap());
+
+        // Changes of the clone must not affect the store
+        clone.getMap().put(createKey(), createDataRequest());
+        clone.getMap().remove(copy.keySet().iterator().next());
+        assertEquals(copy, dataStore.getMap());
+        assertEquals(1000, clone.getMap().size());
+    }
+
+    @Test
+    public void testCloneIsNotAffectedByChanges() {
+        DataStore<AddAppendOnlyDataRequest> dataStore = new DataStore<>();
+        ByteArray key = createKey();
+        dataStore.getMap().put(key, createDataRequest());
+
+        DataStore<AddAppendOnlyDataRequest> clone = dataStore.getClone();
+        ByteArray newKey = createKey();
+        dataStore.getMap().put(newKey, createDataRequest());
+        dataStore.getMap().remove(key);
+
+        assertEquals(1, clone.getMap().size());
+        assertTrue(clone.getMap().containsKey(key));
+        assertFalse(clone.getMap().containsKey(newKey));
+        assertEquals(1, dataStore.getMap().size());
+        assertTrue(dataStore.getMap().containsKey(newKey));
+    }
+
+    private ByteArray createKey() {
+        byte[] hash = new byte[20];
+        random.nextBytes(hash);
+        return new ByteArray(hash);
+    }
+
+    private AddAppendOnlyDataRequest createDataRequest() {
+        byte[] payload = new byte[100];
+        random.nextBytes(payload);
+        return new AddAppendOnlyDataRequest(new MockAppendOnlyData(payload));
+    }
+}
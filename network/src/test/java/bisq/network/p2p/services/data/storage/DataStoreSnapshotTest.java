@@ -0,0 +1,189 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.storage;
+
+import bisq.common.data.ByteArray;
+import bisq.common.proto.UnresolvableProtobufMessageException;
+import bisq.common.util.FileUtils;
+import bisq.network.p2p.MockAppendOnlyData;
+import bisq.network.p2p.services.data.storage.append.AddAppendOnlyDataRequest;
+import com.google.protobuf.Any;
+import com.google.protobuf.BytesValue;
+import com.google.protobuf.InvalidProtocolBufferException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the startup cost of reading a store persisted as one protobuf blob (as Persistence does) with reading the
+ * memory-mapped snapshot.
+ */
+@Slf4j
+public class DataStoreSnapshotTest {
+    private static final int PAYLOAD_SIZE = 500;
+
+    private final Random random = new Random(42);
+    private File directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = FileUtils.createTempDir().toFile();
+        DistributedDataResolver.addResolver("google.protobuf.BytesValue", any -> {
+            try {
+                return new MockAppendOnlyData(any.unpack(BytesValue.class).getValue().toByteArray());
+            } catch (InvalidProtocolBufferException e) {
+                throw new UnresolvableProtobufMessageException(e);
+            }
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testStartup() throws IOException {
+        for (int numEntries : List.of(10_000, 100_000)) {
+            DataStore<AddAppendOnlyDataRequest> dataStore = createDataStore(numEntries);
+            File protobufFile = new File(directory, "protobuf_" + numEntries);
+            try (FileOutputStream outputStream = new FileOutputStream(protobufFile)) {
+                dataStore.toAny().writeDelimitedTo(outputStream);
+            }
+            File snapshotFile = DataStoreSnapshot.write(directory, "snapshot_" + numEntries, dataStore.getMap()).getFile();
+
+            long heapBefore = getUsedHeap();
+            long ts = System.nanoTime();
+            DataStore<?> fromProtobuf;
+            try (FileInputStream inputStream = new FileInputStream(protobufFile)) {
+                fromProtobuf = (DataStore<?>) DataStore.fromProto(Any.parseDelimitedFrom(inputStream)
+                        .unpack(bisq.network.protobuf.DataStore.class));
+            }
+            InventoryIndex protobufIndex = new InventoryIndex();
+            protobufIndex.rebuild(fromProtobuf.getMap());
+            long protobufTime = (System.nanoTime() - ts) / 1_000_000;
+            long protobufHeap = getUsedHeap() - heapBefore;
+            assertEquals(numEntries, fromProtobuf.getMap().size());
+            fromProtobuf = null;
+            protobufIndex = null;
+
+            heapBefore = getUsedHeap();
+            ts = System.nanoTime();
+            DataStore<AddAppendOnlyDataRequest> fromSnapshot = DataStore.fromSnapshot(DataStoreSnapshot.read(snapshotFile).orElseThrow());
+            InventoryIndex snapshotIndex = new InventoryIndex();
+            snapshotIndex.rebuild(fromSnapshot.getMap());
+            long snapshotTime = (System.nanoTime() - ts) / 1_000_000;
+            long snapshotHeap = getUsedHeap() - heapBefore;
+            assertEquals(numEntries, fromSnapshot.getMap().size());
+            assertEquals(numEntries, snapshotIndex.size());
+
+            log.info("Startup with {} entries: protobuf file {} ms, {} MB heap. Memory-mapped snapshot {} ms, {} MB heap",
+                    numEntries, protobufTime, protobufHeap / 1024 / 1024, snapshotTime, snapshotHeap / 1024 / 1024);
+
+            // Entries are decoded on access
+            ByteArray key = dataStore.getMap().keySet().iterator().next();
+            MockAppendOnlyData expected =
+                    (MockAppendOnlyData) dataStore.getMap().get(key).getAppendOnlyData();
+            MockAppendOnlyData decoded =
+                    (MockAppendOnlyData) fromSnapshot.getMap().get(key).getAppendOnlyData();
+            assertArrayEquals(expected.payload(), decoded.payload());
+        }
+    }
+
+    @Test
+    public void testGenerations() throws IOException, InterruptedException {
+        DataStore<AddAppendOnlyDataRequest> dataStore = createDataStore(100);
+        File first = DataStoreSnapshot.write(directory, "store", dataStore.getMap()).getFile();
+        DataStore<AddAppendOnlyDataRequest> fromSnapshot = DataStore.fromSnapshot(DataStoreSnapshot.read(first).orElseThrow());
+
+        // The entries of the next generation are copied from the mapped first generation, which must not be deleted
+        File second = DataStoreSnapshot.write(directory, "store", fromSnapshot.getMap()).getFile();
+        assertNotEquals(first, second);
+        assertEquals(second, DataStoreSnapshot.findLatestGeneration(directory, "store").orElseThrow());
+        DataStoreSnapshot.deleteUnusedGenerations(directory, "store");
+        assertTrue(first.exists());
+        assertEquals(100, DataStoreSnapshot.read(second).orElseThrow().getSlotByHash().size());
+        assertEquals(Optional.of("store"), DataStoreSnapshot.findFileNameOfGeneration(second.getName()));
+
+        // Once no slot references the first generation anymore it gets deleted
+        fromSnapshot = null;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (first.exists() && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertFalse(first.exists());
+        assertTrue(second.exists());
+    }
+
+    @Test
+    public void testInvalidEntryPosition() throws IOException {
+        File file = new File(directory, "store.snapshot.1");
+        try (DataOutputStream outputStream = new DataOutputStream(new FileOutputStream(file))) {
+            outputStream.writeInt(0x42534e31);
+            outputStream.writeInt(1);
+            outputStream.writeInt(1);
+            outputStream.writeShort(20);
+            outputStream.write(new byte[20]);
+            outputStream.writeLong(0);
+            outputStream.writeInt(0);
+            outputStream.writeLong(0);
+            outputStream.writeBoolean(false);
+            // The sum of offset and length overflows int
+            outputStream.writeInt(Integer.MAX_VALUE);
+            outputStream.writeInt(10);
+        }
+        assertThrows(IOException.class, () -> DataStoreSnapshot.read(file));
+    }
+
+    private DataStore<AddAppendOnlyDataRequest> createDataStore(int numEntries) {
+        DataStore<AddAppendOnlyDataRequest> dataStore = new DataStore<>();
+        for (int i = 0; i < numEntries; i++) {
+            byte[] hash = new byte[20];
+            random.nextBytes(hash);
+            byte[] payload = new byte[PAYLOAD_SIZE];
+            random.nextBytes(payload);
+            dataStore.getMap().put(new ByteArray(hash),
+                    new AddAppendOnlyDataRequest(new MockAppendOnlyData(payload)));
+        }
+        return dataStore;
+    }
+
+    private static long getUsedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.storage;
+
+import bisq.common.data.ByteArray;
+import bisq.network.p2p.MockAppendOnlyData;
+import bisq.network.p2p.services.data.DataRequest;
+import bisq.network.p2p.services.data.inventory.ContinuationToken;
+import bisq.network.p2p.services.data.inventory.Inventory;
+import bisq.network.p2p.services.data.storage.append.AddAppendOnlyDataRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InventoryIndexTest {
+    @Test
+    public void testIncrementalDigest() {
+        Map<ByteArray, DataRequest> map = new HashMap<>();
+        InventoryIndex index = new InventoryIndex();
+        for (int i = 0; i < 100; i++) {
+            ByteArray hash = new ByteArray(new byte[]{(byte) i, 1, 2, 3, 4, 5, 6, 7});
+            DataRequest dataRequest = new AddAppendOnlyDataRequest(new MockAppendOnlyData(new byte[]{(byte) i}));
+            map.put(hash, dataRequest);
+            index.put(hash, dataRequest);
+        }
+        long digest = index.getDigest();
+        assertEquals(100, index.size());
+
+        ByteArray removed = map.keySet().iterator().next();
+        map.remove(removed);
+        index.remove(removed);
+        assertNotEquals(digest, index.getDigest());
+
+        // Same content leads to same digest independent of the order of the updates
+        InventoryIndex rebuilt = new InventoryIndex();
+        rebuilt.rebuild(map);
+        assertEquals(rebuilt.getDigest(), index.getDigest());
+        assertEquals(99, rebuilt.size());
+    }
+
+    @Test
+    public void testPaging() {
+        InventoryIndex index = new InventoryIndex();
+        int numEntries = 50;
+        int entrySize = Inventory.MAX_PAGE_SIZE / 10;
+        for (int i = 0; i < numEntries; i++) {
+            ByteArray hash = new ByteArray(new byte[]{(byte) i, 1, 2, 3, 4, 5, 6, 7});
+            byte[] payload = new byte[entrySize];
+            payload[0] = (byte) i;
+            index.put(hash, new AddAppendOnlyDataRequest(new MockAppendOnlyData(payload)));
+        }
+        List<InventoryIndex.Entry> entries = new ArrayList<>(index.getEntries());
+
+        Set<DataRequest> received = new HashSet<>();
+        Optional<ContinuationToken> continuationToken = Optional.empty();
+        int numPages = 0;
+        do {
+            Inventory page = StorageService.toInventoryPage(entries, 0, Set.of(), continuationToken, Inventory.MAX_PAGE_SIZE);
+            assertTrue(page.entries().size() < 10);
+            page.entries().forEach(dataRequest -> assertTrue(received.add(dataRequest)));
+            continuationToken = page.continuationToken();
+            numPages++;
+        } while (continuationToken.isPresent());
+
+        assertEquals(numEntries, received.size());
+        assertTrue(numPages >= numEntries / 10);
+
+        // Peers not supporting paging get all entries at once
+        Inventory unpaged = StorageService.toInventoryPage(entries, 0, Set.of(), Optional.empty(), Integer.MAX_VALUE);
+        assertEquals(numEntries, unpaged.entries().size());
+        assertTrue(unpaged.continuationToken().isEmpty());
+    }
+}
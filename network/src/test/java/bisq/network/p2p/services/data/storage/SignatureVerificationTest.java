@@ -0,0 +1,205 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.storage;
+
+import bisq.common.proto.UnresolvableProtobufMessageException;
+import bisq.common.util.FileUtils;
+import bisq.network.p2p.services.data.DataRequest;
+import bisq.network.p2p.services.data.storage.auth.AddAuthenticatedDataRequest;
+import bisq.network.p2p.services.data.storage.auth.AuthenticatedSequentialData;
+import bisq.network.p2p.services.data.storage.auth.AuthenticatedDataStorageService;
+import bisq.network.p2p.services.data.storage.auth.DefaultAuthenticatedData;
+import bisq.persistence.PersistenceService;
+import bisq.security.KeyGeneration;
+import bisq.security.SignatureUtil;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.StringValue;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the throughput of applying an inventory of signed requests one by one (verification at the store) with
+ * verifying the signatures of the inventory in parallel before applying it.
+ */
+@Slf4j
+public class SignatureVerificationTest {
+    private static final int NUM_REQUESTS = 10_000;
+
+    public record MockAuthenticatedPayload(String text) implements DistributedData {
+        @Override
+        public StringValue toProto() {
+            return StringValue.newBuilder().setValue(text).build();
+        }
+
+        @Override
+        public MetaData getMetaData() {
+            return new MetaData(TimeUnit.DAYS.toMillis(1), 1000, "MockAuthenticatedPayload");
+        }
+
+        @Override
+        public boolean isDataInvalid() {
+            return false;
+        }
+    }
+
+    private File directory;
+    private PersistenceService persistenceService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = FileUtils.createTempDir().toFile();
+        persistenceService = new PersistenceService(directory.getAbsolutePath());
+        DistributedDataResolver.addResolver("google.protobuf.StringValue", any -> {
+            try {
+                return new MockAuthenticatedPayload(any.unpack(StringValue.class).getValue());
+            } catch (InvalidProtocolBufferException e) {
+                throw new UnresolvableProtobufMessageException(e);
+            }
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void testInventoryReplay() throws GeneralSecurityException {
+        List<AddAuthenticatedDataRequest> signedRequests = createSignedRequests(NUM_REQUESTS);
+
+        // Warm up
+        applySequentially(receive(signedRequests.subList(0, 1000)), createStore("warmUp"));
+
+        AuthenticatedDataStorageService store = createStore("sequential");
+        List<AddAuthenticatedDataRequest> requests = receive(signedRequests);
+        long ts = System.nanoTime();
+        assertEquals(NUM_REQUESTS, applySequentially(requests, store));
+        long sequentialTime = System.nanoTime() - ts;
+
+        store = createStore("parallel");
+        requests = receive(signedRequests);
+        ts = System.nanoTime();
+        StorageService.verifySignatures(requests);
+        assertEquals(NUM_REQUESTS, applySequentially(requests, store));
+        long parallelTime = System.nanoTime() - ts;
+
+        log.info("Replay of inventory with {} signed requests on {} cores: verified at the store {} requests/sec, " +
+                        "verified in parallel before {} requests/sec",
+                NUM_REQUESTS, Runtime.getRuntime().availableProcessors(),
+                NUM_REQUESTS * 1_000_000_000L / sequentialTime,
+                NUM_REQUESTS * 1_000_000_000L / parallelTime);
+    }
+
+    @Test
+    public void testInvalidSignatureGetsRejected() throws GeneralSecurityException {
+        AuthenticatedDataStorageService store = createStore("invalid");
+        KeyPair keyPair = KeyGeneration.generateKeyPair();
+        AddAuthenticatedDataRequest request = AddAuthenticatedDataRequest.from(store,
+                new DefaultAuthenticatedData(new MockAuthenticatedPayload("invalid")), keyPair);
+        AddAuthenticatedDataRequest forged = forge(request, keyPair);
+
+        assertTrue(store.add(forged).isSignatureInvalid());
+        assertTrue(store.add(request).isSuccess());
+    }
+
+    @Test
+    public void testVerificationBeforeApplyMatchesStore() throws GeneralSecurityException {
+        int numRequests = 100;
+        List<AddAuthenticatedDataRequest> signedRequests = new ArrayList<>(createSignedRequests(numRequests));
+        KeyPair keyPair = KeyGeneration.generateKeyPair();
+        AddAuthenticatedDataRequest request = AddAuthenticatedDataRequest.from(createStore("forger"),
+                new DefaultAuthenticatedData(new MockAuthenticatedPayload("forged")), keyPair);
+        signedRequests.add(forge(request, keyPair));
+
+        AuthenticatedDataStorageService sequentialStore = createStore("sequential");
+        assertEquals(numRequests, applySequentially(receive(signedRequests), sequentialStore));
+
+        // The batch verification must reject the same requests as the verification at the store
+        List<AddAuthenticatedDataRequest> requests = receive(signedRequests);
+        Set<DataRequest> invalid = StorageService.verifySignatures(requests);
+        assertEquals(1, invalid.size());
+        assertTrue(invalid.contains(requests.get(numRequests)));
+        List<AddAuthenticatedDataRequest> verifiedOnPool = receive(signedRequests);
+        assertEquals(Set.of(verifiedOnPool.get(numRequests)), StorageService.verifySignaturesAsync(verifiedOnPool).join());
+        AuthenticatedDataStorageService parallelStore = createStore("parallel");
+        assertEquals(numRequests, applySequentially(requests, parallelStore));
+        assertEquals(sequentialStore.getPersistableStore().getMap().keySet(),
+                parallelStore.getPersistableStore().getMap().keySet());
+    }
+
+    // Signed by another key than the owner key
+    private static AddAuthenticatedDataRequest forge(AddAuthenticatedDataRequest request, KeyPair ownerKeyPair)
+            throws GeneralSecurityException {
+        KeyPair otherKeyPair = KeyGeneration.generateKeyPair();
+        AuthenticatedSequentialData data = request.getAuthenticatedSequentialData();
+        return new AddAuthenticatedDataRequest(data,
+                SignatureUtil.sign(data.serialize(), otherKeyPair.getPrivate()),
+                ownerKeyPair.getPublic());
+    }
+
+    private List<AddAuthenticatedDataRequest> createSignedRequests(int numRequests) throws GeneralSecurityException {
+        AuthenticatedDataStorageService store = createStore("signer");
+        KeyPair keyPair = KeyGeneration.generateKeyPair();
+        List<AddAuthenticatedDataRequest> requests = new ArrayList<>(numRequests);
+        for (int i = 0; i < numRequests; i++) {
+            DefaultAuthenticatedData authenticatedData = new DefaultAuthenticatedData(new MockAuthenticatedPayload("payload_" + i));
+            requests.add(AddAuthenticatedDataRequest.from(store, authenticatedData, keyPair));
+        }
+        return requests;
+    }
+
+    // Round trip through protobuf, so that the requests are not yet verified and have to decode the public key
+    // like requests received from the network.
+    private static List<AddAuthenticatedDataRequest> receive(List<AddAuthenticatedDataRequest> requests) {
+        return requests.stream()
+                .map(request -> AddAuthenticatedDataRequest.fromProto(request.toProto().getDataRequest().getAddAuthenticatedDataRequest()))
+                .toList();
+    }
+
+    private static int applySequentially(List<AddAuthenticatedDataRequest> requests, AuthenticatedDataStorageService store) {
+        int numAdded = 0;
+        for (AddAuthenticatedDataRequest request : requests) {
+            if (store.add(request).isSuccess()) {
+                numAdded++;
+            }
+        }
+        return numAdded;
+    }
+
+    private AuthenticatedDataStorageService createStore(String fileName) {
+        return new AuthenticatedDataStorageService(persistenceService,
+                StorageService.StoreType.AUTHENTICATED_DATA_STORE.getStoreName(),
+                fileName);
+    }
+}
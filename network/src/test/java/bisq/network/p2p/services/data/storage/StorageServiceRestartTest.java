@@ -0,0 +1,135 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.services.data.storage;
+
+import bisq.common.proto.UnresolvableProtobufMessageException;
+import bisq.common.util.FileUtils;
+import bisq.network.p2p.MockAppendOnlyData;
+import bisq.network.p2p.services.data.storage.append.AddAppendOnlyDataRequest;
+import bisq.network.p2p.services.data.storage.append.AppendOnlyDataStorageService;
+import bisq.persistence.PersistenceService;
+import com.google.protobuf.BytesValue;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StorageServiceRestartTest {
+    private static final String FILE_NAME = "MockAppendOnlyData";
+
+    private String baseDir;
+    private File storeDirectory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        baseDir = FileUtils.createTempDir().toString();
+        storeDirectory = new File(baseDir + File.separator + DataStorageService.SUB_PATH,
+                StorageService.StoreType.APPEND_ONLY_DATA_STORE.getStoreName());
+        DistributedDataResolver.addResolver("google.protobuf.BytesValue", any -> {
+            try {
+                return new MockAppendOnlyData(any.unpack(BytesValue.class).getValue().toByteArray());
+            } catch (InvalidProtocolBufferException e) {
+                throw new UnresolvableProtobufMessageException(e);
+            }
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FileUtils.deleteDirectory(baseDir);
+    }
+
+    @Test
+    public void testRecordsAreReplayedAfterRestart() throws InterruptedException {
+        StorageService storageService = new StorageService(new PersistenceService(baseDir));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(storageService.onAddDataRequest(createRequest(i)).join().isPresent());
+        }
+        AppendOnlyDataStorageService store = storageService.appendOnlyDataStores.get(FILE_NAME);
+        assertTrue(store.persist().join());
+        storageService.shutdown();
+        // Only the log segment got written
+        assertFalse(new File(storeDirectory, FILE_NAME).exists());
+
+        StorageService afterRestart = restart();
+        // The log segment must not be taken as a store
+        assertEquals(Set.of(FILE_NAME), afterRestart.appendOnlyDataStores.keySet());
+        assertEquals(10, afterRestart.appendOnlyDataStores.get(FILE_NAME).getPersistableStore().getMap().size());
+        assertFalse(new File(storeDirectory, "corruptedFilesAtRead").exists());
+        // The replayed records trigger a compaction
+        awaitCompaction();
+        afterRestart.shutdown();
+    }
+
+    @Test
+    public void testSnapshotIsReadAfterRestart() throws InterruptedException {
+        StorageService storageService = new StorageService(new PersistenceService(baseDir));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(storageService.onAddDataRequest(createRequest(i)).join().isPresent());
+        }
+        assertTrue(storageService.appendOnlyDataStores.get(FILE_NAME).persist().join());
+        storageService.shutdown();
+
+        // The replay at the first restart compacts the log into a snapshot
+        restart().shutdown();
+        awaitCompaction();
+        assertTrue(DataStoreSnapshot.findLatestGeneration(storeDirectory, FILE_NAME).isPresent());
+        assertFalse(new File(storeDirectory, FILE_NAME).exists());
+
+        StorageService afterRestart = restart();
+        assertEquals(Set.of(FILE_NAME), afterRestart.appendOnlyDataStores.keySet());
+        assertEquals(10, afterRestart.appendOnlyDataStores.get(FILE_NAME).getPersistableStore().getMap().size());
+        assertFalse(new File(storeDirectory, "corruptedFilesAtRead").exists());
+        afterRestart.shutdown();
+    }
+
+    private StorageService restart() {
+        PersistenceService persistenceService = new PersistenceService(baseDir);
+        StorageService storageService = new StorageService(persistenceService);
+        persistenceService.readAllPersisted().join();
+        persistenceService.getAllPersistedRead().join();
+        return storageService;
+    }
+
+    private void awaitCompaction() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (hasLogSegments()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Compaction did not complete");
+            Thread.sleep(50);
+        }
+    }
+
+    private boolean hasLogSegments() {
+        String[] fileNames = storeDirectory.list();
+        return fileNames != null && Arrays.stream(fileNames).anyMatch(fileName -> fileName.startsWith(FILE_NAME + ".wal."));
+    }
+
+    private static AddAppendOnlyDataRequest createRequest(int index) {
+        return new AddAppendOnlyDataRequest(new MockAppendOnlyData(("payload-" + index).getBytes(StandardCharsets.UTF_8)));
+    }
+}
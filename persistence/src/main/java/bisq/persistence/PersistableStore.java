@@ -33,6 +33,11 @@ public interface PersistableStore<T> extends Proto {
         return Any.pack(toProto());
     }
 
+    /**
+     * Called by the WriteBehindScheduler at the persistence thread pool, thus concurrently to changes of the store.
+     * Implementations must use concurrent collections or collections which can be shared with the clone (e.g.
+     * PersistentHashMap), so that the clone is a consistent copy and is not affected by later changes.
+     */
     T getClone();
 
     void applyPersisted(T persisted);
@@ -32,23 +32,37 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Slf4j
 public class Persistence<T extends PersistableStore<T>> {
     public static final ExecutorService PERSISTENCE_IO_POOL = ExecutorFactory.newFixedThreadPool("Persistence-io-pool");
 
+    @Getter
     private final String directory;
     @Getter
     private final String fileName;
     @Getter
     private final String storagePath;
+    @Getter
+    private final StartupTimeline.ReadMetrics readMetrics = new StartupTimeline.ReadMetrics();
     private final Object lock = new Object();
     private final AtomicReference<T> candidateToPersist = new AtomicReference<>();
+    @Getter
+    private final WriteBehindScheduler<T> writeBehindScheduler;
 
     public Persistence(String directory, String fileName) {
+        this(directory, fileName, WriteBehindScheduler.DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param writeBehindWindow Time in ms persist requests get coalesced into one write.
+     */
+    public Persistence(String directory, String fileName, long writeBehindWindow) {
         this.directory = directory;
         this.fileName = fileName;
         storagePath = directory + File.separator + fileName;
+        writeBehindScheduler = new WriteBehindScheduler<>(this, writeBehindWindow);
     }
 
     public CompletableFuture<Optional<T>> readAsync(Consumer<T> consumer) {
@@ -65,12 +79,14 @@ public class Persistence<T extends PersistableStore<T>> {
             return Optional.empty();
         }
         try (FileInputStream fileInputStream = new FileInputStream(storagePath)) {
+            long ts = System.currentTimeMillis();
             PersistableStore<?> persistableStore;
             synchronized (lock) {
                 // The data we get is of type Any
                 Any any = Any.parseDelimitedFrom(fileInputStream);
                 persistableStore = PersistableStore.fromAny(any);
             }
+            readMetrics.addRead(storageFile.length(), System.currentTimeMillis() - ts);
             //noinspection unchecked
             return (Optional) Optional.of(persistableStore);
         } catch (Throwable exception) {
@@ -85,6 +101,22 @@ public class Persistence<T extends PersistableStore<T>> {
     }
 
 
+    /**
+     * Marks the store dirty. Requests within the write-behind window get coalesced into one write.
+     *
+     * @param cloneSupplier Provides the clone of the store at the time of writing.
+     */
+    public CompletableFuture<Boolean> requestPersist(Supplier<T> cloneSupplier) {
+        return writeBehindScheduler.markDirty(cloneSupplier);
+    }
+
+    /**
+     * Writes pending changes synchronously.
+     */
+    public boolean flush() {
+        return writeBehindScheduler.flush();
+    }
+
     public CompletableFuture<Boolean> persistAsync(T serializable) {
         synchronized (lock) {
             candidateToPersist.set(serializable);
@@ -24,10 +24,26 @@ import java.util.concurrent.CompletableFuture;
  * Interface for the outside envelope object persisted to disk.
  */
 public interface PersistenceClient<T extends PersistableStore<T>> {
+    /**
+     * Order in which the clients get read at startup. HIGH priority clients are read before all others.
+     * LOW priority clients are read in the background and might not be read yet when the application starts up.
+     */
+    enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    default Priority getReadPriority() {
+        return Priority.NORMAL;
+    }
+
     default CompletableFuture<Optional<T>> readPersisted() {
         return getPersistence().readAsync(persisted -> {
+            long ts = System.currentTimeMillis();
             getPersistableStore().applyPersisted(persisted);
             onPersistedApplied(persisted);
+            getPersistence().getReadMetrics().addApply(System.currentTimeMillis() - ts);
         });
     }
 
@@ -38,7 +54,17 @@ public interface PersistenceClient<T extends PersistableStore<T>> {
 
     PersistableStore<T> getPersistableStore();
 
+    /**
+     * Persist requests within the write-behind window get coalesced into one write of the store.
+     */
     default CompletableFuture<Boolean> persist() {
-        return getPersistence().persistAsync(getPersistableStore().getClone());
+        return getPersistence().requestPersist(getPersistableStore()::getClone);
+    }
+
+    /**
+     * @return Time in ms persist requests get coalesced into one write.
+     */
+    default long getWriteBehindWindow() {
+        return WriteBehindScheduler.DEFAULT_WINDOW;
     }
 }
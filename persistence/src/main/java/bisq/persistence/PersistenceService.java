@@ -24,8 +24,10 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
 @Slf4j
 public class PersistenceService {
@@ -34,9 +36,26 @@ public class PersistenceService {
     @Getter
     protected final List<PersistenceClient<? extends Proto>> clients = new CopyOnWriteArrayList<>();
     protected final List<Persistence<? extends Proto>> persistenceInstances = new CopyOnWriteArrayList<>();
+    @Getter
+    private final StartupTimeline startupTimeline = new StartupTimeline();
+    private final CompletableFuture<Boolean> allPersistedRead = new CompletableFuture<>();
 
     public PersistenceService(String baseDir) {
         this.baseDir = baseDir;
+
+        // Writes pending changes which have not been written yet because of the write-behind window.
+        // If the JVM got terminated non-gracefully the changes of the last window are lost.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            Thread.currentThread().setName("PersistenceService-shutdownHook");
+            // A failing store must not prevent the flush of the other stores
+            persistenceInstances.forEach(persistence -> {
+                try {
+                    persistence.flush();
+                } catch (Throwable throwable) {
+                    log.error("Error at flushing {}", persistence.getStoragePath(), throwable);
+                }
+            });
+        }));
     }
 
     public <T extends PersistableStore<T>> Persistence<T> getOrCreatePersistence(PersistenceClient<T> client,
@@ -57,19 +76,71 @@ public class PersistenceService {
 
         PersistableStoreResolver.addResolver(persistableStore.getResolver());
         clients.add(client);
-        Persistence<T> persistence = new Persistence<>(baseDir + File.separator + subDir, fileName);
+        Persistence<T> persistence = new Persistence<>(baseDir + File.separator + subDir, fileName, client.getWriteBehindWindow());
         persistenceInstances.add(persistence);
         return persistence;
     }
 
+    /**
+     * @return The metrics of the WriteBehindScheduler by storage path.
+     */
+    public Map<String, WriteBehindScheduler.Metrics> getWriteBehindMetrics() {
+        return persistenceInstances.stream()
+                .collect(Collectors.toMap(Persistence::getStoragePath,
+                        persistence -> persistence.getWriteBehindScheduler().getMetrics(),
+                        (a, b) -> b));
+    }
+
+    /**
+     * Reads the persisted data of all clients ordered by their priority. The HIGH priority clients (key pairs,
+     * identities, settings) are read first, then the NORMAL priority clients. The returned future completes once
+     * those are read. The LOW priority clients (network data stores) continue to be read in the background, use
+     * getAllPersistedRead for waiting until they are read as well.
+     */
     public CompletableFuture<Boolean> readAllPersisted() {
+        startupTimeline.start();
+        return readAllPersisted(PersistenceClient.Priority.HIGH)
+                .thenCompose(highPriorityResult -> {
+                    CompletableFuture<Boolean> normalPriorityRead = readAllPersisted(PersistenceClient.Priority.NORMAL);
+                    // Submitted after the NORMAL priority reads, so they get queued behind those at PERSISTENCE_IO_POOL
+                    readAllPersisted(PersistenceClient.Priority.LOW)
+                            .whenComplete((result, throwable) -> {
+                                log.info(startupTimeline.getSummary());
+                                if (throwable == null) {
+                                    allPersistedRead.complete(true);
+                                } else {
+                                    allPersistedRead.completeExceptionally(throwable);
+                                }
+                            });
+                    return normalPriorityRead;
+                })
+                .whenComplete((result, throwable) -> {
+                    // If a HIGH priority read failed the LOW priority clients are not read
+                    if (throwable != null) {
+                        allPersistedRead.completeExceptionally(throwable);
+                    }
+                });
+    }
+
+    /**
+     * @return A future which completes when the persisted data of all clients including the LOW priority clients
+     * has been read. Completes exceptionally if any read failed.
+     */
+    public CompletableFuture<Boolean> getAllPersistedRead() {
+        return allPersistedRead;
+    }
+
+    private CompletableFuture<Boolean> readAllPersisted(PersistenceClient.Priority priority) {
         return CompletableFutureUtils.allOf(clients.stream()
+                        .filter(persistenceClient -> persistenceClient.getReadPriority() == priority)
                         .map(persistenceClient -> persistenceClient.readPersisted()
                                 .whenComplete((optionalResult, throwable) -> {
-                                    String storagePath = persistenceClient.getPersistence().getStoragePath();
+                                    Persistence<?> persistence = persistenceClient.getPersistence();
+                                    String storagePath = persistence.getStoragePath();
                                     if (throwable == null) {
                                         if (optionalResult.isPresent()) {
                                             log.info("Read persisted data from {}", storagePath);
+                                            startupTimeline.onStoreRead(persistence.getFileName(), priority, persistence.getReadMetrics());
                                         } else {
                                             log.debug("No persisted data at {} found", storagePath);
                                         }
@@ -78,6 +149,9 @@ public class PersistenceService {
                                         throwable.printStackTrace();
                                     }
                                 })))
-                .thenApply(list -> true);
+                .thenApply(list -> {
+                    startupTimeline.onPriorityCompleted(priority);
+                    return true;
+                });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.persistence;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the timings of reading the persisted stores at startup. Listeners get notified when a store has been read
+ * and when all stores of a priority have been read, so that the progress can be shown at the splash screen or in
+ * the log of a seed node.
+ */
+public class StartupTimeline {
+    public interface Listener {
+        void onStoreRead(StoreRead storeRead);
+
+        default void onPriorityCompleted(PersistenceClient.Priority priority, long elapsed) {
+        }
+    }
+
+    /**
+     * Collects the metrics of reading one store. Updated by Persistence and the PersistenceClient while reading.
+     */
+    public static class ReadMetrics {
+        private final AtomicLong readBytes = new AtomicLong();
+        private final AtomicLong parseTime = new AtomicLong();
+        private final AtomicLong applyTime = new AtomicLong();
+
+        /**
+         * @param parseTime Time for reading and parsing the file in ms.
+         */
+        public void addRead(long readBytes, long parseTime) {
+            this.readBytes.addAndGet(readBytes);
+            this.parseTime.addAndGet(parseTime);
+        }
+
+        /**
+         * @param applyTime Time for applying the persisted data to the store in ms.
+         */
+        public void addApply(long applyTime) {
+            this.applyTime.addAndGet(applyTime);
+        }
+    }
+
+    /**
+     * @param parseTime Time for reading and parsing the file in ms.
+     * @param applyTime Time for applying the persisted data to the store in ms.
+     * @param elapsed   Time since the start of the timeline when the store has been read, in ms.
+     */
+    public record StoreRead(String fileName,
+                            PersistenceClient.Priority priority,
+                            long readBytes,
+                            long parseTime,
+                            long applyTime,
+                            long elapsed) {
+        @Override
+        public String toString() {
+            return String.format("%-40s %-6s %10d bytes  parse %5d ms  apply %5d ms  done after %5d ms",
+                    fileName, priority, readBytes, parseTime, applyTime, elapsed);
+        }
+    }
+
+    @Getter
+    private final List<StoreRead> storeReads = new CopyOnWriteArrayList<>();
+    private final Set<Listener> listeners = new CopyOnWriteArraySet<>();
+    private volatile long startTime = System.currentTimeMillis();
+
+    void start() {
+        startTime = System.currentTimeMillis();
+    }
+
+    void onStoreRead(String fileName, PersistenceClient.Priority priority, ReadMetrics readMetrics) {
+        StoreRead storeRead = new StoreRead(fileName,
+                priority,
+                readMetrics.readBytes.get(),
+                readMetrics.parseTime.get(),
+                readMetrics.applyTime.get(),
+                getElapsed());
+        storeReads.add(storeRead);
+        listeners.forEach(listener -> listener.onStoreRead(storeRead));
+    }
+
+    void onPriorityCompleted(PersistenceClient.Priority priority) {
+        long elapsed = getElapsed();
+        listeners.forEach(listener -> listener.onPriorityCompleted(priority, elapsed));
+    }
+
+    public long getElapsed() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * @return One line per store ordered by the time it has been read.
+     */
+    public String getSummary() {
+        List<StoreRead> sorted = new ArrayList<>(storeReads);
+        sorted.sort(Comparator.comparingLong(StoreRead::elapsed));
+        StringBuilder sb = new StringBuilder("Startup timeline of reading persisted data:");
+        sorted.forEach(storeRead -> sb.append("\n").append(storeRead));
+        return sb.toString();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+}
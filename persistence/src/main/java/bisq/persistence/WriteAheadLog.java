@@ -0,0 +1,331 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.persistence;
+
+import bisq.common.threading.ExecutorFactory;
+import bisq.common.util.FileUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the changes of a store, which are replayed on top of the last snapshot at startup.
+ * The log is split into segments (files named fileName.wal.[segment number]). At compaction the client rotates the
+ * log to a new segment, persists a snapshot and then deletes the old segments.
+ * Records are written by a single writer thread. All records queued at the time the writer runs are written with a
+ * single fsync (group commit).
+ * Each record is prefixed with its length and CRC32. A record torn by a crash at write ends the replay of its segment.
+ * After a restart or a failed write new records are written to a new segment, so we never append behind a torn
+ * record.
+ */
+@Slf4j
+public class WriteAheadLog {
+    private static final ExecutorService WRITER = ExecutorFactory.newSingleThreadExecutor("WriteAheadLog-writer");
+    private static final String SEGMENT_SEPARATOR = ".wal.";
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 10 * 1024 * 1024;
+
+    private enum Type {
+        APPEND,
+        SYNC,
+        DELETE
+    }
+
+    private record Operation(Type type, byte[] record, long segment, CompletableFuture<Boolean> future) {
+    }
+
+    private final String directory;
+    private final String fileName;
+    private final List<Long> persistedSegments;
+    private final AtomicLong activeSegment;
+    private final AtomicLong size = new AtomicLong();
+    private final Queue<Operation> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+    // Only accessed by the writer thread
+    private FileChannel channel;
+    private long channelSegment = -1;
+    private boolean unsynced;
+    // Segments below are not written anymore as they might end with a torn record
+    private long minSegment;
+
+    public WriteAheadLog(String directory, String fileName) {
+        this.directory = directory;
+        this.fileName = fileName;
+        persistedSegments = findSegments();
+        activeSegment = new AtomicLong(persistedSegments.isEmpty() ? 0 : persistedSegments.get(persistedSegments.size() - 1) + 1);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Passes the records of the segments found at construction to the consumer, in the order they got written.
+     *
+     * @return The number of replayed records.
+     */
+    public int replay(Consumer<byte[]> consumer) {
+        int numRecords = 0;
+        for (long segment : persistedSegments) {
+            File file = getSegmentFile(segment);
+            size.addAndGet(file.length());
+            try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    int length;
+                    try {
+                        length = inputStream.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    int checksum = inputStream.readInt();
+                    if (length < 0 || length > MAX_RECORD_SIZE) {
+                        log.warn("Invalid record length {} in {}. We skip the rest of the segment.", length, file);
+                        break;
+                    }
+                    byte[] record = new byte[length];
+                    inputStream.readFully(record);
+                    if (getChecksum(record) != checksum) {
+                        log.warn("Invalid checksum in {}. We skip the rest of the segment.", file);
+                        break;
+                    }
+                    consumer.accept(record);
+                    numRecords++;
+                }
+            } catch (EOFException e) {
+                log.warn("Truncated record at the end of {}. We skip it.", file);
+            } catch (IOException e) {
+                log.error("Error at replay of " + file, e);
+            }
+        }
+        return numRecords;
+    }
+
+    /**
+     * @return A future which completes after the record is written and synced to disk.
+     */
+    public CompletableFuture<Boolean> append(byte[] record) {
+        size.addAndGet(HEADER_SIZE + record.length);
+        return enqueue(Type.APPEND, record, activeSegment.get());
+    }
+
+    /**
+     * @return A future which completes after all records appended before are written and synced to disk.
+     */
+    public CompletableFuture<Boolean> sync() {
+        return enqueue(Type.SYNC, null, -1);
+    }
+
+    /**
+     * Starts a new segment for the records appended from now on.
+     *
+     * @return The last segment containing records appended before. Used as argument for deleteSegmentsUpTo.
+     */
+    public long rotate() {
+        size.set(0);
+        return activeSegment.getAndIncrement();
+    }
+
+    public CompletableFuture<Boolean> deleteSegmentsUpTo(long segment) {
+        return enqueue(Type.DELETE, null, segment);
+    }
+
+    /**
+     * @return The number of bytes appended since the last rotation, including the replayed segments.
+     */
+    public long getSize() {
+        return size.get();
+    }
+
+    /**
+     * @return The file name of the log the given file is a segment of, or empty if it is not a segment file.
+     */
+    public static Optional<String> findFileNameOfSegment(String segmentFileName) {
+        int index = segmentFileName.lastIndexOf(SEGMENT_SEPARATOR);
+        if (index <= 0 || !isSegmentNumber(segmentFileName.substring(index + SEGMENT_SEPARATOR.length()))) {
+            return Optional.empty();
+        }
+        return Optional.of(segmentFileName.substring(0, index));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private CompletableFuture<Boolean> enqueue(Type type, byte[] record, long segment) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        queue.add(new Operation(type, record, segment, future));
+        if (writeScheduled.compareAndSet(false, true)) {
+            WRITER.execute(this::write);
+        }
+        return future;
+    }
+
+    private void write() {
+        // We reset the flag before polling, so that operations added while we write schedule another run
+        writeScheduled.set(false);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        boolean success = true;
+        Operation operation;
+        while ((operation = queue.poll()) != null) {
+            futures.add(operation.future());
+            if (!success) {
+                continue;
+            }
+            try {
+                switch (operation.type()) {
+                    case APPEND -> writeRecord(operation.record(), operation.segment());
+                    case SYNC -> {
+                    }
+                    case DELETE -> deleteSegments(operation.segment());
+                }
+            } catch (IOException e) {
+                log.error("Error at writing to " + getSegmentFile(channelSegment), e);
+                abandonSegment();
+                success = false;
+            }
+        }
+        try {
+            syncChannel();
+        } catch (IOException e) {
+            log.error("Error at syncing " + getSegmentFile(channelSegment), e);
+            abandonSegment();
+            success = false;
+        }
+        boolean result = success;
+        futures.forEach(future -> future.complete(result));
+    }
+
+    private void writeRecord(byte[] record, long segment) throws IOException {
+        long targetSegment = Math.max(segment, minSegment);
+        if (channel == null || channelSegment != targetSegment) {
+            closeChannel();
+            FileUtils.makeDirs(directory);
+            channelSegment = targetSegment;
+            channel = FileChannel.open(getSegmentFile(targetSegment).toPath(),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + record.length);
+        buffer.putInt(record.length);
+        buffer.putInt(getChecksum(record));
+        buffer.put(record);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        unsynced = true;
+    }
+
+    private void syncChannel() throws IOException {
+        if (unsynced && channel != null) {
+            channel.force(false);
+            unsynced = false;
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            syncChannel();
+            channel.close();
+            channel = null;
+            channelSegment = -1;
+        }
+    }
+
+    // The failed write might have left a torn record, which ends the replay of the segment. We close the channel
+    // and continue with the next segment, so records appended from now on are not lost behind it.
+    private void abandonSegment() {
+        if (channelSegment == -1) {
+            return;
+        }
+        minSegment = channelSegment + 1;
+        activeSegment.accumulateAndGet(minSegment, Math::max);
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.warn("Error at closing " + getSegmentFile(channelSegment), e);
+        }
+        channel = null;
+        channelSegment = -1;
+        unsynced = false;
+    }
+
+    private void deleteSegments(long upToSegment) throws IOException {
+        if (channelSegment != -1 && channelSegment <= upToSegment) {
+            closeChannel();
+        }
+        for (long segment : findSegments()) {
+            if (segment <= upToSegment) {
+                FileUtils.deleteFile(getSegmentFile(segment));
+            }
+        }
+    }
+
+    private List<Long> findSegments() {
+        if (!new File(directory).exists()) {
+            return List.of();
+        }
+        String prefix = fileName + SEGMENT_SEPARATOR;
+        return FileUtils.listFiles(directory).stream()
+                .filter(name -> name.startsWith(prefix))
+                .map(name -> name.substring(prefix.length()))
+                .filter(WriteAheadLog::isSegmentNumber)
+                .map(Long::parseLong)
+                .sorted()
+                .toList();
+    }
+
+    private static boolean isSegmentNumber(String suffix) {
+        return !suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit);
+    }
+
+    private File getSegmentFile(long segment) {
+        return new File(directory, fileName + SEGMENT_SEPARATOR + segment);
+    }
+
+    private static int getChecksum(byte[] record) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(record);
+        return (int) crc32.getValue();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * PersistenceClient for large stores with frequent small changes. Instead of writing the whole store at each change,
+ * the changes are appended as records to a WriteAheadLog. At startup the log is replayed on top of the last snapshot.
+ * Once the log is larger than the snapshot we compact it in the background by persisting a new snapshot and
+ * deleting the log segments covered by it.
+ * Implementations must append a record for each change with appendToLog and apply those records at applyLogRecord.
+ */
+@Slf4j
+public abstract class WriteAheadLogPersistenceClient<T extends PersistableStore<T>> implements PersistenceClient<T> {
+    // Compaction of small logs is not worth the write of the snapshot
+    private static final long MIN_LOG_SIZE_FOR_COMPACTION = 1024 * 1024;
+    private static final long SHUTDOWN_SYNC_TIMEOUT = TimeUnit.SECONDS.toMillis(2);
+
+    // Must be held while changing the store and appending the record, so that the snapshot taken at compaction
+    // matches the position in the log.
+    protected final Object logLock = new Object();
+    private final AtomicBoolean compactionInProgress = new AtomicBoolean();
+    private volatile WriteAheadLog writeAheadLog;
+    private volatile long snapshotSize;
+
+    public WriteAheadLogPersistenceClient() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            Thread.currentThread().setName("WriteAheadLogPersistenceClient-shutdownHook-" + getPersistence().getFileName());
+            getWriteAheadLog().sync().completeOnTimeout(false, SHUTDOWN_SYNC_TIMEOUT, TimeUnit.MILLISECONDS).join();
+        }));
+    }
+
+    /**
+     * Applies a record written by appendToLog to the store. Called at replay.
+     */
+    protected abstract void applyLogRecord(byte[] record);
+
+    @Override
+    public CompletableFuture<Optional<T>> readPersisted() {
+        return CompletableFuture.supplyAsync(() -> {
+            Optional<T> persisted = readSnapshot();
+            long ts = System.currentTimeMillis();
+            persisted.ifPresent(getPersistableStore()::applyPersisted);
+            snapshotSize = getSnapshotSize();
+
+            int numRecords;
+            synchronized (logLock) {
+                numRecords = getWriteAheadLog().replay(this::applyLogRecord);
+            }
+            if (numRecords == 0) {
+                persisted.ifPresent(this::onPersistedApplied);
+                getPersistence().getReadMetrics().addApply(System.currentTimeMillis() - ts);
+                return persisted;
+            }
+
+            log.info("Replayed {} records of the write-ahead log of {}", numRecords, getPersistence().getFileName());
+            T current = getPersistableStore().getClone();
+            onPersistedApplied(current);
+            // The replay is included in the apply time
+            getPersistence().getReadMetrics().addApply(System.currentTimeMillis() - ts);
+            compact();
+            return Optional.of(current);
+        }, Persistence.PERSISTENCE_IO_POOL);
+    }
+
+    /**
+     * The changes are persisted already by the records appended to the log.
+     *
+     * @return A future which completes after all records appended so far are synced to disk.
+     */
+    @Override
+    public CompletableFuture<Boolean> persist() {
+        return getWriteAheadLog().sync();
+    }
+
+    /**
+     * Appends the record describing a change of the store. The caller must hold the logLock while changing the store
+     * and appending the record.
+     */
+    protected void appendToLog(byte[] record) {
+        WriteAheadLog writeAheadLog = getWriteAheadLog();
+        writeAheadLog.append(record);
+        if (writeAheadLog.getSize() > Math.max(MIN_LOG_SIZE_FOR_COMPACTION, snapshotSize)) {
+            compact();
+        }
+    }
+
+    /**
+     * Persists a snapshot of the store and deletes the log segments covered by it. If the snapshot cannot be
+     * written we keep the segments, so they get replayed on top of the previous snapshot.
+     */
+    protected CompletableFuture<Boolean> compact() {
+        if (!compactionInProgress.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        T snapshot;
+        long lastSegment;
+        synchronized (logLock) {
+            snapshot = getPersistableStore().getClone();
+            lastSegment = getWriteAheadLog().rotate();
+        }
+        return CompletableFuture.supplyAsync(() -> writeSnapshot(snapshot), Persistence.PERSISTENCE_IO_POOL)
+                .thenCompose(success -> {
+                    if (!success) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    snapshotSize = getSnapshotSize();
+                    return getWriteAheadLog().deleteSegmentsUpTo(lastSegment);
+                })
+                .whenComplete((result, throwable) -> compactionInProgress.set(false));
+    }
+
+    /**
+     * Reads the snapshot the log gets replayed on. Can be overridden for using another file format than the one of
+     * Persistence.
+     */
+    protected Optional<T> readSnapshot() {
+        return getPersistence().read();
+    }
+
+    /**
+     * @return True if the snapshot got written and synced to disk.
+     */
+    protected boolean writeSnapshot(T snapshot) {
+        return getPersistence().persist(snapshot);
+    }
+
+    protected long getSnapshotSize() {
+        return new File(getPersistence().getStoragePath()).length();
+    }
+
+    protected WriteAheadLog getWriteAheadLog() {
+        if (writeAheadLog == null) {
+            synchronized (logLock) {
+                if (writeAheadLog == null) {
+                    writeAheadLog = new WriteAheadLog(getPersistence().getDirectory(), getPersistence().getFileName());
+                }
+            }
+        }
+        return writeAheadLog;
+    }
+}
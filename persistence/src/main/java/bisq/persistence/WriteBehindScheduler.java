@@ -0,0 +1,186 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces persist requests of a store into one write per window. The first request after a write marks the store
+ * dirty and schedules the write after the window. Requests until then only get the future of the scheduled write.
+ * The clone of the store is taken when the write starts, so a burst of changes costs only one clone and one write.
+ * A request arriving while a write is in progress marks the store dirty again, so it gets a trailing write after the
+ * one in progress. Only one write, scheduled or flushed, is in progress at a time.
+ */
+@Slf4j
+public class WriteBehindScheduler<T extends PersistableStore<T>> {
+    public static final long DEFAULT_WINDOW = 250;
+
+    /**
+     * @param dirtyTime    Time from the first request until the write got completed, in ms.
+     * @param writeLatency Time for cloning and writing the store, in ms.
+     */
+    public record Metrics(long numRequests,
+                          long numWrites,
+                          long lastDirtyTime,
+                          long maxDirtyTime,
+                          long lastWriteLatency,
+                          long maxWriteLatency) {
+    }
+
+    private final Persistence<T> persistence;
+    private final long window;
+    private final Executor executor;
+    private Supplier<T> cloneSupplier;
+    private CompletableFuture<Boolean> pendingWrite = new CompletableFuture<>();
+    private boolean dirty;
+    private boolean writeInProgress;
+    private long dirtySince;
+    private long numRequests;
+    private long numWrites;
+    private long lastDirtyTime;
+    private long maxDirtyTime;
+    private long lastWriteLatency;
+    private long maxWriteLatency;
+
+    /**
+     * @param window Time in ms requests get coalesced.
+     */
+    public WriteBehindScheduler(Persistence<T> persistence, long window) {
+        this.persistence = persistence;
+        this.window = window;
+        executor = CompletableFuture.delayedExecutor(window, TimeUnit.MILLISECONDS, Persistence.PERSISTENCE_IO_POOL);
+    }
+
+    /**
+     * Marks the store dirty and schedules a write if none is scheduled yet.
+     *
+     * @param cloneSupplier Provides the clone of the store to be written.
+     * @return A future which completes after a write containing the current state of the store has been completed.
+     */
+    public synchronized CompletableFuture<Boolean> markDirty(Supplier<T> cloneSupplier) {
+        this.cloneSupplier = cloneSupplier;
+        numRequests++;
+        if (!dirty) {
+            dirty = true;
+            dirtySince = System.currentTimeMillis();
+            if (!writeInProgress) {
+                executor.execute(this::write);
+            }
+            // Otherwise the trailing write gets scheduled when the write in progress has been completed
+        }
+        return pendingWrite;
+    }
+
+    /**
+     * Writes the store synchronously if it is dirty. Used at shutdown. A write in progress gets completed first, so
+     * that it cannot overwrite the flushed state with an older clone.
+     */
+    public boolean flush() {
+        CompletableFuture<Boolean> future;
+        T clone;
+        synchronized (this) {
+            try {
+                while (writeInProgress) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted at waiting for the write in progress of {}", persistence.getFileName());
+                return false;
+            }
+            if (!dirty) {
+                return true;
+            }
+            future = pendingWrite;
+            pendingWrite = new CompletableFuture<>();
+            dirty = false;
+            writeInProgress = true;
+            clone = cloneSupplier.get();
+        }
+
+        boolean success = false;
+        try {
+            success = persistence.persist(clone);
+        } finally {
+            synchronized (this) {
+                writeInProgress = false;
+                notifyAll();
+                scheduleTrailingWrite(System.currentTimeMillis());
+            }
+            future.complete(success);
+        }
+        return success;
+    }
+
+    public synchronized Metrics getMetrics() {
+        return new Metrics(numRequests, numWrites, lastDirtyTime, maxDirtyTime, lastWriteLatency, maxWriteLatency);
+    }
+
+    private void write() {
+        CompletableFuture<Boolean> future;
+        Supplier<T> supplier;
+        long requestedAt;
+        synchronized (this) {
+            if (!dirty || writeInProgress) {
+                // Flushed in the meantime
+                return;
+            }
+            future = pendingWrite;
+            pendingWrite = new CompletableFuture<>();
+            supplier = cloneSupplier;
+            requestedAt = dirtySince;
+            dirty = false;
+            writeInProgress = true;
+        }
+
+        long ts = System.currentTimeMillis();
+        boolean success = false;
+        try {
+            success = persistence.persist(supplier.get());
+        } catch (Throwable throwable) {
+            log.error("Error at writing {}", persistence.getFileName(), throwable);
+        } finally {
+            long now = System.currentTimeMillis();
+            synchronized (this) {
+                writeInProgress = false;
+                numWrites++;
+                lastWriteLatency = now - ts;
+                maxWriteLatency = Math.max(maxWriteLatency, lastWriteLatency);
+                lastDirtyTime = now - requestedAt;
+                maxDirtyTime = Math.max(maxDirtyTime, lastDirtyTime);
+                notifyAll();
+                scheduleTrailingWrite(now);
+            }
+            future.complete(success);
+        }
+    }
+
+    private void scheduleTrailingWrite(long now) {
+        if (dirty) {
+            // Requests during the write get a trailing write, which waits for the rest of its window
+            long delay = Math.max(0, dirtySince + window - now);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, Persistence.PERSISTENCE_IO_POOL)
+                    .execute(this::write);
+        }
+    }
+}
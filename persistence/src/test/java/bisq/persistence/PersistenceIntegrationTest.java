@@ -73,73 +73,4 @@ public class PersistenceIntegrationTest {
         latch.await(10, TimeUnit.SECONDS);
         assertEquals(list, persistence.read().orElseThrow());
     }*/
-
-  /*  // @Test
-    public void testRateLimitedPersistenceClient() {
-        FileUtils.deleteDirectory(new File(storageDirectory));
-        int maxWriteRateInMs = 100;
-        MockRateLimitedPersistenceClient mockClient = new MockRateLimitedPersistenceClient(maxWriteRateInMs);
-        assertFalse(mockClient.isDropped());
-        for (int i = 0; i < 9; i++) {
-            mockClient.updateAndPersist(i);
-            log.error("{}", i);
-            if (i == 0) {
-                assertFalse(mockClient.isDropped());
-            } else {
-                assertTrue(mockClient.isDropped());
-            }
-            try {
-                Thread.sleep(2);
-            } catch (InterruptedException ignore) {
-            }
-        }
-        assertTrue(mockClient.isDropped());
-        try {
-            Thread.sleep(150);
-        } catch (InterruptedException ignore) {
-        }
-        mockClient.updateAndPersist(99);
-        assertFalse(mockClient.isDropped());
-
-        for (int i = 100; i < 103; i++) {
-            mockClient.updateAndPersist(i);
-            try {
-                Thread.sleep(2);
-            } catch (InterruptedException ignore) {
-            }
-        }
-        assertTrue(mockClient.isDropped());
-        // Cannot test shut down hook as test is terminated after System.exit, but with logs at Persistence and 
-        // RateLimitedPersistenceClient.persistOnShutdown it is visible if persistence at shutdown works as expected.
-        System.exit(0);
-    }*/
-/*
-    private class MockRateLimitedPersistenceClient extends RateLimitedPersistenceClient<MockObject> {
-        @Getter
-        private final Persistence<MockObject> persistence;
-        private final int maxWriteRateInMs;
-        @Getter
-        MockObject mockObject = new MockObject(1);
-
-        public MockRateLimitedPersistenceClient(int maxWriteRateInMs) {
-            this.maxWriteRateInMs = maxWriteRateInMs;
-            String fileName = "MockObject";
-            persistence = new Persistence<>(storageDirectory, fileName);
-        }
-
-        public CompletableFuture<Boolean> updateAndPersist(int i) {
-            mockObject = new MockObject(i);
-            return persist();
-        }
-
-        @Override
-        protected long getMaxWriteRateInMs() {
-            return maxWriteRateInMs;
-        }
-
-        @Override
-        public PersistableStore<MockObject> getPersistableStore() {
-            return null;
-        }
-    }*/
 }
@@ -0,0 +1,128 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.persistence;
+
+import bisq.common.proto.ProtoResolver;
+import bisq.common.util.FileUtils;
+import com.google.protobuf.Message;
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PersistenceServiceTest {
+    private static class MockStore implements PersistableStore<MockStore> {
+        @Override
+        public Message toProto() {
+            return null;
+        }
+
+        @Override
+        public MockStore getClone() {
+            return new MockStore();
+        }
+
+        @Override
+        public void applyPersisted(MockStore persisted) {
+        }
+
+        @Override
+        public ProtoResolver<PersistableStore<?>> getResolver() {
+            return any -> new MockStore();
+        }
+    }
+
+    private static class MockClient implements PersistenceClient<MockStore> {
+        @Getter
+        private final MockStore persistableStore = new MockStore();
+        @Getter
+        private final Persistence<MockStore> persistence;
+        private final Priority priority;
+        private final List<Priority> readOrder;
+        private final CompletableFuture<Optional<MockStore>> readFuture;
+
+        private MockClient(PersistenceService persistenceService,
+                           Priority priority,
+                           List<Priority> readOrder,
+                           CompletableFuture<Optional<MockStore>> readFuture) {
+            this.priority = priority;
+            this.readOrder = readOrder;
+            this.readFuture = readFuture;
+            persistence = persistenceService.getOrCreatePersistence(this, "db", priority.name(), persistableStore);
+        }
+
+        @Override
+        public Priority getReadPriority() {
+            return priority;
+        }
+
+        @Override
+        public CompletableFuture<Optional<MockStore>> readPersisted() {
+            readOrder.add(priority);
+            return readFuture;
+        }
+    }
+
+    @Test
+    public void testReadByPriority() throws IOException {
+        PersistenceService persistenceService = new PersistenceService(FileUtils.createTempDir().toString());
+        List<PersistenceClient.Priority> readOrder = new CopyOnWriteArrayList<>();
+        CompletableFuture<Optional<MockStore>> lowPriorityRead = new CompletableFuture<>();
+        new MockClient(persistenceService, PersistenceClient.Priority.LOW, readOrder, lowPriorityRead);
+        new MockClient(persistenceService, PersistenceClient.Priority.NORMAL, readOrder,
+                CompletableFuture.completedFuture(Optional.of(new MockStore())));
+        new MockClient(persistenceService, PersistenceClient.Priority.HIGH, readOrder,
+                CompletableFuture.completedFuture(Optional.of(new MockStore())));
+
+        // The LOW priority clients are still reading when readAllPersisted completes
+        assertTrue(persistenceService.readAllPersisted().join());
+        assertEquals(List.of(PersistenceClient.Priority.HIGH, PersistenceClient.Priority.NORMAL, PersistenceClient.Priority.LOW),
+                readOrder);
+        assertFalse(persistenceService.getAllPersistedRead().isDone());
+        assertEquals(2, persistenceService.getStartupTimeline().getStoreReads().size());
+
+        lowPriorityRead.complete(Optional.of(new MockStore()));
+        assertTrue(persistenceService.getAllPersistedRead().join());
+        assertEquals(3, persistenceService.getStartupTimeline().getStoreReads().size());
+        assertEquals("LOW", persistenceService.getStartupTimeline().getStoreReads().get(2).fileName());
+    }
+
+    @Test
+    public void testAllPersistedReadFailsIfHighPriorityReadFails() throws IOException {
+        PersistenceService persistenceService = new PersistenceService(FileUtils.createTempDir().toString());
+        List<PersistenceClient.Priority> readOrder = new CopyOnWriteArrayList<>();
+        new MockClient(persistenceService, PersistenceClient.Priority.HIGH, readOrder,
+                CompletableFuture.failedFuture(new IOException("Read failed")));
+        new MockClient(persistenceService, PersistenceClient.Priority.LOW, readOrder,
+                CompletableFuture.completedFuture(Optional.of(new MockStore())));
+
+        assertThrows(CompletionException.class, () -> persistenceService.readAllPersisted().join());
+        assertThrows(CompletionException.class, () -> persistenceService.getAllPersistedRead().join());
+        assertEquals(List.of(PersistenceClient.Priority.HIGH), readOrder);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.persistence;
+
+import bisq.common.util.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WriteAheadLogTest {
+    private static final String FILE_NAME = "MockStore";
+
+    private String directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = FileUtils.createTempDir().toString();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testReplay() {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(directory, FILE_NAME);
+        for (int i = 0; i < 100; i++) {
+            writeAheadLog.append(toRecord(i));
+        }
+        assertTrue(writeAheadLog.sync().join());
+
+        List<String> replayed = replay();
+        assertEquals(100, replayed.size());
+        assertEquals("record-0", replayed.get(0));
+        assertEquals("record-99", replayed.get(99));
+    }
+
+    @Test
+    public void testTornRecordIsSkipped() throws IOException {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(directory, FILE_NAME);
+        writeAheadLog.append(toRecord(0));
+        writeAheadLog.append(toRecord(1));
+        assertTrue(writeAheadLog.sync().join());
+
+        // Simulate a crash in the middle of writing the last record
+        File segment = new File(directory, FILE_NAME + ".wal.0");
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        // Records appended after the restart go to a new segment and are not lost behind the torn record
+        WriteAheadLog afterRestart = new WriteAheadLog(directory, FILE_NAME);
+        assertEquals(1, afterRestart.replay(record -> {
+        }));
+        afterRestart.append(toRecord(2));
+        assertTrue(afterRestart.sync().join());
+
+        assertEquals(List.of("record-0", "record-2"), replay());
+    }
+
+    @Test
+    public void testRecordsAfterFailedWriteGoToNewSegment() {
+        // A directory in place of the segment file lets the write fail
+        File segment = new File(directory, FILE_NAME + ".wal.0");
+        assertTrue(segment.mkdirs());
+
+        WriteAheadLog writeAheadLog = new WriteAheadLog(directory, FILE_NAME);
+        assertFalse(writeAheadLog.append(toRecord(0)).join());
+
+        writeAheadLog.append(toRecord(1));
+        writeAheadLog.append(toRecord(2));
+        assertTrue(writeAheadLog.sync().join());
+        assertTrue(new File(directory, FILE_NAME + ".wal.1").exists());
+
+        assertEquals(List.of("record-1", "record-2"), replay());
+    }
+
+    @Test
+    public void testDeleteRotatedSegments() {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(directory, FILE_NAME);
+        writeAheadLog.append(toRecord(0));
+        long lastSegment = writeAheadLog.rotate();
+        writeAheadLog.append(toRecord(1));
+        assertTrue(writeAheadLog.deleteSegmentsUpTo(lastSegment).join());
+
+        assertEquals(List.of("record-1"), replay());
+    }
+
+    private List<String> replay() {
+        List<String> replayed = new ArrayList<>();
+        new WriteAheadLog(directory, FILE_NAME).replay(record -> replayed.add(new String(record, StandardCharsets.UTF_8)));
+        return replayed;
+    }
+
+    private static byte[] toRecord(int index) {
+        return ("record-" + index).getBytes(StandardCharsets.UTF_8);
+    }
+}
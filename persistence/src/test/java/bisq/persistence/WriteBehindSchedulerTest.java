@@ -0,0 +1,145 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.persistence;
+
+import bisq.common.proto.ProtoResolver;
+import com.google.protobuf.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WriteBehindSchedulerTest {
+    private static class MockStore implements PersistableStore<MockStore> {
+        private final AtomicInteger numClones = new AtomicInteger();
+
+        @Override
+        public Message toProto() {
+            return null;
+        }
+
+        @Override
+        public MockStore getClone() {
+            numClones.incrementAndGet();
+            return new MockStore();
+        }
+
+        @Override
+        public void applyPersisted(MockStore persisted) {
+        }
+
+        @Override
+        public ProtoResolver<PersistableStore<?>> getResolver() {
+            return null;
+        }
+    }
+
+    // Does not write to disk. The first write blocks until writeReleased is counted down.
+    private static class MockPersistence extends Persistence<MockStore> {
+        private final CountDownLatch writeStarted = new CountDownLatch(1);
+        private final CountDownLatch writeReleased;
+
+        private MockPersistence(long window, boolean blockFirstWrite) {
+            super("", "MockStore", window);
+            writeReleased = new CountDownLatch(blockFirstWrite ? 1 : 0);
+        }
+
+        @Override
+        public boolean persist(MockStore persistableStore) {
+            writeStarted.countDown();
+            try {
+                return writeReleased.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+    }
+
+    @Test
+    public void testCoalescing() {
+        MockStore store = new MockStore();
+        MockPersistence persistence = new MockPersistence(100, false);
+        CompletableFuture<Boolean> future = null;
+        for (int i = 0; i < 100; i++) {
+            future = persistence.requestPersist(store::getClone);
+        }
+        assertTrue(future.join());
+
+        WriteBehindScheduler.Metrics metrics = persistence.getWriteBehindScheduler().getMetrics();
+        assertEquals(100, metrics.numRequests());
+        assertEquals(1, metrics.numWrites());
+        assertEquals(1, store.numClones.get());
+        assertTrue(metrics.lastDirtyTime() >= 100);
+    }
+
+    @Test
+    public void testTrailingWrite() throws InterruptedException {
+        MockStore store = new MockStore();
+        MockPersistence persistence = new MockPersistence(10, true);
+        CompletableFuture<Boolean> first = persistence.requestPersist(store::getClone);
+        assertTrue(persistence.writeStarted.await(10, TimeUnit.SECONDS));
+
+        // Requested while the first write is in progress
+        CompletableFuture<Boolean> second = persistence.requestPersist(store::getClone);
+        assertFalse(second.isDone());
+
+        persistence.writeReleased.countDown();
+        assertTrue(first.join());
+        assertTrue(second.join());
+        assertEquals(2, persistence.getWriteBehindScheduler().getMetrics().numWrites());
+        assertEquals(2, store.numClones.get());
+    }
+
+    @Test
+    public void testFlush() {
+        MockStore store = new MockStore();
+        MockPersistence persistence = new MockPersistence(10_000, false);
+        CompletableFuture<Boolean> future = persistence.requestPersist(store::getClone);
+        assertFalse(future.isDone());
+
+        assertTrue(persistence.flush());
+        assertTrue(future.isDone());
+        assertEquals(1, store.numClones.get());
+    }
+
+    @Test
+    public void testFlushWaitsForWriteInProgress() throws InterruptedException {
+        MockStore store = new MockStore();
+        MockPersistence persistence = new MockPersistence(10, true);
+        CompletableFuture<Boolean> first = persistence.requestPersist(store::getClone);
+        assertTrue(persistence.writeStarted.await(10, TimeUnit.SECONDS));
+
+        // Requested while the first write is in progress
+        CompletableFuture<Boolean> second = persistence.requestPersist(store::getClone);
+        CompletableFuture<Boolean> flushed = CompletableFuture.supplyAsync(persistence::flush);
+        Thread.sleep(100);
+        assertFalse(flushed.isDone());
+
+        persistence.writeReleased.countDown();
+        assertTrue(first.join());
+        assertTrue(flushed.join());
+        assertTrue(second.join());
+        assertEquals(2, store.numClones.get());
+    }
+}
@@ -18,7 +18,7 @@
 package bisq.security;
 
 import bisq.common.proto.Proto;
-import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 
 public record ConfidentialData(byte[] encodedSenderPublicKey,
                                byte[] hmac,
@@ -26,12 +26,13 @@ public record ConfidentialData(byte[] encodedSenderPublicKey,
                                byte[] cypherText,
                                byte[] signature) implements Proto {
     public bisq.security.protobuf.ConfidentialData toProto() {
+        // The data is the output of HybridEncryption and never modified, so we can wrap the arrays without copying.
         return bisq.security.protobuf.ConfidentialData.newBuilder()
-                .setEncodedSenderPublicKey(ByteString.copyFrom(encodedSenderPublicKey))
-                .setHmac(ByteString.copyFrom(hmac))
-                .setIv(ByteString.copyFrom(iv))
-                .setCypherText(ByteString.copyFrom(cypherText))
-                .setSignature(ByteString.copyFrom(signature))
+                .setEncodedSenderPublicKey(UnsafeByteOperations.unsafeWrap(encodedSenderPublicKey))
+                .setHmac(UnsafeByteOperations.unsafeWrap(hmac))
+                .setIv(UnsafeByteOperations.unsafeWrap(iv))
+                .setCypherText(UnsafeByteOperations.unsafeWrap(cypherText))
+                .setSignature(UnsafeByteOperations.unsafeWrap(signature))
                 .build();
     }
 
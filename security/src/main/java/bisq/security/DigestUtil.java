@@ -17,38 +17,239 @@
 
 package bisq.security;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
 import org.bouncycastle.crypto.digests.RIPEMD160Digest;
 
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
+/**
+ * The digests are reused from a small pool, so hashing does not allocate anything beyond the returned array. We do
+ * not keep them per thread, as with virtual threads each task runs on a new thread and would allocate its own set.
+ * The pool is bounded by the number of cores, if more threads hash concurrently the surplus instances get dropped.
+ * We use the JDK provider for SHA-256 and SHA-512, which is backed by the CPU's SHA instructions if available.
+ * Besides byte arrays we support hashing ByteBuffers and ByteStrings and streaming the serialized form of a protobuf
+ * message into the digest, so callers do not need to copy their data into an intermediate array.
+ */
 public class DigestUtil {
+    private static final int SHA256_SIZE = 32;
+    private static final int CODED_OUTPUT_BUFFER_SIZE = 4096;
+    private static final int MAX_POOLED_DIGESTS = Runtime.getRuntime().availableProcessors() * 2;
+
+    private static final BlockingQueue<Digests> DIGESTS_POOL = new ArrayBlockingQueue<>(MAX_POOLED_DIGESTS);
+
     public static byte[] hash(byte[] input) {
         // RIPEMD160 is slow on large input, so we use fast sha256 first. Is twice as fast with 1kb data.
-        return RIPEMD160(sha256(input));
+        Digests digests = acquire();
+        digests.sha256.update(input);
+        byte[] result = ripemd160OfSha256(digests.sha256, digests.sha256Output, digests.ripemd160);
+        release(digests);
+        return result;
+    }
+
+    /**
+     * Hashes the remaining bytes of the buffer. The position of the buffer is not changed.
+     */
+    public static byte[] hash(ByteBuffer input) {
+        Digests digests = acquire();
+        digests.sha256.update(input.duplicate());
+        byte[] result = ripemd160OfSha256(digests.sha256, digests.sha256Output, digests.ripemd160);
+        release(digests);
+        return result;
+    }
+
+    public static byte[] hash(ByteString input) {
+        Digests digests = acquire();
+        for (ByteBuffer buffer : input.asReadOnlyByteBufferList()) {
+            digests.sha256.update(buffer);
+        }
+        byte[] result = ripemd160OfSha256(digests.sha256, digests.sha256Output, digests.ripemd160);
+        release(digests);
+        return result;
+    }
+
+    /**
+     * Same result as hash(message.toByteArray()), but the serialized bytes are streamed into the digest.
+     */
+    public static byte[] hash(MessageLite message) {
+        Digests digests = acquire();
+        byte[] result = digests.getMessageHasher().hash(message);
+        release(digests);
+        return result;
+    }
+
+    /**
+     * @return A Hasher for incrementally hashing data of unknown size. The result is the same as of hash(byte[]) on
+     * the concatenated input.
+     */
+    public static Hasher newHasher() {
+        return new Hasher(newMessageDigest("SHA-256"));
     }
 
     public static byte[] RIPEMD160(byte[] input) {
-        RIPEMD160Digest digest = new RIPEMD160Digest();
+        Digests digests = acquire();
+        RIPEMD160Digest digest = digests.ripemd160;
         digest.update(input, 0, input.length);
         byte[] out = new byte[digest.getDigestSize()];
         digest.doFinal(out, 0);
+        release(digests);
         return out;
     }
 
     public static byte[] sha256(byte[] input) {
+        Digests digests = acquire();
+        byte[] result = digests.sha256.digest(input);
+        release(digests);
+        return result;
+    }
+
+    public static byte[] sha512(byte[] input) {
+        Digests digests = acquire();
+        byte[] result = digests.getSha512().digest(input);
+        release(digests);
+        return result;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+    // Streaming
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Not thread safe. Can be used as OutputStream, e.g. for writing a protobuf message into it.
+     */
+    public static final class Hasher extends OutputStream {
+        private final MessageDigest sha256;
+        private final RIPEMD160Digest ripemd160 = new RIPEMD160Digest();
+        private final byte[] sha256Output = new byte[SHA256_SIZE];
+
+        private Hasher(MessageDigest sha256) {
+            this.sha256 = sha256;
+        }
+
+        public Hasher update(byte[] input) {
+            sha256.update(input);
+            return this;
+        }
+
+        public Hasher update(ByteBuffer input) {
+            sha256.update(input);
+            return this;
+        }
+
+        public Hasher update(ByteString input) {
+            for (ByteBuffer buffer : input.asReadOnlyByteBufferList()) {
+                sha256.update(buffer);
+            }
+            return this;
+        }
+
+        @Override
+        public void write(int b) {
+            sha256.update((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            sha256.update(bytes, offset, length);
+        }
+
+        /**
+         * @return RIPEMD160(sha256(input)). The Hasher is reset and can be reused.
+         */
+        public byte[] digest() {
+            return ripemd160OfSha256(sha256, sha256Output, ripemd160);
+        }
+    }
+
+    // The CodedOutputStream keeps its buffer across messages, it is flushed into the digest after each message.
+    private static final class MessageHasher {
+        private final Hasher hasher = newHasher();
+        private final CodedOutputStream outputStream = CodedOutputStream.newInstance(hasher, CODED_OUTPUT_BUFFER_SIZE);
+
+        private byte[] hash(MessageLite message) {
+            try {
+                message.writeTo(outputStream);
+                outputStream.flush();
+            } catch (IOException e) {
+                // The Hasher does not throw IOExceptions
+                throw new IllegalStateException(e);
+            }
+            return hasher.digest();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+    // Pool
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+
+    // Not thread safe, used by one caller between acquire and release.
+    private static final class Digests {
+        private final MessageDigest sha256 = newMessageDigest("SHA-256");
+        private final RIPEMD160Digest ripemd160 = new RIPEMD160Digest();
+        private final byte[] sha256Output = new byte[SHA256_SIZE];
+        @Nullable
+        private MessageDigest sha512;
+        @Nullable
+        private MessageHasher messageHasher;
+
+        private MessageDigest getSha512() {
+            if (sha512 == null) {
+                sha512 = newMessageDigest("SHA-512");
+            }
+            return sha512;
+        }
+
+        private MessageHasher getMessageHasher() {
+            if (messageHasher == null) {
+                messageHasher = new MessageHasher();
+            }
+            return messageHasher;
+        }
+    }
+
+    private static Digests acquire() {
+        Digests digests = DIGESTS_POOL.poll();
+        return digests != null ? digests : new Digests();
+    }
+
+    // Only called after a completed operation, so a digest with a partially written state never gets back into the
+    // pool. If the pool is full the instance is dropped.
+    private static void release(Digests digests) {
+        DIGESTS_POOL.offer(digests);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private static byte[] ripemd160OfSha256(MessageDigest sha256, byte[] sha256Output, RIPEMD160Digest ripemd160) {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            return digest.digest(input);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+            sha256.digest(sha256Output, 0, SHA256_SIZE);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
         }
+        ripemd160.update(sha256Output, 0, SHA256_SIZE);
+        byte[] out = new byte[ripemd160.getDigestSize()];
+        ripemd160.doFinal(out, 0);
+        return out;
     }
 
-    public static byte[] sha512(byte[] input) {
+    private static MessageDigest newMessageDigest(String algorithm) {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-512");
-            return digest.digest(input);
+            return MessageDigest.getInstance(algorithm);
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
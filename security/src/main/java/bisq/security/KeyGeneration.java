@@ -17,6 +17,10 @@
 
 package bisq.security;
 
+import bisq.common.data.ByteArray;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import org.bouncycastle.jce.ECNamedCurveTable;
 import org.bouncycastle.jce.ECPointUtil;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -33,6 +37,25 @@ import java.security.spec.X509EncodedKeySpec;
 public class KeyGeneration {
     public static final String ECDH = "ECDH";
     private static final String CURVE = "secp256k1";
+    // A decoded key costs about 1 KB
+    static final int MAX_CACHED_PUBLIC_KEYS = 10_000;
+
+    /**
+     * Decoding a public key does the full EC point decoding. Most received data is signed by a small set of owners,
+     * so we keep the decoded keys of the recently used owners. PublicKey instances are immutable and can be shared.
+     * Reusing the same instance also keeps any precomputation BouncyCastle attaches to the key's EC point.
+     */
+    private static final Cache<ByteArray, PublicKey> PUBLIC_KEY_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_PUBLIC_KEYS)
+            .recordStats()
+            .build();
+
+    public record PublicKeyCacheMetrics(long numHits, long numMisses, long size) {
+        public double getHitRate() {
+            long numRequests = numHits + numMisses;
+            return numRequests == 0 ? 1 : (double) numHits / numRequests;
+        }
+    }
 
     static {
         if (java.security.Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
@@ -48,8 +71,18 @@ public class KeyGeneration {
     }
 
     public static PublicKey generatePublic(byte[] encodedKey) throws GeneralSecurityException {
-        EncodedKeySpec keySpec = new X509EncodedKeySpec(encodedKey);
-        return getKeyFactory().generatePublic(keySpec);
+        PublicKey publicKey = PUBLIC_KEY_CACHE.getIfPresent(new ByteArray(encodedKey));
+        if (publicKey == null) {
+            publicKey = decodePublic(encodedKey);
+            // We copy the bytes as the caller might reuse the array
+            PUBLIC_KEY_CACHE.put(new ByteArray(encodedKey.clone()), publicKey);
+        }
+        return publicKey;
+    }
+
+    public static PublicKeyCacheMetrics getPublicKeyCacheMetrics() {
+        CacheStats stats = PUBLIC_KEY_CACHE.stats();
+        return new PublicKeyCacheMetrics(stats.hitCount(), stats.missCount(), PUBLIC_KEY_CACHE.size());
     }
 
     public static PublicKey generatePublicFromCompressed(byte[] compressedKey) throws GeneralSecurityException {
@@ -68,6 +101,11 @@ public class KeyGeneration {
         return getKeyFactory().generatePrivate(keySpec);
     }
 
+    static PublicKey decodePublic(byte[] encodedKey) throws GeneralSecurityException {
+        EncodedKeySpec keySpec = new X509EncodedKeySpec(encodedKey);
+        return getKeyFactory().generatePublic(keySpec);
+    }
+
     private static KeyFactory getKeyFactory() throws NoSuchAlgorithmException {
         return KeyFactory.getInstance(ECDH);
     }
@@ -43,6 +43,11 @@ public class KeyPairService implements PersistenceClient<KeyPairStore> {
         persistence = persistenceService.getOrCreatePersistence(this, persistableStore);
     }
 
+    @Override
+    public Priority getReadPriority() {
+        return Priority.HIGH;
+    }
+
     public CompletableFuture<Boolean> initialize() {
         return getOrCreateKeyPairAsync(DEFAULT).thenApply(r -> true);
     }
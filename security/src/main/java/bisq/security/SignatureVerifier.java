@@ -0,0 +1,194 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.security;
+
+import bisq.common.util.OsUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import javax.annotation.Nullable;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.Signature;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Verifies ECDSA signatures of data received from the network, where the same owners sign many entries.
+ * Public keys are decoded with the cache of KeyGeneration and each thread reuses its Signature instance, so a
+ * verification does not pay for the provider lookup and the key decoding. Batches are verified in parallel on a
+ * fork-join pool using all cores.
+ */
+@Slf4j
+public class SignatureVerifier {
+    // An ECDSA verification takes about 100 µs, so smaller batches are not worth forking
+    private static final int BATCH_THRESHOLD = 16;
+
+    private static final ThreadLocal<Signature> SIGNATURE = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(SignatureUtil.ECDSA, "BC");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ForkJoinPool VERIFICATION_POOL = new ForkJoinPool(OsUtils.availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("SignatureVerifier.verification-pool-" + thread.getPoolIndex());
+                return thread;
+            },
+            null,
+            false);
+
+    static {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    /**
+     * A signature to verify. The result is computed once, either by a batch verification or at the first call of
+     * isValid. The message is released after the verification, as items are kept with the verified data.
+     * Data requests keep their item, so a request can be verified on any thread before it gets applied to the store
+     * and is not verified again when it gets applied.
+     */
+    public static final class Item {
+        @Nullable
+        private byte[] message;
+        @Getter
+        private final byte[] signature;
+        @Getter
+        private final byte[] encodedPublicKey;
+        @Nullable
+        private final PublicKey publicKey;
+        @Nullable
+        private Boolean valid;
+
+        /**
+         * @param publicKey The decoded encodedPublicKey if already available, otherwise it gets decoded at
+         *                  verification.
+         */
+        public Item(byte[] message, byte[] signature, byte[] encodedPublicKey, @Nullable PublicKey publicKey) {
+            this.message = message;
+            this.signature = signature;
+            this.encodedPublicKey = encodedPublicKey;
+            this.publicKey = publicKey;
+        }
+
+        public synchronized boolean isValid() {
+            if (valid == null) {
+                valid = publicKey != null ?
+                        verify(message, signature, publicKey) :
+                        verify(message, signature, encodedPublicKey);
+                message = null;
+            }
+            return valid;
+        }
+    }
+
+    /**
+     * Verifies the items in parallel and caches the results at the items.
+     *
+     * @return The results in the order of the items.
+     */
+    public static boolean[] verify(List<Item> items) {
+        if (items.size() > BATCH_THRESHOLD) {
+            VERIFICATION_POOL.invoke(new BatchVerification(items, 0, items.size()));
+        }
+        return getResults(items);
+    }
+
+    /**
+     * Verifies the items in parallel on the verification pool without blocking the caller and caches the results at
+     * the items.
+     *
+     * @return A future completing on the verification pool with the results in the order of the items.
+     */
+    public static CompletableFuture<boolean[]> verifyAsync(List<Item> items) {
+        return CompletableFuture.supplyAsync(() -> {
+            new BatchVerification(items, 0, items.size()).invoke();
+            return getResults(items);
+        }, VERIFICATION_POOL);
+    }
+
+    /**
+     * @return False if the signature is invalid or the public key cannot be decoded.
+     */
+    public static boolean verify(byte[] message, byte[] signature, byte[] encodedPublicKey) {
+        try {
+            return verify(message, signature, KeyGeneration.generatePublic(encodedPublicKey));
+        } catch (GeneralSecurityException | RuntimeException e) {
+            log.warn("Could not decode public key. {}", e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * @return False if the signature is invalid or malformed. Data from the network can make the provider throw
+     * RuntimeExceptions (e.g. for a key with a point not on the curve), those are treated as invalid as well.
+     */
+    public static boolean verify(byte[] message, byte[] signature, PublicKey publicKey) {
+        Signature sig = SIGNATURE.get();
+        try {
+            sig.initVerify(publicKey);
+            sig.update(message);
+            return sig.verify(signature);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            // initVerify resets the instance, so it can be reused after a failure
+            log.warn("Signature verification failed. {}", e.toString());
+            return false;
+        }
+    }
+
+    private static boolean[] getResults(List<Item> items) {
+        boolean[] results = new boolean[items.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = items.get(i).isValid();
+        }
+        return results;
+    }
+
+    private static class BatchVerification extends RecursiveAction {
+        private final List<Item> items;
+        private final int from;
+        private final int to;
+
+        private BatchVerification(List<Item> items, int from, int to) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    items.get(i).isValid();
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BatchVerification(items, from, middle), new BatchVerification(items, middle, to));
+            }
+        }
+    }
+}
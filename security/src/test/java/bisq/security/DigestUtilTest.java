@@ -17,13 +17,130 @@
 
 package bisq.security;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.BytesValue;
 import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.crypto.digests.RIPEMD160Digest;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Slf4j
 public class DigestUtilTest {
+    @Test
+    public void testInputVariantsProduceSameHash() throws NoSuchAlgorithmException {
+        for (int size : new int[]{0, 1, 100, 1024, 100 * 1024}) {
+            byte[] bytes = new byte[size];
+            new Random().nextBytes(bytes);
+            byte[] expected = hashWithNewDigests(bytes);
+
+            assertArrayEquals(expected, DigestUtil.hash(bytes));
+            // Repeated calls must not be affected by the reused digests
+            assertArrayEquals(expected, DigestUtil.hash(bytes));
+
+            ByteBuffer heapBuffer = ByteBuffer.wrap(bytes);
+            assertArrayEquals(expected, DigestUtil.hash(heapBuffer));
+            assertEquals(0, heapBuffer.position());
+            ByteBuffer directBuffer = ByteBuffer.allocateDirect(size).put(bytes).flip();
+            assertArrayEquals(expected, DigestUtil.hash(directBuffer));
+
+            ByteString byteString = ByteString.copyFrom(bytes);
+            assertArrayEquals(expected, DigestUtil.hash(byteString));
+            // Rope ByteStrings consist of multiple buffers
+            ByteString rope = byteString.substring(0, size / 2).concat(byteString.substring(size / 2));
+            assertArrayEquals(expected, DigestUtil.hash(rope));
+
+            DigestUtil.Hasher hasher = DigestUtil.newHasher();
+            hasher.update(byteString.substring(0, size / 3).toByteArray()).update(byteString.substring(size / 3));
+            assertArrayEquals(expected, hasher.digest());
+
+            BytesValue message = BytesValue.of(byteString);
+            assertArrayEquals(hashWithNewDigests(message.toByteArray()), DigestUtil.hash(message));
+
+            assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(bytes), DigestUtil.sha256(bytes));
+            assertArrayEquals(MessageDigest.getInstance("SHA-512").digest(bytes), DigestUtil.sha512(bytes));
+        }
+    }
+
+    @Test
+    public void testConcurrentHashing() throws Exception {
+        byte[] bytes = new byte[1024];
+        new Random().nextBytes(bytes);
+        byte[] expected = hashWithNewDigests(bytes);
+        BytesValue message = BytesValue.of(ByteString.copyFrom(bytes));
+
+        // More threads than pooled digests
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                futures.add(executor.submit(() -> Arrays.equals(expected, DigestUtil.hash(bytes)) &&
+                        Arrays.equals(expected, DigestUtil.hash(ByteBuffer.wrap(bytes))) &&
+                        Arrays.equals(hashWithNewDigests(message.toByteArray()), DigestUtil.hash(message))));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void testThroughput() {
+        for (int size : new int[]{100, 1024, 100 * 1024}) {
+            byte[] bytes = new byte[size];
+            new Random().nextBytes(bytes);
+            BytesValue message = BytesValue.of(ByteString.copyFrom(bytes));
+            // The compared variants must produce the same hash
+            assertArrayEquals(hashWithNewDigests(bytes), DigestUtil.hash(bytes));
+            assertArrayEquals(hashWithNewDigests(message.toByteArray()), DigestUtil.hash(message));
+            int iterations = Math.max(1000, 10_000_000 / size);
+            for (int i = 0; i < iterations; i++) {
+                hashWithNewDigests(bytes);
+                DigestUtil.hash(bytes);
+                DigestUtil.hash(message);
+            }
+
+            long ts = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                hashWithNewDigests(bytes);
+            }
+            double newDigests = (System.nanoTime() - ts) / 1000d / iterations;
+
+            ts = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                DigestUtil.hash(bytes);
+            }
+            double pooledDigests = (System.nanoTime() - ts) / 1000d / iterations;
+
+            ts = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                DigestUtil.hash(message);
+            }
+            double streamedMessage = (System.nanoTime() - ts) / 1000d / iterations;
+
+            log.info("{} bytes: new digests: {} µs/hash, pooled digests: {} µs/hash, protobuf message: {} µs/hash",
+                    size, String.format("%.2f", newDigests), String.format("%.2f", pooledDigests),
+                    String.format("%.2f", streamedMessage));
+        }
+    }
+
     @Test
     public void testPerformance() {
         long ts;
@@ -69,4 +186,18 @@ public class DigestUtilTest {
         //May-24 21:04:00.616 [main] INFO m.c.security.DigestUtilTest: sha256 77
         //May-24 21:04:00.758 [main] INFO m.c.security.DigestUtilTest: RIPEMD160 141
     }
+
+    // The implementation before we reused the digests
+    private static byte[] hashWithNewDigests(byte[] input) {
+        try {
+            byte[] sha256 = MessageDigest.getInstance("SHA-256").digest(input);
+            RIPEMD160Digest digest = new RIPEMD160Digest();
+            digest.update(sha256, 0, sha256.length);
+            byte[] out = new byte[digest.getDigestSize()];
+            digest.doFinal(out, 0);
+            return out;
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
@@ -0,0 +1,142 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.Signature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the verify path decoding the public key at each verification (as we did before) with using the cached
+ * decoded key.
+ */
+@Slf4j
+public class PublicKeyCacheTest {
+    @Test
+    public void testCache() throws GeneralSecurityException {
+        KeyPair keyPair = KeyGeneration.generateKeyPair();
+        byte[] encodedKey = keyPair.getPublic().getEncoded();
+        KeyGeneration.PublicKeyCacheMetrics before = KeyGeneration.getPublicKeyCacheMetrics();
+
+        PublicKey publicKey = KeyGeneration.generatePublic(encodedKey);
+        assertEquals(keyPair.getPublic(), publicKey);
+        // Mutating the array of the caller must not affect the cache
+        encodedKey[encodedKey.length - 1]++;
+        assertSame(publicKey, KeyGeneration.generatePublic(keyPair.getPublic().getEncoded()));
+
+        KeyGeneration.PublicKeyCacheMetrics after = KeyGeneration.getPublicKeyCacheMetrics();
+        assertEquals(1, after.numMisses() - before.numMisses());
+        assertEquals(1, after.numHits() - before.numHits());
+    }
+
+    @Test
+    public void testVerifyUsesCachedKey() throws GeneralSecurityException {
+        int numOwners = 3;
+        int numRounds = 4;
+        byte[] message = "message".getBytes(StandardCharsets.UTF_8);
+        byte[][] encodedKeys = new byte[numOwners][];
+        byte[][] signatures = new byte[numOwners][];
+        for (int i = 0; i < numOwners; i++) {
+            KeyPair keyPair = KeyGeneration.generateKeyPair();
+            encodedKeys[i] = keyPair.getPublic().getEncoded();
+            signatures[i] = SignatureUtil.sign(message, keyPair.getPrivate());
+        }
+        KeyGeneration.PublicKeyCacheMetrics before = KeyGeneration.getPublicKeyCacheMetrics();
+
+        for (int round = 0; round < numRounds; round++) {
+            for (int i = 0; i < numOwners; i++) {
+                assertTrue(verifyWithDecoding(message, signatures[i], encodedKeys[i]));
+                assertTrue(SignatureVerifier.verify(message, signatures[i], encodedKeys[i]));
+                // The signature of another owner must not be accepted with the cached key
+                assertFalse(SignatureVerifier.verify(message, signatures[(i + 1) % numOwners], encodedKeys[i]));
+            }
+        }
+
+        // Each key is decoded once, all later verifications use the cached key
+        KeyGeneration.PublicKeyCacheMetrics after = KeyGeneration.getPublicKeyCacheMetrics();
+        assertEquals(numOwners, after.numMisses() - before.numMisses());
+        assertEquals(numOwners * (2L * numRounds - 1), after.numHits() - before.numHits());
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void testVerifyPath() throws GeneralSecurityException {
+        int numOwners = 10;
+        int iterations = 2000;
+        byte[] message = "message".getBytes(StandardCharsets.UTF_8);
+        byte[][] encodedKeys = new byte[numOwners][];
+        byte[][] signatures = new byte[numOwners][];
+        for (int i = 0; i < numOwners; i++) {
+            KeyPair keyPair = KeyGeneration.generateKeyPair();
+            encodedKeys[i] = keyPair.getPublic().getEncoded();
+            signatures[i] = SignatureUtil.sign(message, keyPair.getPrivate());
+        }
+
+        // Warm up
+        for (int i = 0; i < 200; i++) {
+            verifyWithDecoding(message, signatures[i % numOwners], encodedKeys[i % numOwners]);
+            SignatureVerifier.verify(message, signatures[i % numOwners], encodedKeys[i % numOwners]);
+        }
+
+        long ts = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertTrue(verifyWithDecoding(message, signatures[i % numOwners], encodedKeys[i % numOwners]));
+        }
+        long decodingTime = (System.nanoTime() - ts) / iterations;
+
+        KeyGeneration.PublicKeyCacheMetrics before = KeyGeneration.getPublicKeyCacheMetrics();
+        ts = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertTrue(SignatureVerifier.verify(message, signatures[i % numOwners], encodedKeys[i % numOwners]));
+        }
+        long cachedTime = (System.nanoTime() - ts) / iterations;
+        // The keys got cached at the warm up
+        KeyGeneration.PublicKeyCacheMetrics after = KeyGeneration.getPublicKeyCacheMetrics();
+        assertEquals(iterations, after.numHits() - before.numHits());
+        assertEquals(0, after.numMisses() - before.numMisses());
+
+        ts = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            KeyGeneration.decodePublic(encodedKeys[i % numOwners]);
+        }
+        long decodeTime = (System.nanoTime() - ts) / iterations;
+
+        log.info("Verification with {} owners: decoding the key {} µs, cached key {} µs. Decoding alone {} µs. {}",
+                numOwners, decodingTime / 1000, cachedTime / 1000, decodeTime / 1000,
+                KeyGeneration.getPublicKeyCacheMetrics());
+    }
+
+    private static boolean verifyWithDecoding(byte[] message, byte[] signature, byte[] encodedKey)
+            throws GeneralSecurityException {
+        Signature sig = Signature.getInstance(SignatureUtil.ECDSA, "BC");
+        sig.initVerify(KeyGeneration.decodePublic(encodedKey));
+        sig.update(message);
+        return sig.verify(signature);
+    }
+}
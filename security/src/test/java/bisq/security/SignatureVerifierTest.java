@@ -0,0 +1,128 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class SignatureVerifierTest {
+    @Test
+    public void testBatchVerification() throws GeneralSecurityException {
+        KeyPair keyPair = KeyGeneration.generateKeyPair();
+        KeyPair otherKeyPair = KeyGeneration.generateKeyPair();
+        byte[] encodedPublicKey = keyPair.getPublic().getEncoded();
+        int numItems = 200;
+        List<SignatureVerifier.Item> items = new ArrayList<>();
+        boolean[] expected = new boolean[numItems];
+        for (int i = 0; i < numItems; i++) {
+            byte[] message = ("message" + i).getBytes(StandardCharsets.UTF_8);
+            byte[] signature;
+            if (i % 7 == 0) {
+                // Signed with another key
+                signature = SignatureUtil.sign(message, otherKeyPair.getPrivate());
+            } else if (i % 11 == 0) {
+                // Malformed signature
+                signature = new byte[]{1, 2, 3};
+            } else {
+                signature = SignatureUtil.sign(message, keyPair.getPrivate());
+                expected[i] = true;
+            }
+            items.add(new SignatureVerifier.Item(message, signature, encodedPublicKey, null));
+        }
+
+        assertArrayEquals(expected, SignatureVerifier.verify(items));
+        // Results are cached at the items
+        for (int i = 0; i < numItems; i++) {
+            assertEquals(expected[i], items.get(i).isValid());
+        }
+    }
+
+    @Test
+    public void testInvalidPublicKey() {
+        byte[] message = "hello".getBytes(StandardCharsets.UTF_8);
+        assertFalse(SignatureVerifier.verify(message, new byte[]{1, 2, 3}, new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void testMalformedKeyAndSignatureAreInvalid() throws GeneralSecurityException {
+        KeyPair keyPair = KeyGeneration.generateKeyPair();
+        byte[] encodedPublicKey = keyPair.getPublic().getEncoded();
+        byte[] message = "hello".getBytes(StandardCharsets.UTF_8);
+        byte[] signature = SignatureUtil.sign(message, keyPair.getPrivate());
+
+        // The provider throws an IllegalArgumentException for a point not on the curve
+        ECParameterSpec params = ((ECPublicKey) keyPair.getPublic()).getParams();
+        PublicKey pointNotOnCurve = new ECPublicKey() {
+            @Override
+            public ECPoint getW() {
+                return new ECPoint(BigInteger.ONE, BigInteger.ONE);
+            }
+
+            @Override
+            public ECParameterSpec getParams() {
+                return params;
+            }
+
+            @Override
+            public String getAlgorithm() {
+                return "EC";
+            }
+
+            @Override
+            public String getFormat() {
+                return "X.509";
+            }
+
+            @Override
+            public byte[] getEncoded() {
+                return encodedPublicKey;
+            }
+        };
+        byte[] malformedEncodedKey = encodedPublicKey.clone();
+        malformedEncodedKey[malformedEncodedKey.length - 1] ^= 1;
+        byte[] malformedSignature = {0x30, (byte) 0x84, 0x7f, 0x7f, 0x7f, 0x7f};
+
+        List<SignatureVerifier.Item> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(new SignatureVerifier.Item(message, signature, encodedPublicKey, pointNotOnCurve));
+            items.add(new SignatureVerifier.Item(message, signature, malformedEncodedKey, null));
+            items.add(new SignatureVerifier.Item(message, malformedSignature, encodedPublicKey, null));
+            items.add(new SignatureVerifier.Item(message, signature, encodedPublicKey, null));
+        }
+
+        boolean[] results = SignatureVerifier.verify(items);
+        for (int i = 0; i < results.length; i++) {
+            assertEquals(i % 4 == 3, results[i]);
+        }
+        assertFalse(new SignatureVerifier.Item(message, signature, encodedPublicKey, pointNotOnCurve).isValid());
+    }
+}
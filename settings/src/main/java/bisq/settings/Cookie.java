@@ -21,9 +21,9 @@ import bisq.common.proto.Proto;
 import bisq.settings.protobuf.CookieMapEntry;
 import lombok.Getter;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -32,7 +32,7 @@ import java.util.stream.Collectors;
  */
 public class Cookie implements Proto {
     @Getter
-    private final Map<CookieKey, String> map = new HashMap<>();
+    private final Map<CookieKey, String> map = new ConcurrentHashMap<>();
 
     public Cookie() {
     }
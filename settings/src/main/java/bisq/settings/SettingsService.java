@@ -34,6 +34,11 @@ public class SettingsService implements PersistenceClient<SettingsStore> {
         persistence = persistenceService.getOrCreatePersistence(this, persistableStore);
     }
 
+    @Override
+    public Priority getReadPriority() {
+        return Priority.HIGH;
+    }
+
     public boolean showAgain(String key) {
         return !persistableStore.getDontShowAgainMap().containsKey(key) ||
                 !persistableStore.getDontShowAgainMap().get(key);
@@ -27,9 +27,10 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -37,14 +38,14 @@ import java.util.stream.Collectors;
 public class SettingsStore implements PersistableStore<SettingsStore> {
     private final Cookie cookie;
     private DisplaySettings displaySettings = new DisplaySettings();
-    private final Map<String, Boolean> dontShowAgainMap = new HashMap<>();
+    private final Map<String, Boolean> dontShowAgainMap = new ConcurrentHashMap<>();
     private final List<Market> markets;
     @Setter
     private Market selectedMarket;
 
     public SettingsStore() {
         cookie = new Cookie();
-        markets = MarketRepository.getMajorMarkets();
+        markets = new CopyOnWriteArrayList<>(MarketRepository.getMajorMarkets());
         selectedMarket = MarketRepository.getDefault();
     }
 
@@ -56,7 +57,7 @@ public class SettingsStore implements PersistableStore<SettingsStore> {
         this.cookie = cookie;
         this.displaySettings = displaySettings;
         this.dontShowAgainMap.putAll(dontShowAgainMap);
-        this.markets = markets;
+        this.markets = new CopyOnWriteArrayList<>(markets);
         this.selectedMarket = selectedMarket;
     }
 
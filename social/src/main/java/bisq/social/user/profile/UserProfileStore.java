@@ -27,9 +27,9 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -42,7 +42,7 @@ public class UserProfileStore implements PersistableStore<UserProfileStore> {
     @Getter
     private final ObservableSet<UserProfile> userProfiles;
     @Getter
-    private final Map<String, Entitlement.ProofOfBurnProof> verifiedProofOfBurnProofs = new HashMap<>();
+    private final Map<String, Entitlement.ProofOfBurnProof> verifiedProofOfBurnProofs = new ConcurrentHashMap<>();
 
     public UserProfileStore() {
         userProfiles = new ObservableSet<>();